@@ -3,10 +3,12 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.security.SecureRandom;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.KeyedHash;
 
 /**
  * Class representing the ASN.1 OBJECT IDENTIFIER type.
@@ -437,6 +439,23 @@ public ASN1ObjectIdentifier intern()
 
     private static final ConcurrentMap<OidHandle, ASN1ObjectIdentifier> pool = new ConcurrentHashMap<OidHandle, ASN1ObjectIdentifier>();
 
+    /*
+     * The pool is filled from parsed data, so its hash is keyed to stop crafted OIDs piling up in
+     * one bucket. The key is made on first use of the pool, not when the class is loaded.
+     */
+    private static class PoolKey
+    {
+        static final long k0, k1;
+
+        static
+        {
+            SecureRandom random = new SecureRandom();
+
+            k0 = random.nextLong();
+            k1 = random.nextLong();
+        }
+    }
+
     private static class OidHandle
     {
         private final int key;
@@ -444,7 +463,9 @@ public ASN1ObjectIdentifier intern()
 
         OidHandle(byte[] enc)
         {
-            this.key = Arrays.hashCode(enc);
+            long h = KeyedHash.sipHash24(PoolKey.k0, PoolKey.k1, enc, 0, enc.length);
+
+            this.key = (int)(h ^ (h >>> 32));
             this.enc = enc;
         }
 
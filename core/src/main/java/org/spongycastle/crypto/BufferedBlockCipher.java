@@ -225,6 +225,15 @@ public int processBytes(
             len -= gapLen;
             inOff += gapLen;
 
+            if (cipher instanceof MultiBlockCipher && len > buf.length)
+            {
+                int bulkLen = ((MultiBlockCipher)cipher).processBlocks(in, inOff, (len - 1) / blockSize, out, outOff + resultLen);
+
+                resultLen += bulkLen;
+                len -= bulkLen;
+                inOff += bulkLen;
+            }
+
             while (len > buf.length)
             {
                 resultLen += cipher.processBlock(in, inOff, out, outOff + resultLen);
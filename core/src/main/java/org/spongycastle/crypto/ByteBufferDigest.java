@@ -0,0 +1,22 @@
+package org.spongycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Digests which are able to take their input directly from a ByteBuffer, including direct buffers,
+ * implement this.
+ * <p>
+ * Use {@link org.spongycastle.crypto.util.ByteBuffers} to feed a ByteBuffer to any digest.
+ * </p>
+ */
+public interface ByteBufferDigest
+    extends Digest
+{
+    /**
+     * update the message digest with the remaining bytes in the buffer. On return the buffer's
+     * position will be equal to its limit.
+     *
+     * @param in the buffer containing the data.
+     */
+    public void update(ByteBuffer in);
+}
@@ -0,0 +1,24 @@
+package org.spongycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * MACs which are able to take their input directly from a ByteBuffer, including direct buffers,
+ * implement this.
+ * <p>
+ * Use {@link org.spongycastle.crypto.util.ByteBuffers} to feed a ByteBuffer to any MAC.
+ * </p>
+ */
+public interface ByteBufferMac
+    extends Mac
+{
+    /**
+     * add the remaining bytes in the buffer to the mac. On return the buffer's position will be
+     * equal to its limit.
+     *
+     * @param in the buffer containing the data.
+     * @exception IllegalStateException if the MAC is not initialised.
+     */
+    public void update(ByteBuffer in)
+        throws IllegalStateException;
+}
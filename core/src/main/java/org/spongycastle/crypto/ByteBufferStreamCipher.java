@@ -0,0 +1,27 @@
+package org.spongycastle.crypto;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Stream ciphers which are able to process ByteBuffers, including direct buffers, without going
+ * through a temporary byte array allocated by the caller implement this.
+ * <p>
+ * Use {@link org.spongycastle.crypto.util.ByteBuffers} to pass ByteBuffers to any stream cipher.
+ * </p>
+ */
+public interface ByteBufferStreamCipher
+    extends StreamCipher
+{
+    /**
+     * process the remaining bytes in the in buffer, putting the result into out. On return the
+     * position of in will be equal to its limit and the position of out will have advanced by the
+     * number of bytes processed.
+     *
+     * @param in the input buffer.
+     * @param out the output buffer.
+     * @return the number of bytes produced - should always be the number of bytes processed.
+     * @exception DataLengthException if the output buffer is too small.
+     */
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException;
+}
@@ -0,0 +1,33 @@
+package org.spongycastle.crypto;
+
+/**
+ * Block ciphers which are able to process several consecutive blocks in a single call implement this.
+ * <p>
+ * Modes and buffering classes check for this interface and, where it is present, pass runs of
+ * whole blocks through in one call rather than one block at a time.
+ * </p>
+ */
+public interface MultiBlockCipher
+    extends BlockCipher
+{
+    /**
+     * Process blockCount blocks of input from the array in and write them to
+     * the out array.
+     * <p>
+     * The in and out arrays may be the same array provided outOff is not greater
+     * than inOff.
+     * </p>
+     *
+     * @param in the array containing the input data.
+     * @param inOff offset into the in array the data starts at.
+     * @param blockCount the number of blocks to process.
+     * @param out the array the output data will be copied into.
+     * @param outOff the offset into the out array the output will start at.
+     * @exception DataLengthException if there isn't enough data in in, or
+     * space in out.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     * @return the number of bytes processed and produced.
+     */
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException;
+}
@@ -0,0 +1,23 @@
+package org.spongycastle.crypto;
+
+/**
+ * The interface for agreements whose shared secret is a byte string, rather than a number, such as
+ * X25519.
+ */
+public interface RawAgreement
+{
+    /**
+     * initialise the agreement engine.
+     */
+    void init(CipherParameters parameters);
+
+    /**
+     * return the size of the shared secret in bytes.
+     */
+    int getAgreementSize();
+
+    /**
+     * calculate the shared secret with the other party's public key, writing it to buf at off.
+     */
+    void calculateAgreement(CipherParameters publicKey, byte[] buf, int off);
+}
@@ -0,0 +1,30 @@
+package org.spongycastle.crypto.agreement;
+
+import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.RawAgreement;
+import org.spongycastle.crypto.params.X25519PrivateKeyParameters;
+import org.spongycastle.crypto.params.X25519PublicKeyParameters;
+
+/**
+ * X25519 key agreement, as described in RFC 7748.
+ */
+public final class X25519Agreement
+    implements RawAgreement
+{
+    private X25519PrivateKeyParameters privateKey;
+
+    public void init(CipherParameters parameters)
+    {
+        this.privateKey = (X25519PrivateKeyParameters)parameters;
+    }
+
+    public int getAgreementSize()
+    {
+        return X25519PrivateKeyParameters.SECRET_SIZE;
+    }
+
+    public void calculateAgreement(CipherParameters publicKey, byte[] buf, int off)
+    {
+        privateKey.generateSecret((X25519PublicKeyParameters)publicKey, buf, off);
+    }
+}
@@ -0,0 +1,184 @@
+package org.spongycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.ExtendedDigest;
+import org.spongycastle.crypto.util.ParallelTasks;
+import org.spongycastle.util.Arrays;
+
+/**
+ * Base for the BLAKE2 parallel modes: the input is striped block by block over a row of leaf
+ * nodes and the root node hashes the concatenated leaf digests.
+ */
+abstract class Blake2ParallelDigest
+    implements ExtendedDigest
+{
+    /**
+     * The smallest update worth handing the leaves to an executor.
+     */
+    private static final int MIN_PARALLEL_BYTES = 64 * 1024;
+
+    private final Digest[] leaves;
+    private final Digest root;
+    private final int blockLength;
+    private final Executor executor;
+
+    private final byte[] buf;
+    private final byte[] leafOut;
+    private int bufPos;
+
+    Blake2ParallelDigest(Digest[] leaves, Digest root, int blockLength, Executor executor)
+    {
+        this.leaves = leaves;
+        this.root = root;
+        this.blockLength = blockLength;
+        this.executor = executor;
+        this.buf = new byte[leaves.length * blockLength];
+        this.leafOut = new byte[leaves[0].getDigestSize()];
+    }
+
+    Blake2ParallelDigest(Blake2ParallelDigest digest)
+    {
+        this.leaves = new Digest[digest.leaves.length];
+        for (int i = 0; i < leaves.length; i++)
+        {
+            this.leaves[i] = digest.copyNode(digest.leaves[i]);
+        }
+        this.root = digest.copyNode(digest.root);
+        this.blockLength = digest.blockLength;
+        this.executor = digest.executor;
+        this.buf = Arrays.clone(digest.buf);
+        this.leafOut = new byte[digest.leafOut.length];
+        this.bufPos = digest.bufPos;
+    }
+
+    /**
+     * Return an independent copy of one of the leaf or root nodes.
+     */
+    abstract Digest copyNode(Digest node);
+
+    public int getDigestSize()
+    {
+        return root.getDigestSize();
+    }
+
+    public int getByteLength()
+    {
+        return blockLength;
+    }
+
+    public void update(byte in)
+    {
+        if (bufPos == buf.length)
+        {
+            processStripes(buf, 0, 1);
+            bufPos = 0;
+        }
+
+        buf[bufPos++] = in;
+    }
+
+    public void update(byte[] in, int inOff, int len)
+    {
+        if (bufPos != 0)
+        {
+            int fill = buf.length - bufPos;
+            if (len < fill)
+            {
+                System.arraycopy(in, inOff, buf, bufPos, len);
+                bufPos += len;
+                return;
+            }
+
+            System.arraycopy(in, inOff, buf, bufPos, fill);
+            processStripes(buf, 0, 1);
+            bufPos = 0;
+            inOff += fill;
+            len -= fill;
+        }
+
+        int stripes = len / buf.length;
+        if (stripes > 0)
+        {
+            processStripes(in, inOff, stripes);
+            inOff += stripes * buf.length;
+            len -= stripes * buf.length;
+        }
+
+        System.arraycopy(in, inOff, buf, 0, len);
+        bufPos = len;
+    }
+
+    public int doFinal(byte[] out, int outOff)
+    {
+        for (int i = 0; i < leaves.length; i++)
+        {
+            int start = i * blockLength;
+            if (bufPos > start)
+            {
+                leaves[i].update(buf, start, Math.min(blockLength, bufPos - start));
+            }
+        }
+
+        for (int i = 0; i < leaves.length; i++)
+        {
+            leaves[i].doFinal(leafOut, 0);
+            root.update(leafOut, 0, leafOut.length);
+        }
+
+        int len = root.doFinal(out, outOff);
+
+        reset();
+
+        return len;
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < leaves.length; i++)
+        {
+            leaves[i].reset();
+        }
+        root.reset();
+
+        Arrays.fill(buf, (byte)0);
+        Arrays.fill(leafOut, (byte)0);
+        bufPos = 0;
+    }
+
+    private void processStripes(final byte[] in, final int inOff, final int stripes)
+    {
+        if (executor == null || stripes * buf.length < MIN_PARALLEL_BYTES)
+        {
+            for (int s = 0; s < stripes; s++)
+            {
+                int off = inOff + s * buf.length;
+                for (int i = 0; i < leaves.length; i++)
+                {
+                    leaves[i].update(in, off + i * blockLength, blockLength);
+                }
+            }
+            return;
+        }
+
+        ParallelTasks.run(executor, leaves.length, new ParallelTasks.Task()
+        {
+            public void run(int leaf)
+            {
+                processLeaf(leaf, in, inOff, stripes);
+            }
+        });
+    }
+
+    private void processLeaf(int leaf, byte[] in, int inOff, int stripes)
+    {
+        Digest d = leaves[leaf];
+        int off = inOff + leaf * blockLength;
+        for (int s = 0; s < stripes; s++)
+        {
+            d.update(in, off, blockLength);
+            off += buf.length;
+        }
+    }
+}
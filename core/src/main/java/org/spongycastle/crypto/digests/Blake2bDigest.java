@@ -8,7 +8,8 @@
  Reference Implementation and Description can be found at: https://blake2.net/      
  Internet Draft: https://tools.ietf.org/html/draft-saarinen-blake2-02
 
- This implementation does not support the Tree Hashing Mode. 
+ Tree hashing parameters can be set with the tree constructor, see
+ Blake2bpDigest for the standard 4-way parallel mode built on them.
  
    For unkeyed hashing, developers adapting BLAKE2 to ASN.1 - based
    message formats SHOULD use the OID tree at x = 1.3.6.1.4.1.1722.12.2.
@@ -25,6 +26,7 @@
 
 import org.spongycastle.crypto.ExtendedDigest;
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Pack;
 
 
 /**
@@ -81,14 +83,14 @@
 	// the key
 	private byte[] key = null;
 
-	// Tree hashing parameters:
-	// Because this class does not implement the Tree Hashing Mode,
-	// these parameters can be treated as constants (see init() function)
-	/*
-	 * private int fanout = 1; // 0-255 private int depth = 1; // 1 - 255
-	 * private int leafLength= 0; private long nodeOffset = 0L; private int
-	 * nodeDepth = 0; private int innerHashLength = 0;
-	 */
+	// Tree hashing parameters, the defaults are for sequential mode:
+	private int fanout = 1; // 0 - 255
+	private int depth = 1; // 1 - 255
+	private int leafLength = 0; // 0 - 2^32 - 1, treated as unsigned
+	private long nodeOffset = 0L;
+	private int nodeDepth = 0; // 0 - 255
+	private int innerHashLength = 0; // 0 - 64
+	private boolean lastNode = false;
 
 	// whenever this buffer overflows, it will be processed
 	// in the compress() function.
@@ -97,17 +99,15 @@
 	// Position of last inserted byte:
 	private int bufferPos = 0;// a value from 0 up to 128
 
-	private long[] internalState = new long[16]; // In the Blake2b paper it is
-													// called: v
 	private long[] chainValue = null; // state vector, in the Blake2b paper it
 										// is called: h
 
 	private long t0 = 0L; // holds last significant bits, counter (counts bytes)
 	private long t1 = 0L; // counter: Length up to 2^128 are supported
 	private long f0 = 0L; // finalization flag, for last block: ~0L
+	private long f1 = 0L; // finalization flag, for last node: ~0L
 
-	// For Tree Hashing Mode, not used here:
-	// private long f1 = 0L; // finalization flag, for last node: ~0L
+	private final long[] m = new long[16]; // message words for compress()
 
 	public Blake2bDigest()
 	{
@@ -127,6 +127,14 @@ public Blake2bDigest(Blake2bDigest digest)
 		this.t0 = digest.t0;
 		this.t1 = digest.t1;
 		this.f0 = digest.f0;
+		this.f1 = digest.f1;
+		this.fanout = digest.fanout;
+		this.depth = digest.depth;
+		this.leafLength = digest.leafLength;
+		this.nodeOffset = digest.nodeOffset;
+		this.nodeDepth = digest.nodeDepth;
+		this.innerHashLength = digest.innerHashLength;
+		this.lastNode = digest.lastNode;
 	}
 
 	/**
@@ -237,6 +245,59 @@ public Blake2bDigest(byte[] key, int digestLength, byte[] salt, byte[] personali
 		init();
 	}
 
+	/**
+	 * Blake2b as a node of a hash tree, with the BLAKE2 tree hashing parameters.
+	 * 
+	 * @param key A key up to 64 bytes or null
+	 * @param digestLength from 1 up to 64 bytes
+	 * @param salt 16 bytes or null
+	 * @param personalization 16 bytes or null
+	 * @param fanout 0 (unlimited) up to 255
+	 * @param depth maximal depth of the tree, 1 up to 255 (255 for unlimited)
+	 * @param leafLength maximal byte length of a leaf, 0 for unlimited
+	 * @param nodeOffset offset of the node in its level, starting at 0
+	 * @param nodeDepth depth of the node, 0 for the leaves
+	 * @param innerHashLength digest length of the inner nodes, 0 up to 64 bytes
+	 * @param lastNode true if this is the last (rightmost) node of its level
+	 */
+	public Blake2bDigest(byte[] key, int digestLength, byte[] salt, byte[] personalization, int fanout,
+		int depth, int leafLength, long nodeOffset, int nodeDepth, int innerHashLength, boolean lastNode)
+	{
+		this(key, digestLength, salt, personalization);
+
+		if (fanout < 0 || fanout > 255)
+		{
+			throw new IllegalArgumentException("Invalid fanout (required: 0 - 255)");
+		}
+		if (depth < 1 || depth > 255)
+		{
+			throw new IllegalArgumentException("Invalid depth (required: 1 - 255)");
+		}
+		if (nodeOffset < 0)
+		{
+			throw new IllegalArgumentException("Invalid node offset (required: >= 0)");
+		}
+		if (nodeDepth < 0 || nodeDepth > 255)
+		{
+			throw new IllegalArgumentException("Invalid node depth (required: 0 - 255)");
+		}
+		if (innerHashLength < 0 || innerHashLength > 64)
+		{
+			throw new IllegalArgumentException("Invalid inner hash length (required: 0 - 64)");
+		}
+
+		this.fanout = fanout;
+		this.depth = depth;
+		this.leafLength = leafLength;
+		this.nodeOffset = nodeOffset;
+		this.nodeDepth = nodeDepth;
+		this.innerHashLength = innerHashLength;
+		this.lastNode = lastNode;
+
+		this.chainValue = null;
+		init();
+	}
+
 	// initialize chainValue
 	private void init()
 	{
@@ -246,14 +307,10 @@ private void init()
 			chainValue = new long[8];
 
 			chainValue[0] = blake2b_IV[0]
-					^ (digestLength | (keyLength << 8) | 0x1010000);
-			// 0x1010000 = ((fanout << 16) | (depth << 24) | (leafLength <<
-			// 32));
-			// with fanout = 1; depth = 0; leafLength = 0;
-			chainValue[1] = blake2b_IV[1];// ^ nodeOffset; with nodeOffset = 0;
-			chainValue[2] = blake2b_IV[2];// ^ ( nodeDepth | (innerHashLength <<
-											// 8) );
-			// with nodeDepth = 0; innerHashLength = 0;
+					^ (digestLength | (keyLength << 8) | (fanout << 16) | ((long)depth << 24)
+					| ((leafLength & 0xFFFFFFFFL) << 32));
+			chainValue[1] = blake2b_IV[1] ^ nodeOffset;
+			chainValue[2] = blake2b_IV[2] ^ (nodeDepth | (innerHashLength << 8));
 
 			chainValue[3] = blake2b_IV[3];
 
@@ -275,17 +332,6 @@ private void init()
 		}
 	}
 
-	private void initializeInternalState()
-	{
-		// initialize v:
-		System.arraycopy(chainValue, 0, internalState, 0, chainValue.length);
-		System.arraycopy(blake2b_IV, 0, internalState, chainValue.length, 4);
-		internalState[12] = t0 ^ blake2b_IV[4];
-		internalState[13] = t1 ^ blake2b_IV[5];
-		internalState[14] = f0 ^ blake2b_IV[6];
-		internalState[15] = blake2b_IV[7];// ^ f1 with f1 = 0
-	}
-
     /**
      * update the message digest with a single byte.
      *
@@ -388,6 +434,10 @@ public int doFinal(byte[] out, int outOffset)
 	{
 
 		f0 = 0xFFFFFFFFFFFFFFFFL;
+		if (lastNode)
+		{
+			f1 = 0xFFFFFFFFFFFFFFFFL;
+		}
 		t0 += bufferPos;
 		// bufferPos may be < 128, so (t0 == 0) does not work
 		// for 2^64 < message length > 2^64 - 127
@@ -397,7 +447,7 @@ public int doFinal(byte[] out, int outOffset)
 		}
 		compress(buffer, 0);
 		Arrays.fill(buffer, (byte) 0);// Holds eventually the key if input is null
-		Arrays.fill(internalState, 0L);
+		Arrays.fill(m, 0L);
 
 		for (int i = 0; i < chainValue.length && (i * 8 < digestLength); i++)
 		{
@@ -429,6 +479,7 @@ public void reset()
 	{
 		bufferPos = 0;
 		f0 = 0L;
+		f1 = 0L;
 		t0 = 0L;
 		t1 = 0L;
 		chainValue = null;
@@ -443,62 +494,100 @@ public void reset()
 
 	private void compress(byte[] message, int messagePos)
 	{
-
-		initializeInternalState();
-
-		long[] m = new long[16];
+		long[] m = this.m;
 		for (int j = 0; j < 16; j++)
 		{
-			m[j] = bytes2long(message, messagePos + j * 8);
+			m[j] = Pack.littleEndianToLong(message, messagePos + j * 8);
 		}
 
+		// the working vector v is kept in locals for the rounds
+		long v0 = chainValue[0], v1 = chainValue[1], v2 = chainValue[2], v3 = chainValue[3];
+		long v4 = chainValue[4], v5 = chainValue[5], v6 = chainValue[6], v7 = chainValue[7];
+		long v8 = blake2b_IV[0], v9 = blake2b_IV[1], v10 = blake2b_IV[2], v11 = blake2b_IV[3];
+		long v12 = t0 ^ blake2b_IV[4], v13 = t1 ^ blake2b_IV[5], v14 = f0 ^ blake2b_IV[6], v15 = f1 ^ blake2b_IV[7];
+
 		for (int round = 0; round < rOUNDS; round++)
 		{
+			byte[] s = blake2b_sigma[round];
+
+			// G apply to columns of internalState:
+			v0 += v4 + m[s[0]];
+			v12 = rotr64(v12 ^ v0, 32);
+			v8 += v12;
+			v4 = rotr64(v4 ^ v8, 24);
+			v0 += v4 + m[s[1]];
+			v12 = rotr64(v12 ^ v0, 16);
+			v8 += v12;
+			v4 = rotr64(v4 ^ v8, 63);
+			v1 += v5 + m[s[2]];
+			v13 = rotr64(v13 ^ v1, 32);
+			v9 += v13;
+			v5 = rotr64(v5 ^ v9, 24);
+			v1 += v5 + m[s[3]];
+			v13 = rotr64(v13 ^ v1, 16);
+			v9 += v13;
+			v5 = rotr64(v5 ^ v9, 63);
+			v2 += v6 + m[s[4]];
+			v14 = rotr64(v14 ^ v2, 32);
+			v10 += v14;
+			v6 = rotr64(v6 ^ v10, 24);
+			v2 += v6 + m[s[5]];
+			v14 = rotr64(v14 ^ v2, 16);
+			v10 += v14;
+			v6 = rotr64(v6 ^ v10, 63);
+			v3 += v7 + m[s[6]];
+			v15 = rotr64(v15 ^ v3, 32);
+			v11 += v15;
+			v7 = rotr64(v7 ^ v11, 24);
+			v3 += v7 + m[s[7]];
+			v15 = rotr64(v15 ^ v3, 16);
+			v11 += v15;
+			v7 = rotr64(v7 ^ v11, 63);
 
-			// G apply to columns of internalState:m[blake2b_sigma[round][2 *
-			// blockPos]] /+1
-			G(m[blake2b_sigma[round][0]], m[blake2b_sigma[round][1]], 0, 4, 8,
-					12);
-			G(m[blake2b_sigma[round][2]], m[blake2b_sigma[round][3]], 1, 5, 9,
-					13);
-			G(m[blake2b_sigma[round][4]], m[blake2b_sigma[round][5]], 2, 6, 10,
-					14);
-			G(m[blake2b_sigma[round][6]], m[blake2b_sigma[round][7]], 3, 7, 11,
-					15);
 			// G apply to diagonals of internalState:
-			G(m[blake2b_sigma[round][8]], m[blake2b_sigma[round][9]], 0, 5, 10,
-					15);
-			G(m[blake2b_sigma[round][10]], m[blake2b_sigma[round][11]], 1, 6,
-					11, 12);
-			G(m[blake2b_sigma[round][12]], m[blake2b_sigma[round][13]], 2, 7,
-					8, 13);
-			G(m[blake2b_sigma[round][14]], m[blake2b_sigma[round][15]], 3, 4,
-					9, 14);
+			v0 += v5 + m[s[8]];
+			v15 = rotr64(v15 ^ v0, 32);
+			v10 += v15;
+			v5 = rotr64(v5 ^ v10, 24);
+			v0 += v5 + m[s[9]];
+			v15 = rotr64(v15 ^ v0, 16);
+			v10 += v15;
+			v5 = rotr64(v5 ^ v10, 63);
+			v1 += v6 + m[s[10]];
+			v12 = rotr64(v12 ^ v1, 32);
+			v11 += v12;
+			v6 = rotr64(v6 ^ v11, 24);
+			v1 += v6 + m[s[11]];
+			v12 = rotr64(v12 ^ v1, 16);
+			v11 += v12;
+			v6 = rotr64(v6 ^ v11, 63);
+			v2 += v7 + m[s[12]];
+			v13 = rotr64(v13 ^ v2, 32);
+			v8 += v13;
+			v7 = rotr64(v7 ^ v8, 24);
+			v2 += v7 + m[s[13]];
+			v13 = rotr64(v13 ^ v2, 16);
+			v8 += v13;
+			v7 = rotr64(v7 ^ v8, 63);
+			v3 += v4 + m[s[14]];
+			v14 = rotr64(v14 ^ v3, 32);
+			v9 += v14;
+			v4 = rotr64(v4 ^ v9, 24);
+			v3 += v4 + m[s[15]];
+			v14 = rotr64(v14 ^ v3, 16);
+			v9 += v14;
+			v4 = rotr64(v4 ^ v9, 63);
 		}
 
 		// update chain values:
-		for (int offset = 0; offset < chainValue.length; offset++)
-		{
-			chainValue[offset] = chainValue[offset] ^ internalState[offset]
-					^ internalState[offset + 8];
-		}
-	}
-
-	private void G(long m1, long m2, int posA, int posB, int posC, int posD)
-	{
-
-		internalState[posA] = internalState[posA] + internalState[posB] + m1;
-		internalState[posD] = rotr64(internalState[posD] ^ internalState[posA],
-				32);
-		internalState[posC] = internalState[posC] + internalState[posD];
-		internalState[posB] = rotr64(internalState[posB] ^ internalState[posC],
-				24); // replaces 25 of BLAKE
-		internalState[posA] = internalState[posA] + internalState[posB] + m2;
-		internalState[posD] = rotr64(internalState[posD] ^ internalState[posA],
-				16);
-		internalState[posC] = internalState[posC] + internalState[posD];
-		internalState[posB] = rotr64(internalState[posB] ^ internalState[posC],
-				63); // replaces 11 of BLAKE
+		chainValue[0] ^= v0 ^ v8;
+		chainValue[1] ^= v1 ^ v9;
+		chainValue[2] ^= v2 ^ v10;
+		chainValue[3] ^= v3 ^ v11;
+		chainValue[4] ^= v4 ^ v12;
+		chainValue[5] ^= v5 ^ v13;
+		chainValue[6] ^= v6 ^ v14;
+		chainValue[7] ^= v7 ^ v15;
 	}
 
 	private long rotr64(long x, int rot)
@@ -0,0 +1,74 @@
+package org.spongycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+
+import org.spongycastle.crypto.Digest;
+
+/**
+ * BLAKE2bp, the 4-way parallel mode of BLAKE2b.
+ * <p>
+ * The input is split into 128 byte blocks which are dealt round-robin to four BLAKE2b leaves,
+ * the 512 bit digests of the leaves are then hashed by a BLAKE2b root node. Given an Executor,
+ * large updates hash the four leaves concurrently.
+ * </p>
+ */
+public class Blake2bpDigest
+    extends Blake2ParallelDigest
+{
+    private static final int PARALLELISM = 4;
+    private static final int OUT_BYTES = 64;
+
+    /**
+     * BLAKE2bp-512, hashing the leaves on the calling thread.
+     */
+    public Blake2bpDigest()
+    {
+        this((Executor)null);
+    }
+
+    /**
+     * BLAKE2bp-512, with large updates split over an executor.
+     *
+     * @param executor the executor to hash the leaves on, null for the calling thread.
+     */
+    public Blake2bpDigest(Executor executor)
+    {
+        super(createLeaves(), createRoot(), 128, executor);
+    }
+
+    /**
+     * Copy constructor, the copy shares the executor of the original.
+     *
+     * @param digest the digest to copy the state from.
+     */
+    public Blake2bpDigest(Blake2bpDigest digest)
+    {
+        super(digest);
+    }
+
+    public String getAlgorithmName()
+    {
+        return "Blake2bp";
+    }
+
+    Digest copyNode(Digest node)
+    {
+        return new Blake2bDigest((Blake2bDigest)node);
+    }
+
+    private static Digest[] createLeaves()
+    {
+        Digest[] leaves = new Digest[PARALLELISM];
+        for (int i = 0; i < PARALLELISM; i++)
+        {
+            leaves[i] = new Blake2bDigest(null, OUT_BYTES, null, null, PARALLELISM, 2, 0, i, 0, OUT_BYTES,
+                i == PARALLELISM - 1);
+        }
+        return leaves;
+    }
+
+    private static Digest createRoot()
+    {
+        return new Blake2bDigest(null, OUT_BYTES, null, null, PARALLELISM, 2, 0, 0L, 1, OUT_BYTES, true);
+    }
+}
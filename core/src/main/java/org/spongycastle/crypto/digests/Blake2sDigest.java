@@ -0,0 +1,500 @@
+package org.spongycastle.crypto.digests;
+
+import org.spongycastle.crypto.ExtendedDigest;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Pack;
+
+/**
+ * Implementation of the cryptographic hash function BLAKE2s.
+ * <p>
+ * BLAKE2s is the 32-bit member of the BLAKE2 family, suited to smaller platforms, with digests
+ * of 1 up to 32 bytes. It offers a built-in keying mechanism and the BLAKE2 tree hashing
+ * parameters, see Blake2spDigest for the standard 8-way parallel mode built on them.
+ * </p>
+ * <p>
+ * BLAKE2s specification: https://blake2.net/blake2.pdf, RFC 7693
+ * </p>
+ */
+public class Blake2sDigest
+    implements ExtendedDigest
+{
+    private final static int[] blake2s_IV = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+        0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    private final static byte[][] blake2s_sigma = {
+        { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 },
+        { 14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3 },
+        { 11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4 },
+        { 7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8 },
+        { 9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13 },
+        { 2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9 },
+        { 12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11 },
+        { 13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10 },
+        { 6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5 },
+        { 10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0 }
+    };
+
+    private final static int ROUNDS = 10;
+    private final static int BLOCK_LENGTH_BYTES = 64;
+
+    private int digestLength = 32;
+    private int keyLength = 0;
+    private byte[] salt = null;
+    private byte[] personalization = null;
+    private byte[] key = null;
+
+    // tree hashing parameters, the defaults are for sequential mode
+    private int fanout = 1;
+    private int depth = 1;
+    private int leafLength = 0;
+    private long nodeOffset = 0L;
+    private int nodeDepth = 0;
+    private int innerHashLength = 0;
+    private boolean lastNode = false;
+
+    private byte[] buffer = null;
+    private int bufferPos = 0;
+
+    private int[] chainValue = null;
+    private final int[] m = new int[16];
+
+    private int t0 = 0; // byte counter, low word
+    private int t1 = 0; // byte counter, high word
+    private int f0 = 0; // finalization flag, for last block: ~0
+    private int f1 = 0; // finalization flag, for last node: ~0
+
+    /**
+     * BLAKE2s-256, unkeyed.
+     */
+    public Blake2sDigest()
+    {
+        this(256);
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param digest the digest to copy the state from.
+     */
+    public Blake2sDigest(Blake2sDigest digest)
+    {
+        this.bufferPos = digest.bufferPos;
+        this.buffer = Arrays.clone(digest.buffer);
+        this.keyLength = digest.keyLength;
+        this.key = Arrays.clone(digest.key);
+        this.digestLength = digest.digestLength;
+        this.chainValue = Arrays.clone(digest.chainValue);
+        this.personalization = Arrays.clone(digest.personalization);
+        this.salt = Arrays.clone(digest.salt);
+        this.t0 = digest.t0;
+        this.t1 = digest.t1;
+        this.f0 = digest.f0;
+        this.f1 = digest.f1;
+        this.fanout = digest.fanout;
+        this.depth = digest.depth;
+        this.leafLength = digest.leafLength;
+        this.nodeOffset = digest.nodeOffset;
+        this.nodeDepth = digest.nodeDepth;
+        this.innerHashLength = digest.innerHashLength;
+        this.lastNode = digest.lastNode;
+    }
+
+    /**
+     * Basic sized constructor - size in bits.
+     *
+     * @param digestSize size of the digest in bits, one of 128, 160, 224 or 256.
+     */
+    public Blake2sDigest(int digestSize)
+    {
+        if (digestSize != 128 && digestSize != 160 && digestSize != 224 && digestSize != 256)
+        {
+            throw new IllegalArgumentException("Blake2s digest restricted to one of [128, 160, 224, 256]");
+        }
+
+        this.buffer = new byte[BLOCK_LENGTH_BYTES];
+        this.digestLength = digestSize / 8;
+        init();
+    }
+
+    /**
+     * BLAKE2s-256 for authentication ("Prefix-MAC mode"). The key remains in use for further
+     * computations with this instance, it can be overwritten using the clearKey() method.
+     *
+     * @param key a key up to 32 bytes or null.
+     */
+    public Blake2sDigest(byte[] key)
+    {
+        this(key, 32, null, null);
+    }
+
+    /**
+     * BLAKE2s with key, required digest length (in bytes), salt and personalization.
+     *
+     * @param key a key up to 32 bytes or null.
+     * @param digestLength from 1 up to 32 bytes.
+     * @param salt 8 bytes or null.
+     * @param personalization 8 bytes or null.
+     */
+    public Blake2sDigest(byte[] key, int digestLength, byte[] salt, byte[] personalization)
+    {
+        this(key, digestLength, salt, personalization, 1, 1, 0, 0L, 0, 0, false);
+    }
+
+    /**
+     * BLAKE2s as a node of a hash tree, with the BLAKE2 tree hashing parameters.
+     *
+     * @param key a key up to 32 bytes or null.
+     * @param digestLength from 1 up to 32 bytes.
+     * @param salt 8 bytes or null.
+     * @param personalization 8 bytes or null.
+     * @param fanout 0 (unlimited) up to 255.
+     * @param depth maximal depth of the tree, 1 up to 255 (255 for unlimited).
+     * @param leafLength maximal byte length of a leaf, 0 for unlimited.
+     * @param nodeOffset offset of the node in its level, 0 up to 2^48 - 1.
+     * @param nodeDepth depth of the node, 0 for the leaves.
+     * @param innerHashLength digest length of the inner nodes, 0 up to 32 bytes.
+     * @param lastNode true if this is the last (rightmost) node of its level.
+     */
+    public Blake2sDigest(byte[] key, int digestLength, byte[] salt, byte[] personalization, int fanout,
+        int depth, int leafLength, long nodeOffset, int nodeDepth, int innerHashLength, boolean lastNode)
+    {
+        if (digestLength < 1 || digestLength > 32)
+        {
+            throw new IllegalArgumentException("Invalid digest length (required: 1 - 32)");
+        }
+        if (salt != null && salt.length != 8)
+        {
+            throw new IllegalArgumentException("salt length must be exactly 8 bytes");
+        }
+        if (personalization != null && personalization.length != 8)
+        {
+            throw new IllegalArgumentException("personalization length must be exactly 8 bytes");
+        }
+        if (key != null && key.length > 32)
+        {
+            throw new IllegalArgumentException("Keys > 32 are not supported");
+        }
+        if (fanout < 0 || fanout > 255)
+        {
+            throw new IllegalArgumentException("Invalid fanout (required: 0 - 255)");
+        }
+        if (depth < 1 || depth > 255)
+        {
+            throw new IllegalArgumentException("Invalid depth (required: 1 - 255)");
+        }
+        if (nodeOffset < 0 || nodeOffset > 0xFFFFFFFFFFFFL)
+        {
+            throw new IllegalArgumentException("Invalid node offset (required: 0 - 2^48 - 1)");
+        }
+        if (nodeDepth < 0 || nodeDepth > 255)
+        {
+            throw new IllegalArgumentException("Invalid node depth (required: 0 - 255)");
+        }
+        if (innerHashLength < 0 || innerHashLength > 32)
+        {
+            throw new IllegalArgumentException("Invalid inner hash length (required: 0 - 32)");
+        }
+
+        this.buffer = new byte[BLOCK_LENGTH_BYTES];
+        this.digestLength = digestLength;
+        this.salt = Arrays.clone(salt);
+        this.personalization = Arrays.clone(personalization);
+        this.fanout = fanout;
+        this.depth = depth;
+        this.leafLength = leafLength;
+        this.nodeOffset = nodeOffset;
+        this.nodeDepth = nodeDepth;
+        this.innerHashLength = innerHashLength;
+        this.lastNode = lastNode;
+
+        if (key != null)
+        {
+            this.key = Arrays.clone(key);
+            this.keyLength = key.length;
+            System.arraycopy(key, 0, buffer, 0, key.length);
+            this.bufferPos = BLOCK_LENGTH_BYTES; // zero padding
+        }
+
+        init();
+    }
+
+    private void init()
+    {
+        chainValue = new int[8];
+
+        chainValue[0] = blake2s_IV[0] ^ (digestLength | (keyLength << 8) | (fanout << 16) | (depth << 24));
+        chainValue[1] = blake2s_IV[1] ^ leafLength;
+        chainValue[2] = blake2s_IV[2] ^ (int)nodeOffset;
+        chainValue[3] = blake2s_IV[3] ^ ((int)(nodeOffset >>> 32) | (nodeDepth << 16) | (innerHashLength << 24));
+        chainValue[4] = blake2s_IV[4];
+        chainValue[5] = blake2s_IV[5];
+        if (salt != null)
+        {
+            chainValue[4] ^= Pack.littleEndianToInt(salt, 0);
+            chainValue[5] ^= Pack.littleEndianToInt(salt, 4);
+        }
+        chainValue[6] = blake2s_IV[6];
+        chainValue[7] = blake2s_IV[7];
+        if (personalization != null)
+        {
+            chainValue[6] ^= Pack.littleEndianToInt(personalization, 0);
+            chainValue[7] ^= Pack.littleEndianToInt(personalization, 4);
+        }
+    }
+
+    public String getAlgorithmName()
+    {
+        return "Blake2s";
+    }
+
+    public int getDigestSize()
+    {
+        return digestLength;
+    }
+
+    public int getByteLength()
+    {
+        return BLOCK_LENGTH_BYTES;
+    }
+
+    public void update(byte b)
+    {
+        if (bufferPos == BLOCK_LENGTH_BYTES)
+        {
+            incrementCounter(BLOCK_LENGTH_BYTES);
+            compress(buffer, 0);
+            Arrays.fill(buffer, (byte)0);
+            bufferPos = 0;
+        }
+
+        buffer[bufferPos++] = b;
+    }
+
+    public void update(byte[] message, int offset, int len)
+    {
+        if (message == null || len == 0)
+        {
+            return;
+        }
+
+        if (bufferPos != 0)
+        {
+            int remainingLength = BLOCK_LENGTH_BYTES - bufferPos;
+            if (remainingLength >= len)
+            {
+                System.arraycopy(message, offset, buffer, bufferPos, len);
+                bufferPos += len;
+                return;
+            }
+
+            // full buffer + at least 1 byte
+            System.arraycopy(message, offset, buffer, bufferPos, remainingLength);
+            incrementCounter(BLOCK_LENGTH_BYTES);
+            compress(buffer, 0);
+            Arrays.fill(buffer, (byte)0);
+            bufferPos = 0;
+            offset += remainingLength;
+            len -= remainingLength;
+        }
+
+        // process all blocks except the last one, which might be the final block
+        while (len > BLOCK_LENGTH_BYTES)
+        {
+            incrementCounter(BLOCK_LENGTH_BYTES);
+            compress(message, offset);
+            offset += BLOCK_LENGTH_BYTES;
+            len -= BLOCK_LENGTH_BYTES;
+        }
+
+        System.arraycopy(message, offset, buffer, 0, len);
+        bufferPos = len;
+    }
+
+    /**
+     * Close the digest, producing the final digest value. The doFinal call leaves the digest
+     * reset. Key, salt and personal string remain.
+     *
+     * @param out the array the digest is to be copied into.
+     * @param outOffset the offset into the out array the digest is to start at.
+     */
+    public int doFinal(byte[] out, int outOffset)
+    {
+        f0 = 0xFFFFFFFF;
+        if (lastNode)
+        {
+            f1 = 0xFFFFFFFF;
+        }
+        incrementCounter(bufferPos);
+        compress(buffer, 0);
+        Arrays.fill(buffer, (byte)0);
+        Arrays.fill(m, 0);
+
+        int full = digestLength >>> 2, partial = digestLength & 3;
+        for (int i = 0; i < full; i++)
+        {
+            Pack.intToLittleEndian(chainValue[i], out, outOffset + i * 4);
+        }
+        if (partial > 0)
+        {
+            byte[] bytes = Pack.intToLittleEndian(chainValue[full]);
+            System.arraycopy(bytes, 0, out, outOffset + full * 4, partial);
+        }
+
+        Arrays.fill(chainValue, 0);
+
+        reset();
+
+        return digestLength;
+    }
+
+    /**
+     * Reset the digest back to its initial state. The key, the salt and the personal string
+     * remain for further computations.
+     */
+    public void reset()
+    {
+        bufferPos = 0;
+        f0 = 0;
+        f1 = 0;
+        t0 = 0;
+        t1 = 0;
+        Arrays.fill(buffer, (byte)0);
+        if (key != null)
+        {
+            System.arraycopy(key, 0, buffer, 0, key.length);
+            bufferPos = BLOCK_LENGTH_BYTES; // zero padding
+        }
+        init();
+    }
+
+    /**
+     * Overwrite the key if it is no longer used (zeroization).
+     */
+    public void clearKey()
+    {
+        if (key != null)
+        {
+            Arrays.fill(key, (byte)0);
+            Arrays.fill(buffer, (byte)0);
+        }
+    }
+
+    /**
+     * Overwrite the salt (pepper) if it is secret and no longer used (zeroization).
+     */
+    public void clearSalt()
+    {
+        if (salt != null)
+        {
+            Arrays.fill(salt, (byte)0);
+        }
+    }
+
+    private void incrementCounter(int count)
+    {
+        t0 += count;
+        if ((t0 & 0xFFFFFFFFL) < (count & 0xFFFFFFFFL))
+        {
+            t1++;
+        }
+    }
+
+    private void compress(byte[] message, int messagePos)
+    {
+        int[] m = this.m;
+        Pack.littleEndianToInt(message, messagePos, m);
+
+        int v0 = chainValue[0], v1 = chainValue[1], v2 = chainValue[2], v3 = chainValue[3];
+        int v4 = chainValue[4], v5 = chainValue[5], v6 = chainValue[6], v7 = chainValue[7];
+        int v8 = blake2s_IV[0], v9 = blake2s_IV[1], v10 = blake2s_IV[2], v11 = blake2s_IV[3];
+        int v12 = t0 ^ blake2s_IV[4], v13 = t1 ^ blake2s_IV[5], v14 = f0 ^ blake2s_IV[6], v15 = f1 ^ blake2s_IV[7];
+
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            byte[] s = blake2s_sigma[round];
+
+            // columns
+            v0 += v4 + m[s[0]];
+            v12 = rotr32(v12 ^ v0, 16);
+            v8 += v12;
+            v4 = rotr32(v4 ^ v8, 12);
+            v0 += v4 + m[s[1]];
+            v12 = rotr32(v12 ^ v0, 8);
+            v8 += v12;
+            v4 = rotr32(v4 ^ v8, 7);
+            v1 += v5 + m[s[2]];
+            v13 = rotr32(v13 ^ v1, 16);
+            v9 += v13;
+            v5 = rotr32(v5 ^ v9, 12);
+            v1 += v5 + m[s[3]];
+            v13 = rotr32(v13 ^ v1, 8);
+            v9 += v13;
+            v5 = rotr32(v5 ^ v9, 7);
+            v2 += v6 + m[s[4]];
+            v14 = rotr32(v14 ^ v2, 16);
+            v10 += v14;
+            v6 = rotr32(v6 ^ v10, 12);
+            v2 += v6 + m[s[5]];
+            v14 = rotr32(v14 ^ v2, 8);
+            v10 += v14;
+            v6 = rotr32(v6 ^ v10, 7);
+            v3 += v7 + m[s[6]];
+            v15 = rotr32(v15 ^ v3, 16);
+            v11 += v15;
+            v7 = rotr32(v7 ^ v11, 12);
+            v3 += v7 + m[s[7]];
+            v15 = rotr32(v15 ^ v3, 8);
+            v11 += v15;
+            v7 = rotr32(v7 ^ v11, 7);
+            // diagonals
+            v0 += v5 + m[s[8]];
+            v15 = rotr32(v15 ^ v0, 16);
+            v10 += v15;
+            v5 = rotr32(v5 ^ v10, 12);
+            v0 += v5 + m[s[9]];
+            v15 = rotr32(v15 ^ v0, 8);
+            v10 += v15;
+            v5 = rotr32(v5 ^ v10, 7);
+            v1 += v6 + m[s[10]];
+            v12 = rotr32(v12 ^ v1, 16);
+            v11 += v12;
+            v6 = rotr32(v6 ^ v11, 12);
+            v1 += v6 + m[s[11]];
+            v12 = rotr32(v12 ^ v1, 8);
+            v11 += v12;
+            v6 = rotr32(v6 ^ v11, 7);
+            v2 += v7 + m[s[12]];
+            v13 = rotr32(v13 ^ v2, 16);
+            v8 += v13;
+            v7 = rotr32(v7 ^ v8, 12);
+            v2 += v7 + m[s[13]];
+            v13 = rotr32(v13 ^ v2, 8);
+            v8 += v13;
+            v7 = rotr32(v7 ^ v8, 7);
+            v3 += v4 + m[s[14]];
+            v14 = rotr32(v14 ^ v3, 16);
+            v9 += v14;
+            v4 = rotr32(v4 ^ v9, 12);
+            v3 += v4 + m[s[15]];
+            v14 = rotr32(v14 ^ v3, 8);
+            v9 += v14;
+            v4 = rotr32(v4 ^ v9, 7);
+        }
+
+        chainValue[0] ^= v0 ^ v8;
+        chainValue[1] ^= v1 ^ v9;
+        chainValue[2] ^= v2 ^ v10;
+        chainValue[3] ^= v3 ^ v11;
+        chainValue[4] ^= v4 ^ v12;
+        chainValue[5] ^= v5 ^ v13;
+        chainValue[6] ^= v6 ^ v14;
+        chainValue[7] ^= v7 ^ v15;
+    }
+
+    private static int rotr32(int x, int rot)
+    {
+        return (x >>> rot) | (x << (32 - rot));
+    }
+}
@@ -0,0 +1,74 @@
+package org.spongycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+
+import org.spongycastle.crypto.Digest;
+
+/**
+ * BLAKE2sp, the 8-way parallel mode of BLAKE2s.
+ * <p>
+ * The input is split into 64 byte blocks which are dealt round-robin to eight BLAKE2s leaves,
+ * the 256 bit digests of the leaves are then hashed by a BLAKE2s root node. Given an Executor,
+ * large updates hash the eight leaves concurrently.
+ * </p>
+ */
+public class Blake2spDigest
+    extends Blake2ParallelDigest
+{
+    private static final int PARALLELISM = 8;
+    private static final int OUT_BYTES = 32;
+
+    /**
+     * BLAKE2sp-256, hashing the leaves on the calling thread.
+     */
+    public Blake2spDigest()
+    {
+        this((Executor)null);
+    }
+
+    /**
+     * BLAKE2sp-256, with large updates split over an executor.
+     *
+     * @param executor the executor to hash the leaves on, null for the calling thread.
+     */
+    public Blake2spDigest(Executor executor)
+    {
+        super(createLeaves(), createRoot(), 64, executor);
+    }
+
+    /**
+     * Copy constructor, the copy shares the executor of the original.
+     *
+     * @param digest the digest to copy the state from.
+     */
+    public Blake2spDigest(Blake2spDigest digest)
+    {
+        super(digest);
+    }
+
+    public String getAlgorithmName()
+    {
+        return "Blake2sp";
+    }
+
+    Digest copyNode(Digest node)
+    {
+        return new Blake2sDigest((Blake2sDigest)node);
+    }
+
+    private static Digest[] createLeaves()
+    {
+        Digest[] leaves = new Digest[PARALLELISM];
+        for (int i = 0; i < PARALLELISM; i++)
+        {
+            leaves[i] = new Blake2sDigest(null, OUT_BYTES, null, null, PARALLELISM, 2, 0, i, 0, OUT_BYTES,
+                i == PARALLELISM - 1);
+        }
+        return leaves;
+    }
+
+    private static Digest createRoot()
+    {
+        return new Blake2sDigest(null, OUT_BYTES, null, null, PARALLELISM, 2, 0, 0L, 1, OUT_BYTES, true);
+    }
+}
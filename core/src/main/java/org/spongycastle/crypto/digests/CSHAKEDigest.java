@@ -0,0 +1,124 @@
+package org.spongycastle.crypto.digests;
+
+import org.spongycastle.util.Arrays;
+
+/**
+ * Customizable SHAKE function, cSHAKE, as described in NIST SP 800-185.
+ * <p>
+ * With an empty function name and customization string cSHAKE is the same as SHAKE.
+ * </p>
+ */
+public class CSHAKEDigest
+    extends SHAKEDigest
+{
+    private static final byte[] padding = new byte[100];
+
+    private final byte[] diff;
+
+    /**
+     * Base constructor.
+     *
+     * @param bitLength security strength (in bits) of the underlying SHAKE function, 128 or 256.
+     * @param N the function name string, reserved for functions defined by NIST, may be null.
+     * @param S the customization string, may be null.
+     */
+    public CSHAKEDigest(int bitLength, byte[] N, byte[] S)
+    {
+        super(bitLength);
+
+        if ((N == null || N.length == 0) && (S == null || S.length == 0))
+        {
+            diff = null;
+        }
+        else
+        {
+            diff = Arrays.concatenate(XofUtils.leftEncode(rate / 8), XofUtils.encodeString(N), XofUtils.encodeString(S));
+            diffPadAndAbsorb();
+        }
+    }
+
+    public CSHAKEDigest(CSHAKEDigest source)
+    {
+        super(source);
+
+        this.diff = Arrays.clone(source.diff);
+    }
+
+    public String getAlgorithmName()
+    {
+        return "CSHAKE" + fixedOutputLength;
+    }
+
+    public int doOutput(byte[] out, int outOff, int outLen)
+    {
+        if (diff == null)
+        {
+            return super.doOutput(out, outOff, outLen);
+        }
+
+        if (!squeezing)
+        {
+            absorb(new byte[]{ 0x00 }, 0, 2);
+        }
+
+        squeeze(out, outOff, ((long)outLen) * 8);
+
+        return outLen;
+    }
+
+    protected int doFinal(byte[] out, int outOff, int outLen, byte partialByte, int partialBits)
+    {
+        if (diff == null)
+        {
+            return super.doFinal(out, outOff, outLen, partialByte, partialBits);
+        }
+
+        if (partialBits < 0 || partialBits > 7)
+        {
+            throw new IllegalArgumentException("'partialBits' must be in the range [0,7]");
+        }
+
+        // the cSHAKE suffix is two zero bits
+        int finalBits = partialBits + 2;
+        oneByte[0] = (byte)(partialByte & ((1 << partialBits) - 1));
+        if (finalBits >= 8)
+        {
+            absorb(oneByte, 0, 8);
+            oneByte[0] = 0;
+            finalBits -= 8;
+        }
+        absorb(oneByte, 0, finalBits);
+
+        squeeze(out, outOff, ((long)outLen) * 8);
+
+        reset();
+
+        return outLen;
+    }
+
+    public void reset()
+    {
+        super.reset();
+
+        if (diff != null)
+        {
+            diffPadAndAbsorb();
+        }
+    }
+
+    // bytepad(encode_string(N) || encode_string(S), rate) - the left_encode of the rate is already in diff
+    private void diffPadAndAbsorb()
+    {
+        int blockSize = rate / 8;
+
+        absorb(diff, 0, diff.length * 8L);
+
+        int required = (blockSize - (diff.length % blockSize)) % blockSize;
+        while (required > padding.length)
+        {
+            absorb(padding, 0, padding.length * 8L);
+            required -= padding.length;
+        }
+        absorb(padding, 0, required * 8L);
+    }
+}
@@ -1,5 +1,8 @@
 package org.spongycastle.crypto.digests;
 
+import java.nio.ByteBuffer;
+
+import org.spongycastle.crypto.ByteBufferDigest;
 import org.spongycastle.crypto.ExtendedDigest;
 import org.spongycastle.util.Memoable;
 import org.spongycastle.util.Pack;
@@ -9,7 +12,7 @@
  * "Handbook of Applied Cryptography", pages 344 - 347.
  */
 public abstract class GeneralDigest
-    implements ExtendedDigest, Memoable
+    implements ExtendedDigest, ByteBufferDigest, Memoable
 {
     private static final int BYTE_LENGTH = 64;
 
@@ -110,6 +113,44 @@ public void update(
         byteCount += len;
     }
 
+    public void update(
+        ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            update(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+            return;
+        }
+
+        //
+        // fill the current word
+        //
+        while (xBufOff != 0 && in.hasRemaining())
+        {
+            update(in.get());
+        }
+
+        //
+        // process whole words, xBuf is empty so can be used to stage them.
+        //
+        int words = in.remaining() >>> 2;
+        for (int i = 0; i < words; i++)
+        {
+            in.get(xBuf, 0, 4);
+            processWord(xBuf, 0);
+        }
+        byteCount += words * 4L;
+
+        //
+        // load in the remainder.
+        //
+        while (in.hasRemaining())
+        {
+            update(in.get());
+        }
+    }
+
     public void finish()
     {
         long    bitLength = (byteCount << 3);
@@ -1,7 +1,11 @@
 package org.spongycastle.crypto.digests;
 
+import java.nio.ByteBuffer;
+
+import org.spongycastle.crypto.ByteBufferDigest;
 import org.spongycastle.crypto.ExtendedDigest;
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Pack;
 
 /**
  * implementation of Keccak based on following KeccakNISTInterface.c from http://keccak.noekeon.org/
@@ -9,12 +13,10 @@
  * Following the naming conventions used in the C source code to enable easy review of the implementation.
  */
 public class KeccakDigest
-    implements ExtendedDigest
+    implements ExtendedDigest, ByteBufferDigest
 {
     private static long[] KeccakRoundConstants = keccakInitializeRoundConstants();
 
-    private static int[] KeccakRhoOffsets = keccakInitializeRhoOffsets();
-
     private static long[] keccakInitializeRoundConstants()
     {
         long[] keccakRoundConstants = new long[24];
@@ -54,34 +56,13 @@ private static boolean LFSR86540(byte[] LFSR)
         return result;
     }
 
-    private static int[] keccakInitializeRhoOffsets()
-    {
-        int[] keccakRhoOffsets = new int[25];
-        int x, y, t, newX, newY;
-
-        keccakRhoOffsets[(((0) % 5) + 5 * ((0) % 5))] = 0;
-        x = 1;
-        y = 0;
-        for (t = 0; t < 24; t++)
-        {
-            keccakRhoOffsets[(((x) % 5) + 5 * ((y) % 5))] = ((t + 1) * (t + 2) / 2) % 64;
-            newX = (0 * x + 1 * y) % 5;
-            newY = (2 * x + 3 * y) % 5;
-            x = newX;
-            y = newY;
-        }
-
-        return keccakRhoOffsets;
-    }
-
-    protected byte[] state = new byte[(1600 / 8)];
+    protected long[] state = new long[25];
     protected byte[] dataQueue = new byte[(1536 / 8)];
     protected int rate;
     protected int bitsInQueue;
     protected int fixedOutputLength;
     protected boolean squeezing;
     protected int bitsAvailableForSqueezing;
-    protected byte[] chunk;
     protected byte[] oneByte;
 
     private void clearDataQueueSection(int off, int len)
@@ -110,7 +91,6 @@ public KeccakDigest(KeccakDigest source) {
         this.fixedOutputLength = source.fixedOutputLength;
         this.squeezing = source.squeezing;
         this.bitsAvailableForSqueezing = source.bitsAvailableForSqueezing;
-        this.chunk = Arrays.clone(source.chunk);
         this.oneByte = Arrays.clone(source.oneByte);
     }
 
@@ -136,6 +116,39 @@ public void update(byte[] in, int inOff, int len)
         absorb(in, inOff, len * 8L);
     }
 
+    public void update(ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            absorb(in.array(), in.arrayOffset() + in.position(), in.remaining() * 8L);
+            in.position(in.limit());
+            return;
+        }
+
+        if ((bitsInQueue % 8) != 0)
+        {
+            throw new IllegalStateException("attempt to absorb with odd length queue");
+        }
+        if (squeezing)
+        {
+            throw new IllegalStateException("attempt to absorb while squeezing");
+        }
+
+        // read straight into the queue, absorbing each time it fills
+        while (in.hasRemaining())
+        {
+            int len = Math.min(in.remaining(), (rate - bitsInQueue) / 8);
+
+            in.get(dataQueue, bitsInQueue / 8, len);
+            bitsInQueue += len * 8;
+
+            if (bitsInQueue == rate)
+            {
+                absorbQueue();
+            }
+        }
+    }
+
     public int doFinal(byte[] out, int outOff)
     {
         squeeze(out, outOff, fixedOutputLength);
@@ -219,19 +232,18 @@ private void initSponge(int rate, int capacity)
         this.rate = rate;
         // this is never read, need to check to see why we want to save it
         //  this.capacity = capacity;
-        Arrays.fill(this.state, (byte)0);
+        Arrays.fill(this.state, 0L);
         Arrays.fill(this.dataQueue, (byte)0);
         this.bitsInQueue = 0;
         this.squeezing = false;
         this.bitsAvailableForSqueezing = 0;
         this.fixedOutputLength = capacity / 2;
-        this.chunk = new byte[rate / 8];
         this.oneByte = new byte[1];
     }
 
     private void absorbQueue()
     {
-        KeccakAbsorb(state, dataQueue, rate / 8);
+        KeccakAbsorb(dataQueue, 0);
 
         bitsInQueue = 0;
     }
@@ -258,11 +270,7 @@ protected void absorb(byte[] data, int off, long databitlen)
 
                 for (j = 0; j < wholeBlocks; j++)
                 {
-                    System.arraycopy(data, (int)(off + (i / 8) + (j * chunk.length)), chunk, 0, chunk.length);
-
-//                            displayIntermediateValues.displayBytes(1, "Block to be absorbed", curData, rate / 8);
-
-                    KeccakAbsorb(state, chunk, chunk.length);
+                    KeccakAbsorb(data, (int)(off + (i / 8) + (j * (rate / 8))));
                 }
 
                 i += wholeBlocks * rate;
@@ -315,17 +323,8 @@ private void padAndSwitchToSqueezingPhase()
 //            displayIntermediateValues.displayText(1, "--- Switching to squeezing phase ---");
 
 
-        if (rate == 1024)
-        {
-            KeccakExtract1024bits(state, dataQueue);
-            bitsAvailableForSqueezing = 1024;
-        }
-        else
-
-        {
-            KeccakExtract(state, dataQueue, rate / 64);
-            bitsAvailableForSqueezing = rate;
-        }
+        KeccakExtract();
+        bitsAvailableForSqueezing = rate;
 
 //            displayIntermediateValues.displayBytes(1, "Block available for squeezing", dataQueue, bitsAvailableForSqueezing / 8);
 
@@ -351,19 +350,9 @@ protected void squeeze(byte[] output, int offset, long outputLength)
         {
             if (bitsAvailableForSqueezing == 0)
             {
-                keccakPermutation(state);
-
-                if (rate == 1024)
-                {
-                    KeccakExtract1024bits(state, dataQueue);
-                    bitsAvailableForSqueezing = 1024;
-                }
-                else
-
-                {
-                    KeccakExtract(state, dataQueue, rate / 64);
-                    bitsAvailableForSqueezing = rate;
-                }
+                KeccakPermutation();
+                KeccakExtract();
+                bitsAvailableForSqueezing = rate;
 
 //                    displayIntermediateValues.displayBytes(1, "Block available for squeezing", dataQueue, bitsAvailableForSqueezing / 8);
 
@@ -380,170 +369,133 @@ protected void squeeze(byte[] output, int offset, long outputLength)
         }
     }
 
-    private void fromBytesToWords(long[] stateAsWords, byte[] state)
-    {
-        for (int i = 0; i < (1600 / 64); i++)
-        {
-            stateAsWords[i] = 0;
-            int index = i * (64 / 8);
-            for (int j = 0; j < (64 / 8); j++)
-            {
-                stateAsWords[i] |= ((long)state[index + j] & 0xff) << ((8 * j));
-            }
-        }
-    }
-
-    private void fromWordsToBytes(byte[] state, long[] stateAsWords)
-    {
-        for (int i = 0; i < (1600 / 64); i++)
-        {
-            int index = i * (64 / 8);
-            for (int j = 0; j < (64 / 8); j++)
-            {
-                state[index + j] = (byte)((stateAsWords[i] >>> ((8 * j))) & 0xFF);
-            }
-        }
-    }
-
-    private void keccakPermutation(byte[] state)
-    {
-        long[] longState = new long[state.length / 8];
-
-        fromBytesToWords(longState, state);
-
-//        displayIntermediateValues.displayStateAsBytes(1, "Input of permutation", longState);
-
-        keccakPermutationOnWords(longState);
-
-//        displayIntermediateValues.displayStateAsBytes(1, "State after permutation", longState);
-
-        fromWordsToBytes(state, longState);
-    }
-
-    private void keccakPermutationAfterXor(byte[] state, byte[] data, int dataLengthInBytes)
-    {
-        int i;
-
-        for (i = 0; i < dataLengthInBytes; i++)
-        {
-            state[i] ^= data[i];
-        }
-
-        keccakPermutation(state);
-    }
-
-    private void keccakPermutationOnWords(long[] state)
+    private void KeccakAbsorb(byte[] data, int off)
     {
-        int i;
-
-//        displayIntermediateValues.displayStateAs64bitWords(3, "Same, with lanes as 64-bit words", state);
-
-        for (i = 0; i < 24; i++)
+        int count = rate >>> 6;
+        for (int i = 0; i < count; ++i)
         {
-//            displayIntermediateValues.displayRoundNumber(3, i);
-
-            theta(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After theta", state);
-
-            rho(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After rho", state);
-
-            pi(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After pi", state);
-
-            chi(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After chi", state);
-
-            iota(state, i);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After iota", state);
+            state[i] ^= Pack.littleEndianToLong(data, off);
+            off += 8;
         }
-    }
-
-    long[] C = new long[5];
 
-    private void theta(long[] A)
-    {
-        for (int x = 0; x < 5; x++)
-        {
-            C[x] = 0;
-            for (int y = 0; y < 5; y++)
-            {
-                C[x] ^= A[x + 5 * y];
-            }
-        }
-        for (int x = 0; x < 5; x++)
-        {
-            long dX = ((((C[(x + 1) % 5]) << 1) ^ ((C[(x + 1) % 5]) >>> (64 - 1)))) ^ C[(x + 4) % 5];
-            for (int y = 0; y < 5; y++)
-            {
-                A[x + 5 * y] ^= dX;
-            }
-        }
+        KeccakPermutation();
     }
 
-    private void rho(long[] A)
+    private void KeccakExtract()
     {
-        for (int x = 0; x < 5; x++)
+        int count = rate >>> 6;
+        for (int i = 0; i < count; ++i)
         {
-            for (int y = 0; y < 5; y++)
-            {
-                int index = x + 5 * y;
-                A[index] = ((KeccakRhoOffsets[index] != 0) ? (((A[index]) << KeccakRhoOffsets[index]) ^ ((A[index]) >>> (64 - KeccakRhoOffsets[index]))) : A[index]);
-            }
+            Pack.longToLittleEndian(state[i], dataQueue, i << 3);
         }
     }
 
-    long[] tempA = new long[25];
-
-    private void pi(long[] A)
+    private void KeccakPermutation()
     {
-        System.arraycopy(A, 0, tempA, 0, tempA.length);
+        long[] A = state;
+        long a00 = A[ 0], a01 = A[ 1], a02 = A[ 2], a03 = A[ 3], a04 = A[ 4];
+        long a05 = A[ 5], a06 = A[ 6], a07 = A[ 7], a08 = A[ 8], a09 = A[ 9];
+        long a10 = A[10], a11 = A[11], a12 = A[12], a13 = A[13], a14 = A[14];
+        long a15 = A[15], a16 = A[16], a17 = A[17], a18 = A[18], a19 = A[19];
+        long a20 = A[20], a21 = A[21], a22 = A[22], a23 = A[23], a24 = A[24];
 
-        for (int x = 0; x < 5; x++)
+        for (int i = 0; i < 24; i++)
         {
-            for (int y = 0; y < 5; y++)
-            {
-                A[y + 5 * ((2 * x + 3 * y) % 5)] = tempA[x + 5 * y];
-            }
-        }
-    }
-
-    long[] chiC = new long[5];
-
-    private void chi(long[] A)
-    {
-        for (int y = 0; y < 5; y++)
-        {
-            for (int x = 0; x < 5; x++)
-            {
-                chiC[x] = A[x + 5 * y] ^ ((~A[(((x + 1) % 5) + 5 * y)]) & A[(((x + 2) % 5) + 5 * y)]);
-            }
-            for (int x = 0; x < 5; x++)
-            {
-                A[x + 5 * y] = chiC[x];
-            }
+            // theta
+            long c0 = a00 ^ a05 ^ a10 ^ a15 ^ a20;
+            long c1 = a01 ^ a06 ^ a11 ^ a16 ^ a21;
+            long c2 = a02 ^ a07 ^ a12 ^ a17 ^ a22;
+            long c3 = a03 ^ a08 ^ a13 ^ a18 ^ a23;
+            long c4 = a04 ^ a09 ^ a14 ^ a19 ^ a24;
+
+            long d0 = (c1 << 1 | c1 >>> -1) ^ c4;
+            long d1 = (c2 << 1 | c2 >>> -1) ^ c0;
+            long d2 = (c3 << 1 | c3 >>> -1) ^ c1;
+            long d3 = (c4 << 1 | c4 >>> -1) ^ c2;
+            long d4 = (c0 << 1 | c0 >>> -1) ^ c3;
+
+            a00 ^= d0; a05 ^= d0; a10 ^= d0; a15 ^= d0; a20 ^= d0;
+            a01 ^= d1; a06 ^= d1; a11 ^= d1; a16 ^= d1; a21 ^= d1;
+            a02 ^= d2; a07 ^= d2; a12 ^= d2; a17 ^= d2; a22 ^= d2;
+            a03 ^= d3; a08 ^= d3; a13 ^= d3; a18 ^= d3; a23 ^= d3;
+            a04 ^= d4; a09 ^= d4; a14 ^= d4; a19 ^= d4; a24 ^= d4;
+
+            // rho/pi
+            c1  = a01 <<  1 | a01 >>> 63;
+            a01 = a06 << 44 | a06 >>> 20;
+            a06 = a09 << 20 | a09 >>> 44;
+            a09 = a22 << 61 | a22 >>>  3;
+            a22 = a14 << 39 | a14 >>> 25;
+            a14 = a20 << 18 | a20 >>> 46;
+            a20 = a02 << 62 | a02 >>>  2;
+            a02 = a12 << 43 | a12 >>> 21;
+            a12 = a13 << 25 | a13 >>> 39;
+            a13 = a19 <<  8 | a19 >>> 56;
+            a19 = a23 << 56 | a23 >>>  8;
+            a23 = a15 << 41 | a15 >>> 23;
+            a15 = a04 << 27 | a04 >>> 37;
+            a04 = a24 << 14 | a24 >>> 50;
+            a24 = a21 <<  2 | a21 >>> 62;
+            a21 = a08 << 55 | a08 >>>  9;
+            a08 = a16 << 45 | a16 >>> 19;
+            a16 = a05 << 36 | a05 >>> 28;
+            a05 = a03 << 28 | a03 >>> 36;
+            a03 = a18 << 21 | a18 >>> 43;
+            a18 = a17 << 15 | a17 >>> 49;
+            a17 = a11 << 10 | a11 >>> 54;
+            a11 = a07 <<  6 | a07 >>> 58;
+            a07 = a10 <<  3 | a10 >>> 61;
+            a10 = c1;
+
+            // chi
+            c0 = a00 ^ (~a01 & a02);
+            c1 = a01 ^ (~a02 & a03);
+            a02 ^= ~a03 & a04;
+            a03 ^= ~a04 & a00;
+            a04 ^= ~a00 & a01;
+            a00 = c0;
+            a01 = c1;
+
+            c0 = a05 ^ (~a06 & a07);
+            c1 = a06 ^ (~a07 & a08);
+            a07 ^= ~a08 & a09;
+            a08 ^= ~a09 & a05;
+            a09 ^= ~a05 & a06;
+            a05 = c0;
+            a06 = c1;
+
+            c0 = a10 ^ (~a11 & a12);
+            c1 = a11 ^ (~a12 & a13);
+            a12 ^= ~a13 & a14;
+            a13 ^= ~a14 & a10;
+            a14 ^= ~a10 & a11;
+            a10 = c0;
+            a11 = c1;
+
+            c0 = a15 ^ (~a16 & a17);
+            c1 = a16 ^ (~a17 & a18);
+            a17 ^= ~a18 & a19;
+            a18 ^= ~a19 & a15;
+            a19 ^= ~a15 & a16;
+            a15 = c0;
+            a16 = c1;
+
+            c0 = a20 ^ (~a21 & a22);
+            c1 = a21 ^ (~a22 & a23);
+            a22 ^= ~a23 & a24;
+            a23 ^= ~a24 & a20;
+            a24 ^= ~a20 & a21;
+            a20 = c0;
+            a21 = c1;
+
+            // iota
+            a00 ^= KeccakRoundConstants[i];
         }
-    }
-
-    private void iota(long[] A, int indexRound)
-    {
-        A[(((0) % 5) + 5 * ((0) % 5))] ^= KeccakRoundConstants[indexRound];
-    }
 
-    private void KeccakAbsorb(byte[] byteState, byte[] data, int dataInBytes)
-    {
-        keccakPermutationAfterXor(byteState, data, dataInBytes);
-    }
-
-
-    private void KeccakExtract1024bits(byte[] byteState, byte[] data)
-    {
-        System.arraycopy(byteState, 0, data, 0, 128);
-    }
-
-
-    private void KeccakExtract(byte[] byteState, byte[] data, int laneCount)
-    {
-        System.arraycopy(byteState, 0, data, 0, laneCount * 8);
+        A[ 0] = a00; A[ 1] = a01; A[ 2] = a02; A[ 3] = a03; A[ 4] = a04;
+        A[ 5] = a05; A[ 6] = a06; A[ 7] = a07; A[ 8] = a08; A[ 9] = a09;
+        A[10] = a10; A[11] = a11; A[12] = a12; A[13] = a13; A[14] = a14;
+        A[15] = a15; A[16] = a16; A[17] = a17; A[18] = a18; A[19] = a19;
+        A[20] = a20; A[21] = a21; A[22] = a22; A[23] = a23; A[24] = a24;
     }
 }
@@ -1,5 +1,8 @@
 package org.spongycastle.crypto.digests;
 
+import java.nio.ByteBuffer;
+
+import org.spongycastle.crypto.ByteBufferDigest;
 import org.spongycastle.crypto.ExtendedDigest;
 import org.spongycastle.util.Memoable;
 import org.spongycastle.util.Pack;
@@ -8,7 +11,7 @@
  * Base class for SHA-384 and SHA-512.
  */
 public abstract class LongDigest
-    implements ExtendedDigest, Memoable, EncodableDigest
+    implements ExtendedDigest, ByteBufferDigest, Memoable, EncodableDigest
 {
     private static final int BYTE_LENGTH = 128;
 
@@ -168,6 +171,44 @@ public void update(
         }
     }
 
+    public void update(
+        ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            update(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+            return;
+        }
+
+        //
+        // fill the current word
+        //
+        while ((xBufOff != 0) && in.hasRemaining())
+        {
+            update(in.get());
+        }
+
+        //
+        // process whole words, xBuf is empty so can be used to stage them.
+        //
+        while (in.remaining() > xBuf.length)
+        {
+            in.get(xBuf, 0, xBuf.length);
+            processWord(xBuf, 0);
+
+            byteCount1 += xBuf.length;
+        }
+
+        //
+        // load in the remainder.
+        //
+        while (in.hasRemaining())
+        {
+            update(in.get());
+        }
+    }
+
     public void finish()
     {
         adjustByteCounts();
@@ -0,0 +1,478 @@
+package org.spongycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.OutputLengthException;
+import org.spongycastle.crypto.util.ParallelTasks;
+import org.spongycastle.util.Memoable;
+import org.spongycastle.util.Pack;
+
+/**
+ * Hash a batch of small independent messages with one digest algorithm.
+ * <p>
+ * The digest passed in is reused for every message, avoiding a new instance and its setup per
+ * message. For SHA-256 the messages are padded in place and compressed two at a time, with the
+ * rounds of both messages interleaved in one loop. Other digests are run one message at a time.
+ * </p>
+ * <p>
+ * A MultiDigest is not thread safe, but batches can be split over an Executor, in which case each
+ * worker uses its own copy of the digest (the digest must implement {@link Memoable}).
+ * </p>
+ */
+public class MultiDigest
+{
+    /**
+     * The smallest number of messages handed to a single worker when splitting a batch.
+     */
+    private static final int MIN_WORKER_BATCH = 256;
+
+    private final Digest digest;
+    private final boolean interleaveSHA256;
+
+    /**
+     * Base constructor.
+     *
+     * @param digest the digest to hash each message with, its state will be reset before use.
+     */
+    public MultiDigest(Digest digest)
+    {
+        this.digest = digest;
+        this.interleaveSHA256 = (digest.getClass() == SHA256Digest.class);
+    }
+
+    public String getAlgorithmName()
+    {
+        return digest.getAlgorithmName();
+    }
+
+    public int getDigestSize()
+    {
+        return digest.getDigestSize();
+    }
+
+    /**
+     * Hash each of inputs, writing the digest of inputs[i] to the start of outputs[i]. Where
+     * outputs[i] is null a new array of the digest size is allocated.
+     *
+     * @param inputs the messages to hash.
+     * @param outputs the arrays to receive the digests.
+     */
+    public void hashAll(byte[][] inputs, byte[][] outputs)
+    {
+        checkOutputs(inputs, outputs);
+
+        digest.reset();
+
+        process(digest, interleaveSHA256, inputs, outputs, 0, inputs.length);
+    }
+
+    /**
+     * Hash each of inputs as for {@link #hashAll(byte[][], byte[][])}, splitting large batches over
+     * the passed in executor. The calling thread hashes part of the batch itself and waits for the
+     * rest to complete.
+     *
+     * @param inputs the messages to hash.
+     * @param outputs the arrays to receive the digests.
+     * @param executor the executor to run the workers on.
+     */
+    public void hashAll(byte[][] inputs, byte[][] outputs, Executor executor)
+    {
+        hashAll(inputs, outputs, executor, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Hash each of inputs as for {@link #hashAll(byte[][], byte[][])}, splitting large batches into
+     * at most parallelism parts run on the passed in executor and the calling thread.
+     *
+     * @param inputs the messages to hash.
+     * @param outputs the arrays to receive the digests.
+     * @param executor the executor to run the workers on.
+     * @param parallelism the maximum number of parts to split the batch into.
+     */
+    public void hashAll(final byte[][] inputs, final byte[][] outputs, Executor executor, int parallelism)
+    {
+        checkOutputs(inputs, outputs);
+
+        digest.reset();
+
+        int workers = Math.min(parallelism, inputs.length / MIN_WORKER_BATCH);
+        if (workers < 2 || !(digest instanceof Memoable))
+        {
+            process(digest, interleaveSHA256, inputs, outputs, 0, inputs.length);
+            return;
+        }
+
+        final int batch = (inputs.length + workers - 1) / workers;
+
+        // the copies are taken up front, the calling thread hashes its part with digest itself
+        final Digest[] digests = new Digest[(inputs.length + batch - 1) / batch];
+        digests[0] = digest;
+        for (int i = 1; i < digests.length; ++i)
+        {
+            digests[i] = (Digest)((Memoable)digest).copy();
+        }
+
+        ParallelTasks.run(executor, digests.length, new ParallelTasks.Task()
+        {
+            public void run(int index)
+            {
+                int from = index * batch, to = Math.min(inputs.length, from + batch);
+
+                process(digests[index], interleaveSHA256, inputs, outputs, from, to);
+            }
+        });
+    }
+
+    private void checkOutputs(byte[][] inputs, byte[][] outputs)
+    {
+        if (outputs.length < inputs.length)
+        {
+            throw new IllegalArgumentException("outputs must have an entry for each input");
+        }
+
+        int digestSize = digest.getDigestSize();
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            if (outputs[i] == null)
+            {
+                outputs[i] = new byte[digestSize];
+            }
+            else if (outputs[i].length < digestSize)
+            {
+                throw new OutputLengthException("output buffer too short");
+            }
+        }
+    }
+
+    private static void process(Digest digest, boolean interleave, byte[][] inputs, byte[][] outputs, int from, int to)
+    {
+        if (interleave)
+        {
+            processSHA256(inputs, outputs, from, to);
+            return;
+        }
+
+        for (int i = from; i < to; ++i)
+        {
+            digest.update(inputs[i], 0, inputs[i].length);
+            digest.doFinal(outputs[i], 0);
+        }
+    }
+
+    private static void processSHA256(byte[][] inputs, byte[][] outputs, int from, int to)
+    {
+        int[] X = new int[64], Y = new int[64];
+        int[] HX = new int[8], HY = new int[8];
+
+        int i = from;
+        for (; i + 1 < to; i += 2)
+        {
+            byte[] mx = inputs[i], my = inputs[i + 1];
+            int xBlocks = blockCount(mx), yBlocks = blockCount(my);
+            int both = Math.min(xBlocks, yBlocks);
+
+            initSHA256(HX);
+            initSHA256(HY);
+
+            for (int block = 0; block < both; ++block)
+            {
+                loadBlock(mx, block, xBlocks, X);
+                loadBlock(my, block, yBlocks, Y);
+                compress2(HX, X, HY, Y);
+            }
+            for (int block = both; block < xBlocks; ++block)
+            {
+                loadBlock(mx, block, xBlocks, X);
+                compress(HX, X);
+            }
+            for (int block = both; block < yBlocks; ++block)
+            {
+                loadBlock(my, block, yBlocks, Y);
+                compress(HY, Y);
+            }
+
+            Pack.intToBigEndian(HX, outputs[i], 0);
+            Pack.intToBigEndian(HY, outputs[i + 1], 0);
+        }
+
+        if (i < to)
+        {
+            byte[] mx = inputs[i];
+            int xBlocks = blockCount(mx);
+
+            initSHA256(HX);
+            for (int block = 0; block < xBlocks; ++block)
+            {
+                loadBlock(mx, block, xBlocks, X);
+                compress(HX, X);
+            }
+
+            Pack.intToBigEndian(HX, outputs[i], 0);
+        }
+    }
+
+    private static void initSHA256(int[] H)
+    {
+        H[0] = 0x6a09e667;
+        H[1] = 0xbb67ae85;
+        H[2] = 0x3c6ef372;
+        H[3] = 0xa54ff53a;
+        H[4] = 0x510e527f;
+        H[5] = 0x9b05688c;
+        H[6] = 0x1f83d9ab;
+        H[7] = 0x5be0cd19;
+    }
+
+    /**
+     * Return the number of 64 byte blocks in msg after padding with 0x80 and the 64 bit length.
+     */
+    private static int blockCount(byte[] msg)
+    {
+        return (msg.length + 9 + 63) >>> 6;
+    }
+
+    /**
+     * Load block number block of the padded message into the first 16 words of W.
+     */
+    private static void loadBlock(byte[] msg, int block, int blocks, int[] W)
+    {
+        int off = block << 6;
+        int len = msg.length;
+
+        // words lying wholly within the message
+        int full = (len > off) ? Math.min(16, (len - off) >>> 2) : 0;
+        for (int i = 0; i < full; ++i)
+        {
+            W[i] = Pack.bigEndianToInt(msg, off + (i << 2));
+        }
+        if (full == 16)
+        {
+            return;
+        }
+
+        // the word holding the end of the message (if any) and the 0x80 padding byte
+        int pos = off + (full << 2);
+        if (pos <= len)
+        {
+            int w = 0;
+            for (int j = 0; j < 4; ++j, ++pos)
+            {
+                w <<= 8;
+                if (pos < len)
+                {
+                    w |= msg[pos] & 0xff;
+                }
+                else if (pos == len)
+                {
+                    w |= 0x80;
+                }
+            }
+            W[full++] = w;
+        }
+
+        while (full < 16)
+        {
+            W[full++] = 0;
+        }
+
+        if (block == blocks - 1)
+        {
+            long bitLength = (long)len << 3;
+            W[14] = (int)(bitLength >>> 32);
+            W[15] = (int)bitLength;
+        }
+    }
+
+    private static void compress(int[] H, int[] X)
+    {
+        for (int t = 16; t < 64; ++t)
+        {
+            X[t] = Theta1(X[t - 2]) + X[t - 7] + Theta0(X[t - 15]) + X[t - 16];
+        }
+
+        int[] K = SHA256Digest.K;
+        int a = H[0], b = H[1], c = H[2], d = H[3], e = H[4], f = H[5], g = H[6], h = H[7];
+
+        int t = 0;
+        for (int i = 0; i < 8; ++i)
+        {
+            // t = 8 * i
+            h += Sum1(e) + Ch(e, f, g) + K[t] + X[t];
+            d += h;
+            h += Sum0(a) + Maj(a, b, c);
+            ++t;
+
+            // t = 8 * i + 1
+            g += Sum1(d) + Ch(d, e, f) + K[t] + X[t];
+            c += g;
+            g += Sum0(h) + Maj(h, a, b);
+            ++t;
+
+            // t = 8 * i + 2
+            f += Sum1(c) + Ch(c, d, e) + K[t] + X[t];
+            b += f;
+            f += Sum0(g) + Maj(g, h, a);
+            ++t;
+
+            // t = 8 * i + 3
+            e += Sum1(b) + Ch(b, c, d) + K[t] + X[t];
+            a += e;
+            e += Sum0(f) + Maj(f, g, h);
+            ++t;
+
+            // t = 8 * i + 4
+            d += Sum1(a) + Ch(a, b, c) + K[t] + X[t];
+            h += d;
+            d += Sum0(e) + Maj(e, f, g);
+            ++t;
+
+            // t = 8 * i + 5
+            c += Sum1(h) + Ch(h, a, b) + K[t] + X[t];
+            g += c;
+            c += Sum0(d) + Maj(d, e, f);
+            ++t;
+
+            // t = 8 * i + 6
+            b += Sum1(g) + Ch(g, h, a) + K[t] + X[t];
+            f += b;
+            b += Sum0(c) + Maj(c, d, e);
+            ++t;
+
+            // t = 8 * i + 7
+            a += Sum1(f) + Ch(f, g, h) + K[t] + X[t];
+            e += a;
+            a += Sum0(b) + Maj(b, c, d);
+            ++t;
+        }
+
+        H[0] += a; H[1] += b; H[2] += c; H[3] += d; H[4] += e; H[5] += f; H[6] += g; H[7] += h;
+    }
+
+    /**
+     * Compress one block for each of two independent messages, interleaving the two round
+     * computations so their dependency chains can overlap.
+     */
+    private static void compress2(int[] HX, int[] X, int[] HY, int[] Y)
+    {
+        for (int t = 16; t < 64; ++t)
+        {
+            X[t] = Theta1(X[t - 2]) + X[t - 7] + Theta0(X[t - 15]) + X[t - 16];
+            Y[t] = Theta1(Y[t - 2]) + Y[t - 7] + Theta0(Y[t - 15]) + Y[t - 16];
+        }
+
+        int[] K = SHA256Digest.K;
+        int xa = HX[0], xb = HX[1], xc = HX[2], xd = HX[3], xe = HX[4], xf = HX[5], xg = HX[6], xh = HX[7];
+        int ya = HY[0], yb = HY[1], yc = HY[2], yd = HY[3], ye = HY[4], yf = HY[5], yg = HY[6], yh = HY[7];
+
+        int t = 0;
+        for (int i = 0; i < 8; ++i)
+        {
+            // t = 8 * i
+            xh += Sum1(xe) + Ch(xe, xf, xg) + K[t] + X[t];
+            yh += Sum1(ye) + Ch(ye, yf, yg) + K[t] + Y[t];
+            xd += xh;
+            yd += yh;
+            xh += Sum0(xa) + Maj(xa, xb, xc);
+            yh += Sum0(ya) + Maj(ya, yb, yc);
+            ++t;
+
+            // t = 8 * i + 1
+            xg += Sum1(xd) + Ch(xd, xe, xf) + K[t] + X[t];
+            yg += Sum1(yd) + Ch(yd, ye, yf) + K[t] + Y[t];
+            xc += xg;
+            yc += yg;
+            xg += Sum0(xh) + Maj(xh, xa, xb);
+            yg += Sum0(yh) + Maj(yh, ya, yb);
+            ++t;
+
+            // t = 8 * i + 2
+            xf += Sum1(xc) + Ch(xc, xd, xe) + K[t] + X[t];
+            yf += Sum1(yc) + Ch(yc, yd, ye) + K[t] + Y[t];
+            xb += xf;
+            yb += yf;
+            xf += Sum0(xg) + Maj(xg, xh, xa);
+            yf += Sum0(yg) + Maj(yg, yh, ya);
+            ++t;
+
+            // t = 8 * i + 3
+            xe += Sum1(xb) + Ch(xb, xc, xd) + K[t] + X[t];
+            ye += Sum1(yb) + Ch(yb, yc, yd) + K[t] + Y[t];
+            xa += xe;
+            ya += ye;
+            xe += Sum0(xf) + Maj(xf, xg, xh);
+            ye += Sum0(yf) + Maj(yf, yg, yh);
+            ++t;
+
+            // t = 8 * i + 4
+            xd += Sum1(xa) + Ch(xa, xb, xc) + K[t] + X[t];
+            yd += Sum1(ya) + Ch(ya, yb, yc) + K[t] + Y[t];
+            xh += xd;
+            yh += yd;
+            xd += Sum0(xe) + Maj(xe, xf, xg);
+            yd += Sum0(ye) + Maj(ye, yf, yg);
+            ++t;
+
+            // t = 8 * i + 5
+            xc += Sum1(xh) + Ch(xh, xa, xb) + K[t] + X[t];
+            yc += Sum1(yh) + Ch(yh, ya, yb) + K[t] + Y[t];
+            xg += xc;
+            yg += yc;
+            xc += Sum0(xd) + Maj(xd, xe, xf);
+            yc += Sum0(yd) + Maj(yd, ye, yf);
+            ++t;
+
+            // t = 8 * i + 6
+            xb += Sum1(xg) + Ch(xg, xh, xa) + K[t] + X[t];
+            yb += Sum1(yg) + Ch(yg, yh, ya) + K[t] + Y[t];
+            xf += xb;
+            yf += yb;
+            xb += Sum0(xc) + Maj(xc, xd, xe);
+            yb += Sum0(yc) + Maj(yc, yd, ye);
+            ++t;
+
+            // t = 8 * i + 7
+            xa += Sum1(xf) + Ch(xf, xg, xh) + K[t] + X[t];
+            ya += Sum1(yf) + Ch(yf, yg, yh) + K[t] + Y[t];
+            xe += xa;
+            ye += ya;
+            xa += Sum0(xb) + Maj(xb, xc, xd);
+            ya += Sum0(yb) + Maj(yb, yc, yd);
+            ++t;
+        }
+
+        HX[0] += xa; HX[1] += xb; HX[2] += xc; HX[3] += xd; HX[4] += xe; HX[5] += xf; HX[6] += xg; HX[7] += xh;
+        HY[0] += ya; HY[1] += yb; HY[2] += yc; HY[3] += yd; HY[4] += ye; HY[5] += yf; HY[6] += yg; HY[7] += yh;
+    }
+
+    /* SHA-256 functions */
+    private static int Ch(int x, int y, int z)
+    {
+        return (x & y) ^ ((~x) & z);
+    }
+
+    private static int Maj(int x, int y, int z)
+    {
+        return (x & y) ^ (x & z) ^ (y & z);
+    }
+
+    private static int Sum0(int x)
+    {
+        return ((x >>> 2) | (x << 30)) ^ ((x >>> 13) | (x << 19)) ^ ((x >>> 22) | (x << 10));
+    }
+
+    private static int Sum1(int x)
+    {
+        return ((x >>> 6) | (x << 26)) ^ ((x >>> 11) | (x << 21)) ^ ((x >>> 25) | (x << 7));
+    }
+
+    private static int Theta0(int x)
+    {
+        return ((x >>> 7) | (x << 25)) ^ ((x >>> 18) | (x << 14)) ^ (x >>> 3);
+    }
+
+    private static int Theta1(int x)
+    {
+        return ((x >>> 17) | (x << 15)) ^ ((x >>> 19) | (x << 13)) ^ (x >>> 10);
+    }
+}
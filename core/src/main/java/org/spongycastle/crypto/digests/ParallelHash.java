@@ -0,0 +1,303 @@
+package org.spongycastle.crypto.digests;
+
+import java.util.concurrent.Executor;
+
+import org.spongycastle.crypto.Xof;
+import org.spongycastle.crypto.util.ParallelTasks;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+
+/**
+ * ParallelHash - a hash designed to support the efficient hashing of very long strings, by taking
+ * advantage of the parallelism available in modern processors with an optional XOF mode, as
+ * described in NIST SP 800-185.
+ * <p>
+ * The input is cut into blocks of B bytes, each hashed on its own by cSHAKE, and the block
+ * digests are absorbed in order by the outer cSHAKE. Given an Executor, updates covering many
+ * blocks hash the blocks on several tasks at once.
+ * </p>
+ */
+public class ParallelHash
+    implements Xof
+{
+    private static final byte[] N_PARALLEL_HASH = Strings.toByteArray("ParallelHash");
+
+    /**
+     * The smallest amount of input handed to a single task when blocks are hashed in parallel.
+     */
+    private static final int MIN_TASK_BYTES = 64 * 1024;
+
+    /**
+     * The most tasks run before their block digests are absorbed, which bounds the memory a large
+     * update needs to a few MB whatever the block size.
+     */
+    private static final int MAX_ROUND_TASKS = 16;
+
+    private final CSHAKEDigest cshake;
+    private final CSHAKEDigest compressor;
+    private final int bitLength;
+    private final int outputLength;
+    private final int B;
+    private final byte[] buffer;
+    private final byte[] compressorBuffer;
+    private final Executor executor;
+
+    private boolean firstOutput;
+    private long nCount;
+    private int bufOff;
+
+    /**
+     * Base constructor.
+     *
+     * @param bitLength bit length of the underlying cSHAKE function, 128 or 256.
+     * @param S the customization string, may be null.
+     * @param B the block size in bytes the input is cut into.
+     */
+    public ParallelHash(int bitLength, byte[] S, int B)
+    {
+        this(bitLength, S, B, bitLength * 2);
+    }
+
+    /**
+     * Constructor with a specific output size.
+     *
+     * @param bitLength bit length of the underlying cSHAKE function, 128 or 256.
+     * @param S the customization string, may be null.
+     * @param B the block size in bytes the input is cut into.
+     * @param outputSize the output size in bits for doFinal(), a multiple of 8.
+     */
+    public ParallelHash(int bitLength, byte[] S, int B, int outputSize)
+    {
+        this(bitLength, S, B, outputSize, null);
+    }
+
+    /**
+     * Constructor with a specific output size and an executor to hash the blocks on.
+     *
+     * @param bitLength bit length of the underlying cSHAKE function, 128 or 256.
+     * @param S the customization string, may be null.
+     * @param B the block size in bytes the input is cut into.
+     * @param outputSize the output size in bits for doFinal(), a multiple of 8.
+     * @param executor the executor to hash blocks on, null for the calling thread.
+     */
+    public ParallelHash(int bitLength, byte[] S, int B, int outputSize, Executor executor)
+    {
+        if (B <= 0)
+        {
+            throw new IllegalArgumentException("block size must be positive");
+        }
+
+        this.cshake = new CSHAKEDigest(bitLength, N_PARALLEL_HASH, S);
+        this.compressor = new CSHAKEDigest(bitLength, null, null);
+        this.bitLength = bitLength;
+        this.B = B;
+        this.outputLength = (outputSize + 7) / 8;
+        this.buffer = new byte[B];
+        this.compressorBuffer = new byte[bitLength * 2 / 8];
+        this.executor = executor;
+
+        reset();
+    }
+
+    /**
+     * Copy constructor, the copy shares the executor of the original.
+     *
+     * @param source the ParallelHash to copy the state from.
+     */
+    public ParallelHash(ParallelHash source)
+    {
+        this.cshake = new CSHAKEDigest(source.cshake);
+        this.compressor = new CSHAKEDigest(source.compressor);
+        this.bitLength = source.bitLength;
+        this.B = source.B;
+        this.outputLength = source.outputLength;
+        this.buffer = Arrays.clone(source.buffer);
+        this.compressorBuffer = new byte[source.compressorBuffer.length];
+        this.executor = source.executor;
+        this.firstOutput = source.firstOutput;
+        this.nCount = source.nCount;
+        this.bufOff = source.bufOff;
+    }
+
+    public String getAlgorithmName()
+    {
+        return "ParallelHash" + bitLength;
+    }
+
+    public int getByteLength()
+    {
+        return cshake.getByteLength();
+    }
+
+    public int getDigestSize()
+    {
+        return outputLength;
+    }
+
+    public void update(byte in)
+        throws IllegalStateException
+    {
+        buffer[bufOff++] = in;
+        if (bufOff == buffer.length)
+        {
+            compress(buffer, 0, bufOff);
+            bufOff = 0;
+        }
+    }
+
+    public void update(byte[] in, int inOff, int len)
+    {
+        if (bufOff != 0)
+        {
+            int fill = Math.min(B - bufOff, len);
+
+            System.arraycopy(in, inOff, buffer, bufOff, fill);
+            bufOff += fill;
+            inOff += fill;
+            len -= fill;
+
+            if (bufOff < B)
+            {
+                return;
+            }
+
+            compress(buffer, 0, B);
+            bufOff = 0;
+        }
+
+        int blocks = len / B;
+        if (blocks > 0)
+        {
+            compressBlocks(in, inOff, blocks);
+            inOff += blocks * B;
+            len -= blocks * B;
+        }
+
+        System.arraycopy(in, inOff, buffer, 0, len);
+        bufOff = len;
+    }
+
+    public int doFinal(byte[] out, int outOff)
+    {
+        return doFinal(out, outOff, outputLength);
+    }
+
+    public int doFinal(byte[] out, int outOff, int outLen)
+    {
+        if (firstOutput)
+        {
+            wrapUp(outLen * 8L);
+        }
+
+        int rv = cshake.doFinal(out, outOff, outLen);
+
+        reset();
+
+        return rv;
+    }
+
+    public int doOutput(byte[] out, int outOff, int outLen)
+    {
+        if (firstOutput)
+        {
+            wrapUp(0);
+        }
+
+        return cshake.doOutput(out, outOff, outLen);
+    }
+
+    public void reset()
+    {
+        cshake.reset();
+        Arrays.fill(buffer, (byte)0);
+
+        byte[] hdr = XofUtils.leftEncode(B);
+        cshake.update(hdr, 0, hdr.length);
+
+        nCount = 0;
+        bufOff = 0;
+        firstOutput = true;
+    }
+
+    private void wrapUp(long outputSize)
+    {
+        if (bufOff != 0)
+        {
+            compress(buffer, 0, bufOff);
+            bufOff = 0;
+        }
+
+        byte[] nOut = XofUtils.rightEncode(nCount);
+        byte[] encOut = XofUtils.rightEncode(outputSize);
+
+        cshake.update(nOut, 0, nOut.length);
+        cshake.update(encOut, 0, encOut.length);
+
+        firstOutput = false;
+    }
+
+    private void compress(byte[] buf, int offSet, int len)
+    {
+        compressor.update(buf, offSet, len);
+        compressor.doFinal(compressorBuffer, 0, compressorBuffer.length);
+
+        cshake.update(compressorBuffer, 0, compressorBuffer.length);
+
+        nCount++;
+    }
+
+    private void compressBlocks(final byte[] in, int inOff, int blocks)
+    {
+        final int digestLen = compressorBuffer.length;
+
+        // a task covers MIN_TASK_BYTES of input, or of block digests when those are larger
+        final int taskUnit = Math.max(B, digestLen);
+        final int blocksPerTask = (MIN_TASK_BYTES + taskUnit - 1) / taskUnit;
+
+        if (executor == null || blocks <= blocksPerTask)
+        {
+            for (int i = 0; i < blocks; i++)
+            {
+                compress(in, inOff + i * B, B);
+            }
+            return;
+        }
+
+        // the block digests of each round are collected here and absorbed in order once its tasks are done
+        final int maxRoundBlocks = MAX_ROUND_TASKS * blocksPerTask;
+        final byte[] digests = new byte[Math.min(blocks, maxRoundBlocks) * digestLen];
+
+        while (blocks > 0)
+        {
+            final int roundOff = inOff, roundBlocks = Math.min(blocks, maxRoundBlocks);
+
+            ParallelTasks.run(executor, (roundBlocks + blocksPerTask - 1) / blocksPerTask, new ParallelTasks.Task()
+            {
+                public void run(int index)
+                {
+                    int from = index * blocksPerTask, to = Math.min(roundBlocks, from + blocksPerTask);
+                    CSHAKEDigest digest = (index == 0) ? compressor : new CSHAKEDigest(bitLength, null, null);
+
+                    compressRange(digest, in, roundOff, from, to, digests);
+                }
+            });
+
+            cshake.update(digests, 0, roundBlocks * digestLen);
+            nCount += roundBlocks;
+
+            inOff += roundBlocks * B;
+            blocks -= roundBlocks;
+        }
+    }
+
+    private void compressRange(CSHAKEDigest digest, byte[] in, int inOff, int from, int to, byte[] digests)
+    {
+        int digestLen = compressorBuffer.length;
+
+        for (int i = from; i < to; i++)
+        {
+            digest.update(in, inOff + i * B, B);
+            digest.doFinal(digests, i * digestLen, digestLen);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.spongycastle.crypto.digests;
 
+import java.util.concurrent.Executor;
+
 import org.spongycastle.crypto.ExtendedDigest;
 import org.spongycastle.crypto.engines.ThreefishEngine;
 import org.spongycastle.crypto.params.SkeinParameters;
@@ -50,6 +52,22 @@ public SkeinDigest(int stateSizeBits, int digestSizeBits)
         init(null);
     }
 
+    /**
+     * Constructs a Skein digest which hashes tree leaves on an executor when initialised with tree
+     * parameters.
+     *
+     * @param stateSizeBits  the internal state size in bits - one of {@link #SKEIN_256}, {@link #SKEIN_512} or
+     *                       {@link #SKEIN_1024}.
+     * @param digestSizeBits the output/digest size to produce in bits, which must be an integral number of
+     *                       bytes.
+     * @param executor       the executor to hash leaves on, null for the calling thread.
+     */
+    public SkeinDigest(int stateSizeBits, int digestSizeBits, Executor executor)
+    {
+        this.engine = new SkeinEngine(stateSizeBits, digestSizeBits, executor);
+        init(null);
+    }
+
     public SkeinDigest(SkeinDigest digest)
     {
         this.engine = new SkeinEngine(digest.engine);
@@ -3,11 +3,13 @@
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.Vector;
+import java.util.concurrent.Executor;
 
 import org.spongycastle.crypto.DataLengthException;
 import org.spongycastle.crypto.engines.ThreefishEngine;
 import org.spongycastle.crypto.macs.SkeinMac;
 import org.spongycastle.crypto.params.SkeinParameters;
+import org.spongycastle.crypto.util.ParallelTasks;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Memoable;
 
@@ -33,12 +35,12 @@
  * <li>Parameters defined in the Skein specification, and arbitrary other pre and post message
  * parameters.</li>
  * <li>Arbitrary output size in 1 byte intervals.</li>
+ * <li>Tree hashing, with whole leaves optionally hashed in parallel on an {@link Executor}.</li>
  * </ul>
  * <p>
  * Not implemented:
  * <ul>
  * <li>Sub-byte length input (bit padding).</li>
- * <li>Tree hashing.</li>
  * </ul>
  *
  * @see SkeinParameters
@@ -59,12 +61,11 @@
      */
     public static final int SKEIN_1024 = ThreefishEngine.BLOCKSIZE_1024;
 
-    // Minimal at present, but more complex when tree hashing is implemented
     private static class Configuration
     {
         private byte[] bytes = new byte[32];
 
-        public Configuration(long outputSizeBits)
+        public Configuration(long outputSizeBits, int treeLeafSize, int treeFanOut, int treeMaxHeight)
         {
             // 0..3 = ASCII SHA3
             bytes[0] = (byte)'S';
@@ -78,6 +79,11 @@ public Configuration(long outputSizeBits)
 
             // 8..15 = output length
             ThreefishEngine.wordToBytes(outputSizeBits, bytes, 8);
+
+            // 16..18 = tree leaf size, fan out and max height, all 0 for sequential hashing
+            bytes[16] = (byte)treeLeafSize;
+            bytes[17] = (byte)treeFanOut;
+            bytes[18] = (byte)treeMaxHeight;
         }
 
         public byte[] getBytes()
@@ -130,6 +136,16 @@ public byte[] getValue()
      */
     private static final int PARAM_TYPE_OUTPUT = 63;
 
+    /**
+     * The largest tree leaf size or fan out supported, keeping node positions within a long.
+     */
+    private static final int MAX_TREE_SIZE = 48;
+
+    /**
+     * The smallest amount of input handed to a single task when leaves are hashed in parallel.
+     */
+    private static final int MIN_TASK_BYTES = 64 * 1024;
+
     /**
      * Precalculated UBI(CFG) states for common state/output combinations without key or other
      * pre-message params.
@@ -315,6 +331,21 @@ public boolean isFinal()
             return ((tweak[1] & T1_FINAL) != 0);
         }
 
+        public void setTreeLevel(int level)
+        {
+            // Bits 112..119 = tree level
+            tweak[1] = (tweak[1] & ~(0xFFL << 48)) | ((level & 0xFFL) << 48);
+        }
+
+        /**
+         * Sets the starting position, for a tree node that starts part way into its level.
+         */
+        public void setPosition(long position)
+        {
+            tweak[0] = position;
+            extendedPosition = position > LOW_RANGE;
+        }
+
         /**
          * Advances the position in the tweak by the specified value.
          */
@@ -365,11 +396,15 @@ public String toString()
     /**
      * The Unique Block Iteration chaining mode.
      */
-    // TODO: This might be better as methods...
-    private class UBI
+    private static class UBI
     {
         private final UbiTweak tweak = new UbiTweak();
 
+        /**
+         * The cipher the chain is run through
+         */
+        private final ThreefishEngine threefish;
+
         /**
          * Buffer for the current block of message data
          */
@@ -385,8 +420,9 @@ public String toString()
          */
         private long[] message;
 
-        public UBI(int blockSize)
+        public UBI(ThreefishEngine threefish, int blockSize)
         {
+            this.threefish = threefish;
             currentBlock = new byte[blockSize];
             message = new long[currentBlock.length / 8];
         }
@@ -406,36 +442,57 @@ public void reset(int type)
             currentOffset = 0;
         }
 
-        public void update(byte[] value, int offset, int len, long[] output)
+        public void reset(int type, int treeLevel, long position)
+        {
+            reset(type);
+            tweak.setTreeLevel(treeLevel);
+            tweak.setPosition(position);
+        }
+
+        public void update(byte[] value, int offset, int len, long[] chain)
         {
             /*
-             * Buffer complete blocks for the underlying Threefish cipher, only flushing when there
-             * are subsequent bytes (last block must be processed in doFinal() with final=true set).
+             * Only process a block when there are subsequent bytes (last block must be processed in
+             * doFinal() with final=true set). Whole blocks are taken straight from value when the
+             * buffer is empty, everything else is buffered.
              */
-            int copied = 0;
-            while (len > copied)
+            final int blockSize = currentBlock.length;
+            while (len > 0)
             {
-                if (currentOffset == currentBlock.length)
+                if (currentOffset == blockSize)
                 {
-                    processBlock(output);
+                    processBlock(currentBlock, 0, chain, chain);
                     tweak.setFirst(false);
                     currentOffset = 0;
                 }
 
-                int toCopy = Math.min((len - copied), currentBlock.length - currentOffset);
-                System.arraycopy(value, offset + copied, currentBlock, currentOffset, toCopy);
-                copied += toCopy;
+                if (currentOffset == 0)
+                {
+                    while (len > blockSize)
+                    {
+                        tweak.advancePosition(blockSize);
+                        processBlock(value, offset, chain, chain);
+                        tweak.setFirst(false);
+                        offset += blockSize;
+                        len -= blockSize;
+                    }
+                }
+
+                int toCopy = Math.min(len, blockSize - currentOffset);
+                System.arraycopy(value, offset, currentBlock, currentOffset, toCopy);
+                offset += toCopy;
+                len -= toCopy;
                 currentOffset += toCopy;
                 tweak.advancePosition(toCopy);
             }
         }
 
-        private void processBlock(long[] output)
+        private void processBlock(byte[] in, int inOff, long[] key, long[] output)
         {
-            threefish.init(true, chain, tweak.getWords());
+            threefish.init(true, key, tweak.getWords());
             for (int i = 0; i < message.length; i++)
             {
-                message[i] = ThreefishEngine.bytesToWord(currentBlock, i * 8);
+                message[i] = ThreefishEngine.bytesToWord(in, inOff + i * 8);
             }
 
             threefish.processBlock(message, output);
@@ -446,7 +503,12 @@ private void processBlock(long[] output)
             }
         }
 
-        public void doFinal(long[] output)
+        public void doFinal(long[] chain)
+        {
+            doFinal(chain, chain);
+        }
+
+        public void doFinal(long[] key, long[] output)
         {
             // Pad remainder of current block with zeroes
             for (int i = currentOffset; i < currentBlock.length; i++)
@@ -455,9 +517,58 @@ public void doFinal(long[] output)
             }
 
             tweak.setFinal(true);
-            processBlock(output);
+            processBlock(currentBlock, 0, key, output);
+        }
+
+    }
+
+    /**
+     * The state of one level of the hash tree: the node currently being hashed and how far the
+     * level has got.
+     */
+    private static class TreeLevel
+    {
+        final UBI ubi;
+
+        /**
+         * Chaining value of the node in progress
+         */
+        final long[] state;
+
+        /**
+         * Buffer for the output of a completed node, as passed to the level above
+         */
+        final byte[] output;
+
+        boolean started;
+        long index;
+        long nodeBytes;
+        long received;
+
+        TreeLevel(ThreefishEngine threefish, int blockSize)
+        {
+            this.ubi = new UBI(threefish, blockSize);
+            this.state = new long[blockSize / 8];
+            this.output = new byte[blockSize];
         }
 
+        void reset()
+        {
+            started = false;
+            index = 0;
+            nodeBytes = 0;
+            received = 0;
+        }
+
+        void reset(TreeLevel other)
+        {
+            ubi.reset(other.ubi);
+            System.arraycopy(other.state, 0, state, 0, state.length);
+            started = other.started;
+            index = other.index;
+            nodeBytes = other.nodeBytes;
+            received = other.received;
+        }
     }
 
     /**
@@ -505,6 +616,21 @@ public void doFinal(long[] output)
      */
     private final byte[] singleByte = new byte[1];
 
+    /**
+     * Executor for hashing tree leaves in parallel, or null
+     */
+    private final Executor executor;
+
+    /**
+     * Tree parameters Yl, Yf and Ym, all 0 for sequential hashing
+     */
+    private int treeLeafSize, treeFanOut, treeMaxHeight;
+
+    /**
+     * The levels of the hash tree, indexed by level, or null for sequential hashing
+     */
+    private TreeLevel[] tree;
+
     /**
      * Constructs a Skein engine.
      *
@@ -514,6 +640,20 @@ public void doFinal(long[] output)
      *                       bytes.
      */
     public SkeinEngine(int blockSizeBits, int outputSizeBits)
+    {
+        this(blockSizeBits, outputSizeBits, null);
+    }
+
+    /**
+     * Constructs a Skein engine which hashes tree leaves on an executor.
+     *
+     * @param blockSizeBits  the internal state size in bits - one of {@link #SKEIN_256}, {@link #SKEIN_512} or
+     *                       {@link #SKEIN_1024}.
+     * @param outputSizeBits the output/digest size to produce in bits, which must be an integral number of
+     *                       bytes.
+     * @param executor       the executor to hash leaves on when tree hashing, null for the calling thread.
+     */
+    public SkeinEngine(int blockSizeBits, int outputSizeBits, Executor executor)
     {
         if (outputSizeBits % 8 != 0)
         {
@@ -523,15 +663,16 @@ public SkeinEngine(int blockSizeBits, int outputSizeBits)
         this.outputSizeBytes = outputSizeBits / 8;
 
         this.threefish = new ThreefishEngine(blockSizeBits);
-        this.ubi = new UBI(threefish.getBlockSize());
+        this.ubi = new UBI(threefish, threefish.getBlockSize());
+        this.executor = executor;
     }
 
     /**
-     * Creates a SkeinEngine as an exact copy of an existing instance.
+     * Creates a SkeinEngine as an exact copy of an existing instance, sharing its executor.
      */
     public SkeinEngine(SkeinEngine engine)
     {
-        this(engine.getBlockSize() * 8, engine.getOutputSize() * 8);
+        this(engine.getBlockSize() * 8, engine.getOutputSize() * 8, engine.executor);
         copyIn(engine);
     }
 
@@ -543,6 +684,26 @@ private void copyIn(SkeinEngine engine)
         this.key = Arrays.clone(engine.key, this.key);
         this.preMessageParameters = clone(engine.preMessageParameters, this.preMessageParameters);
         this.postMessageParameters = clone(engine.postMessageParameters, this.postMessageParameters);
+
+        this.treeLeafSize = engine.treeLeafSize;
+        this.treeFanOut = engine.treeFanOut;
+        this.treeMaxHeight = engine.treeMaxHeight;
+        if (engine.tree == null)
+        {
+            this.tree = null;
+        }
+        else
+        {
+            this.tree = new TreeLevel[engine.tree.length];
+            for (int i = 0; i < tree.length; i++)
+            {
+                if (engine.tree[i] != null)
+                {
+                    tree[i] = new TreeLevel(threefish, getBlockSize());
+                    tree[i].reset(engine.tree[i]);
+                }
+            }
+        }
     }
 
     private static Parameter[] clone(Parameter[] data, Parameter[] existing)
@@ -596,15 +757,31 @@ public void init(SkeinParameters params)
         this.key = null;
         this.preMessageParameters = null;
         this.postMessageParameters = null;
+        this.treeLeafSize = 0;
+        this.treeFanOut = 0;
+        this.treeMaxHeight = 0;
+        this.tree = null;
 
         if (params != null)
         {
             byte[] key = params.getKey();
-            if (key.length < 16)
+            if (key != null && key.length < 16)
             {
                 throw new IllegalArgumentException("Skein key must be at least 128 bits.");
             }
             initParams(params.getParameters());
+
+            if (params.getTreeMaxHeight() != 0)
+            {
+                if (params.getTreeLeafSize() > MAX_TREE_SIZE || params.getTreeFanOut() > MAX_TREE_SIZE)
+                {
+                    throw new IllegalArgumentException("Skein tree leaf size and fan out must be at most " + MAX_TREE_SIZE + ".");
+                }
+                this.treeLeafSize = params.getTreeLeafSize();
+                this.treeFanOut = params.getTreeFanOut();
+                this.treeMaxHeight = params.getTreeMaxHeight();
+                this.tree = new TreeLevel[treeMaxHeight + 1];
+            }
         }
         createInitialState();
 
@@ -671,7 +848,7 @@ private static void sort(Parameter[] params)
     private void createInitialState()
     {
         long[] precalc = (long[])INITIAL_STATES.get(variantIdentifier(getBlockSize(), getOutputSize()));
-        if ((key == null) && (precalc != null))
+        if ((key == null) && (precalc != null) && (tree == null))
         {
             // Precalculated UBI(CFG)
             chain = Arrays.clone(precalc);
@@ -688,7 +865,8 @@ private void createInitialState()
             }
 
             // Process configuration block
-            ubiComplete(PARAM_TYPE_CONFIG, new Configuration(outputSizeBytes * 8).getBytes());
+            ubiComplete(PARAM_TYPE_CONFIG,
+                new Configuration(outputSizeBytes * 8, treeLeafSize, treeFanOut, treeMaxHeight).getBytes());
         }
 
         // Process additional pre-message parameters
@@ -712,6 +890,17 @@ public void reset()
         System.arraycopy(initialState, 0, chain, 0, chain.length);
 
         ubiInit(PARAM_TYPE_MESSAGE);
+
+        if (tree != null)
+        {
+            for (int i = 0; i < tree.length; i++)
+            {
+                if (tree[i] != null)
+                {
+                    tree[i].reset();
+                }
+            }
+        }
     }
 
     private void ubiComplete(int type, byte[] value)
@@ -748,7 +937,14 @@ public void update(byte in)
     public void update(byte[] in, int inOff, int len)
     {
         checkInitialised();
-        ubi.update(in, inOff, len, chain);
+        if (tree != null)
+        {
+            treeUpdate(in, inOff, len);
+        }
+        else
+        {
+            ubi.update(in, inOff, len, chain);
+        }
     }
 
     public int doFinal(byte[] out, int outOff)
@@ -760,7 +956,14 @@ public int doFinal(byte[] out, int outOff)
         }
 
         // Finalise message block
-        ubiFinal();
+        if (tree != null)
+        {
+            treeFinal();
+        }
+        else
+        {
+            ubiFinal();
+        }
 
         // Process additional post-message parameters
         if (postMessageParameters != null)
@@ -786,6 +989,196 @@ public int doFinal(byte[] out, int outOff)
         return outputSizeBytes;
     }
 
+    private TreeLevel treeLevel(int level)
+    {
+        if (tree[level] == null)
+        {
+            tree[level] = new TreeLevel(threefish, getBlockSize());
+        }
+        return tree[level];
+    }
+
+    /**
+     * The message bytes a node at the given level covers, unlimited for the top level.
+     */
+    private long treeNodeSize(int level)
+    {
+        if (level == treeMaxHeight)
+        {
+            return Long.MAX_VALUE;
+        }
+        return (long)getBlockSize() << (level == 1 ? treeLeafSize : treeFanOut);
+    }
+
+    private void treeUpdate(byte[] in, int inOff, int len)
+    {
+        long leafSize = treeNodeSize(1);
+
+        if (executor != null && !treeLevel(1).started && len >= 2 * leafSize && len >= MIN_TASK_BYTES)
+        {
+            int leaves = (int)(len / leafSize);
+
+            hashLeaves(in, inOff, leaves);
+
+            inOff += leaves * (int)leafSize;
+            len -= leaves * (int)leafSize;
+        }
+
+        treeAbsorb(1, in, inOff, len);
+    }
+
+    /**
+     * Add input to the given level of the tree, completing nodes as they fill.
+     */
+    private void treeAbsorb(int level, byte[] in, int inOff, int len)
+    {
+        TreeLevel node = treeLevel(level);
+        long nodeSize = treeNodeSize(level);
+
+        while (len > 0)
+        {
+            if (!node.started)
+            {
+                startNode(node, level, nodeSize);
+            }
+
+            int toAbsorb = (int)Math.min(len, nodeSize - node.nodeBytes);
+            node.ubi.update(in, inOff, toAbsorb, node.state);
+            node.nodeBytes += toAbsorb;
+            node.received += toAbsorb;
+            inOff += toAbsorb;
+            len -= toAbsorb;
+
+            if (node.nodeBytes == nodeSize)
+            {
+                finishNode(level);
+            }
+        }
+    }
+
+    private void startNode(TreeLevel node, int level, long nodeSize)
+    {
+        System.arraycopy(initialState, 0, node.state, 0, node.state.length);
+        node.ubi.reset(PARAM_TYPE_MESSAGE, level, node.index * nodeSize);
+        node.started = true;
+    }
+
+    private void finishNode(int level)
+    {
+        TreeLevel node = tree[level];
+
+        node.ubi.doFinal(node.state);
+        wordsToBytes(node.state, node.output, 0);
+        node.started = false;
+        node.index++;
+        node.nodeBytes = 0;
+
+        treeAbsorb(level + 1, node.output, 0, node.output.length);
+    }
+
+    /**
+     * Complete the tree from the leaves up, leaving the result in the chain.
+     */
+    private void treeFinal()
+    {
+        TreeLevel leaves = treeLevel(1);
+
+        // the last partial leaf, or the single empty leaf of an empty message
+        if (leaves.started || leaves.index == 0)
+        {
+            if (!leaves.started)
+            {
+                startNode(leaves, 1, treeNodeSize(1));
+            }
+            finishNode(1);
+        }
+
+        for (int level = 2; ; level++)
+        {
+            TreeLevel node = tree[level];
+
+            if (node.received == getBlockSize())
+            {
+                // a level holding a single block is the result - it is still buffered in the UBI
+                for (int i = 0; i < chain.length; i++)
+                {
+                    chain[i] = ThreefishEngine.bytesToWord(node.ubi.currentBlock, i * 8);
+                }
+                return;
+            }
+
+            if (level == treeMaxHeight)
+            {
+                node.ubi.doFinal(node.state);
+                System.arraycopy(node.state, 0, chain, 0, chain.length);
+                return;
+            }
+
+            if (node.started)
+            {
+                finishNode(level);
+            }
+        }
+    }
+
+    /**
+     * Hash a run of whole leaves, spread over the executor, and pass their outputs up the tree in
+     * order.
+     */
+    private void hashLeaves(final byte[] in, final int inOff, final int leaves)
+    {
+        final int leafSize = (int)treeNodeSize(1);
+        final int leavesPerTask = Math.max(1, MIN_TASK_BYTES / leafSize);
+        final long firstIndex = tree[1].index;
+        final byte[] outputs = new byte[leaves * getBlockSize()];
+
+        ParallelTasks.run(executor, (leaves + leavesPerTask - 1) / leavesPerTask, new ParallelTasks.Task()
+        {
+            public void run(int index)
+            {
+                int from = index * leavesPerTask, to = Math.min(leaves, from + leavesPerTask);
+
+                if (index == 0)
+                {
+                    hashLeafRange(tree[1].ubi, tree[1].state, in, inOff, firstIndex, from, to, outputs);
+                }
+                else
+                {
+                    hashLeafRange(new UBI(new ThreefishEngine(getBlockSize() * 8), getBlockSize()),
+                        new long[chain.length], in, inOff, firstIndex, from, to, outputs);
+                }
+            }
+        });
+
+        tree[1].index += leaves;
+        tree[1].received += (long)leaves * leafSize;
+
+        treeAbsorb(2, outputs, 0, outputs.length);
+    }
+
+    private void hashLeafRange(UBI leafUbi, long[] state, byte[] in, int inOff, long firstIndex, int from, int to,
+        byte[] outputs)
+    {
+        int leafSize = (int)treeNodeSize(1);
+
+        for (int i = from; i < to; i++)
+        {
+            System.arraycopy(initialState, 0, state, 0, state.length);
+            leafUbi.reset(PARAM_TYPE_MESSAGE, 1, (firstIndex + i) * leafSize);
+            leafUbi.update(in, inOff + i * leafSize, leafSize, state);
+            leafUbi.doFinal(state);
+            wordsToBytes(state, outputs, i * state.length * 8);
+        }
+    }
+
+    private static void wordsToBytes(long[] words, byte[] out, int outOff)
+    {
+        for (int i = 0; i < words.length; i++)
+        {
+            ThreefishEngine.wordToBytes(words[i], out, outOff + i * 8);
+        }
+    }
+
     private void output(long outputSequence, byte[] out, int outOff, int outputBytes)
     {
         byte[] currentBytes = new byte[8];
@@ -796,7 +1189,7 @@ private void output(long outputSequence, byte[] out, int outOff, int outputBytes
         long[] outputWords = new long[chain.length];
         ubiInit(PARAM_TYPE_OUTPUT);
         this.ubi.update(currentBytes, 0, currentBytes.length, outputWords);
-        ubi.doFinal(outputWords);
+        ubi.doFinal(chain, outputWords);
 
         final int wordsRequired = ((outputBytes + 8 - 1) / 8);
         for (int i = 0; i < wordsRequired; i++)
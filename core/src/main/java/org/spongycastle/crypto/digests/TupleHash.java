@@ -0,0 +1,135 @@
+package org.spongycastle.crypto.digests;
+
+import org.spongycastle.crypto.Xof;
+import org.spongycastle.util.Strings;
+
+/**
+ * TupleHash - a hash designed to simply hash a tuple of input strings, any or all of which may be
+ * empty strings, in an unambiguous way with an optional XOF mode, as described in NIST SP 800-185.
+ * <p>
+ * Each call to update() supplies one element of the tuple, a single byte update being an element
+ * of length one.
+ * </p>
+ */
+public class TupleHash
+    implements Xof
+{
+    private static final byte[] N_TUPLE_HASH = Strings.toByteArray("TupleHash");
+
+    private final CSHAKEDigest cshake;
+    private final int bitLength;
+    private final int outputLength;
+
+    private boolean firstOutput;
+
+    /**
+     * Base constructor.
+     *
+     * @param bitLength bit length of the underlying cSHAKE function, 128 or 256.
+     * @param S the customization string, may be null.
+     */
+    public TupleHash(int bitLength, byte[] S)
+    {
+        this(bitLength, S, bitLength * 2);
+    }
+
+    /**
+     * Constructor with a specific output size.
+     *
+     * @param bitLength bit length of the underlying cSHAKE function, 128 or 256.
+     * @param S the customization string, may be null.
+     * @param outputSize the output size in bits for doFinal(), a multiple of 8.
+     */
+    public TupleHash(int bitLength, byte[] S, int outputSize)
+    {
+        this.cshake = new CSHAKEDigest(bitLength, N_TUPLE_HASH, S);
+        this.bitLength = bitLength;
+        this.outputLength = (outputSize + 7) / 8;
+
+        reset();
+    }
+
+    public TupleHash(TupleHash original)
+    {
+        this.cshake = new CSHAKEDigest(original.cshake);
+        this.bitLength = original.bitLength;
+        this.outputLength = original.outputLength;
+        this.firstOutput = original.firstOutput;
+    }
+
+    public String getAlgorithmName()
+    {
+        return "TupleHash" + bitLength;
+    }
+
+    public int getByteLength()
+    {
+        return cshake.getByteLength();
+    }
+
+    public int getDigestSize()
+    {
+        return outputLength;
+    }
+
+    public void update(byte in)
+        throws IllegalStateException
+    {
+        byte[] enc = XofUtils.leftEncode(8);
+
+        cshake.update(enc, 0, enc.length);
+        cshake.update(in);
+    }
+
+    public void update(byte[] in, int inOff, int len)
+    {
+        byte[] enc = XofUtils.leftEncode(len * 8L);
+
+        cshake.update(enc, 0, enc.length);
+        cshake.update(in, inOff, len);
+    }
+
+    public int doFinal(byte[] out, int outOff)
+    {
+        return doFinal(out, outOff, getDigestSize());
+    }
+
+    public int doFinal(byte[] out, int outOff, int outLen)
+    {
+        if (firstOutput)
+        {
+            wrapUp(outLen * 8L);
+        }
+
+        int rv = cshake.doFinal(out, outOff, outLen);
+
+        reset();
+
+        return rv;
+    }
+
+    public int doOutput(byte[] out, int outOff, int outLen)
+    {
+        if (firstOutput)
+        {
+            wrapUp(0);
+        }
+
+        return cshake.doOutput(out, outOff, outLen);
+    }
+
+    public void reset()
+    {
+        cshake.reset();
+        firstOutput = true;
+    }
+
+    private void wrapUp(long outputSize)
+    {
+        byte[] encOut = XofUtils.rightEncode(outputSize);
+
+        cshake.update(encOut, 0, encOut.length);
+
+        firstOutput = false;
+    }
+}
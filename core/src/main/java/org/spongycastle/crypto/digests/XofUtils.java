@@ -0,0 +1,90 @@
+package org.spongycastle.crypto.digests;
+
+/**
+ * The string encodings of NIST SP 800-185 used to build the cSHAKE derived functions.
+ */
+public final class XofUtils
+{
+    private XofUtils()
+    {
+    }
+
+    /**
+     * left_encode(x): the big-endian bytes of x, preceded by their count.
+     *
+     * @param x the value to encode, must not be negative.
+     * @return the encoding of x.
+     */
+    public static byte[] leftEncode(long x)
+    {
+        int n = encodedLength(x);
+        byte[] b = new byte[n + 1];
+
+        b[0] = (byte)n;
+        for (int i = n; i > 0; i--)
+        {
+            b[i] = (byte)x;
+            x >>>= 8;
+        }
+
+        return b;
+    }
+
+    /**
+     * right_encode(x): the big-endian bytes of x, followed by their count.
+     *
+     * @param x the value to encode, must not be negative.
+     * @return the encoding of x.
+     */
+    public static byte[] rightEncode(long x)
+    {
+        int n = encodedLength(x);
+        byte[] b = new byte[n + 1];
+
+        b[n] = (byte)n;
+        for (int i = n - 1; i >= 0; i--)
+        {
+            b[i] = (byte)x;
+            x >>>= 8;
+        }
+
+        return b;
+    }
+
+    /**
+     * encode_string(S): the left encoded bit length of S followed by S.
+     *
+     * @param s the string to encode, null is taken as the empty string.
+     * @return the encoding of s.
+     */
+    public static byte[] encodeString(byte[] s)
+    {
+        if (s == null || s.length == 0)
+        {
+            return leftEncode(0);
+        }
+
+        byte[] len = leftEncode(s.length * 8L);
+        byte[] b = new byte[len.length + s.length];
+
+        System.arraycopy(len, 0, b, 0, len.length);
+        System.arraycopy(s, 0, b, len.length, s.length);
+
+        return b;
+    }
+
+    private static int encodedLength(long x)
+    {
+        if (x < 0)
+        {
+            throw new IllegalArgumentException("value to encode must not be negative");
+        }
+
+        int n = 1;
+        while ((x >>>= 8) != 0)
+        {
+            n++;
+        }
+        return n;
+    }
+}
@@ -117,4 +117,23 @@ protected void generateKeyStream(byte[] output)
         ChaChaEngine.chachaCore(rounds, engineState, x);
         Pack.intToLittleEndian(x, output, 0);
     }
+
+    protected void processKeyStreamBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        while (blockCount >= 2)
+        {
+            int lo0 = engineState[12], hi0 = engineState[13];
+            advanceCounter();
+            int lo1 = engineState[12], hi1 = engineState[13];
+            advanceCounter();
+
+            ChaChaEngine.chachaCoreXor(rounds, engineState, lo0, hi0, lo1, hi1, in, inOff, out, outOff);
+
+            inOff += 128;
+            outOff += 128;
+            blockCount -= 2;
+        }
+
+        super.processKeyStreamBlocks(in, inOff, blockCount, out, outOff);
+    }
 }
@@ -141,6 +141,25 @@ protected void generateKeyStream(byte[] output)
         Pack.intToLittleEndian(x, output, 0);
     }
 
+    protected void processKeyStreamBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        while (blockCount >= 2)
+        {
+            int lo0 = engineState[12], hi0 = engineState[13];
+            advanceCounter();
+            int lo1 = engineState[12], hi1 = engineState[13];
+            advanceCounter();
+
+            chachaCoreXor(rounds, engineState, lo0, hi0, lo1, hi1, in, inOff, out, outOff);
+
+            inOff += 128;
+            outOff += 128;
+            blockCount -= 2;
+        }
+
+        super.processKeyStreamBlocks(in, inOff, blockCount, out, outOff);
+    }
+
     /**
      * ChaCha function
      *
@@ -232,4 +251,154 @@ public static void chachaCore(int rounds, int[] input, int[] x)
         x[14] = x14 + input[14];
         x[15] = x15 + input[15];
     }
+
+    /**
+     * Two lane ChaCha function - generates the key stream blocks for the counter values (lo0, hi0) and
+     * (lo1, hi1) together, XORing them directly with 128 bytes of input.
+     *
+     * @param   input   input state, words 12 and 13 are replaced by the lane counter values
+     */
+    static void chachaCoreXor(int rounds, int[] input, int lo0, int hi0, int lo1, int hi1,
+        byte[] in, int inOff, byte[] out, int outOff)
+    {
+        int x00 = input[ 0];
+        int x01 = input[ 1];
+        int x02 = input[ 2];
+        int x03 = input[ 3];
+        int x04 = input[ 4];
+        int x05 = input[ 5];
+        int x06 = input[ 6];
+        int x07 = input[ 7];
+        int x08 = input[ 8];
+        int x09 = input[ 9];
+        int x10 = input[10];
+        int x11 = input[11];
+        int x12 = lo0;
+        int x13 = hi0;
+        int x14 = input[14];
+        int x15 = input[15];
+        int y00 = input[ 0];
+        int y01 = input[ 1];
+        int y02 = input[ 2];
+        int y03 = input[ 3];
+        int y04 = input[ 4];
+        int y05 = input[ 5];
+        int y06 = input[ 6];
+        int y07 = input[ 7];
+        int y08 = input[ 8];
+        int y09 = input[ 9];
+        int y10 = input[10];
+        int y11 = input[11];
+        int y12 = lo1;
+        int y13 = hi1;
+        int y14 = input[14];
+        int y15 = input[15];
+
+        for (int i = rounds; i > 0; i -= 2)
+        {
+            x00 += x04; x12 = rotl(x12 ^ x00, 16);
+            y00 += y04; y12 = rotl(y12 ^ y00, 16);
+            x08 += x12; x04 = rotl(x04 ^ x08, 12);
+            y08 += y12; y04 = rotl(y04 ^ y08, 12);
+            x00 += x04; x12 = rotl(x12 ^ x00, 8);
+            y00 += y04; y12 = rotl(y12 ^ y00, 8);
+            x08 += x12; x04 = rotl(x04 ^ x08, 7);
+            y08 += y12; y04 = rotl(y04 ^ y08, 7);
+            x01 += x05; x13 = rotl(x13 ^ x01, 16);
+            y01 += y05; y13 = rotl(y13 ^ y01, 16);
+            x09 += x13; x05 = rotl(x05 ^ x09, 12);
+            y09 += y13; y05 = rotl(y05 ^ y09, 12);
+            x01 += x05; x13 = rotl(x13 ^ x01, 8);
+            y01 += y05; y13 = rotl(y13 ^ y01, 8);
+            x09 += x13; x05 = rotl(x05 ^ x09, 7);
+            y09 += y13; y05 = rotl(y05 ^ y09, 7);
+            x02 += x06; x14 = rotl(x14 ^ x02, 16);
+            y02 += y06; y14 = rotl(y14 ^ y02, 16);
+            x10 += x14; x06 = rotl(x06 ^ x10, 12);
+            y10 += y14; y06 = rotl(y06 ^ y10, 12);
+            x02 += x06; x14 = rotl(x14 ^ x02, 8);
+            y02 += y06; y14 = rotl(y14 ^ y02, 8);
+            x10 += x14; x06 = rotl(x06 ^ x10, 7);
+            y10 += y14; y06 = rotl(y06 ^ y10, 7);
+            x03 += x07; x15 = rotl(x15 ^ x03, 16);
+            y03 += y07; y15 = rotl(y15 ^ y03, 16);
+            x11 += x15; x07 = rotl(x07 ^ x11, 12);
+            y11 += y15; y07 = rotl(y07 ^ y11, 12);
+            x03 += x07; x15 = rotl(x15 ^ x03, 8);
+            y03 += y07; y15 = rotl(y15 ^ y03, 8);
+            x11 += x15; x07 = rotl(x07 ^ x11, 7);
+            y11 += y15; y07 = rotl(y07 ^ y11, 7);
+            x00 += x05; x15 = rotl(x15 ^ x00, 16);
+            y00 += y05; y15 = rotl(y15 ^ y00, 16);
+            x10 += x15; x05 = rotl(x05 ^ x10, 12);
+            y10 += y15; y05 = rotl(y05 ^ y10, 12);
+            x00 += x05; x15 = rotl(x15 ^ x00, 8);
+            y00 += y05; y15 = rotl(y15 ^ y00, 8);
+            x10 += x15; x05 = rotl(x05 ^ x10, 7);
+            y10 += y15; y05 = rotl(y05 ^ y10, 7);
+            x01 += x06; x12 = rotl(x12 ^ x01, 16);
+            y01 += y06; y12 = rotl(y12 ^ y01, 16);
+            x11 += x12; x06 = rotl(x06 ^ x11, 12);
+            y11 += y12; y06 = rotl(y06 ^ y11, 12);
+            x01 += x06; x12 = rotl(x12 ^ x01, 8);
+            y01 += y06; y12 = rotl(y12 ^ y01, 8);
+            x11 += x12; x06 = rotl(x06 ^ x11, 7);
+            y11 += y12; y06 = rotl(y06 ^ y11, 7);
+            x02 += x07; x13 = rotl(x13 ^ x02, 16);
+            y02 += y07; y13 = rotl(y13 ^ y02, 16);
+            x08 += x13; x07 = rotl(x07 ^ x08, 12);
+            y08 += y13; y07 = rotl(y07 ^ y08, 12);
+            x02 += x07; x13 = rotl(x13 ^ x02, 8);
+            y02 += y07; y13 = rotl(y13 ^ y02, 8);
+            x08 += x13; x07 = rotl(x07 ^ x08, 7);
+            y08 += y13; y07 = rotl(y07 ^ y08, 7);
+            x03 += x04; x14 = rotl(x14 ^ x03, 16);
+            y03 += y04; y14 = rotl(y14 ^ y03, 16);
+            x09 += x14; x04 = rotl(x04 ^ x09, 12);
+            y09 += y14; y04 = rotl(y04 ^ y09, 12);
+            x03 += x04; x14 = rotl(x14 ^ x03, 8);
+            y03 += y04; y14 = rotl(y14 ^ y03, 8);
+            x09 += x14; x04 = rotl(x04 ^ x09, 7);
+            y09 += y14; y04 = rotl(y04 ^ y09, 7);
+        }
+
+        xorWord(x00 + input[ 0], in, inOff, out, outOff);
+        xorWord(x01 + input[ 1], in, inOff + 4, out, outOff + 4);
+        xorWord(x02 + input[ 2], in, inOff + 8, out, outOff + 8);
+        xorWord(x03 + input[ 3], in, inOff + 12, out, outOff + 12);
+        xorWord(x04 + input[ 4], in, inOff + 16, out, outOff + 16);
+        xorWord(x05 + input[ 5], in, inOff + 20, out, outOff + 20);
+        xorWord(x06 + input[ 6], in, inOff + 24, out, outOff + 24);
+        xorWord(x07 + input[ 7], in, inOff + 28, out, outOff + 28);
+        xorWord(x08 + input[ 8], in, inOff + 32, out, outOff + 32);
+        xorWord(x09 + input[ 9], in, inOff + 36, out, outOff + 36);
+        xorWord(x10 + input[10], in, inOff + 40, out, outOff + 40);
+        xorWord(x11 + input[11], in, inOff + 44, out, outOff + 44);
+        xorWord(x12 + lo0, in, inOff + 48, out, outOff + 48);
+        xorWord(x13 + hi0, in, inOff + 52, out, outOff + 52);
+        xorWord(x14 + input[14], in, inOff + 56, out, outOff + 56);
+        xorWord(x15 + input[15], in, inOff + 60, out, outOff + 60);
+
+        xorWord(y00 + input[ 0], in, inOff + 64, out, outOff + 64);
+        xorWord(y01 + input[ 1], in, inOff + 68, out, outOff + 68);
+        xorWord(y02 + input[ 2], in, inOff + 72, out, outOff + 72);
+        xorWord(y03 + input[ 3], in, inOff + 76, out, outOff + 76);
+        xorWord(y04 + input[ 4], in, inOff + 80, out, outOff + 80);
+        xorWord(y05 + input[ 5], in, inOff + 84, out, outOff + 84);
+        xorWord(y06 + input[ 6], in, inOff + 88, out, outOff + 88);
+        xorWord(y07 + input[ 7], in, inOff + 92, out, outOff + 92);
+        xorWord(y08 + input[ 8], in, inOff + 96, out, outOff + 96);
+        xorWord(y09 + input[ 9], in, inOff + 100, out, outOff + 100);
+        xorWord(y10 + input[10], in, inOff + 104, out, outOff + 104);
+        xorWord(y11 + input[11], in, inOff + 108, out, outOff + 108);
+        xorWord(y12 + lo1, in, inOff + 112, out, outOff + 112);
+        xorWord(y13 + hi1, in, inOff + 116, out, outOff + 116);
+        xorWord(y14 + input[14], in, inOff + 120, out, outOff + 120);
+        xorWord(y15 + input[15], in, inOff + 124, out, outOff + 124);
+    }
+
+    private static void xorWord(int k, byte[] in, int inOff, byte[] out, int outOff)
+    {
+        Pack.intToLittleEndian(k ^ Pack.littleEndianToInt(in, inOff), out, outOff);
+    }
 }
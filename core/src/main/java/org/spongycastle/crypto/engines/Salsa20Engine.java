@@ -269,7 +269,38 @@ public int processBytes(
             throw new MaxBytesExceededException("2^70 byte limit per IV would be exceeded; Change IV");
         }
 
-        for (int i = 0; i < len; i++)
+        int i = 0;
+
+        while (index != 0 && i < len)
+        {
+            out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
+            index = (index + 1) & 63;
+
+            if (index == 0)
+            {
+                advanceCounter();
+                generateKeyStream(keyStream);
+            }
+            i++;
+        }
+
+        int blockCount = (len - i) >>> 6;
+        if (blockCount > 1)
+        {
+            // key stream for the current block has already been generated
+            for (int j = 0; j < 64; j++)
+            {
+                out[i + outOff + j] = (byte)(keyStream[j] ^ in[i + inOff + j]);
+            }
+            advanceCounter();
+
+            processKeyStreamBlocks(in, inOff + i + 64, blockCount - 1, out, outOff + i + 64);
+            generateKeyStream(keyStream);
+
+            i += blockCount * 64;
+        }
+
+        for (; i < len; i++)
         {
             out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
             index = (index + 1) & 63;
@@ -284,6 +315,33 @@ public int processBytes(
         return len;
     }
 
+    /**
+     * XOR blockCount whole blocks of key stream, starting from the current counter, with the input
+     * and advance the counter past them. Subclasses may override this to generate several blocks
+     * of key stream at a time.
+     *
+     * @param in the input data.
+     * @param inOff offset of the first block in in.
+     * @param blockCount the number of 64 byte blocks to process.
+     * @param out the array the output is written to.
+     * @param outOff offset of the first block in out.
+     */
+    protected void processKeyStreamBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+    {
+        for (int i = 0; i < blockCount; i++)
+        {
+            generateKeyStream(keyStream);
+            for (int j = 0; j < 64; j++)
+            {
+                out[outOff + j] = (byte)(keyStream[j] ^ in[inOff + j]);
+            }
+            advanceCounter();
+
+            inOff += 64;
+            outOff += 64;
+        }
+    }
+
     public long skip(long numberOfBytes)
     {
         if (numberOfBytes >= 0)
@@ -1,8 +1,9 @@
 package org.spongycastle.crypto.engines;
 
-import org.spongycastle.crypto.BlockCipher;
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.DataLengthException;
+import org.spongycastle.crypto.MultiBlockCipher;
+import org.spongycastle.crypto.OutputLengthException;
 import org.spongycastle.crypto.params.KeyParameter;
 import org.spongycastle.crypto.params.TweakableBlockCipherParameters;
 
@@ -21,7 +22,7 @@
  * 2 x block size state is retained by each cipher instance.
  */
 public class ThreefishEngine
-    implements BlockCipher
+    implements MultiBlockCipher
 {
     /**
      * 256 bit block size - Threefish-256
@@ -337,16 +338,108 @@ public int processBlock(long[] in, long[] out)
 
         if (forEncryption)
         {
-            cipher.encryptBlock(in, out);
+            cipher.encryptBlock(in, 0, out, 0);
         }
         else
         {
-            cipher.decryptBlock(in, out);
+            cipher.decryptBlock(in, 0, out, 0);
         }
 
         return blocksizeWords;
     }
 
+    /**
+     * Process consecutive blocks of data represented as 64 bit words, without packing them to or
+     * from bytes.
+     *
+     * @param in  the buffer holding the input words.
+     * @param inOff the offset in in of the first input word.
+     * @param blockCount the number of blocks to process.
+     * @param out the buffer to receive the output words, which may be the same buffer as in provided
+     *            outOff is not greater than inOff.
+     * @param outOff the offset in out of the first output word.
+     * @return the number of 8 byte words processed.
+     * @throws DataLengthException if either the input or output is too short.
+     * @throws IllegalStateException if this engine is not initialised.
+     */
+    public int processBlocks(long[] in, int inOff, int blockCount, long[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        if (kw[blocksizeWords] == 0)
+        {
+            throw new IllegalStateException("Threefish engine not initialised");
+        }
+
+        int len = blockCount * blocksizeWords;
+
+        if (blockCount < 0 || inOff < 0 || (inOff + len) > in.length)
+        {
+            throw new DataLengthException("Input buffer too short");
+        }
+        if (outOff < 0 || (outOff + len) > out.length)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        for (int i = 0; i < len; i += blocksizeWords)
+        {
+            if (forEncryption)
+            {
+                cipher.encryptBlock(in, inOff + i, out, outOff + i);
+            }
+            else
+            {
+                cipher.decryptBlock(in, inOff + i, out, outOff + i);
+            }
+        }
+
+        return len;
+    }
+
+    public int processBlocks(byte[] in, int inOff, int blockCount, byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        int len = blockCount * blocksizeBytes;
+
+        if (blockCount < 0 || (inOff + len) > in.length)
+        {
+            throw new DataLengthException("Input buffer too short");
+        }
+        if ((outOff + len) > out.length)
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (kw[blocksizeWords] == 0)
+        {
+            throw new IllegalStateException("Threefish engine not initialised");
+        }
+
+        long[] block = this.currentBlock;
+        for (int i = 0; i < len; i += blocksizeBytes)
+        {
+            for (int j = 0; j < blocksizeWords; j++)
+            {
+                block[j] = bytesToWord(in, inOff + i + (j << 3));
+            }
+
+            if (forEncryption)
+            {
+                cipher.encryptBlock(block, 0, block, 0);
+            }
+            else
+            {
+                cipher.decryptBlock(block, 0, block, 0);
+            }
+
+            for (int j = 0; j < blocksizeWords; j++)
+            {
+                wordToBytes(block[j], out, outOff + i + (j << 3));
+            }
+        }
+
+        return len;
+    }
+
     /**
      * Read a single 64 bit word from input in LSB first order.
      */
@@ -433,9 +526,9 @@ protected ThreefishCipher(final long[] kw, final long[] t)
             this.t = t;
         }
 
-        abstract void encryptBlock(long[] block, long[] out);
+        abstract void encryptBlock(long[] block, int inOff, long[] out, int outOff);
 
-        abstract void decryptBlock(long[] block, long[] out);
+        abstract void decryptBlock(long[] block, int inOff, long[] out, int outOff);
 
     }
 
@@ -460,7 +553,7 @@ public Threefish256Cipher(long[] kw, long[] t)
             super(kw, t);
         }
 
-        void encryptBlock(long[] block, long[] out)
+        void encryptBlock(long[] block, int inOff, long[] out, int outOff)
         {
             final long[] kw = this.kw;
             final long[] t = this.t;
@@ -480,10 +573,10 @@ void encryptBlock(long[] block, long[] out)
             /*
              * Read 4 words of plaintext data, not using arrays for cipher state
              */
-            long b0 = block[0];
-            long b1 = block[1];
-            long b2 = block[2];
-            long b3 = block[3];
+            long b0 = block[inOff + 0];
+            long b1 = block[inOff + 1];
+            long b2 = block[inOff + 2];
+            long b3 = block[inOff + 3];
 
             /*
              * First subkey injection.
@@ -562,13 +655,13 @@ void encryptBlock(long[] block, long[] out)
             /*
              * Output cipher state.
              */
-            out[0] = b0;
-            out[1] = b1;
-            out[2] = b2;
-            out[3] = b3;
+            out[outOff + 0] = b0;
+            out[outOff + 1] = b1;
+            out[outOff + 2] = b2;
+            out[outOff + 3] = b3;
         }
 
-        void decryptBlock(long[] block, long[] state)
+        void decryptBlock(long[] block, int inOff, long[] state, int outOff)
         {
             final long[] kw = this.kw;
             final long[] t = this.t;
@@ -585,10 +678,10 @@ void decryptBlock(long[] block, long[] state)
                 throw new IllegalArgumentException();
             }
 
-            long b0 = block[0];
-            long b1 = block[1];
-            long b2 = block[2];
-            long b3 = block[3];
+            long b0 = block[inOff + 0];
+            long b1 = block[inOff + 1];
+            long b2 = block[inOff + 2];
+            long b3 = block[inOff + 3];
 
             for (int d = (ROUNDS_256 / 4) - 1; d >= 1; d -= 2)
             {
@@ -662,10 +755,10 @@ void decryptBlock(long[] block, long[] state)
             /*
              * Output cipher state.
              */
-            state[0] = b0;
-            state[1] = b1;
-            state[2] = b2;
-            state[3] = b3;
+            state[outOff + 0] = b0;
+            state[outOff + 1] = b1;
+            state[outOff + 2] = b2;
+            state[outOff + 3] = b3;
         }
 
     }
@@ -691,7 +784,7 @@ protected Threefish512Cipher(long[] kw, long[] t)
             super(kw, t);
         }
 
-        public void encryptBlock(long[] block, long[] out)
+        public void encryptBlock(long[] block, int inOff, long[] out, int outOff)
         {
             final long[] kw = this.kw;
             final long[] t = this.t;
@@ -711,14 +804,14 @@ public void encryptBlock(long[] block, long[] out)
             /*
              * Read 8 words of plaintext data, not using arrays for cipher state
              */
-            long b0 = block[0];
-            long b1 = block[1];
-            long b2 = block[2];
-            long b3 = block[3];
-            long b4 = block[4];
-            long b5 = block[5];
-            long b6 = block[6];
-            long b7 = block[7];
+            long b0 = block[inOff + 0];
+            long b1 = block[inOff + 1];
+            long b2 = block[inOff + 2];
+            long b3 = block[inOff + 3];
+            long b4 = block[inOff + 4];
+            long b5 = block[inOff + 5];
+            long b6 = block[inOff + 6];
+            long b7 = block[inOff + 7];
 
             /*
              * First subkey injection.
@@ -825,17 +918,17 @@ public void encryptBlock(long[] block, long[] out)
             /*
              * Output cipher state.
              */
-            out[0] = b0;
-            out[1] = b1;
-            out[2] = b2;
-            out[3] = b3;
-            out[4] = b4;
-            out[5] = b5;
-            out[6] = b6;
-            out[7] = b7;
+            out[outOff + 0] = b0;
+            out[outOff + 1] = b1;
+            out[outOff + 2] = b2;
+            out[outOff + 3] = b3;
+            out[outOff + 4] = b4;
+            out[outOff + 5] = b5;
+            out[outOff + 6] = b6;
+            out[outOff + 7] = b7;
         }
 
-        public void decryptBlock(long[] block, long[] state)
+        public void decryptBlock(long[] block, int inOff, long[] state, int outOff)
         {
             final long[] kw = this.kw;
             final long[] t = this.t;
@@ -852,14 +945,14 @@ public void decryptBlock(long[] block, long[] state)
                 throw new IllegalArgumentException();
             }
 
-            long b0 = block[0];
-            long b1 = block[1];
-            long b2 = block[2];
-            long b3 = block[3];
-            long b4 = block[4];
-            long b5 = block[5];
-            long b6 = block[6];
-            long b7 = block[7];
+            long b0 = block[inOff + 0];
+            long b1 = block[inOff + 1];
+            long b2 = block[inOff + 2];
+            long b3 = block[inOff + 3];
+            long b4 = block[inOff + 4];
+            long b5 = block[inOff + 5];
+            long b6 = block[inOff + 6];
+            long b7 = block[inOff + 7];
 
             for (int d = (ROUNDS_512 / 4) - 1; d >= 1; d -= 2)
             {
@@ -977,14 +1070,14 @@ public void decryptBlock(long[] block, long[] state)
             /*
              * Output cipher state.
              */
-            state[0] = b0;
-            state[1] = b1;
-            state[2] = b2;
-            state[3] = b3;
-            state[4] = b4;
-            state[5] = b5;
-            state[6] = b6;
-            state[7] = b7;
+            state[outOff + 0] = b0;
+            state[outOff + 1] = b1;
+            state[outOff + 2] = b2;
+            state[outOff + 3] = b3;
+            state[outOff + 4] = b4;
+            state[outOff + 5] = b5;
+            state[outOff + 6] = b6;
+            state[outOff + 7] = b7;
         }
     }
 
@@ -1017,7 +1110,7 @@ public Threefish1024Cipher(long[] kw, long[] t)
             super(kw, t);
         }
 
-        void encryptBlock(long[] block, long[] out)
+        void encryptBlock(long[] block, int inOff, long[] out, int outOff)
         {
             final long[] kw = this.kw;
             final long[] t = this.t;
@@ -1037,22 +1130,22 @@ void encryptBlock(long[] block, long[] out)
             /*
              * Read 16 words of plaintext data, not using arrays for cipher state
              */
-            long b0 = block[0];
-            long b1 = block[1];
-            long b2 = block[2];
-            long b3 = block[3];
-            long b4 = block[4];
-            long b5 = block[5];
-            long b6 = block[6];
-            long b7 = block[7];
-            long b8 = block[8];
-            long b9 = block[9];
-            long b10 = block[10];
-            long b11 = block[11];
-            long b12 = block[12];
-            long b13 = block[13];
-            long b14 = block[14];
-            long b15 = block[15];
+            long b0 = block[inOff + 0];
+            long b1 = block[inOff + 1];
+            long b2 = block[inOff + 2];
+            long b3 = block[inOff + 3];
+            long b4 = block[inOff + 4];
+            long b5 = block[inOff + 5];
+            long b6 = block[inOff + 6];
+            long b7 = block[inOff + 7];
+            long b8 = block[inOff + 8];
+            long b9 = block[inOff + 9];
+            long b10 = block[inOff + 10];
+            long b11 = block[inOff + 11];
+            long b12 = block[inOff + 12];
+            long b13 = block[inOff + 13];
+            long b14 = block[inOff + 14];
+            long b15 = block[inOff + 15];
 
             /*
              * First subkey injection.
@@ -1216,25 +1309,25 @@ void encryptBlock(long[] block, long[] out)
             /*
              * Output cipher state.
              */
-            out[0] = b0;
-            out[1] = b1;
-            out[2] = b2;
-            out[3] = b3;
-            out[4] = b4;
-            out[5] = b5;
-            out[6] = b6;
-            out[7] = b7;
-            out[8] = b8;
-            out[9] = b9;
-            out[10] = b10;
-            out[11] = b11;
-            out[12] = b12;
-            out[13] = b13;
-            out[14] = b14;
-            out[15] = b15;
+            out[outOff + 0] = b0;
+            out[outOff + 1] = b1;
+            out[outOff + 2] = b2;
+            out[outOff + 3] = b3;
+            out[outOff + 4] = b4;
+            out[outOff + 5] = b5;
+            out[outOff + 6] = b6;
+            out[outOff + 7] = b7;
+            out[outOff + 8] = b8;
+            out[outOff + 9] = b9;
+            out[outOff + 10] = b10;
+            out[outOff + 11] = b11;
+            out[outOff + 12] = b12;
+            out[outOff + 13] = b13;
+            out[outOff + 14] = b14;
+            out[outOff + 15] = b15;
         }
 
-        void decryptBlock(long[] block, long[] state)
+        void decryptBlock(long[] block, int inOff, long[] state, int outOff)
         {
             final long[] kw = this.kw;
             final long[] t = this.t;
@@ -1251,22 +1344,22 @@ void decryptBlock(long[] block, long[] state)
                 throw new IllegalArgumentException();
             }
 
-            long b0 = block[0];
-            long b1 = block[1];
-            long b2 = block[2];
-            long b3 = block[3];
-            long b4 = block[4];
-            long b5 = block[5];
-            long b6 = block[6];
-            long b7 = block[7];
-            long b8 = block[8];
-            long b9 = block[9];
-            long b10 = block[10];
-            long b11 = block[11];
-            long b12 = block[12];
-            long b13 = block[13];
-            long b14 = block[14];
-            long b15 = block[15];
+            long b0 = block[inOff + 0];
+            long b1 = block[inOff + 1];
+            long b2 = block[inOff + 2];
+            long b3 = block[inOff + 3];
+            long b4 = block[inOff + 4];
+            long b5 = block[inOff + 5];
+            long b6 = block[inOff + 6];
+            long b7 = block[inOff + 7];
+            long b8 = block[inOff + 8];
+            long b9 = block[inOff + 9];
+            long b10 = block[inOff + 10];
+            long b11 = block[inOff + 11];
+            long b12 = block[inOff + 12];
+            long b13 = block[inOff + 13];
+            long b14 = block[inOff + 14];
+            long b15 = block[inOff + 15];
 
             for (int d = (ROUNDS_1024 / 4) - 1; d >= 1; d -= 2)
             {
@@ -1471,22 +1564,22 @@ void decryptBlock(long[] block, long[] state)
             /*
              * Output cipher state.
              */
-            state[0] = b0;
-            state[1] = b1;
-            state[2] = b2;
-            state[3] = b3;
-            state[4] = b4;
-            state[5] = b5;
-            state[6] = b6;
-            state[7] = b7;
-            state[8] = b8;
-            state[9] = b9;
-            state[10] = b10;
-            state[11] = b11;
-            state[12] = b12;
-            state[13] = b13;
-            state[14] = b14;
-            state[15] = b15;
+            state[outOff + 0] = b0;
+            state[outOff + 1] = b1;
+            state[outOff + 2] = b2;
+            state[outOff + 3] = b3;
+            state[outOff + 4] = b4;
+            state[outOff + 5] = b5;
+            state[outOff + 6] = b6;
+            state[outOff + 7] = b7;
+            state[outOff + 8] = b8;
+            state[outOff + 9] = b9;
+            state[outOff + 10] = b10;
+            state[outOff + 11] = b11;
+            state[outOff + 12] = b12;
+            state[outOff + 13] = b13;
+            state[outOff + 14] = b14;
+            state[outOff + 15] = b15;
         }
 
     }
@@ -4,9 +4,11 @@
 import org.spongycastle.crypto.DerivationFunction;
 import org.spongycastle.crypto.DerivationParameters;
 import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.OutputLengthException;
 import org.spongycastle.crypto.macs.HMac;
 import org.spongycastle.crypto.params.HKDFParameters;
 import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.Arrays;
 
 /**
  * HMAC-based Extract-and-Expand Key Derivation Function (HKDF) implemented
@@ -23,7 +25,8 @@
     private int hashLen;
 
     private byte[] info;
-    private byte[] currentT;
+    private final byte[] currentT;
+    private final byte[] partialT;
 
     private int generatedBytes;
 
@@ -36,6 +39,8 @@ public HKDFBytesGenerator(Digest hash)
     {
         this.hMacHash = new HMac(hash);
         this.hashLen = hash.getDigestSize();
+        this.currentT = new byte[hashLen];
+        this.partialT = new byte[hashLen];
     }
 
     public void init(DerivationParameters param)
@@ -60,7 +65,6 @@ public void init(DerivationParameters param)
         info = params.getInfo();
 
         generatedBytes = 0;
-        currentT = new byte[hashLen];
     }
 
     /**
@@ -72,7 +76,6 @@ public void init(DerivationParameters param)
      */
     private KeyParameter extract(byte[] salt, byte[] ikm)
     {
-        hMacHash.init(new KeyParameter(ikm));
         if (salt == null)
         {
             // TODO check if hashLen is indeed same as HMAC size
@@ -84,10 +87,11 @@ private KeyParameter extract(byte[] salt, byte[] ikm)
         }
 
         hMacHash.update(ikm, 0, ikm.length);
+        hMacHash.doFinal(currentT, 0);
 
-        byte[] prk = new byte[hashLen];
-        hMacHash.doFinal(prk, 0);
-        return new KeyParameter(prk);
+        KeyParameter prk = new KeyParameter(currentT);
+        Arrays.fill(currentT, (byte)0);
+        return prk;
     }
 
     /**
@@ -116,6 +120,87 @@ private void expandNext()
         hMacHash.doFinal(currentT, 0);
     }
 
+    /**
+     * Derive several keys from the current PRK in one call, the key for infos[i] being the first
+     * lengths[i] bytes of HKDF-Expand(PRK, infos[i]). The keys are written one after the other
+     * starting at out[outOff], whole blocks going straight into out. The state of generateBytes()
+     * is left as it was.
+     *
+     * @param infos the context and application specific information for each key.
+     * @param lengths the length in bytes of each key.
+     * @param out the array to write the keys into.
+     * @param outOff the offset in out the first key starts at.
+     * @return the total number of bytes written.
+     * @throws DataLengthException if a key is longer than 255 * HashLen bytes.
+     */
+    public int generateBytes(byte[][] infos, int[] lengths, byte[] out, int outOff)
+        throws DataLengthException, IllegalArgumentException
+    {
+        if (info == null)
+        {
+            throw new IllegalStateException("HKDFBytesGenerator not initialised");
+        }
+        if (infos.length != lengths.length)
+        {
+            throw new IllegalArgumentException("infos and lengths must have the same number of entries");
+        }
+
+        int total = 0;
+        for (int i = 0; i < lengths.length; i++)
+        {
+            if (lengths[i] < 0 || lengths[i] > 255 * hashLen)
+            {
+                throw new DataLengthException(
+                    "HKDF may only be used for 255 * HashLen bytes of output");
+            }
+            total += lengths[i];
+        }
+        if (outOff + total > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        for (int i = 0; i < infos.length; i++)
+        {
+            expandInto(infos[i], out, outOff, lengths[i]);
+            outOff += lengths[i];
+        }
+
+        return total;
+    }
+
+    private void expandInto(byte[] info, byte[] out, int outOff, int len)
+    {
+        byte[] t = null;
+        int tOff = 0;
+
+        for (int n = 1; len > 0; n++)
+        {
+            if (t != null)
+            {
+                hMacHash.update(t, tOff, hashLen);
+            }
+            hMacHash.update(info, 0, info.length);
+            hMacHash.update((byte)n);
+
+            if (len >= hashLen)
+            {
+                hMacHash.doFinal(out, outOff);
+                t = out;
+                tOff = outOff;
+                outOff += hashLen;
+                len -= hashLen;
+            }
+            else
+            {
+                hMacHash.doFinal(partialT, 0);
+                System.arraycopy(partialT, 0, out, outOff, len);
+                Arrays.fill(partialT, (byte)0);
+                len = 0;
+            }
+        }
+    }
+
     public Digest getDigest()
     {
         return hMacHash.getUnderlyingDigest();
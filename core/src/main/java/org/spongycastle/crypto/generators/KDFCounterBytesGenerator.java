@@ -1,7 +1,5 @@
 package org.spongycastle.crypto.generators;
 
-import java.math.BigInteger;
-
 import org.spongycastle.crypto.DataLengthException;
 import org.spongycastle.crypto.DerivationParameters;
 import org.spongycastle.crypto.Mac;
@@ -41,9 +39,6 @@
     implements MacDerivationFunction
 {
 
-    private static final BigInteger INTEGER_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
-    private static final BigInteger TWO = BigInteger.valueOf(2);
-
     // please refer to the standard for the meaning of the variable names
     // all field lengths are in bytes, not in bits as specified by the standard
 
@@ -91,11 +86,13 @@ public void init(DerivationParameters param)
         this.fixedInputData_afterCtr = kdfParams.getFixedInputDataCounterSuffix();
 
         int r = kdfParams.getR();
-        this.ios = new byte[r / 8];
+        if (ios == null || ios.length != r / 8)
+        {
+            this.ios = new byte[r / 8];
+        }
 
-        BigInteger maxSize = TWO.pow(r).multiply(BigInteger.valueOf(h));
-        this.maxSizeExcl = maxSize.compareTo(INTEGER_MAX) == 1 ?
-            Integer.MAX_VALUE : maxSize.intValue();
+        long maxSize = (1L << r) * h;
+        this.maxSizeExcl = (int)Math.min(maxSize, Integer.MAX_VALUE);
 
         // --- set operational state ---
 
@@ -119,26 +116,31 @@ public int generateBytes(byte[] out, int outOff, int len)
                 "Current KDFCTR may only be used for " + maxSizeExcl + " bytes");
         }
 
-        if (generatedBytes % h == 0)
-        {
-            generateNext();
-        }
-
-        // copy what is left in the currentT (1..hash
         int toGenerate = len;
         int posInK = generatedBytes % h;
-        int leftInK = h - generatedBytes % h;
-        int toCopy = Math.min(leftInK, toGenerate);
-        System.arraycopy(k, posInK, out, outOff, toCopy);
-        generatedBytes += toCopy;
-        toGenerate -= toCopy;
-        outOff += toCopy;
+        if (posInK != 0)
+        {
+            // copy what is left in the current K(i)
+            int toCopy = Math.min(h - posInK, toGenerate);
+            System.arraycopy(k, posInK, out, outOff, toCopy);
+            generatedBytes += toCopy;
+            toGenerate -= toCopy;
+            outOff += toCopy;
+        }
 
         while (toGenerate > 0)
         {
-            generateNext();
-            toCopy = Math.min(h, toGenerate);
-            System.arraycopy(k, 0, out, outOff, toCopy);
+            int toCopy = Math.min(h, toGenerate);
+            if (toCopy == h)
+            {
+                // whole blocks go straight into the output, K(i) is not needed again
+                generateNext(out, outOff);
+            }
+            else
+            {
+                generateNext(k, 0);
+                System.arraycopy(k, 0, out, outOff, toCopy);
+            }
             generatedBytes += toCopy;
             toGenerate -= toCopy;
             outOff += toCopy;
@@ -147,7 +149,7 @@ public int generateBytes(byte[] out, int outOff, int len)
         return len;
     }
 
-    private void generateNext()
+    private void generateNext(byte[] dest, int destOff)
     {
         int i = generatedBytes / h + 1;
 
@@ -175,6 +177,6 @@ private void generateNext()
         prf.update(fixedInputDataCtrPrefix, 0, fixedInputDataCtrPrefix.length);
         prf.update(ios, 0, ios.length);
         prf.update(fixedInputData_afterCtr, 0, fixedInputData_afterCtr.length);
-        prf.doFinal(k, 0);
+        prf.doFinal(dest, destOff);
     }
 }
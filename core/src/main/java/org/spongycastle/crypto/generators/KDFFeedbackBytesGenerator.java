@@ -1,7 +1,5 @@
 package org.spongycastle.crypto.generators;
 
-import java.math.BigInteger;
-
 import org.spongycastle.crypto.DataLengthException;
 import org.spongycastle.crypto.DerivationParameters;
 import org.spongycastle.crypto.Mac;
@@ -16,9 +14,6 @@
     implements MacDerivationFunction
 {
 
-    private static final BigInteger INTEGER_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
-    private static final BigInteger TWO = BigInteger.valueOf(2);
-
     // please refer to the standard for the meaning of the variable names
     // all field lengths are in bytes, not in bits as specified by the standard
 
@@ -65,14 +60,16 @@ public void init(DerivationParameters params)
         this.fixedInputData = feedbackParams.getFixedInputData();
 
         int r = feedbackParams.getR();
-        this.ios = new byte[r / 8];
+        if (ios == null || ios.length != r / 8)
+        {
+            this.ios = new byte[r / 8];
+        }
 
         if (feedbackParams.useCounter())
         {
             // this is more conservative than the spec
-            BigInteger maxSize = TWO.pow(r).multiply(BigInteger.valueOf(h));
-            this.maxSizeExcl = maxSize.compareTo(INTEGER_MAX) == 1 ?
-                Integer.MAX_VALUE : maxSize.intValue();
+            long maxSize = (1L << r) * h;
+            this.maxSizeExcl = (int)Math.min(maxSize, Integer.MAX_VALUE);
         }
         else
         {
@@ -0,0 +1,816 @@
+package org.spongycastle.crypto.generators;
+
+import java.util.concurrent.Executor;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.digests.SHA1Digest;
+import org.spongycastle.crypto.digests.SHA224Digest;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.digests.SHA384Digest;
+import org.spongycastle.crypto.digests.SHA512Digest;
+import org.spongycastle.crypto.util.ParallelTasks;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Pack;
+
+/**
+ * PBKDF2 (PKCS 5 V2.0 Scheme 2) for HMAC with SHA-1 and the SHA-2 family, working directly on the
+ * digest chaining values.
+ * <p>
+ * The inner and outer HMAC pad blocks are compressed once, and each iteration then costs exactly
+ * two compression function calls on words held in place, with no byte conversions, digest
+ * resets or state copies in between. Independent output blocks can be computed on an Executor.
+ * </p>
+ */
+class PBKDF2Engine
+{
+    private static final int SHA1 = 0;
+    private static final int SHA224 = 1;
+    private static final int SHA256 = 2;
+    private static final int SHA384 = 3;
+    private static final int SHA512 = 4;
+
+    private static final int[] IV_SHA1 = {
+        0x67452301, 0xefcdab89, 0x98badcfe, 0x10325476, 0xc3d2e1f0
+    };
+
+    private static final int[] IV_SHA224 = {
+        0xc1059ed8, 0x367cd507, 0x3070dd17, 0xf70e5939, 0xffc00b31, 0x68581511, 0x64f98fa7, 0xbefa4fa4
+    };
+
+    private static final int[] IV_SHA256 = {
+        0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19
+    };
+
+    private static final long[] IV_SHA384 = {
+        0xcbbb9d5dc1059ed8L, 0x629a292a367cd507L, 0x9159015a3070dd17L, 0x152fecd8f70e5939L,
+        0x67332667ffc00b31L, 0x8eb44a8768581511L, 0xdb0c2e0d64f98fa7L, 0x47b5481dbefa4fa4L
+    };
+
+    private static final long[] IV_SHA512 = {
+        0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+        0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L
+    };
+
+    private final Digest digest;
+    private final int type;
+    private final int blockSize;
+    private final int hLen;
+
+    /**
+     * Return true if digest is one of the digests this engine has a direct implementation of.
+     */
+    static boolean isSupported(Digest digest)
+    {
+        return getType(digest) >= 0;
+    }
+
+    private static int getType(Digest digest)
+    {
+        Class c = digest.getClass();
+
+        if (c == SHA1Digest.class)
+        {
+            return SHA1;
+        }
+        if (c == SHA224Digest.class)
+        {
+            return SHA224;
+        }
+        if (c == SHA256Digest.class)
+        {
+            return SHA256;
+        }
+        if (c == SHA384Digest.class)
+        {
+            return SHA384;
+        }
+        if (c == SHA512Digest.class)
+        {
+            return SHA512;
+        }
+        return -1;
+    }
+
+    PBKDF2Engine(Digest digest)
+    {
+        this.type = getType(digest);
+        if (type < 0)
+        {
+            throw new IllegalArgumentException("unsupported digest: " + digest.getAlgorithmName());
+        }
+
+        this.digest = digest;
+        this.blockSize = (type >= SHA384) ? 128 : 64;
+        this.hLen = digest.getDigestSize();
+    }
+
+    /**
+     * Generate dkLen bytes (rounded up to a whole number of HMAC outputs) of PBKDF2 output.
+     *
+     * @param executor if not null, the executor used to compute output blocks after the first.
+     */
+    byte[] generate(final byte[] password, final byte[] salt, final int iterationCount, int dkLen, Executor executor)
+    {
+        if (iterationCount == 0)
+        {
+            throw new IllegalArgumentException("iteration count must be at least 1.");
+        }
+
+        int l = (dkLen + hLen - 1) / hLen;
+        final byte[] out = new byte[l * hLen];
+
+        byte[] key = new byte[blockSize];
+        if (password.length > blockSize)
+        {
+            digest.reset();
+            digest.update(password, 0, password.length);
+            digest.doFinal(key, 0);
+        }
+        else
+        {
+            System.arraycopy(password, 0, key, 0, password.length);
+        }
+
+        // the pad states are as good as the password, so are cleared along with the key
+        final int[] ipad32 = new int[8], opad32 = new int[8];
+        final long[] ipad64 = new long[8], opad64 = new long[8];
+
+        try
+        {
+            if (blockSize == 64)
+            {
+                initPads32(key, ipad32, opad32);
+                if (executor == null || l == 1)
+                {
+                    for (int i = 1; i <= l; ++i)
+                    {
+                        F32(ipad32, opad32, salt, iterationCount, i, out);
+                    }
+                }
+                else
+                {
+                    runBlocks(executor, l, new Block()
+                    {
+                        public void compute(int i)
+                        {
+                            F32(ipad32, opad32, salt, iterationCount, i, out);
+                        }
+                    });
+                }
+            }
+            else
+            {
+                initPads64(key, ipad64, opad64);
+                if (executor == null || l == 1)
+                {
+                    for (int i = 1; i <= l; ++i)
+                    {
+                        F64(ipad64, opad64, salt, iterationCount, i, out);
+                    }
+                }
+                else
+                {
+                    runBlocks(executor, l, new Block()
+                    {
+                        public void compute(int i)
+                        {
+                            F64(ipad64, opad64, salt, iterationCount, i, out);
+                        }
+                    });
+                }
+            }
+        }
+        finally
+        {
+            Arrays.fill(key, (byte)0);
+            Arrays.fill(ipad32, 0);
+            Arrays.fill(opad32, 0);
+            Arrays.fill(ipad64, 0L);
+            Arrays.fill(opad64, 0L);
+        }
+
+        return out;
+    }
+
+    private interface Block
+    {
+        void compute(int i);
+    }
+
+    /**
+     * Compute block 1 on the calling thread and blocks 2..l on the executor.
+     */
+    private static void runBlocks(Executor executor, int l, final Block block)
+    {
+        ParallelTasks.run(executor, l, new ParallelTasks.Task()
+        {
+            public void run(int index)
+            {
+                block.compute(index + 1);
+            }
+        });
+    }
+
+    //
+    // SHA-1, SHA-224 and SHA-256
+    //
+
+    private void initPads32(byte[] key, int[] ipad, int[] opad)
+    {
+        int[] X = new int[80];
+
+        System.arraycopy(getIV32(), 0, ipad, 0, getStateWords());
+        System.arraycopy(getIV32(), 0, opad, 0, getStateWords());
+
+        for (int i = 0; i < 16; ++i)
+        {
+            X[i] = Pack.bigEndianToInt(key, i * 4) ^ 0x36363636;
+        }
+        compress32(ipad, X);
+
+        for (int i = 0; i < 16; ++i)
+        {
+            X[i] = Pack.bigEndianToInt(key, i * 4) ^ 0x5c5c5c5c;
+        }
+        compress32(opad, X);
+
+        Arrays.fill(X, 0);
+    }
+
+    private void F32(int[] ipad, int[] opad, byte[] S, int c, int i, byte[] out)
+    {
+        int stateWords = getStateWords();
+        int outWords = hLen >>> 2;
+
+        int[] H = new int[8];
+        int[] U = new int[outWords];
+        int[] T = new int[outWords];
+        int[] X = new int[80];
+
+        // U1 = PRF(P, S || INT(i)) - the inner hash covers the ipad block, S and the block index
+        byte[] msg = new byte[((S == null) ? 0 : S.length) + 4];
+        if (S != null)
+        {
+            System.arraycopy(S, 0, msg, 0, S.length);
+        }
+        Pack.intToBigEndian(i, msg, msg.length - 4);
+
+        System.arraycopy(ipad, 0, H, 0, stateWords);
+        hashFinal32(H, X, msg, 64);
+
+        // from here on both the inner and outer messages are a pad block followed by hLen bytes,
+        // so every block is the same apart from the first outWords words
+        for (int j = outWords; j < 16; ++j)
+        {
+            X[j] = 0;
+        }
+        X[outWords] = 0x80000000;
+        X[15] = (64 + hLen) << 3;
+
+        System.arraycopy(H, 0, X, 0, outWords);
+        System.arraycopy(opad, 0, H, 0, stateWords);
+        compress32(H, X);
+
+        System.arraycopy(H, 0, U, 0, outWords);
+        System.arraycopy(U, 0, T, 0, outWords);
+
+        for (int count = 1; count < c; ++count)
+        {
+            System.arraycopy(U, 0, X, 0, outWords);
+            System.arraycopy(ipad, 0, H, 0, stateWords);
+            compress32(H, X);
+
+            System.arraycopy(H, 0, X, 0, outWords);
+            System.arraycopy(opad, 0, H, 0, stateWords);
+            compress32(H, X);
+
+            for (int j = 0; j < outWords; ++j)
+            {
+                U[j] = H[j];
+                T[j] ^= H[j];
+            }
+        }
+
+        int outOff = (i - 1) * hLen;
+        for (int j = 0; j < outWords; ++j)
+        {
+            Pack.intToBigEndian(T[j], out, outOff + (j << 2));
+        }
+
+        Arrays.fill(H, 0);
+        Arrays.fill(U, 0);
+        Arrays.fill(T, 0);
+        Arrays.fill(X, 0);
+    }
+
+    /**
+     * Complete a hash whose first prefixLen bytes have already been compressed into H, by
+     * processing msg followed by the standard padding.
+     */
+    private void hashFinal32(int[] H, int[] X, byte[] msg, int prefixLen)
+    {
+        int padded = (msg.length + 9 + 63) & ~63;
+        byte[] buf = new byte[padded];
+
+        System.arraycopy(msg, 0, buf, 0, msg.length);
+        buf[msg.length] = (byte)0x80;
+        Pack.longToBigEndian((long)(prefixLen + msg.length) << 3, buf, padded - 8);
+
+        for (int off = 0; off < padded; off += 64)
+        {
+            for (int j = 0; j < 16; ++j)
+            {
+                X[j] = Pack.bigEndianToInt(buf, off + (j << 2));
+            }
+            compress32(H, X);
+        }
+    }
+
+    private int getStateWords()
+    {
+        return (type == SHA1) ? 5 : 8;
+    }
+
+    private int[] getIV32()
+    {
+        switch (type)
+        {
+        case SHA1:
+            return IV_SHA1;
+        case SHA224:
+            return IV_SHA224;
+        default:
+            return IV_SHA256;
+        }
+    }
+
+    private void compress32(int[] H, int[] X)
+    {
+        if (type == SHA1)
+        {
+            compressSHA1(H, X);
+        }
+        else
+        {
+            compressSHA256(H, X);
+        }
+    }
+
+    private static final int Y1 = 0x5a827999;
+    private static final int Y2 = 0x6ed9eba1;
+    private static final int Y3 = 0x8f1bbcdc;
+    private static final int Y4 = 0xca62c1d6;
+
+    private static void compressSHA1(int[] H, int[] X)
+    {
+        for (int i = 16; i < 80; i++)
+        {
+            int t = X[i - 3] ^ X[i - 8] ^ X[i - 14] ^ X[i - 16];
+            X[i] = t << 1 | t >>> 31;
+        }
+
+        int A = H[0], B = H[1], C = H[2], D = H[3], E = H[4];
+
+        int idx = 0;
+        for (int j = 0; j < 4; j++)
+        {
+            E += (A << 5 | A >>> 27) + f(B, C, D) + X[idx++] + Y1;
+            B = B << 30 | B >>> 2;
+
+            D += (E << 5 | E >>> 27) + f(A, B, C) + X[idx++] + Y1;
+            A = A << 30 | A >>> 2;
+
+            C += (D << 5 | D >>> 27) + f(E, A, B) + X[idx++] + Y1;
+            E = E << 30 | E >>> 2;
+
+            B += (C << 5 | C >>> 27) + f(D, E, A) + X[idx++] + Y1;
+            D = D << 30 | D >>> 2;
+
+            A += (B << 5 | B >>> 27) + f(C, D, E) + X[idx++] + Y1;
+            C = C << 30 | C >>> 2;
+        }
+
+        for (int j = 0; j < 4; j++)
+        {
+            E += (A << 5 | A >>> 27) + h(B, C, D) + X[idx++] + Y2;
+            B = B << 30 | B >>> 2;
+
+            D += (E << 5 | E >>> 27) + h(A, B, C) + X[idx++] + Y2;
+            A = A << 30 | A >>> 2;
+
+            C += (D << 5 | D >>> 27) + h(E, A, B) + X[idx++] + Y2;
+            E = E << 30 | E >>> 2;
+
+            B += (C << 5 | C >>> 27) + h(D, E, A) + X[idx++] + Y2;
+            D = D << 30 | D >>> 2;
+
+            A += (B << 5 | B >>> 27) + h(C, D, E) + X[idx++] + Y2;
+            C = C << 30 | C >>> 2;
+        }
+
+        for (int j = 0; j < 4; j++)
+        {
+            E += (A << 5 | A >>> 27) + g(B, C, D) + X[idx++] + Y3;
+            B = B << 30 | B >>> 2;
+
+            D += (E << 5 | E >>> 27) + g(A, B, C) + X[idx++] + Y3;
+            A = A << 30 | A >>> 2;
+
+            C += (D << 5 | D >>> 27) + g(E, A, B) + X[idx++] + Y3;
+            E = E << 30 | E >>> 2;
+
+            B += (C << 5 | C >>> 27) + g(D, E, A) + X[idx++] + Y3;
+            D = D << 30 | D >>> 2;
+
+            A += (B << 5 | B >>> 27) + g(C, D, E) + X[idx++] + Y3;
+            C = C << 30 | C >>> 2;
+        }
+
+        for (int j = 0; j < 4; j++)
+        {
+            E += (A << 5 | A >>> 27) + h(B, C, D) + X[idx++] + Y4;
+            B = B << 30 | B >>> 2;
+
+            D += (E << 5 | E >>> 27) + h(A, B, C) + X[idx++] + Y4;
+            A = A << 30 | A >>> 2;
+
+            C += (D << 5 | D >>> 27) + h(E, A, B) + X[idx++] + Y4;
+            E = E << 30 | E >>> 2;
+
+            B += (C << 5 | C >>> 27) + h(D, E, A) + X[idx++] + Y4;
+            D = D << 30 | D >>> 2;
+
+            A += (B << 5 | B >>> 27) + h(C, D, E) + X[idx++] + Y4;
+            C = C << 30 | C >>> 2;
+        }
+
+        H[0] += A;
+        H[1] += B;
+        H[2] += C;
+        H[3] += D;
+        H[4] += E;
+    }
+
+    private static int f(int u, int v, int w)
+    {
+        return ((u & v) | ((~u) & w));
+    }
+
+    private static int h(int u, int v, int w)
+    {
+        return (u ^ v ^ w);
+    }
+
+    private static int g(int u, int v, int w)
+    {
+        return ((u & v) | (u & w) | (v & w));
+    }
+
+    private static void compressSHA256(int[] H, int[] X)
+    {
+        for (int t = 16; t < 64; t++)
+        {
+            X[t] = Theta1(X[t - 2]) + X[t - 7] + Theta0(X[t - 15]) + X[t - 16];
+        }
+
+        int[] K = K32;
+        int a = H[0], b = H[1], c = H[2], d = H[3], e = H[4], f = H[5], g = H[6], h = H[7];
+
+        int t = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            // t = 8 * i
+            h += Sum1(e) + Ch(e, f, g) + K[t] + X[t];
+            d += h;
+            h += Sum0(a) + Maj(a, b, c);
+            ++t;
+
+            // t = 8 * i + 1
+            g += Sum1(d) + Ch(d, e, f) + K[t] + X[t];
+            c += g;
+            g += Sum0(h) + Maj(h, a, b);
+            ++t;
+
+            // t = 8 * i + 2
+            f += Sum1(c) + Ch(c, d, e) + K[t] + X[t];
+            b += f;
+            f += Sum0(g) + Maj(g, h, a);
+            ++t;
+
+            // t = 8 * i + 3
+            e += Sum1(b) + Ch(b, c, d) + K[t] + X[t];
+            a += e;
+            e += Sum0(f) + Maj(f, g, h);
+            ++t;
+
+            // t = 8 * i + 4
+            d += Sum1(a) + Ch(a, b, c) + K[t] + X[t];
+            h += d;
+            d += Sum0(e) + Maj(e, f, g);
+            ++t;
+
+            // t = 8 * i + 5
+            c += Sum1(h) + Ch(h, a, b) + K[t] + X[t];
+            g += c;
+            c += Sum0(d) + Maj(d, e, f);
+            ++t;
+
+            // t = 8 * i + 6
+            b += Sum1(g) + Ch(g, h, a) + K[t] + X[t];
+            f += b;
+            b += Sum0(c) + Maj(c, d, e);
+            ++t;
+
+            // t = 8 * i + 7
+            a += Sum1(f) + Ch(f, g, h) + K[t] + X[t];
+            e += a;
+            a += Sum0(b) + Maj(b, c, d);
+            ++t;
+        }
+
+        H[0] += a;
+        H[1] += b;
+        H[2] += c;
+        H[3] += d;
+        H[4] += e;
+        H[5] += f;
+        H[6] += g;
+        H[7] += h;
+    }
+
+    private static int Ch(int x, int y, int z)
+    {
+        return (x & y) ^ ((~x) & z);
+    }
+
+    private static int Maj(int x, int y, int z)
+    {
+        return (x & y) ^ (x & z) ^ (y & z);
+    }
+
+    private static int Sum0(int x)
+    {
+        return ((x >>> 2) | (x << 30)) ^ ((x >>> 13) | (x << 19)) ^ ((x >>> 22) | (x << 10));
+    }
+
+    private static int Sum1(int x)
+    {
+        return ((x >>> 6) | (x << 26)) ^ ((x >>> 11) | (x << 21)) ^ ((x >>> 25) | (x << 7));
+    }
+
+    private static int Theta0(int x)
+    {
+        return ((x >>> 7) | (x << 25)) ^ ((x >>> 18) | (x << 14)) ^ (x >>> 3);
+    }
+
+    private static int Theta1(int x)
+    {
+        return ((x >>> 17) | (x << 15)) ^ ((x >>> 19) | (x << 13)) ^ (x >>> 10);
+    }
+
+    //
+    // SHA-384 and SHA-512
+    //
+
+    private void initPads64(byte[] key, long[] ipad, long[] opad)
+    {
+        long[] W = new long[80];
+        long[] iv = (type == SHA384) ? IV_SHA384 : IV_SHA512;
+
+        System.arraycopy(iv, 0, ipad, 0, 8);
+        System.arraycopy(iv, 0, opad, 0, 8);
+
+        for (int i = 0; i < 16; ++i)
+        {
+            W[i] = Pack.bigEndianToLong(key, i * 8) ^ 0x3636363636363636L;
+        }
+        compressSHA512(ipad, W);
+
+        for (int i = 0; i < 16; ++i)
+        {
+            W[i] = Pack.bigEndianToLong(key, i * 8) ^ 0x5c5c5c5c5c5c5c5cL;
+        }
+        compressSHA512(opad, W);
+
+        Arrays.fill(W, 0L);
+    }
+
+    private void F64(long[] ipad, long[] opad, byte[] S, int c, int i, byte[] out)
+    {
+        int outWords = hLen >>> 3;
+
+        long[] H = new long[8];
+        long[] U = new long[outWords];
+        long[] T = new long[outWords];
+        long[] W = new long[80];
+
+        byte[] msg = new byte[((S == null) ? 0 : S.length) + 4];
+        if (S != null)
+        {
+            System.arraycopy(S, 0, msg, 0, S.length);
+        }
+        Pack.intToBigEndian(i, msg, msg.length - 4);
+
+        System.arraycopy(ipad, 0, H, 0, 8);
+        hashFinal64(H, W, msg, 128);
+
+        for (int j = outWords; j < 16; ++j)
+        {
+            W[j] = 0;
+        }
+        W[outWords] = 0x8000000000000000L;
+        W[15] = (128 + hLen) << 3;
+
+        System.arraycopy(H, 0, W, 0, outWords);
+        System.arraycopy(opad, 0, H, 0, 8);
+        compressSHA512(H, W);
+
+        System.arraycopy(H, 0, U, 0, outWords);
+        System.arraycopy(U, 0, T, 0, outWords);
+
+        for (int count = 1; count < c; ++count)
+        {
+            System.arraycopy(U, 0, W, 0, outWords);
+            System.arraycopy(ipad, 0, H, 0, 8);
+            compressSHA512(H, W);
+
+            System.arraycopy(H, 0, W, 0, outWords);
+            System.arraycopy(opad, 0, H, 0, 8);
+            compressSHA512(H, W);
+
+            for (int j = 0; j < outWords; ++j)
+            {
+                U[j] = H[j];
+                T[j] ^= H[j];
+            }
+        }
+
+        int outOff = (i - 1) * hLen;
+        for (int j = 0; j < outWords; ++j)
+        {
+            Pack.longToBigEndian(T[j], out, outOff + (j << 3));
+        }
+
+        Arrays.fill(H, 0L);
+        Arrays.fill(U, 0L);
+        Arrays.fill(T, 0L);
+        Arrays.fill(W, 0L);
+    }
+
+    private void hashFinal64(long[] H, long[] W, byte[] msg, int prefixLen)
+    {
+        int padded = (msg.length + 17 + 127) & ~127;
+        byte[] buf = new byte[padded];
+
+        System.arraycopy(msg, 0, buf, 0, msg.length);
+        buf[msg.length] = (byte)0x80;
+        Pack.longToBigEndian((long)(prefixLen + msg.length) << 3, buf, padded - 8);
+
+        for (int off = 0; off < padded; off += 128)
+        {
+            for (int j = 0; j < 16; ++j)
+            {
+                W[j] = Pack.bigEndianToLong(buf, off + (j << 3));
+            }
+            compressSHA512(H, W);
+        }
+    }
+
+    private static void compressSHA512(long[] H, long[] W)
+    {
+        for (int t = 16; t < 80; t++)
+        {
+            W[t] = Sigma1(W[t - 2]) + W[t - 7] + Sigma0(W[t - 15]) + W[t - 16];
+        }
+
+        long[] K = K64;
+        long a = H[0], b = H[1], c = H[2], d = H[3], e = H[4], f = H[5], g = H[6], h = H[7];
+
+        int t = 0;
+        for (int i = 0; i < 10; i++)
+        {
+            // t = 8 * i
+            h += Sum1(e) + Ch(e, f, g) + K[t] + W[t];
+            d += h;
+            h += Sum0(a) + Maj(a, b, c);
+            ++t;
+
+            // t = 8 * i + 1
+            g += Sum1(d) + Ch(d, e, f) + K[t] + W[t];
+            c += g;
+            g += Sum0(h) + Maj(h, a, b);
+            ++t;
+
+            // t = 8 * i + 2
+            f += Sum1(c) + Ch(c, d, e) + K[t] + W[t];
+            b += f;
+            f += Sum0(g) + Maj(g, h, a);
+            ++t;
+
+            // t = 8 * i + 3
+            e += Sum1(b) + Ch(b, c, d) + K[t] + W[t];
+            a += e;
+            e += Sum0(f) + Maj(f, g, h);
+            ++t;
+
+            // t = 8 * i + 4
+            d += Sum1(a) + Ch(a, b, c) + K[t] + W[t];
+            h += d;
+            d += Sum0(e) + Maj(e, f, g);
+            ++t;
+
+            // t = 8 * i + 5
+            c += Sum1(h) + Ch(h, a, b) + K[t] + W[t];
+            g += c;
+            c += Sum0(d) + Maj(d, e, f);
+            ++t;
+
+            // t = 8 * i + 6
+            b += Sum1(g) + Ch(g, h, a) + K[t] + W[t];
+            f += b;
+            b += Sum0(c) + Maj(c, d, e);
+            ++t;
+
+            // t = 8 * i + 7
+            a += Sum1(f) + Ch(f, g, h) + K[t] + W[t];
+            e += a;
+            a += Sum0(b) + Maj(b, c, d);
+            ++t;
+        }
+
+        H[0] += a;
+        H[1] += b;
+        H[2] += c;
+        H[3] += d;
+        H[4] += e;
+        H[5] += f;
+        H[6] += g;
+        H[7] += h;
+    }
+
+    private static long Ch(long x, long y, long z)
+    {
+        return ((x & y) ^ ((~x) & z));
+    }
+
+    private static long Maj(long x, long y, long z)
+    {
+        return ((x & y) ^ (x & z) ^ (y & z));
+    }
+
+    private static long Sum0(long x)
+    {
+        return ((x << 36)|(x >>> 28)) ^ ((x << 30)|(x >>> 34)) ^ ((x << 25)|(x >>> 39));
+    }
+
+    private static long Sum1(long x)
+    {
+        return ((x << 50)|(x >>> 14)) ^ ((x << 46)|(x >>> 18)) ^ ((x << 23)|(x >>> 41));
+    }
+
+    private static long Sigma0(long x)
+    {
+        return ((x << 63)|(x >>> 1)) ^ ((x << 56)|(x >>> 8)) ^ (x >>> 7);
+    }
+
+    private static long Sigma1(long x)
+    {
+        return ((x << 45)|(x >>> 19)) ^ ((x << 3)|(x >>> 61)) ^ (x >>> 6);
+    }
+
+    /* SHA-256 constants */
+    private static final int[] K32 = {
+        0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+        0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+        0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+        0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+        0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+        0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+        0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+        0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2
+    };
+
+    /* SHA-384 and SHA-512 constants */
+    private static final long[] K64 = {
+        0x428a2f98d728ae22L, 0x7137449123ef65cdL, 0xb5c0fbcfec4d3b2fL, 0xe9b5dba58189dbbcL,
+        0x3956c25bf348b538L, 0x59f111f1b605d019L, 0x923f82a4af194f9bL, 0xab1c5ed5da6d8118L,
+        0xd807aa98a3030242L, 0x12835b0145706fbeL, 0x243185be4ee4b28cL, 0x550c7dc3d5ffb4e2L,
+        0x72be5d74f27b896fL, 0x80deb1fe3b1696b1L, 0x9bdc06a725c71235L, 0xc19bf174cf692694L,
+        0xe49b69c19ef14ad2L, 0xefbe4786384f25e3L, 0x0fc19dc68b8cd5b5L, 0x240ca1cc77ac9c65L,
+        0x2de92c6f592b0275L, 0x4a7484aa6ea6e483L, 0x5cb0a9dcbd41fbd4L, 0x76f988da831153b5L,
+        0x983e5152ee66dfabL, 0xa831c66d2db43210L, 0xb00327c898fb213fL, 0xbf597fc7beef0ee4L,
+        0xc6e00bf33da88fc2L, 0xd5a79147930aa725L, 0x06ca6351e003826fL, 0x142929670a0e6e70L,
+        0x27b70a8546d22ffcL, 0x2e1b21385c26c926L, 0x4d2c6dfc5ac42aedL, 0x53380d139d95b3dfL,
+        0x650a73548baf63deL, 0x766a0abb3c77b2a8L, 0x81c2c92e47edaee6L, 0x92722c851482353bL,
+        0xa2bfe8a14cf10364L, 0xa81a664bbc423001L, 0xc24b8b70d0f89791L, 0xc76c51a30654be30L,
+        0xd192e819d6ef5218L, 0xd69906245565a910L, 0xf40e35855771202aL, 0x106aa07032bbd1b8L,
+        0x19a4c116b8d2d0c8L, 0x1e376c085141ab53L, 0x2748774cdf8eeb99L, 0x34b0bcb5e19b48a8L,
+        0x391c0cb3c5c95a63L, 0x4ed8aa4ae3418acbL, 0x5b9cca4f7763e373L, 0x682e6ff3d6b2b8a3L,
+        0x748f82ee5defb2fcL, 0x78a5636f43172f60L, 0x84c87814a1f0ab72L, 0x8cc702081a6439ecL,
+        0x90befffa23631e28L, 0xa4506cebde82bde9L, 0xbef9a3f7b2c67915L, 0xc67178f2e372532bL,
+        0xca273eceea26619cL, 0xd186b8c721c0c207L, 0xeada7dd6cde0eb1eL, 0xf57d4f7fee6ed178L,
+        0x06f067aa72176fbaL, 0x0a637dc5a2c898a6L, 0x113f9804bef90daeL, 0x1b710b35131c471bL,
+        0x28db77f523047d84L, 0x32caab7b40c72493L, 0x3c9ebe0a15c9bebcL, 0x431d67c49c100d4cL,
+        0x4cc5d4becb3e42b6L, 0x597f299cfc657e2aL, 0x5fcb6fab3ad6faecL, 0x6c44198c4a475817L
+    };
+}
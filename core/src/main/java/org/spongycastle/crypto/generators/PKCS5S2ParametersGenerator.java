@@ -1,5 +1,7 @@
 package org.spongycastle.crypto.generators;
 
+import java.util.concurrent.Executor;
+
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.Digest;
 import org.spongycastle.crypto.Mac;
@@ -24,6 +26,9 @@
     private Mac hMac;
     private byte[] state;
 
+    private PBKDF2Engine engine;
+    private Executor executor;
+
     /**
      * construct a PKCS5 Scheme 2 Parameters generator.
      */
@@ -33,9 +38,31 @@ public PKCS5S2ParametersGenerator()
     }
 
     public PKCS5S2ParametersGenerator(Digest digest)
+    {
+        this(digest, null);
+    }
+
+    /**
+     * Construct a PKCS5 Scheme 2 Parameters generator which computes independent blocks of
+     * the derived key in parallel on the passed in executor.
+     * <p>
+     * For SHA-1 and the SHA-2 digests the iterations are run directly on the digest chaining
+     * values rather than through a general HMac.
+     * </p>
+     * @param digest the digest to use with HMAC.
+     * @param executor the executor to use for additional key blocks (SHA-1 and SHA-2 only), null to use
+     *                 the calling thread.
+     */
+    public PKCS5S2ParametersGenerator(Digest digest, Executor executor)
     {
         hMac = new HMac(digest);
         state = new byte[hMac.getMacSize()];
+
+        if (PBKDF2Engine.isSupported(digest))
+        {
+            this.engine = new PBKDF2Engine(digest);
+        }
+        this.executor = executor;
     }
 
     private void F(
@@ -75,6 +102,11 @@ private void F(
     private byte[] generateDerivedKey(
         int dkLen)
     {
+        if (engine != null)
+        {
+            return engine.generate(password, salt, iterationCount, dkLen, executor);
+        }
+
         int     hLen = hMac.getMacSize();
         int     l = (dkLen + hLen - 1) / hLen;
         byte[]  iBuf = new byte[4];
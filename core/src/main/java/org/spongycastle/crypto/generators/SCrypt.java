@@ -1,9 +1,12 @@
 package org.spongycastle.crypto.generators;
 
+import java.util.concurrent.Executor;
+
 import org.spongycastle.crypto.PBEParametersGenerator;
 import org.spongycastle.crypto.digests.SHA256Digest;
 import org.spongycastle.crypto.engines.Salsa20Engine;
 import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.util.ParallelTasks;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Pack;
 
@@ -16,6 +19,69 @@
  */
 public class SCrypt
 {
+    /**
+     * Reusable working memory for scrypt, holding the <code>N * r * 128</code> byte V array for
+     * each lane so repeated calls with the same N and r do not have to allocate it again.
+     * <p>
+     * The memory is cleared after every use. A Scratch may only be used by one call at a time.
+     * </p>
+     */
+    public static class Scratch
+    {
+        private final int N;
+        private final int r;
+        private final int[][][] lanes;
+
+        /**
+         * Create working memory for a single lane, used for sequential derivations.
+         *
+         * @param N the CPU/Memory cost parameter the scratch will be used with.
+         * @param r the block size the scratch will be used with.
+         */
+        public Scratch(int N, int r)
+        {
+            this(N, r, 1);
+        }
+
+        /**
+         * Create working memory for laneCount lanes. When used with an Executor at most laneCount
+         * SMix lanes will be run at once.
+         *
+         * @param N the CPU/Memory cost parameter the scratch will be used with.
+         * @param r the block size the scratch will be used with.
+         * @param laneCount the number of SMix lanes to provide memory for.
+         */
+        public Scratch(int N, int r, int laneCount)
+        {
+            if (N <= 1 || r < 1)
+            {
+                throw new IllegalArgumentException("N must be > 1 and r must be >= 1.");
+            }
+            if (laneCount < 1)
+            {
+                throw new IllegalArgumentException("laneCount must be >= 1.");
+            }
+
+            this.N = N;
+            this.r = r;
+            this.lanes = new int[laneCount][][];
+        }
+
+        public int getLaneCount()
+        {
+            return lanes.length;
+        }
+
+        int[][] getLane(int lane)
+        {
+            if (lanes[lane] == null)
+            {
+                lanes[lane] = new int[N][r * 32];
+            }
+            return lanes[lane];
+        }
+    }
+
     /**
      * Generate a key using the scrypt key derivation function.
      * 
@@ -31,6 +97,55 @@
      * @return the generated key.
      */
     public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        return generate(P, S, N, r, p, dkLen, null, null);
+    }
+
+    /**
+     * Generate a key using the scrypt key derivation function, running the p independent SMix
+     * lanes on the passed in executor. The calling thread runs one of the lanes itself and waits for
+     * the others to complete.
+     * <p>
+     * Each lane needs its own <code>128 * N * r</code> byte V array, so with an executor all p of
+     * them are allocated at once: <code>p * 128 * N * r</code> bytes, for example 4GB for N = 2^20,
+     * r = 8 and p = 4, where the sequential version needs only one. To bound this, pass a
+     * {@link Scratch} created with fewer lanes to
+     * {@link #generate(byte[], byte[], int, int, int, int, Executor, Scratch)}.
+     * </p>
+     * @param P the bytes of the pass phrase.
+     * @param S the salt to use for this invocation.
+     * @param N CPU/Memory cost parameter.
+     * @param r the block size, must be >= 1.
+     * @param p Parallelization parameter.
+     * @param dkLen the length of the key to generate.
+     * @param executor the executor to run the lanes on, null to run them on the calling thread.
+     * @return the generated key.
+     */
+    public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor)
+    {
+        return generate(P, S, N, r, p, dkLen, executor, null);
+    }
+
+    /**
+     * Generate a key using the scrypt key derivation function, optionally running the SMix lanes on
+     * the passed in executor and using previously allocated working memory.
+     * <p>
+     * With an executor, at most <code>min(p, scratch.getLaneCount())</code> lanes are run at once,
+     * each with <code>128 * N * r</code> bytes of the scratch's memory. Without a scratch all p lanes
+     * run at once, so <code>p * 128 * N * r</code> bytes are allocated for the call.
+     * </p>
+     * @param P the bytes of the pass phrase.
+     * @param S the salt to use for this invocation.
+     * @param N CPU/Memory cost parameter.
+     * @param r the block size, must be >= 1.
+     * @param p Parallelization parameter.
+     * @param dkLen the length of the key to generate.
+     * @param executor the executor to run the lanes on, null to run them on the calling thread.
+     * @param scratch working memory created for the same N and r, null to allocate it for this call.
+     * @return the generated key.
+     */
+    public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor,
+        Scratch scratch)
     {
         if (P== null)
         {
@@ -63,10 +178,15 @@ public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen
         {
             throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
         }
-        return MFcrypt(P, S, N, r, p, dkLen);
+        if (scratch != null && (scratch.N != N || scratch.r != r))
+        {
+            throw new IllegalArgumentException("Scratch was created for different N and r values.");
+        }
+        return MFcrypt(P, S, N, r, p, dkLen, executor, scratch);
     }
 
-    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor,
+        Scratch scratch)
     {
         int MFLenBytes = r * 128;
         byte[] bytes = SingleIterationPBKDF2(P, S, p * MFLenBytes);
@@ -80,11 +200,19 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
 
             Pack.littleEndianToInt(bytes, 0, B);
 
-            int MFLenWords = MFLenBytes >>> 2;
-            for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
+            int laneCount = 1;
+            if (executor != null)
             {
-                // TODO These can be done in parallel threads
-                SMix(B, BOff, N, r);
+                laneCount = (scratch != null) ? Math.min(p, scratch.getLaneCount()) : p;
+            }
+
+            if (laneCount == 1)
+            {
+                runLane(B, 0, 1, p, N, r, scratch);
+            }
+            else
+            {
+                runLanes(B, laneCount, p, N, r, executor, scratch);
             }
 
             Pack.intToLittleEndian(B, bytes, 0);
@@ -98,6 +226,33 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
         }
     }
 
+    /**
+     * Run SMix over the blocks lane, lane + laneCount, ... of B.
+     */
+    private static void runLane(int[] B, int lane, int laneCount, int p, int N, int r, Scratch scratch)
+    {
+        int[][] V = (scratch != null) ? scratch.getLane(lane) : new int[N][r * 32];
+        int MFLenWords = r * 32;
+
+        for (int i = lane; i < p; i += laneCount)
+        {
+            SMix(B, i * MFLenWords, N, r, V);
+        }
+    }
+
+    private static void runLanes(final int[] B, final int laneCount, final int p, final int N, final int r,
+        Executor executor, final Scratch scratch)
+    {
+        // returns only once every lane has finished with B and the scratch lanes
+        ParallelTasks.run(executor, laneCount, new ParallelTasks.Task()
+        {
+            public void run(int lane)
+            {
+                runLane(B, lane, laneCount, p, N, r, scratch);
+            }
+        });
+    }
+
     private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
     {
         PBEParametersGenerator pGen = new PKCS5S2ParametersGenerator(new SHA256Digest());
@@ -106,7 +261,7 @@ private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
         return key.getKey();
     }
 
-    private static void SMix(int[] B, int BOff, int N, int r)
+    private static void SMix(int[] B, int BOff, int N, int r, int[][] V)
     {
         int BCount = r * 32;
 
@@ -115,7 +270,6 @@ private static void SMix(int[] B, int BOff, int N, int r)
         int[] blockY = new int[BCount];
 
         int[] X = new int[BCount];
-        int[][] V = new int[N][];
 
         try
         {
@@ -123,7 +277,7 @@ private static void SMix(int[] B, int BOff, int N, int r)
 
             for (int i = 0; i < N; ++i)
             {
-                V[i] = Arrays.clone(X);
+                System.arraycopy(X, 0, V[i], 0, BCount);
                 BlockMix(X, blockX1, blockX2, blockY, r);
             }
 
@@ -0,0 +1,32 @@
+package org.spongycastle.crypto.generators;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.AsymmetricCipherKeyPair;
+import org.spongycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.spongycastle.crypto.KeyGenerationParameters;
+import org.spongycastle.crypto.params.X25519PrivateKeyParameters;
+import org.spongycastle.crypto.params.X25519PublicKeyParameters;
+
+public class X25519KeyPairGenerator
+    implements AsymmetricCipherKeyPairGenerator
+{
+    private SecureRandom random;
+
+    public void init(KeyGenerationParameters parameters)
+    {
+        this.random = parameters.getRandom();
+
+        if (this.random == null)
+        {
+            this.random = new SecureRandom();
+        }
+    }
+
+    public AsymmetricCipherKeyPair generateKeyPair()
+    {
+        X25519PrivateKeyParameters privateKey = new X25519PrivateKeyParameters(random);
+        X25519PublicKeyParameters publicKey = privateKey.generatePublicKey();
+        return new AsymmetricCipherKeyPair(publicKey, privateKey);
+    }
+}
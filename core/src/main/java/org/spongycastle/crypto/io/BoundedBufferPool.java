@@ -0,0 +1,83 @@
+package org.spongycastle.crypto.io;
+
+/**
+ * A simple thread safe {@link BufferPool} which keeps at most a fixed number of buffers for reuse.
+ * <p>
+ * Buffers handed out are at least the pool's buffer size, and only buffers of at least that size
+ * are retained on release, so the pool is not gradually filled with small buffers.
+ * </p>
+ */
+public class BoundedBufferPool
+    implements BufferPool
+{
+    /**
+     * The default buffer size - 64 KB.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final int bufferSize;
+    private final byte[][] buffers;
+
+    private int count;
+
+    /**
+     * Create a pool retaining up to maxBuffers buffers of DEFAULT_BUFFER_SIZE bytes.
+     *
+     * @param maxBuffers the maximum number of buffers to keep for reuse.
+     */
+    public BoundedBufferPool(int maxBuffers)
+    {
+        this(DEFAULT_BUFFER_SIZE, maxBuffers);
+    }
+
+    /**
+     * Create a pool retaining up to maxBuffers buffers of at least bufferSize bytes.
+     *
+     * @param bufferSize the minimum size of the buffers handed out.
+     * @param maxBuffers the maximum number of buffers to keep for reuse.
+     */
+    public BoundedBufferPool(int bufferSize, int maxBuffers)
+    {
+        if (bufferSize < 1)
+        {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        if (maxBuffers < 0)
+        {
+            throw new IllegalArgumentException("maxBuffers cannot be negative");
+        }
+
+        this.bufferSize = bufferSize;
+        this.buffers = new byte[maxBuffers][];
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    public synchronized byte[] acquire(int size)
+    {
+        for (int i = count - 1; i >= 0; i--)
+        {
+            byte[] buf = buffers[i];
+            if (buf.length >= size)
+            {
+                buffers[i] = buffers[--count];
+                buffers[count] = null;
+
+                return buf;
+            }
+        }
+
+        return new byte[Math.max(size, bufferSize)];
+    }
+
+    public synchronized void release(byte[] buf)
+    {
+        if (buf.length >= bufferSize && count < buffers.length)
+        {
+            buffers[count++] = buf;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.spongycastle.crypto.io;
+
+/**
+ * A source of reusable byte arrays for the cipher streams.
+ * <p>
+ * Buffers are cleared by the streams before they are released, so a pool never holds key stream
+ * or plaintext from a previous user.
+ * </p>
+ */
+public interface BufferPool
+{
+    /**
+     * Return a buffer of at least size bytes.
+     *
+     * @param size the minimum length of the buffer required.
+     * @return a buffer of length size or greater.
+     */
+    byte[] acquire(int size);
+
+    /**
+     * Return a buffer previously acquired from this pool so it can be reused.
+     *
+     * @param buf the buffer being handed back.
+     */
+    void release(byte[] buf);
+}
@@ -3,6 +3,9 @@
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
 
 import org.spongycastle.crypto.BufferedBlockCipher;
 import org.spongycastle.crypto.InvalidCipherTextException;
@@ -32,6 +35,8 @@
     private StreamCipher streamCipher;
     private AEADBlockCipher aeadBlockCipher;
 
+    private BufferPool pool;
+
     private byte[] buf;
     private byte[] markBuf;
 
@@ -39,6 +44,7 @@
     private int bufOff;
     private int maxBuf;
     private boolean finalized;
+    private boolean closed;
     private long markPosition;
     private int markBufOff;
 
@@ -82,11 +88,7 @@ public CipherInputStream(
         BufferedBlockCipher cipher,
         int bufSize)
     {
-        super(is);
-
-        this.bufferedBlockCipher = cipher;
-        this.inBuf = new byte[bufSize];
-        this.skippingCipher = (cipher instanceof SkippingCipher) ? (SkippingCipher)cipher : null;
+        this(is, cipher, new byte[bufSize]);
     }
 
     /**
@@ -97,11 +99,7 @@ public CipherInputStream(
         StreamCipher cipher,
         int bufSize)
     {
-        super(is);
-
-        this.streamCipher = cipher;
-        this.inBuf = new byte[bufSize];
-        this.skippingCipher = (cipher instanceof SkippingCipher) ? (SkippingCipher)cipher : null;
+        this(is, cipher, new byte[bufSize]);
     }
 
     /**
@@ -111,14 +109,99 @@ public CipherInputStream(
         InputStream is,
         AEADBlockCipher cipher,
         int bufSize)
+    {
+        this(is, cipher, new byte[bufSize]);
+    }
+
+    /**
+     * Constructs a CipherInputStream from an InputStream and a BufferedBlockCipher, taking its
+     * internal buffers from the passed in pool. A bufSize of 64 KB or more, and a multiple of the
+     * cipher's block size, keeps the cipher working on large aligned chunks.
+     */
+    public CipherInputStream(
+        InputStream is,
+        BufferedBlockCipher cipher,
+        BufferPool pool,
+        int bufSize)
+    {
+        this(is, cipher, pool.acquire(bufSize));
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a CipherInputStream from an InputStream and a StreamCipher, taking its internal
+     * buffers from the passed in pool.
+     */
+    public CipherInputStream(
+        InputStream is,
+        StreamCipher cipher,
+        BufferPool pool,
+        int bufSize)
+    {
+        this(is, cipher, pool.acquire(bufSize));
+        this.pool = pool;
+    }
+
+    /**
+     * Constructs a CipherInputStream from an InputStream and an AEADBlockCipher, taking its internal
+     * buffers from the passed in pool.
+     */
+    public CipherInputStream(
+        InputStream is,
+        AEADBlockCipher cipher,
+        BufferPool pool,
+        int bufSize)
+    {
+        this(is, cipher, pool.acquire(bufSize));
+        this.pool = pool;
+    }
+
+    private CipherInputStream(
+        InputStream is,
+        BufferedBlockCipher cipher,
+        byte[] inBuf)
+    {
+        super(is);
+
+        this.bufferedBlockCipher = cipher;
+        this.inBuf = inBuf;
+        this.skippingCipher = (cipher instanceof SkippingCipher) ? (SkippingCipher)cipher : null;
+    }
+
+    private CipherInputStream(
+        InputStream is,
+        StreamCipher cipher,
+        byte[] inBuf)
+    {
+        super(is);
+
+        this.streamCipher = cipher;
+        this.inBuf = inBuf;
+        this.skippingCipher = (cipher instanceof SkippingCipher) ? (SkippingCipher)cipher : null;
+    }
+
+    private CipherInputStream(
+        InputStream is,
+        AEADBlockCipher cipher,
+        byte[] inBuf)
     {
         super(is);
 
         this.aeadBlockCipher = cipher;
-        this.inBuf = new byte[bufSize];
+        this.inBuf = inBuf;
         this.skippingCipher = (cipher instanceof SkippingCipher) ? (SkippingCipher)cipher : null;
     }
 
+    private void checkOpen()
+        throws IOException
+    {
+        // the buffers may have gone back to the pool
+        if (closed)
+        {
+            throw new IOException("stream closed");
+        }
+    }
+
     /**
      * Read data from underlying stream and process with cipher until end of stream or some data is
      * available after cipher processing.
@@ -218,6 +301,8 @@ else if (aeadBlockCipher != null)
     public int read()
         throws IOException
     {
+        checkOpen();
+
         if (bufOff >= maxBuf)
         {
             if (nextChunk() < 0)
@@ -270,6 +355,8 @@ public int read(
         int len)
         throws IOException
     {
+        checkOpen();
+
         if (bufOff >= maxBuf)
         {
             if (nextChunk() < 0)
@@ -284,10 +371,56 @@ public int read(
         return toSupply;
     }
 
+    /**
+     * Process the rest of the underlying stream with the cipher, writing the output directly to
+     * the passed in channel (for example a {@link java.nio.channels.FileChannel} or a blocking
+     * {@link java.nio.channels.SocketChannel}) without copying it through a caller's array.
+     * <p>
+     * The underlying stream will be exhausted by this call, so the cipher will be finalised.
+     * The channel must be a blocking one, as this writes until all the output has been accepted.
+     * </p>
+     * @param channel the channel to write the processed data to.
+     * @return the number of bytes written to the channel.
+     * @throws IOException if there was an error reading the stream or writing the channel.
+     * @throws InvalidCipherTextIOException if the data read from the stream was invalid ciphertext
+     * (e.g. the cipher is an AEAD cipher and the ciphertext tag check fails).
+     * @throws IllegalArgumentException if channel is a SelectableChannel in non-blocking mode.
+     */
+    public long transferTo(
+        WritableByteChannel channel)
+        throws IOException
+    {
+        // a non-blocking channel with no room would have this loop spin
+        if (channel instanceof SelectableChannel && !((SelectableChannel)channel).isBlocking())
+        {
+            throw new IllegalArgumentException("channel must be in blocking mode");
+        }
+
+        checkOpen();
+
+        long total = 0;
+
+        while (bufOff < maxBuf || nextChunk() > 0)
+        {
+            ByteBuffer chunk = ByteBuffer.wrap(buf, bufOff, maxBuf - bufOff);
+            while (chunk.hasRemaining())
+            {
+                channel.write(chunk);
+            }
+
+            total += maxBuf - bufOff;
+            bufOff = maxBuf;
+        }
+
+        return total;
+    }
+
     public long skip(
         long n)
         throws IOException
     {
+        checkOpen();
+
         if (n <= 0)
         {
             return 0;
@@ -365,7 +498,19 @@ else if (aeadBlockCipher != null)
 
         if ((buf == null) || (buf.length < bufLen))
         {
-            buf = new byte[bufLen];
+            if (pool != null)
+            {
+                if (buf != null)
+                {
+                    Arrays.fill(buf, (byte)0);
+                    pool.release(buf);
+                }
+                buf = pool.acquire(bufLen);
+            }
+            else
+            {
+                buf = new byte[bufLen];
+            }
         }
     }
 
@@ -381,31 +526,51 @@ public void close()
     {
         try
         {
-            in.close();
+            try
+            {
+                in.close();
+            }
+            finally
+            {
+                if (!finalized)
+                {
+                    // Reset the cipher, discarding any data buffered in it
+                    // Errors in cipher finalisation trump I/O error closing input
+                    finaliseCipher();
+                }
+            }
         }
         finally
         {
-            if (!finalized)
+            // cleared and returned to the pool even when finalisation fails, e.g. on a bad AEAD tag
+            closed = true;
+            maxBuf = bufOff = 0;
+            markBufOff = 0;
+            markPosition = 0;
+            if (markBuf != null)
             {
-                // Reset the cipher, discarding any data buffered in it
-                // Errors in cipher finalisation trump I/O error closing input
-                finaliseCipher();
+                Arrays.fill(markBuf, (byte)0);
+                markBuf = null;
+            }
+            if (buf != null)
+            {
+                Arrays.fill(buf, (byte)0);
+                if (pool != null)
+                {
+                    pool.release(buf);
+                }
+                buf = null;
+            }
+            if (inBuf != null)
+            {
+                Arrays.fill(inBuf, (byte)0);
+                if (pool != null)
+                {
+                    pool.release(inBuf);
+                    inBuf = null;
+                }
             }
         }
-        maxBuf = bufOff = 0;
-        markBufOff = 0;
-        markPosition = 0;
-        if (markBuf != null)
-        {
-            Arrays.fill(markBuf, (byte)0);
-            markBuf = null;
-        }
-        if (buf != null)
-        {
-            Arrays.fill(buf, (byte)0);
-            buf = null;
-        }
-        Arrays.fill(inBuf, (byte)0);
     }
 
     /**
@@ -446,6 +611,8 @@ public void reset()
             throw new IOException("cipher must implement SkippingCipher to be used with reset()");
         }
 
+        checkOpen();
+
         in.reset();
 
         skippingCipher.seekTo(markPosition);
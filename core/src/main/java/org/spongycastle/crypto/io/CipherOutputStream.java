@@ -3,11 +3,15 @@
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
 
 import org.spongycastle.crypto.BufferedBlockCipher;
 import org.spongycastle.crypto.InvalidCipherTextException;
 import org.spongycastle.crypto.StreamCipher;
 import org.spongycastle.crypto.modes.AEADBlockCipher;
+import org.spongycastle.util.Arrays;
 
 /**
  * A CipherOutputStream is composed of an OutputStream and a cipher so that write() methods process
@@ -28,6 +32,9 @@
     private final byte[] oneByte = new byte[1];
     private byte[] buf;
 
+    private BufferPool pool;
+    private int chunkSize = Integer.MAX_VALUE;
+
     /**
      * Constructs a CipherOutputStream from an OutputStream and a
      * BufferedBlockCipher.
@@ -61,6 +68,61 @@ public CipherOutputStream(OutputStream os, AEADBlockCipher cipher)
         this.aeadBlockCipher = cipher;
     }
 
+    /**
+     * Constructs a CipherOutputStream from an OutputStream and a BufferedBlockCipher, taking its
+     * internal buffers from the passed in pool. Writes are passed to the cipher in chunks of at
+     * most chunkSize bytes - 64 KB or more, and a multiple of the cipher's block size, keeps the
+     * cipher working on large aligned chunks without growing the output buffer for large writes.
+     */
+    public CipherOutputStream(
+        OutputStream os,
+        BufferedBlockCipher cipher,
+        BufferPool pool,
+        int chunkSize)
+    {
+        this(os, cipher);
+        setPool(pool, chunkSize);
+    }
+
+    /**
+     * Constructs a CipherOutputStream from an OutputStream and a StreamCipher, taking its internal
+     * buffers from the passed in pool.
+     */
+    public CipherOutputStream(
+        OutputStream os,
+        StreamCipher cipher,
+        BufferPool pool,
+        int chunkSize)
+    {
+        this(os, cipher);
+        setPool(pool, chunkSize);
+    }
+
+    /**
+     * Constructs a CipherOutputStream from an OutputStream and an AEADBlockCipher, taking its
+     * internal buffers from the passed in pool.
+     */
+    public CipherOutputStream(
+        OutputStream os,
+        AEADBlockCipher cipher,
+        BufferPool pool,
+        int chunkSize)
+    {
+        this(os, cipher);
+        setPool(pool, chunkSize);
+    }
+
+    private void setPool(BufferPool pool, int chunkSize)
+    {
+        if (chunkSize < 1)
+        {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
     /**
      * Writes the specified byte to this output stream.
      *
@@ -117,6 +179,80 @@ public void write(
         int off,
         int len)
         throws IOException
+    {
+        while (len > chunkSize)
+        {
+            writeChunk(b, off, chunkSize);
+            off += chunkSize;
+            len -= chunkSize;
+        }
+
+        writeChunk(b, off, len);
+    }
+
+    /**
+     * Read the rest of the passed in channel (for example a {@link java.nio.channels.FileChannel}),
+     * processing it with the cipher and writing the output to the underlying stream.
+     * <p>
+     * This does not close the stream, so the cipher is not finalised until {@link #close()} is called.
+     * The channel must be a blocking one, as this reads until the end of the stream is reached.
+     * </p>
+     * @param channel the channel to read the data from.
+     * @return the number of bytes read from the channel.
+     * @throws java.io.IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if channel is a SelectableChannel in non-blocking mode.
+     */
+    public long transferFrom(
+        ReadableByteChannel channel)
+        throws IOException
+    {
+        // a non-blocking channel with no data ready would have this loop spin
+        if (channel instanceof SelectableChannel && !((SelectableChannel)channel).isBlocking())
+        {
+            throw new IllegalArgumentException("channel must be in blocking mode");
+        }
+
+        int size = (chunkSize == Integer.MAX_VALUE) ? BoundedBufferPool.DEFAULT_BUFFER_SIZE : chunkSize;
+        byte[] inBuf = (pool != null) ? pool.acquire(size) : new byte[size];
+
+        try
+        {
+            ByteBuffer chunk = ByteBuffer.wrap(inBuf, 0, size);
+            long total = 0;
+
+            while (channel.read(chunk) >= 0)
+            {
+                // only pass full chunks to the cipher until the channel is exhausted
+                if (chunk.hasRemaining())
+                {
+                    continue;
+                }
+
+                writeChunk(inBuf, 0, size);
+                total += size;
+                chunk.clear();
+            }
+
+            writeChunk(inBuf, 0, chunk.position());
+            total += chunk.position();
+
+            return total;
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                Arrays.fill(inBuf, (byte)0);
+                pool.release(inBuf);
+            }
+        }
+    }
+
+    private void writeChunk(
+        byte[] b,
+        int off,
+        int len)
+        throws IOException
     {
         ensureCapacity(len, false);
 
@@ -180,7 +316,25 @@ else if (aeadBlockCipher != null)
 
         if ((buf == null) || (buf.length < bufLen))
         {
-            buf = new byte[bufLen];
+            if (pool != null)
+            {
+                releaseBuffer();
+                buf = pool.acquire(bufLen);
+            }
+            else
+            {
+                buf = new byte[bufLen];
+            }
+        }
+    }
+
+    private void releaseBuffer()
+    {
+        if (buf != null)
+        {
+            Arrays.fill(buf, (byte)0);
+            pool.release(buf);
+            buf = null;
         }
     }
 
@@ -258,6 +412,13 @@ else if (streamCipher != null)
         {
             error = new CipherIOException("Error closing stream: ", e);
         }
+        finally
+        {
+            if (pool != null)
+            {
+                releaseBuffer();
+            }
+        }
 
         try
         {
@@ -4,8 +4,9 @@
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.Mac;
 import org.spongycastle.crypto.modes.CBCBlockCipher;
-import org.spongycastle.crypto.paddings.ISO7816d4Padding;
 import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.params.ParametersWithIV;
+import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Pack;
 
 /**
@@ -25,6 +26,9 @@
  * It supports 128- or 64-bits block ciphers, with any key size, and returns
  * a MAC with dimension less or equal to the block size of the underlying 
  * cipher.
+ * </p><p>
+ * A {@link CMacKey} can be passed to init() in place of a KeyParameter to reuse subkeys
+ * computed once for a key.
  * </p>
  */
 public class CMac implements Mac
@@ -37,10 +41,13 @@ public class CMac implements Mac
     private byte[] buf;
     private int bufOff;
     private BlockCipher cipher;
+    private BlockCipher engine;
+    private byte[] iv;
 
     private int macSize;
 
     private byte[] Lu, Lu2;
+    private CMacKey currentKey;
 
     /**
      * create a standard MAC based on a CBC block cipher (64 or 128 bit block).
@@ -81,6 +88,7 @@ public CMac(BlockCipher cipher, int macSizeInBits)
         }
 
         this.cipher = new CBCBlockCipher(cipher);
+        this.engine = cipher;
         this.macSize = macSizeInBits / 8;
         this.poly = lookupPoly(cipher.getBlockSize());
 
@@ -90,6 +98,8 @@ public CMac(BlockCipher cipher, int macSizeInBits)
 
         ZEROES = new byte[cipher.getBlockSize()];
 
+        iv = new byte[cipher.getBlockSize()];
+
         bufOff = 0;
     }
 
@@ -111,7 +121,7 @@ private static int shiftLeft(byte[] block, byte[] output)
         return bit;
     }
 
-    private byte[] doubleLu(byte[] in)
+    static byte[] doubleLu(byte[] in, byte[] poly)
     {
         byte[] ret = new byte[in.length];
         int carry = shiftLeft(in, ret);
@@ -127,7 +137,7 @@ private byte[] doubleLu(byte[] in)
         return ret;
     }
 
-    private static byte[] lookupPoly(int blockSizeLength)
+    static byte[] lookupPoly(int blockSizeLength)
     {
         int xor;
         switch (blockSizeLength * 8)
@@ -180,15 +190,45 @@ private static byte[] lookupPoly(int blockSizeLength)
 
     public void init(CipherParameters params)
     {
+        if (params instanceof CMacKey)
+        {
+            CMacKey key = (CMacKey)params;
+
+            if (key != currentKey)
+            {
+                if (key.getBlockSize() != ZEROES.length || !key.getAlgorithmName().equals(engine.getAlgorithmName()))
+                {
+                    throw new IllegalArgumentException("CMacKey was computed for " + key.getAlgorithmName());
+                }
+
+                cipher.init(true, new ParametersWithIV(new KeyParameter(key.getKey()), ZEROES));
+                Arrays.fill(iv, (byte)0);
+
+                // the subkeys are only ever read, so they are shared with the key
+                Lu = key.getLu();
+                Lu2 = key.getLu2();
+                currentKey = key;
+            }
+
+            reset();
+            return;
+        }
+
         validate(params);
 
         cipher.init(true, params);
 
+        if (params instanceof ParametersWithIV)
+        {
+            System.arraycopy(((ParametersWithIV)params).getIV(), 0, iv, 0, iv.length);
+        }
+
         //initializes the L, Lu, Lu2 numbers
         byte[] L = new byte[ZEROES.length];
         cipher.processBlock(ZEROES, 0, L, 0);
-        Lu = doubleLu(L);
-        Lu2 = doubleLu(Lu);
+        Lu = doubleLu(L, poly);
+        Lu2 = doubleLu(Lu, poly);
+        currentKey = null;
 
         reset();
     }
@@ -214,7 +254,7 @@ public void update(byte in)
     {
         if (bufOff == buf.length)
         {
-            cipher.processBlock(buf, 0, mac, 0);
+            processBlock(buf, 0);
             bufOff = 0;
         }
 
@@ -229,22 +269,23 @@ public void update(byte[] in, int inOff, int len)
                 "Can't have a negative input length!");
         }
 
-        int blockSize = cipher.getBlockSize();
+        int blockSize = buf.length;
         int gapLen = blockSize - bufOff;
 
         if (len > gapLen)
         {
             System.arraycopy(in, inOff, buf, bufOff, gapLen);
 
-            cipher.processBlock(buf, 0, mac, 0);
+            processBlock(buf, 0);
 
             bufOff = 0;
             len -= gapLen;
             inOff += gapLen;
 
+            // whole blocks are chained straight from the input, the last one is kept back for doFinal()
             while (len > blockSize)
             {
-                cipher.processBlock(in, inOff, mac, 0);
+                processBlock(in, inOff);
 
                 len -= blockSize;
                 inOff += blockSize;
@@ -258,7 +299,7 @@ public void update(byte[] in, int inOff, int len)
 
     public int doFinal(byte[] out, int outOff)
     {
-        int blockSize = cipher.getBlockSize();
+        int blockSize = buf.length;
 
         byte[] lu;
         if (bufOff == blockSize)
@@ -267,7 +308,12 @@ public int doFinal(byte[] out, int outOff)
         }
         else
         {
-            new ISO7816d4Padding().addPadding(buf, bufOff);
+            // ISO 7816-4 padding
+            buf[bufOff] = (byte)0x80;
+            for (int i = bufOff + 1; i < blockSize; i++)
+            {
+                buf[i] = 0;
+            }
             lu = Lu2;
         }
 
@@ -276,7 +322,7 @@ public int doFinal(byte[] out, int outOff)
             buf[i] ^= lu[i];
         }
 
-        cipher.processBlock(buf, 0, mac, 0);
+        processBlock(buf, 0);
 
         System.arraycopy(mac, 0, out, outOff, macSize);
 
@@ -301,8 +347,21 @@ public void reset()
         bufOff = 0;
 
         /*
-         * reset the underlying cipher.
+         * restart the chain from the IV.
          */
-        cipher.reset();
+        System.arraycopy(iv, 0, mac, 0, iv.length);
+    }
+
+    /**
+     * One CBC step, chaining the block at in[inOff] into mac on the underlying cipher directly.
+     */
+    private void processBlock(byte[] in, int inOff)
+    {
+        for (int i = 0; i < mac.length; i++)
+        {
+            mac[i] ^= in[inOff + i];
+        }
+
+        engine.processBlock(mac, 0, mac, 0);
     }
 }
@@ -0,0 +1,79 @@
+package org.spongycastle.crypto.macs;
+
+import org.spongycastle.crypto.BlockCipher;
+import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.Arrays;
+
+/**
+ * A precomputed CMAC key: the cipher key together with the subkeys derived from it.
+ * <p>
+ * Passing a CMacKey to {@link CMac#init(CipherParameters)} sets the MAC up without deriving the
+ * subkeys again, and re-initialising a CMac with the key it already holds only resets it. A
+ * CMacKey is never modified after construction, so one instance can be shared by CMacs on any
+ * number of threads, provided each CMac uses the same kind of block cipher.
+ * </p>
+ */
+public class CMacKey
+    implements CipherParameters
+{
+    private final String algorithmName;
+    private final int blockSize;
+    private final byte[] key;
+    private final byte[] Lu, Lu2;
+
+    /**
+     * Precompute the subkeys for CMAC with the given cipher and key.
+     *
+     * @param cipher the block cipher CMAC is based on, it is left initialised for encryption with key.
+     * @param key the cipher key.
+     */
+    public CMacKey(BlockCipher cipher, byte[] key)
+    {
+        int blockSize = cipher.getBlockSize();
+        byte[] poly = CMac.lookupPoly(blockSize);
+
+        cipher.init(true, new KeyParameter(key));
+
+        byte[] L = new byte[blockSize];
+        cipher.processBlock(L, 0, L, 0);
+
+        this.algorithmName = cipher.getAlgorithmName();
+        this.blockSize = blockSize;
+        this.key = Arrays.clone(key);
+        this.Lu = CMac.doubleLu(L, poly);
+        this.Lu2 = CMac.doubleLu(Lu, poly);
+
+        Arrays.fill(L, (byte)0);
+    }
+
+    /**
+     * Return the name of the block cipher this key was computed for.
+     *
+     * @return the cipher algorithm name.
+     */
+    public String getAlgorithmName()
+    {
+        return algorithmName;
+    }
+
+    int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    byte[] getKey()
+    {
+        return key;
+    }
+
+    byte[] getLu()
+    {
+        return Lu;
+    }
+
+    byte[] getLu2()
+    {
+        return Lu2;
+    }
+}
@@ -1,12 +1,14 @@
 package org.spongycastle.crypto.macs;
 
+import java.nio.ByteBuffer;
 import java.util.Hashtable;
 
+import org.spongycastle.crypto.ByteBufferMac;
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.Digest;
 import org.spongycastle.crypto.ExtendedDigest;
-import org.spongycastle.crypto.Mac;
 import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.util.ByteBuffers;
 import org.spongycastle.util.Integers;
 import org.spongycastle.util.Memoable;
 
@@ -16,7 +18,7 @@
  * H(K XOR opad, H(K XOR ipad, text))
  */
 public class HMac
-    implements Mac
+    implements ByteBufferMac
 {
     private final static byte IPAD = (byte)0x36;
     private final static byte OPAD = (byte)0x5C;
@@ -29,6 +31,7 @@
 
     private byte[] inputPad;
     private byte[] outputBuf;
+    private boolean padsSet;
 
     private static Hashtable blockLengths;
     
@@ -106,14 +109,32 @@ public Digest getUnderlyingDigest()
         return digest;
     }
 
+    /**
+     * Initialise the MAC with either a KeyParameter or a precomputed {@link HMacKey}. Re-keying
+     * with the key already in use only restores the saved digest state.
+     *
+     * @param params the key to use.
+     */
     public void init(
         CipherParameters params)
     {
-        digest.reset();
+        if (params instanceof HMacKey)
+        {
+            init((HMacKey)params);
+            return;
+        }
 
         byte[] key = ((KeyParameter)params).getKey();
         int keyLength = key.length;
 
+        if (ipadState != null && padsSet && keyLength <= blockLength && isCurrentKey(key))
+        {
+            ((Memoable)digest).reset(ipadState);
+            return;
+        }
+
+        digest.reset();
+
         if (keyLength > blockLength)
         {
             digest.update(key, 0, keyLength);
@@ -149,6 +170,73 @@ public void init(
         {
             ipadState = ((Memoable)digest).copy();
         }
+
+        padsSet = true;
+    }
+
+    private void init(HMacKey key)
+    {
+        if (!(digest instanceof Memoable))
+        {
+            throw new IllegalArgumentException("HMacKey requires a Memoable digest");
+        }
+        if (!key.getAlgorithmName().equals(digest.getAlgorithmName()) || key.getBlockLength() != blockLength)
+        {
+            throw new IllegalArgumentException("HMacKey was computed for " + key.getAlgorithmName());
+        }
+
+        // the states are only ever copied from, so they can be shared with the key
+        ipadState = key.getIPadState();
+        opadState = key.getOPadState();
+
+        clearPads();
+
+        ((Memoable)digest).reset(ipadState);
+    }
+
+    /**
+     * Constant time check of whether key, zero padded to the block length, is the key in inputPad.
+     */
+    private boolean isCurrentKey(byte[] key)
+    {
+        int diff = 0;
+        for (int i = 0; i < key.length; i++)
+        {
+            diff |= (key[i] ^ IPAD) ^ inputPad[i];
+        }
+        for (int i = key.length; i < blockLength; i++)
+        {
+            diff |= IPAD ^ inputPad[i];
+        }
+        return diff == 0;
+    }
+
+    void clearPads()
+    {
+        for (int i = 0; i < inputPad.length; i++)
+        {
+            inputPad[i] = 0;
+        }
+        for (int i = 0; i < outputBuf.length; i++)
+        {
+            outputBuf[i] = 0;
+        }
+        padsSet = false;
+    }
+
+    int getBlockLength()
+    {
+        return blockLength;
+    }
+
+    Memoable getIPadState()
+    {
+        return ipadState;
+    }
+
+    Memoable getOPadState()
+    {
+        return opadState;
     }
 
     public int getMacSize()
@@ -170,6 +258,12 @@ public void update(
         digest.update(in, inOff, len);
     }
 
+    public void update(
+        ByteBuffer in)
+    {
+        ByteBuffers.update(digest, in);
+    }
+
     public int doFinal(
         byte[] out,
         int outOff)
@@ -210,6 +304,12 @@ public int doFinal(
      */
     public void reset()
     {
+        if (ipadState != null)
+        {
+            ((Memoable)digest).reset(ipadState);
+            return;
+        }
+
         /*
          * reset the underlying digest.
          */
@@ -0,0 +1,87 @@
+package org.spongycastle.crypto.macs;
+
+import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.Memoable;
+
+/**
+ * A precomputed HMAC key: the digest states after absorbing the inner and outer padded key.
+ * <p>
+ * Passing an HMacKey to {@link HMac#init(CipherParameters)} sets the MAC up by copying these
+ * states instead of hashing the padded key again. An HMacKey is never modified after
+ * construction, so one instance can be shared by HMacs on any number of threads.
+ * </p>
+ */
+public class HMacKey
+    implements CipherParameters
+{
+    private final String algorithmName;
+    private final int blockLength;
+    private final Memoable ipadState;
+    private final Memoable opadState;
+
+    /**
+     * Precompute the key schedule for HMAC with the given digest and key.
+     *
+     * @param digest the digest HMAC is based on, it must implement Memoable and is left untouched.
+     * @param key the HMAC key.
+     */
+    public HMacKey(Digest digest, byte[] key)
+    {
+        if (!(digest instanceof Memoable))
+        {
+            throw new IllegalArgumentException("HMacKey requires a Memoable digest");
+        }
+
+        HMac mac = new HMac((Digest)((Memoable)digest).copy());
+
+        mac.init(new KeyParameter(key));
+
+        this.algorithmName = digest.getAlgorithmName();
+        this.blockLength = mac.getBlockLength();
+        this.ipadState = mac.getIPadState();
+        this.opadState = mac.getOPadState();
+
+        mac.clearPads();
+    }
+
+    /**
+     * Create a new HMac initialised with this key.
+     *
+     * @return a ready to use HMac.
+     */
+    public HMac createMac()
+    {
+        HMac mac = new HMac((Digest)ipadState.copy());
+
+        mac.init(this);
+
+        return mac;
+    }
+
+    /**
+     * Return the name of the digest this key was computed for.
+     *
+     * @return the digest algorithm name.
+     */
+    public String getAlgorithmName()
+    {
+        return algorithmName;
+    }
+
+    int getBlockLength()
+    {
+        return blockLength;
+    }
+
+    Memoable getIPadState()
+    {
+        return ipadState;
+    }
+
+    Memoable getOPadState()
+    {
+        return opadState;
+    }
+}
@@ -0,0 +1,183 @@
+package org.spongycastle.crypto.macs;
+
+import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.DataLengthException;
+import org.spongycastle.crypto.Mac;
+import org.spongycastle.crypto.OutputLengthException;
+import org.spongycastle.crypto.Xof;
+import org.spongycastle.crypto.digests.CSHAKEDigest;
+import org.spongycastle.crypto.digests.XofUtils;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+
+/**
+ * KMAC - the Keccak Message Authentication Code of NIST SP 800-185.
+ * <p>
+ * doFinal() produces a MAC of the default size bound to that length, doOutput() runs KMAC as an
+ * XOF (KMACXOF) and can be called repeatedly for more output.
+ * </p>
+ */
+public class KMAC
+    implements Mac, Xof
+{
+    private static final byte[] padding = new byte[100];
+
+    private final CSHAKEDigest cshake;
+    private final int bitLength;
+    private final int outputLength;
+
+    private byte[] key;
+    private boolean initialised;
+    private boolean firstOutput;
+
+    /**
+     * Base constructor.
+     *
+     * @param bitLength security strength (in bits) of the underlying cSHAKE function, 128 or 256.
+     * @param S the customization string, may be null.
+     */
+    public KMAC(int bitLength, byte[] S)
+    {
+        this.cshake = new CSHAKEDigest(bitLength, Strings.toByteArray("KMAC"), S);
+        this.bitLength = bitLength;
+        this.outputLength = bitLength * 2 / 8;
+    }
+
+    public void init(CipherParameters params)
+        throws IllegalArgumentException
+    {
+        if (!(params instanceof KeyParameter))
+        {
+            throw new IllegalArgumentException("KMAC requires a KeyParameter");
+        }
+
+        this.key = Arrays.clone(((KeyParameter)params).getKey());
+        this.initialised = true;
+
+        reset();
+    }
+
+    public String getAlgorithmName()
+    {
+        return "KMAC" + bitLength;
+    }
+
+    public int getByteLength()
+    {
+        return cshake.getByteLength();
+    }
+
+    public int getMacSize()
+    {
+        return outputLength;
+    }
+
+    public int getDigestSize()
+    {
+        return outputLength;
+    }
+
+    public void update(byte in)
+        throws IllegalStateException
+    {
+        checkInitialised();
+
+        cshake.update(in);
+    }
+
+    public void update(byte[] in, int inOff, int len)
+        throws DataLengthException, IllegalStateException
+    {
+        checkInitialised();
+
+        cshake.update(in, inOff, len);
+    }
+
+    public int doFinal(byte[] out, int outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        return doFinal(out, outOff, outputLength);
+    }
+
+    public int doFinal(byte[] out, int outOff, int outLen)
+    {
+        checkOutput(out, outOff, outLen);
+
+        if (firstOutput)
+        {
+            byte[] encOut = XofUtils.rightEncode(outLen * 8L);
+
+            cshake.update(encOut, 0, encOut.length);
+        }
+
+        int rv = cshake.doFinal(out, outOff, outLen);
+
+        reset();
+
+        return rv;
+    }
+
+    public int doOutput(byte[] out, int outOff, int outLen)
+    {
+        checkOutput(out, outOff, outLen);
+
+        if (firstOutput)
+        {
+            byte[] encOut = XofUtils.rightEncode(0);
+
+            cshake.update(encOut, 0, encOut.length);
+
+            firstOutput = false;
+        }
+
+        return cshake.doOutput(out, outOff, outLen);
+    }
+
+    public void reset()
+    {
+        cshake.reset();
+
+        if (key != null)
+        {
+            bytePad(key, cshake.getByteLength());
+        }
+
+        firstOutput = true;
+    }
+
+    // absorb bytepad(encode_string(X), w)
+    private void bytePad(byte[] X, int w)
+    {
+        byte[] bytes = XofUtils.leftEncode(w);
+        cshake.update(bytes, 0, bytes.length);
+        byte[] encX = XofUtils.encodeString(X);
+        cshake.update(encX, 0, encX.length);
+
+        int required = (w - ((bytes.length + encX.length) % w)) % w;
+        while (required > padding.length)
+        {
+            cshake.update(padding, 0, padding.length);
+            required -= padding.length;
+        }
+        cshake.update(padding, 0, required);
+    }
+
+    private void checkInitialised()
+    {
+        if (!initialised)
+        {
+            throw new IllegalStateException("KMAC not initialized");
+        }
+    }
+
+    private void checkOutput(byte[] out, int outOff, int outLen)
+    {
+        checkInitialised();
+
+        if (outOff + outLen > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+    }
+}
@@ -38,6 +38,11 @@
     /** Precomputed 5 * r[1..4] */
     private int s1, s2, s3, s4;
 
+    /** Powers r^2, r^3, r^4 of the polynomial key, each with 5 * [1..4] precomputed */
+    private int r20, r21, r22, r23, r24, s21, s22, s23, s24;
+    private int r30, r31, r32, r33, r34, s31, s32, s33, s34;
+    private int r40, r41, r42, r43, r44, s41, s42, s43, s44;
+
     /** Encrypted nonce */
     private int k0, k1, k2, k3;
 
@@ -46,7 +51,7 @@
     /** Current block of buffered input */
     private final byte[] currentBlock = new byte[BLOCK_SIZE];
 
-    /** Current offset in input buffer */
+    /** Current offset in input buffer, always less than BLOCK_SIZE between calls */
     private int currentBlockOffset = 0;
 
     /** Polynomial accumulator */
@@ -139,6 +144,8 @@ private void setKey(final byte[] key, final byte[] nonce)
         s3 = r3 * 5;
         s4 = r4 * 5;
 
+        setKeyPowers();
+
         final byte[] kBytes;
         final int kOff;
 
@@ -184,38 +191,46 @@ public void update(final byte[] in, final int inOff, final int len)
         throws DataLengthException,
         IllegalStateException
     {
-        int copied = 0;
-        while (len > copied)
+        int pos = 0;
+
+        if (currentBlockOffset > 0)
         {
-            if (currentBlockOffset == BLOCK_SIZE)
+            int toCopy = Math.min(len, BLOCK_SIZE - currentBlockOffset);
+            System.arraycopy(in, inOff, currentBlock, currentBlockOffset, toCopy);
+            pos = toCopy;
+            currentBlockOffset += toCopy;
+
+            if (currentBlockOffset < BLOCK_SIZE)
             {
-                processBlock();
-                currentBlockOffset = 0;
+                return;
             }
 
-            int toCopy = Math.min((len - copied), BLOCK_SIZE - currentBlockOffset);
-            System.arraycopy(in, copied + inOff, currentBlock, currentBlockOffset, toCopy);
-            copied += toCopy;
-            currentBlockOffset += toCopy;
+            processBlock(currentBlock, 0, true);
+            currentBlockOffset = 0;
         }
 
-    }
-
-    private void processBlock()
-    {
-        if (currentBlockOffset < BLOCK_SIZE)
+        // whole blocks are read directly from the input
+        while (len - pos >= 4 * BLOCK_SIZE)
         {
-            currentBlock[currentBlockOffset] = 1;
-            for (int i = currentBlockOffset + 1; i < BLOCK_SIZE; i++)
-            {
-                currentBlock[i] = 0;
-            }
+            processFourBlocks(in, inOff + pos);
+            pos += 4 * BLOCK_SIZE;
+        }
+        while (len - pos >= BLOCK_SIZE)
+        {
+            processBlock(in, inOff + pos, true);
+            pos += BLOCK_SIZE;
         }
 
-        final long t0 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 0);
-        final long t1 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 4);
-        final long t2 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 8);
-        final long t3 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 12);
+        System.arraycopy(in, inOff + pos, currentBlock, 0, len - pos);
+        currentBlockOffset = len - pos;
+    }
+
+    private void processBlock(final byte[] in, final int inOff, final boolean fullBlock)
+    {
+        final long t0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff);
+        final long t1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 4);
+        final long t2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 8);
+        final long t3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 12);
 
         h0 += t0 & 0x3ffffff;
         h1 += (((t1 << 32) | t0) >>> 26) & 0x3ffffff;
@@ -223,7 +238,7 @@ private void processBlock()
         h3 += (((t3 << 32) | t2) >>> 14) & 0x3ffffff;
         h4 += (t3 >>> 8);
 
-        if (currentBlockOffset == BLOCK_SIZE)
+        if (fullBlock)
         {
             h4 += (1 << 24);
         }
@@ -243,6 +258,225 @@ private void processBlock()
         h1 += (h0 >>> 26); h0 &= 0x3ffffff;
     }
 
+    private void setKeyPowers()
+    {
+        long tp0, tp1, tp2, tp3, tp4;
+        int c;
+
+        // r^2 = r * r
+        tp0 = mul32x32_64(r0, r0) + mul32x32_64(r1, s4) + mul32x32_64(r2, s3) + mul32x32_64(r3, s2) + mul32x32_64(r4, s1);
+        tp1 = mul32x32_64(r0, r1) + mul32x32_64(r1, r0) + mul32x32_64(r2, s4) + mul32x32_64(r3, s3) + mul32x32_64(r4, s2);
+        tp2 = mul32x32_64(r0, r2) + mul32x32_64(r1, r1) + mul32x32_64(r2, r0) + mul32x32_64(r3, s4) + mul32x32_64(r4, s3);
+        tp3 = mul32x32_64(r0, r3) + mul32x32_64(r1, r2) + mul32x32_64(r2, r1) + mul32x32_64(r3, r0) + mul32x32_64(r4, s4);
+        tp4 = mul32x32_64(r0, r4) + mul32x32_64(r1, r3) + mul32x32_64(r2, r2) + mul32x32_64(r3, r1) + mul32x32_64(r4, r0);
+        r20 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
+        r21 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+        r22 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+        r23 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+        r24 = (int)tp4 & 0x3ffffff;
+        r20 += (int)(tp4 >>> 26) * 5;
+        c = r20 >>> 26; r20 &= 0x3ffffff; r21 += c;
+        s21 = r21 * 5;
+        s22 = r22 * 5;
+        s23 = r23 * 5;
+        s24 = r24 * 5;
+
+        // r^3 = r^2 * r
+        tp0 = mul32x32_64(r20, r0) + mul32x32_64(r21, s4) + mul32x32_64(r22, s3) + mul32x32_64(r23, s2) + mul32x32_64(r24, s1);
+        tp1 = mul32x32_64(r20, r1) + mul32x32_64(r21, r0) + mul32x32_64(r22, s4) + mul32x32_64(r23, s3) + mul32x32_64(r24, s2);
+        tp2 = mul32x32_64(r20, r2) + mul32x32_64(r21, r1) + mul32x32_64(r22, r0) + mul32x32_64(r23, s4) + mul32x32_64(r24, s3);
+        tp3 = mul32x32_64(r20, r3) + mul32x32_64(r21, r2) + mul32x32_64(r22, r1) + mul32x32_64(r23, r0) + mul32x32_64(r24, s4);
+        tp4 = mul32x32_64(r20, r4) + mul32x32_64(r21, r3) + mul32x32_64(r22, r2) + mul32x32_64(r23, r1) + mul32x32_64(r24, r0);
+        r30 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
+        r31 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+        r32 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+        r33 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+        r34 = (int)tp4 & 0x3ffffff;
+        r30 += (int)(tp4 >>> 26) * 5;
+        c = r30 >>> 26; r30 &= 0x3ffffff; r31 += c;
+        s31 = r31 * 5;
+        s32 = r32 * 5;
+        s33 = r33 * 5;
+        s34 = r34 * 5;
+
+        // r^4 = r^2 * r^2
+        tp0 = mul32x32_64(r20, r20) + mul32x32_64(r21, s24) + mul32x32_64(r22, s23) + mul32x32_64(r23, s22) + mul32x32_64(r24, s21);
+        tp1 = mul32x32_64(r20, r21) + mul32x32_64(r21, r20) + mul32x32_64(r22, s24) + mul32x32_64(r23, s23) + mul32x32_64(r24, s22);
+        tp2 = mul32x32_64(r20, r22) + mul32x32_64(r21, r21) + mul32x32_64(r22, r20) + mul32x32_64(r23, s24) + mul32x32_64(r24, s23);
+        tp3 = mul32x32_64(r20, r23) + mul32x32_64(r21, r22) + mul32x32_64(r22, r21) + mul32x32_64(r23, r20) + mul32x32_64(r24, s24);
+        tp4 = mul32x32_64(r20, r24) + mul32x32_64(r21, r23) + mul32x32_64(r22, r22) + mul32x32_64(r23, r21) + mul32x32_64(r24, r20);
+        r40 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
+        r41 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+        r42 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+        r43 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+        r44 = (int)tp4 & 0x3ffffff;
+        r40 += (int)(tp4 >>> 26) * 5;
+        c = r40 >>> 26; r40 &= 0x3ffffff; r41 += c;
+        s41 = r41 * 5;
+        s42 = r42 * 5;
+        s43 = r43 * 5;
+        s44 = r44 * 5;
+    }
+
+    /**
+     * Process four whole blocks from in, using h = (h + m1) * r^4 + m2 * r^3 + m3 * r^2 + m4 * r
+     * so only one carry chain is needed per four blocks.
+     */
+    private void processFourBlocks(final byte[] in, final int inOff)
+    {
+        long ta0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff);
+        long ta1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 4);
+        long ta2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 8);
+        long ta3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 12);
+        int a0 = h0 + (int)(ta0 & 0x3ffffff);
+        int a1 = h1 + (int)((((ta1 << 32) | ta0) >>> 26) & 0x3ffffff);
+        int a2 = h2 + (int)((((ta2 << 32) | ta1) >>> 20) & 0x3ffffff);
+        int a3 = h3 + (int)((((ta3 << 32) | ta2) >>> 14) & 0x3ffffff);
+        int a4 = h4 + (int)(ta3 >>> 8) + (1 << 24);
+
+        long tb0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 16);
+        long tb1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 20);
+        long tb2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 24);
+        long tb3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 28);
+        int b0 = (int)(tb0 & 0x3ffffff);
+        int b1 = (int)((((tb1 << 32) | tb0) >>> 26) & 0x3ffffff);
+        int b2 = (int)((((tb2 << 32) | tb1) >>> 20) & 0x3ffffff);
+        int b3 = (int)((((tb3 << 32) | tb2) >>> 14) & 0x3ffffff);
+        int b4 = (int)(tb3 >>> 8) + (1 << 24);
+
+        long tc0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 32);
+        long tc1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 36);
+        long tc2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 40);
+        long tc3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 44);
+        int c0 = (int)(tc0 & 0x3ffffff);
+        int c1 = (int)((((tc1 << 32) | tc0) >>> 26) & 0x3ffffff);
+        int c2 = (int)((((tc2 << 32) | tc1) >>> 20) & 0x3ffffff);
+        int c3 = (int)((((tc3 << 32) | tc2) >>> 14) & 0x3ffffff);
+        int c4 = (int)(tc3 >>> 8) + (1 << 24);
+
+        long td0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 48);
+        long td1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 52);
+        long td2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 56);
+        long td3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 60);
+        int d0 = (int)(td0 & 0x3ffffff);
+        int d1 = (int)((((td1 << 32) | td0) >>> 26) & 0x3ffffff);
+        int d2 = (int)((((td2 << 32) | td1) >>> 20) & 0x3ffffff);
+        int d3 = (int)((((td3 << 32) | td2) >>> 14) & 0x3ffffff);
+        int d4 = (int)(td3 >>> 8) + (1 << 24);
+
+        long tp0 = mul32x32_64(a0, r40)
+            + mul32x32_64(a1, s44)
+            + mul32x32_64(a2, s43)
+            + mul32x32_64(a3, s42)
+            + mul32x32_64(a4, s41)
+            + mul32x32_64(b0, r30)
+            + mul32x32_64(b1, s34)
+            + mul32x32_64(b2, s33)
+            + mul32x32_64(b3, s32)
+            + mul32x32_64(b4, s31)
+            + mul32x32_64(c0, r20)
+            + mul32x32_64(c1, s24)
+            + mul32x32_64(c2, s23)
+            + mul32x32_64(c3, s22)
+            + mul32x32_64(c4, s21)
+            + mul32x32_64(d0, r0)
+            + mul32x32_64(d1, s4)
+            + mul32x32_64(d2, s3)
+            + mul32x32_64(d3, s2)
+            + mul32x32_64(d4, s1);
+        long tp1 = mul32x32_64(a0, r41)
+            + mul32x32_64(a1, r40)
+            + mul32x32_64(a2, s44)
+            + mul32x32_64(a3, s43)
+            + mul32x32_64(a4, s42)
+            + mul32x32_64(b0, r31)
+            + mul32x32_64(b1, r30)
+            + mul32x32_64(b2, s34)
+            + mul32x32_64(b3, s33)
+            + mul32x32_64(b4, s32)
+            + mul32x32_64(c0, r21)
+            + mul32x32_64(c1, r20)
+            + mul32x32_64(c2, s24)
+            + mul32x32_64(c3, s23)
+            + mul32x32_64(c4, s22)
+            + mul32x32_64(d0, r1)
+            + mul32x32_64(d1, r0)
+            + mul32x32_64(d2, s4)
+            + mul32x32_64(d3, s3)
+            + mul32x32_64(d4, s2);
+        long tp2 = mul32x32_64(a0, r42)
+            + mul32x32_64(a1, r41)
+            + mul32x32_64(a2, r40)
+            + mul32x32_64(a3, s44)
+            + mul32x32_64(a4, s43)
+            + mul32x32_64(b0, r32)
+            + mul32x32_64(b1, r31)
+            + mul32x32_64(b2, r30)
+            + mul32x32_64(b3, s34)
+            + mul32x32_64(b4, s33)
+            + mul32x32_64(c0, r22)
+            + mul32x32_64(c1, r21)
+            + mul32x32_64(c2, r20)
+            + mul32x32_64(c3, s24)
+            + mul32x32_64(c4, s23)
+            + mul32x32_64(d0, r2)
+            + mul32x32_64(d1, r1)
+            + mul32x32_64(d2, r0)
+            + mul32x32_64(d3, s4)
+            + mul32x32_64(d4, s3);
+        long tp3 = mul32x32_64(a0, r43)
+            + mul32x32_64(a1, r42)
+            + mul32x32_64(a2, r41)
+            + mul32x32_64(a3, r40)
+            + mul32x32_64(a4, s44)
+            + mul32x32_64(b0, r33)
+            + mul32x32_64(b1, r32)
+            + mul32x32_64(b2, r31)
+            + mul32x32_64(b3, r30)
+            + mul32x32_64(b4, s34)
+            + mul32x32_64(c0, r23)
+            + mul32x32_64(c1, r22)
+            + mul32x32_64(c2, r21)
+            + mul32x32_64(c3, r20)
+            + mul32x32_64(c4, s24)
+            + mul32x32_64(d0, r3)
+            + mul32x32_64(d1, r2)
+            + mul32x32_64(d2, r1)
+            + mul32x32_64(d3, r0)
+            + mul32x32_64(d4, s4);
+        long tp4 = mul32x32_64(a0, r44)
+            + mul32x32_64(a1, r43)
+            + mul32x32_64(a2, r42)
+            + mul32x32_64(a3, r41)
+            + mul32x32_64(a4, r40)
+            + mul32x32_64(b0, r34)
+            + mul32x32_64(b1, r33)
+            + mul32x32_64(b2, r32)
+            + mul32x32_64(b3, r31)
+            + mul32x32_64(b4, r30)
+            + mul32x32_64(c0, r24)
+            + mul32x32_64(c1, r23)
+            + mul32x32_64(c2, r22)
+            + mul32x32_64(c3, r21)
+            + mul32x32_64(c4, r20)
+            + mul32x32_64(d0, r4)
+            + mul32x32_64(d1, r3)
+            + mul32x32_64(d2, r2)
+            + mul32x32_64(d3, r1)
+            + mul32x32_64(d4, r0);
+
+        h0 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
+        h1 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+        h2 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+        h3 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+        h4 = (int)tp4 & 0x3ffffff;
+
+        // the top carry can exceed 32 bits once multiplied by 5 here
+        long carry = (tp4 >>> 26) * 5 + h0;
+        h0 = (int)carry & 0x3ffffff;
+        h1 += (int)(carry >>> 26);
+    }
+
     public int doFinal(final byte[] out, final int outOff)
         throws DataLengthException,
         IllegalStateException
@@ -255,7 +489,13 @@ public int doFinal(final byte[] out, final int outOff)
         if (currentBlockOffset > 0)
         {
             // Process padded final block
-            processBlock();
+            currentBlock[currentBlockOffset] = 1;
+            for (int i = currentBlockOffset + 1; i < BLOCK_SIZE; i++)
+            {
+                currentBlock[i] = 0;
+            }
+
+            processBlock(currentBlock, 0, false);
         }
 
         h1 += (h0 >>> 26); h0 &= 0x3ffffff;
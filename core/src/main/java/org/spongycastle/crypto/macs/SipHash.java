@@ -4,6 +4,7 @@
 import org.spongycastle.crypto.DataLengthException;
 import org.spongycastle.crypto.Mac;
 import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.KeyedHash;
 import org.spongycastle.util.Pack;
 
 /**
@@ -164,6 +165,22 @@ public int doFinal(byte[] out, int outOff)
         return 8;
     }
 
+    /**
+     * Calculate SipHash-2-4 of a message in one call, without creating a SipHash object. This is
+     * meant for hashing table keys, where the message is usually short.
+     *
+     * @param k0 the first 64 bits of the key, as read little-endian.
+     * @param k1 the second 64 bits of the key, as read little-endian.
+     * @param in the array holding the message.
+     * @param off the offset of the message in in.
+     * @param len the length of the message.
+     * @return the 64 bit SipHash-2-4 value.
+     */
+    public static long hash(long k0, long k1, byte[] in, int off, int len)
+    {
+        return KeyedHash.sipHash24(k0, k1, in, off, len);
+    }
+
     public void reset()
     {
         v0 = k0 ^ 0x736f6d6570736575L;
@@ -0,0 +1,37 @@
+package org.spongycastle.crypto.modes;
+
+import java.nio.ByteBuffer;
+
+import org.spongycastle.crypto.DataLengthException;
+
+/**
+ * AEAD block ciphers which are able to process ByteBuffers, including direct buffers, without going
+ * through a temporary byte array allocated by the caller implement this.
+ * <p>
+ * Use {@link org.spongycastle.crypto.util.ByteBuffers} to pass ByteBuffers to any AEAD cipher.
+ * </p>
+ */
+public interface ByteBufferAEADBlockCipher
+    extends AEADBlockCipher
+{
+    /**
+     * Add the remaining bytes in the buffer to the associated data. On return the buffer's
+     * position will be equal to its limit.
+     *
+     * @param in the buffer containing the associated data.
+     */
+    public void processAADBytes(ByteBuffer in);
+
+    /**
+     * process the remaining bytes in the in buffer, putting any output produced into out. On return
+     * the position of in will be equal to its limit and the position of out will have advanced by
+     * the number of bytes written.
+     *
+     * @param in the input buffer.
+     * @param out the output buffer.
+     * @return the number of output bytes written to out.
+     * @exception DataLengthException if the output buffer is too small.
+     */
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException;
+}
@@ -3,6 +3,8 @@
 import org.spongycastle.crypto.BlockCipher;
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.DataLengthException;
+import org.spongycastle.crypto.MultiBlockCipher;
+import org.spongycastle.crypto.OutputLengthException;
 import org.spongycastle.crypto.params.ParametersWithIV;
 import org.spongycastle.util.Arrays;
 
@@ -10,11 +12,14 @@
  * implements Cipher-Block-Chaining (CBC) mode on top of a simple cipher.
  */
 public class CBCBlockCipher
-    implements BlockCipher
+    implements MultiBlockCipher
 {
+    private static final int MULTI_BLOCKS = 16;
+
     private byte[]          IV;
     private byte[]          cbcV;
     private byte[]          cbcNextV;
+    private byte[]          cbcBuf;
 
     private int             blockSize;
     private BlockCipher     cipher = null;
@@ -148,6 +153,89 @@ public int processBlock(
         return (encrypting) ? encryptBlock(in, inOff, out, outOff) : decryptBlock(in, inOff, out, outOff);
     }
 
+    /**
+     * Process blockCount blocks of input from the array in and write them to
+     * the out array. When decrypting with an underlying {@link MultiBlockCipher} the
+     * blocks are passed through the cipher in runs, with the chaining applied afterwards.
+     *
+     * @param in the array containing the input data.
+     * @param inOff offset into the in array the data starts at.
+     * @param blockCount the number of blocks to process.
+     * @param out the array the output data will be copied into.
+     * @param outOff the offset into the out array the output will start at.
+     * @exception DataLengthException if there isn't enough data in in, or
+     * space in out.
+     * @exception IllegalStateException if the cipher isn't initialised.
+     * @return the number of bytes processed and produced.
+     */
+    public int processBlocks(
+        byte[]      in,
+        int         inOff,
+        int         blockCount,
+        byte[]      out,
+        int         outOff)
+        throws DataLengthException, IllegalStateException
+    {
+        int len = blockCount * blockSize;
+
+        if (blockCount < 0 || (inOff + len) > in.length)
+        {
+            throw new DataLengthException("input buffer too short");
+        }
+
+        if ((outOff + len) > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (encrypting || !(cipher instanceof MultiBlockCipher))
+        {
+            for (int i = 0; i < blockCount; i++)
+            {
+                processBlock(in, inOff + i * blockSize, out, outOff + i * blockSize);
+            }
+
+            return len;
+        }
+
+        if (cbcBuf == null)
+        {
+            cbcBuf = new byte[blockSize * MULTI_BLOCKS];
+        }
+
+        MultiBlockCipher multiCipher = (MultiBlockCipher)cipher;
+
+        while (blockCount > 0)
+        {
+            int count = Math.min(blockCount, MULTI_BLOCKS);
+            int chunkLen = count * blockSize;
+
+            /*
+             * keep a copy of the ciphertext so in place decryption still has it for chaining
+             */
+            System.arraycopy(in, inOff, cbcBuf, 0, chunkLen);
+
+            multiCipher.processBlocks(cbcBuf, 0, count, out, outOff);
+
+            for (int i = 0; i < blockSize; i++)
+            {
+                out[outOff + i] ^= cbcV[i];
+            }
+            for (int i = blockSize; i < chunkLen; i++)
+            {
+                out[outOff + i] ^= cbcBuf[i - blockSize];
+            }
+
+            System.arraycopy(cbcBuf, chunkLen - blockSize, cbcV, 0, blockSize);
+
+            blockCount -= count;
+            inOff += chunkLen;
+            outOff += chunkLen;
+        }
+
+        return len;
+    }
+
     /**
      * reset the chaining vector back to the IV and reset the underlying
      * cipher.
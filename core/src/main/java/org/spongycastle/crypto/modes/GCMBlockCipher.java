@@ -1,15 +1,19 @@
 package org.spongycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.spongycastle.crypto.BlockCipher;
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.DataLengthException;
 import org.spongycastle.crypto.InvalidCipherTextException;
+import org.spongycastle.crypto.MultiBlockCipher;
 import org.spongycastle.crypto.OutputLengthException;
+import org.spongycastle.crypto.modes.gcm.GCMAggregateMultiplier;
 import org.spongycastle.crypto.modes.gcm.GCMExponentiator;
 import org.spongycastle.crypto.modes.gcm.GCMMultiplier;
 import org.spongycastle.crypto.modes.gcm.GCMUtil;
+import org.spongycastle.crypto.modes.gcm.Tables1kAggregateGCMMultiplier;
 import org.spongycastle.crypto.modes.gcm.Tables1kGCMExponentiator;
-import org.spongycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
 import org.spongycastle.crypto.params.AEADParameters;
 import org.spongycastle.crypto.params.KeyParameter;
 import org.spongycastle.crypto.params.ParametersWithIV;
@@ -21,9 +25,10 @@
  * NIST Special Publication 800-38D.
  */
 public class GCMBlockCipher
-    implements AEADBlockCipher
+    implements ByteBufferAEADBlockCipher
 {
     private static final int BLOCK_SIZE = 16;
+    private static final int BULK_SIZE = 4 * BLOCK_SIZE;
 
     // not final due to a compiler bug
     private BlockCipher   cipher;
@@ -52,6 +57,13 @@
     private long        atLength;
     private long        atLengthPre;
 
+    // Scratch space for generating several key stream blocks at once
+    private final byte[] counterBlocks = new byte[BULK_SIZE];
+    private final byte[] keyStream = new byte[BULK_SIZE];
+
+    // staging for ByteBuffers without an accessible array, allocated on first use
+    private byte[] stageIn, stageOut;
+
     public GCMBlockCipher(BlockCipher c)
     {
         this(c, null);
@@ -68,7 +80,7 @@ public GCMBlockCipher(BlockCipher c, GCMMultiplier m)
         if (m == null)
         {
             // TODO Consider a static property specifying default multiplier
-            m = new Tables8kGCMMultiplier();
+            m = new Tables1kAggregateGCMMultiplier();
         }
 
         this.cipher = c;
@@ -259,9 +271,11 @@ public void processAADByte(byte in)
 
     public void processAADBytes(byte[] in, int inOff, int len)
     {
-        for (int i = 0; i < len; ++i)
+        int i = 0;
+
+        while (atBlockPos > 0 && i < len)
         {
-            atBlock[atBlockPos] = in[inOff + i];
+            atBlock[atBlockPos] = in[inOff + i++];
             if (++atBlockPos == BLOCK_SIZE)
             {
                 // Hash each block as it fills
@@ -270,6 +284,48 @@ public void processAADBytes(byte[] in, int inOff, int len)
                 atLength += BLOCK_SIZE;
             }
         }
+
+        // Hash whole blocks directly from the input
+        int blockCount = (len - i) / BLOCK_SIZE;
+        if (blockCount > 0)
+        {
+            gHASHBlocks(S_at, in, inOff + i, blockCount);
+            i += blockCount * BLOCK_SIZE;
+            atLength += blockCount * BLOCK_SIZE;
+        }
+
+        while (i < len)
+        {
+            atBlock[atBlockPos++] = in[inOff + i++];
+        }
+    }
+
+    public void processAADBytes(ByteBuffer in)
+    {
+        if (in.hasArray())
+        {
+            processAADBytes(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+            return;
+        }
+
+        while (atBlockPos > 0 && in.hasRemaining())
+        {
+            processAADByte(in.get());
+        }
+
+        // atBlock is empty, so whole blocks can be staged in it
+        while (in.remaining() >= BLOCK_SIZE)
+        {
+            in.get(atBlock, 0, BLOCK_SIZE);
+            gHASHBlock(S_at, atBlock);
+            atLength += BLOCK_SIZE;
+        }
+
+        while (in.hasRemaining())
+        {
+            atBlock[atBlockPos++] = in.get();
+        }
     }
 
     private void initCipher()
@@ -313,10 +369,56 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             throw new DataLengthException("Input buffer too short");
         }
         int resultLen = 0;
+        int i = 0;
 
-        for (int i = 0; i < len; ++i)
+        // When decrypting, once a block has been output the buffer always holds back a possible tag.
+        // Given enough input to hold back instead, output the buffered bytes as whole blocks so the
+        // rest of the input can go straight through. The output runs ahead of the input by the
+        // buffered bytes, so this is skipped if it would overwrite input not yet read.
+        if (!forEncryption && bufOff > 0 && (bufOff + len) >= (bufBlock.length + BLOCK_SIZE)
+            && (in != out || outOff + bufOff <= inOff || outOff >= inOff + len))
         {
-            bufBlock[bufOff] = in[inOff + i];
+            if (bufOff >= BLOCK_SIZE)
+            {
+                outputBlock(out, outOff);
+                resultLen += BLOCK_SIZE;
+            }
+            if (bufOff > 0)
+            {
+                i = BLOCK_SIZE - bufOff;
+                System.arraycopy(in, inOff, bufBlock, bufOff, i);
+                bufOff = BLOCK_SIZE;
+
+                outputBlock(out, outOff + resultLen);
+                resultLen += BLOCK_SIZE;
+            }
+        }
+
+        // Complete any partially filled block, or if the input can't go straight through, stage it.
+        while (bufOff > 0 && i < len)
+        {
+            bufBlock[bufOff] = in[inOff + i++];
+            if (++bufOff == bufBlock.length)
+            {
+                outputBlock(out, outOff + resultLen);
+                resultLen += BLOCK_SIZE;
+            }
+        }
+
+        int held = forEncryption ? 0 : macSize;
+        if (bufOff == 0 && (len - i) >= (BLOCK_SIZE + held))
+        {
+            int bulkLen = (len - i - held) - (len - i - held) % BLOCK_SIZE;
+
+            processBlocksDirect(in, inOff + i, bulkLen, out, outOff + resultLen);
+
+            i += bulkLen;
+            resultLen += bulkLen;
+        }
+
+        while (i < len)
+        {
+            bufBlock[bufOff] = in[inOff + i++];
             if (++bufOff == bufBlock.length)
             {
                 outputBlock(out, outOff + resultLen);
@@ -327,6 +429,88 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
         return resultLen;
     }
 
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        if (out.remaining() < getUpdateOutputSize(in.remaining()))
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+
+        int resultLen;
+        if (in.hasArray() && out.hasArray())
+        {
+            resultLen = processBytes(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + resultLen);
+
+            return resultLen;
+        }
+
+        if (stageIn == null || stageOut.length < BULK_SIZE + bufBlock.length)
+        {
+            stageIn = new byte[BULK_SIZE];
+            stageOut = new byte[BULK_SIZE + bufBlock.length];
+        }
+
+        resultLen = 0;
+        while (in.hasRemaining())
+        {
+            int len = Math.min(in.remaining(), BULK_SIZE);
+
+            in.get(stageIn, 0, len);
+
+            int outLen = processBytes(stageIn, 0, len, stageOut, 0);
+            out.put(stageOut, 0, outLen);
+            resultLen += outLen;
+        }
+
+        return resultLen;
+    }
+
+    /**
+     * Encrypt or decrypt a block aligned run of input straight from the caller's buffer to the
+     * output, generating the key stream and accumulating the hash a few blocks at a time.
+     */
+    private void processBlocksDirect(byte[] in, int inOff, int len, byte[] out, int outOff)
+    {
+        if (out.length < (outOff + len))
+        {
+            throw new OutputLengthException("Output buffer too short");
+        }
+        if (totalLength == 0)
+        {
+            initCipher();
+        }
+
+        for (int pos = 0; pos < len; pos += BULK_SIZE)
+        {
+            int chunkLen = Math.min(BULK_SIZE, len - pos);
+            int blockCount = chunkLen / BLOCK_SIZE;
+
+            getNextCounterBlocks(blockCount);
+
+            // the cipher-text is hashed before the output is written in case in and out are the same
+            if (!forEncryption)
+            {
+                gHASHBlocks(S, in, inOff + pos, blockCount);
+            }
+
+            for (int j = 0; j < chunkLen; ++j)
+            {
+                out[outOff + pos + j] = (byte)(in[inOff + pos + j] ^ keyStream[j]);
+            }
+
+            if (forEncryption)
+            {
+                gHASHBlocks(S, out, outOff + pos, blockCount);
+            }
+
+            totalLength += chunkLen;
+        }
+    }
+
     private void outputBlock(byte[] output, int offset)
     {
         if (output.length < (offset + BLOCK_SIZE))
@@ -338,14 +522,12 @@ private void outputBlock(byte[] output, int offset)
             initCipher();
         }
         gCTRBlock(bufBlock, output, offset);
-        if (forEncryption)
-        {
-            bufOff = 0;
-        }
-        else
+
+        // keep anything buffered after the block, when decrypting the bytes held back as the tag
+        bufOff -= BLOCK_SIZE;
+        if (bufOff > 0)
         {
-            System.arraycopy(bufBlock, BLOCK_SIZE, bufBlock, 0, macSize);
-            bufOff = macSize;
+            System.arraycopy(bufBlock, BLOCK_SIZE, bufBlock, 0, bufOff);
         }
     }
 
@@ -509,34 +691,40 @@ private void reset(
 
     private void gCTRBlock(byte[] block, byte[] out, int outOff)
     {
-        byte[] tmp = getNextCounterBlock();
+        getNextCounterBlocks(1);
 
-        GCMUtil.xor(tmp, block);
-        System.arraycopy(tmp, 0, out, outOff, BLOCK_SIZE);
+        GCMUtil.xor(keyStream, block);
+        System.arraycopy(keyStream, 0, out, outOff, BLOCK_SIZE);
 
-        gHASHBlock(S, forEncryption ? tmp : block);
+        gHASHBlock(S, forEncryption ? keyStream : block);
 
         totalLength += BLOCK_SIZE;
     }
 
     private void gCTRPartial(byte[] buf, int off, int len, byte[] out, int outOff)
     {
-        byte[] tmp = getNextCounterBlock();
+        getNextCounterBlocks(1);
 
-        GCMUtil.xor(tmp, buf, off, len);
-        System.arraycopy(tmp, 0, out, outOff, len);
+        GCMUtil.xor(keyStream, buf, off, len);
+        System.arraycopy(keyStream, 0, out, outOff, len);
 
-        gHASHPartial(S, forEncryption ? tmp : buf, 0, len);
+        gHASHPartial(S, forEncryption ? keyStream : buf, 0, len);
 
         totalLength += len;
     }
 
     private void gHASH(byte[] Y, byte[] b, int len)
     {
-        for (int pos = 0; pos < len; pos += BLOCK_SIZE)
+        int blockCount = len / BLOCK_SIZE;
+        if (blockCount > 0)
         {
-            int num = Math.min(len - pos, BLOCK_SIZE);
-            gHASHPartial(Y, b, pos, num);
+            gHASHBlocks(Y, b, 0, blockCount);
+        }
+
+        int pos = blockCount * BLOCK_SIZE;
+        if (pos < len)
+        {
+            gHASHPartial(Y, b, pos, len - pos);
         }
     }
 
@@ -546,29 +734,56 @@ private void gHASHBlock(byte[] Y, byte[] b)
         multiplier.multiplyH(Y);
     }
 
+    private void gHASHBlocks(byte[] Y, byte[] b, int off, int blockCount)
+    {
+        if (multiplier instanceof GCMAggregateMultiplier)
+        {
+            ((GCMAggregateMultiplier)multiplier).multiplyBlocksH(Y, b, off, blockCount);
+            return;
+        }
+
+        for (int i = 0; i < blockCount; ++i)
+        {
+            GCMUtil.xor(Y, b, off + i * BLOCK_SIZE, BLOCK_SIZE);
+            multiplier.multiplyH(Y);
+        }
+    }
+
     private void gHASHPartial(byte[] Y, byte[] b, int off, int len)
     {
         GCMUtil.xor(Y, b, off, len);
         multiplier.multiplyH(Y);
     }
 
-    private byte[] getNextCounterBlock()
+    private void getNextCounterBlocks(int blockCount)
     {
-        if (blocksRemaining == 0)
+        for (int off = 0; off < blockCount * BLOCK_SIZE; off += BLOCK_SIZE)
         {
-            throw new IllegalStateException("Attempt to process too many blocks");
-        }
-        blocksRemaining--;
+            if (blocksRemaining == 0)
+            {
+                throw new IllegalStateException("Attempt to process too many blocks");
+            }
+            blocksRemaining--;
 
-        int c = 1;
-        c += counter[15] & 0xFF; counter[15] = (byte)c; c >>>= 8;
-        c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
-        c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
-        c += counter[12] & 0xFF; counter[12] = (byte)c;
+            int c = 1;
+            c += counter[15] & 0xFF; counter[15] = (byte)c; c >>>= 8;
+            c += counter[14] & 0xFF; counter[14] = (byte)c; c >>>= 8;
+            c += counter[13] & 0xFF; counter[13] = (byte)c; c >>>= 8;
+            c += counter[12] & 0xFF; counter[12] = (byte)c;
+
+            System.arraycopy(counter, 0, counterBlocks, off, BLOCK_SIZE);
+        }
 
-        byte[] tmp = new byte[BLOCK_SIZE];
-        // TODO Sure would be nice if ciphers could operate on int[]
-        cipher.processBlock(counter, 0, tmp, 0);
-        return tmp;
+        if (cipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(counterBlocks, 0, blockCount, keyStream, 0);
+        }
+        else
+        {
+            for (int off = 0; off < blockCount * BLOCK_SIZE; off += BLOCK_SIZE)
+            {
+                cipher.processBlock(counterBlocks, off, keyStream, off);
+            }
+        }
     }
 }
@@ -1,8 +1,13 @@
 package org.spongycastle.crypto.modes;
 
+import java.nio.ByteBuffer;
+
 import org.spongycastle.crypto.BlockCipher;
+import org.spongycastle.crypto.ByteBufferStreamCipher;
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.DataLengthException;
+import org.spongycastle.crypto.MultiBlockCipher;
+import org.spongycastle.crypto.OutputLengthException;
 import org.spongycastle.crypto.SkippingStreamCipher;
 import org.spongycastle.crypto.StreamBlockCipher;
 import org.spongycastle.crypto.params.ParametersWithIV;
@@ -15,8 +20,13 @@
  */
 public class SICBlockCipher
     extends StreamBlockCipher
-    implements SkippingStreamCipher
+    implements SkippingStreamCipher, ByteBufferStreamCipher
 {
+    /*
+     * number of counter blocks generated and encrypted together by processBytes()
+     */
+    private static final int WIDE_BLOCKS = 4;
+
     private final BlockCipher     cipher;
     private final int             blockSize;
 
@@ -25,6 +35,9 @@
     private byte[]          counterOut;
     private int             byteCount;
 
+    private byte[]          wideCounter;
+    private byte[]          wideCounterOut;
+
     /**
      * Basic constructor.
      *
@@ -39,6 +52,8 @@ public SICBlockCipher(BlockCipher c)
         this.IV = new byte[blockSize];
         this.counter = new byte[blockSize];
         this.counterOut = new byte[blockSize];
+        this.wideCounter = new byte[blockSize * WIDE_BLOCKS];
+        this.wideCounterOut = new byte[blockSize * WIDE_BLOCKS];
         this.byteCount = 0;
     }
 
@@ -96,6 +111,126 @@ public int processBlock(byte[] in, int inOff, byte[] out, int outOff)
         return blockSize;
     }
 
+    public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
+        throws DataLengthException
+    {
+        if (inOff + len > in.length)
+        {
+            throw new DataLengthException("input buffer too small");
+        }
+
+        if (outOff + len > out.length)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        int inEnd = inOff + len;
+
+        // finish off any partially used block first
+        while (byteCount != 0 && inOff < inEnd)
+        {
+            out[outOff++] = calculateByte(in[inOff++]);
+        }
+
+        while (inEnd - inOff >= blockSize)
+        {
+            int wideLen = generateWideKeyStream(Math.min((inEnd - inOff) / blockSize, WIDE_BLOCKS));
+
+            for (int i = 0; i < wideLen; i++)
+            {
+                out[outOff + i] = (byte)(in[inOff + i] ^ wideCounterOut[i]);
+            }
+
+            inOff += wideLen;
+            outOff += wideLen;
+        }
+
+        while (inOff < inEnd)
+        {
+            out[outOff++] = calculateByte(in[inOff++]);
+        }
+
+        return len;
+    }
+
+    public int processBytes(ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        int len = in.remaining();
+
+        if (out.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            processBytes(in.array(), in.arrayOffset() + in.position(), len, out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + len);
+
+            return len;
+        }
+
+        // finish off any partially used block first
+        while (byteCount != 0 && in.hasRemaining())
+        {
+            out.put(calculateByte(in.get()));
+        }
+
+        while (in.remaining() >= blockSize)
+        {
+            int wideLen = generateWideKeyStream(Math.min(in.remaining() / blockSize, WIDE_BLOCKS));
+
+            // the counter blocks have been encrypted, so wideCounter is free to stage the input
+            in.get(wideCounter, 0, wideLen);
+            for (int i = 0; i < wideLen; i++)
+            {
+                wideCounterOut[i] ^= wideCounter[i];
+            }
+            out.put(wideCounterOut, 0, wideLen);
+        }
+
+        while (in.hasRemaining())
+        {
+            out.put(calculateByte(in.get()));
+        }
+
+        return len;
+    }
+
+    /**
+     * Encrypt the next blockCount counter values into wideCounterOut, returning the number of bytes
+     * of key stream generated.
+     */
+    private int generateWideKeyStream(int blockCount)
+    {
+        int wideLen = blockCount * blockSize;
+
+        for (int i = 0; i < wideLen; i += blockSize)
+        {
+            System.arraycopy(counter, 0, wideCounter, i, blockSize);
+
+            incrementCounterAt(0);
+
+            checkCounter();
+        }
+
+        if (cipher instanceof MultiBlockCipher)
+        {
+            ((MultiBlockCipher)cipher).processBlocks(wideCounter, 0, blockCount, wideCounterOut, 0);
+        }
+        else
+        {
+            for (int i = 0; i < wideLen; i += blockSize)
+            {
+                cipher.processBlock(wideCounter, i, wideCounterOut, i);
+            }
+        }
+
+        return wideLen;
+    }
+
     protected byte calculateByte(byte in)
           throws DataLengthException, IllegalStateException
     {
@@ -0,0 +1,18 @@
+package org.spongycastle.crypto.modes.gcm;
+
+/**
+ * A GCMMultiplier which can also fold a run of whole blocks into the GHASH state in one call.
+ */
+public interface GCMAggregateMultiplier
+    extends GCMMultiplier
+{
+    /**
+     * For each of the blockCount 16 byte blocks starting at buf[off], set x to (x ^ block) * H.
+     *
+     * @param x the 16 byte GHASH state, updated in place.
+     * @param buf the array containing the blocks to be hashed.
+     * @param off the offset of the first block in buf.
+     * @param blockCount the number of blocks to hash.
+     */
+    void multiplyBlocksH(byte[] x, byte[] buf, int off, int blockCount);
+}
@@ -0,0 +1,220 @@
+package org.spongycastle.crypto.modes.gcm;
+
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Pack;
+
+/**
+ * A 4-bit table based multiplier holding tables for H, H^2, H^3 and H^4, so that four blocks
+ * can be folded into the GHASH state with a single shared reduction per nibble, i.e.
+ * Y' = (Y ^ X1).H^4 ^ X2.H^3 ^ X3.H^2 ^ X4.H.
+ */
+public class Tables1kAggregateGCMMultiplier
+    implements GCMAggregateMultiplier
+{
+    private static final long E1L = 0xE1L << 56;
+
+    private static long[] generateReduction()
+    {
+        long[] r = new long[16];
+
+        for (int c = 0; c < 16; ++c)
+        {
+            long v = 0;
+            for (int b = 0; b < 4; ++b)
+            {
+                if ((c & (1 << b)) != 0)
+                {
+                    v ^= E1L >>> (3 - b);
+                }
+            }
+            r[c] = v;
+        }
+
+        return r;
+    }
+
+    private static final long[] R = generateReduction();
+
+    private byte[] H;
+    private long[][] T;
+
+    public void init(byte[] H)
+    {
+        if (T == null)
+        {
+            T = new long[4][32];
+        }
+        else if (Arrays.areEqual(this.H, H))
+        {
+            return;
+        }
+
+        this.H = Arrays.clone(H);
+
+        long[] h = GCMUtil.asLongs(H);
+        long[] p = GCMUtil.asLongs(H);
+
+        for (int i = 0; i < 4; ++i)
+        {
+            if (i > 0)
+            {
+                GCMUtil.multiply(p, h);
+            }
+
+            buildTable(p, T[i]);
+        }
+    }
+
+    public void multiplyH(byte[] x)
+    {
+        long[] t1 = T[0];
+        long x0 = Pack.bigEndianToLong(x, 0), x1 = Pack.bigEndianToLong(x, 8);
+        long z0 = 0, z1 = 0;
+
+        for (int k = 0; k < 16; ++k)
+        {
+            int rem = (int)z1 & 15;
+            z1 = (z1 >>> 4) | (z0 << 60);
+            z0 = (z0 >>> 4) ^ R[rem];
+
+            int n = ((int)x1 & 15) << 1;
+            z0 ^= t1[n];
+            z1 ^= t1[n + 1];
+
+            x1 >>>= 4;
+        }
+
+        for (int k = 0; k < 16; ++k)
+        {
+            int rem = (int)z1 & 15;
+            z1 = (z1 >>> 4) | (z0 << 60);
+            z0 = (z0 >>> 4) ^ R[rem];
+
+            int n = ((int)x0 & 15) << 1;
+            z0 ^= t1[n];
+            z1 ^= t1[n + 1];
+
+            x0 >>>= 4;
+        }
+
+        Pack.longToBigEndian(z0, x, 0);
+        Pack.longToBigEndian(z1, x, 8);
+    }
+
+    public void multiplyBlocksH(byte[] x, byte[] buf, int off, int blockCount)
+    {
+        long[] t1 = T[0], t2 = T[1], t3 = T[2], t4 = T[3];
+        long z0 = Pack.bigEndianToLong(x, 0), z1 = Pack.bigEndianToLong(x, 8);
+
+        while (blockCount >= 4)
+        {
+            long a0 = Pack.bigEndianToLong(buf, off) ^ z0;
+            long a1 = Pack.bigEndianToLong(buf, off + 8) ^ z1;
+            long b0 = Pack.bigEndianToLong(buf, off + 16);
+            long b1 = Pack.bigEndianToLong(buf, off + 24);
+            long c0 = Pack.bigEndianToLong(buf, off + 32);
+            long c1 = Pack.bigEndianToLong(buf, off + 40);
+            long d0 = Pack.bigEndianToLong(buf, off + 48);
+            long d1 = Pack.bigEndianToLong(buf, off + 56);
+
+            z0 = 0;
+            z1 = 0;
+
+            for (int k = 0; k < 16; ++k)
+            {
+                int rem = (int)z1 & 15;
+                z1 = (z1 >>> 4) | (z0 << 60);
+                z0 = (z0 >>> 4) ^ R[rem];
+
+                int na = ((int)a1 & 15) << 1, nb = ((int)b1 & 15) << 1;
+                int nc = ((int)c1 & 15) << 1, nd = ((int)d1 & 15) << 1;
+                z0 ^= t4[na] ^ t3[nb] ^ t2[nc] ^ t1[nd];
+                z1 ^= t4[na + 1] ^ t3[nb + 1] ^ t2[nc + 1] ^ t1[nd + 1];
+
+                a1 >>>= 4; b1 >>>= 4; c1 >>>= 4; d1 >>>= 4;
+            }
+
+            for (int k = 0; k < 16; ++k)
+            {
+                int rem = (int)z1 & 15;
+                z1 = (z1 >>> 4) | (z0 << 60);
+                z0 = (z0 >>> 4) ^ R[rem];
+
+                int na = ((int)a0 & 15) << 1, nb = ((int)b0 & 15) << 1;
+                int nc = ((int)c0 & 15) << 1, nd = ((int)d0 & 15) << 1;
+                z0 ^= t4[na] ^ t3[nb] ^ t2[nc] ^ t1[nd];
+                z1 ^= t4[na + 1] ^ t3[nb + 1] ^ t2[nc + 1] ^ t1[nd + 1];
+
+                a0 >>>= 4; b0 >>>= 4; c0 >>>= 4; d0 >>>= 4;
+            }
+
+            off += 64;
+            blockCount -= 4;
+        }
+
+        while (blockCount > 0)
+        {
+            long a0 = Pack.bigEndianToLong(buf, off) ^ z0;
+            long a1 = Pack.bigEndianToLong(buf, off + 8) ^ z1;
+
+            z0 = 0;
+            z1 = 0;
+
+            for (int k = 0; k < 16; ++k)
+            {
+                int rem = (int)z1 & 15;
+                z1 = (z1 >>> 4) | (z0 << 60);
+                z0 = (z0 >>> 4) ^ R[rem];
+
+                int na = ((int)a1 & 15) << 1;
+                z0 ^= t1[na];
+                z1 ^= t1[na + 1];
+
+                a1 >>>= 4;
+            }
+
+            for (int k = 0; k < 16; ++k)
+            {
+                int rem = (int)z1 & 15;
+                z1 = (z1 >>> 4) | (z0 << 60);
+                z0 = (z0 >>> 4) ^ R[rem];
+
+                int na = ((int)a0 & 15) << 1;
+                z0 ^= t1[na];
+                z1 ^= t1[na + 1];
+
+                a0 >>>= 4;
+            }
+
+            off += 16;
+            --blockCount;
+        }
+
+        Pack.longToBigEndian(z0, x, 0);
+        Pack.longToBigEndian(z1, x, 8);
+    }
+
+    private static void buildTable(long[] p, long[] t)
+    {
+        // t[2n], t[2n + 1] hold n.p, where the high bit of the nibble n is the x^0 coefficient
+        long h0 = p[0], h1 = p[1];
+        for (int j = 8; j > 0; j >>= 1)
+        {
+            t[j + j] = h0;
+            t[j + j + 1] = h1;
+
+            long m = (h1 << 63) >> 63;
+            h1 = (h1 >>> 1) | (h0 << 63);
+            h0 = (h0 >>> 1) ^ (m & E1L);
+        }
+
+        for (int j = 2; j < 16; j += j)
+        {
+            for (int k = 1; k < j; ++k)
+            {
+                t[(j + k) << 1] = t[j << 1] ^ t[k << 1];
+                t[((j + k) << 1) + 1] = t[(j << 1) + 1] ^ t[(k << 1) + 1];
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.DataLengthException;
 import org.spongycastle.crypto.InvalidCipherTextException;
+import org.spongycastle.crypto.MultiBlockCipher;
 import org.spongycastle.crypto.OutputLengthException;
 import org.spongycastle.crypto.params.ParametersWithRandom;
 
@@ -209,6 +210,15 @@ public int processBytes(
             len -= gapLen;
             inOff += gapLen;
 
+            if (cipher instanceof MultiBlockCipher && len > buf.length)
+            {
+                int bulkLen = ((MultiBlockCipher)cipher).processBlocks(in, inOff, (len - 1) / blockSize, out, outOff + resultLen);
+
+                resultLen += bulkLen;
+                len -= bulkLen;
+                inOff += bulkLen;
+            }
+
             while (len > buf.length)
             {
                 resultLen += cipher.processBlock(in, inOff, out, outOff + resultLen);
@@ -0,0 +1,34 @@
+package org.spongycastle.crypto.params;
+
+import org.spongycastle.math.ec.rfc8032.Ed25519;
+import org.spongycastle.util.Arrays;
+
+public final class Ed25519PublicKeyParameters
+    extends AsymmetricKeyParameter
+{
+    public static final int KEY_SIZE = Ed25519.PUBLIC_KEY_SIZE;
+
+    private final byte[] data = new byte[KEY_SIZE];
+
+    public Ed25519PublicKeyParameters(byte[] buf, int off)
+    {
+        super(false);
+
+        System.arraycopy(buf, off, data, 0, KEY_SIZE);
+    }
+
+    public void encode(byte[] buf, int off)
+    {
+        System.arraycopy(data, 0, buf, off, KEY_SIZE);
+    }
+
+    public byte[] getEncoded()
+    {
+        return Arrays.clone(data);
+    }
+
+    public boolean verify(byte[] msg, int msgOff, int msgLen, byte[] sig, int sigOff)
+    {
+        return Ed25519.verify(sig, sigOff, data, 0, msg, msgOff, msgLen);
+    }
+}
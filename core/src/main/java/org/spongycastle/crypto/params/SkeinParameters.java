@@ -30,6 +30,8 @@
  * <li>Personalised hashing, by providing a
  * {@link SkeinParameters.Builder#setPersonalisation(Date, String, String) recommended format} or
  * {@link SkeinParameters.Builder#setPersonalisation(byte[]) arbitrary} personalisation string.</li>
+ * <li>Tree hashing, by providing {@link SkeinParameters.Builder#setTreeParameters(int, int, int)
+ * tree parameters}.</li>
  * </ul>
  *
  * @see SkeinEngine
@@ -81,15 +83,21 @@
     public static final int PARAM_TYPE_OUTPUT = 63;
 
     private Hashtable parameters;
+    private int treeLeafSize;
+    private int treeFanOut;
+    private int treeMaxHeight;
 
     public SkeinParameters()
     {
-        this(new Hashtable());
+        this(new Hashtable(), 0, 0, 0);
     }
 
-    private SkeinParameters(final Hashtable parameters)
+    private SkeinParameters(final Hashtable parameters, int treeLeafSize, int treeFanOut, int treeMaxHeight)
     {
         this.parameters = parameters;
+        this.treeLeafSize = treeLeafSize;
+        this.treeFanOut = treeFanOut;
+        this.treeMaxHeight = treeMaxHeight;
     }
 
     /**
@@ -145,12 +153,39 @@ public byte[] getNonce()
         return (byte[])parameters.get(Integers.valueOf(PARAM_TYPE_NONCE));
     }
 
+    /**
+     * Obtains the tree leaf size Y<sub>l</sub>, or 0 for sequential hashing.
+     */
+    public int getTreeLeafSize()
+    {
+        return treeLeafSize;
+    }
+
+    /**
+     * Obtains the tree fan out Y<sub>f</sub>, or 0 for sequential hashing.
+     */
+    public int getTreeFanOut()
+    {
+        return treeFanOut;
+    }
+
+    /**
+     * Obtains the maximum tree height Y<sub>m</sub>, or 0 for sequential hashing.
+     */
+    public int getTreeMaxHeight()
+    {
+        return treeMaxHeight;
+    }
+
     /**
      * A builder for {@link SkeinParameters}.
      */
     public static class Builder
     {
         private Hashtable parameters = new Hashtable();
+        private int treeLeafSize;
+        private int treeFanOut;
+        private int treeMaxHeight;
 
         public Builder()
         {
@@ -174,6 +209,9 @@ public Builder(SkeinParameters params)
                 Integer key = (Integer)keys.nextElement();
                 parameters.put(key, params.parameters.get(key));
             }
+            this.treeLeafSize = params.treeLeafSize;
+            this.treeFanOut = params.treeFanOut;
+            this.treeMaxHeight = params.treeMaxHeight;
         }
 
         /**
@@ -317,13 +355,47 @@ public Builder setNonce(byte[] nonce)
             return set(PARAM_TYPE_NONCE, nonce);
         }
 
+        /**
+         * Sets the tree hashing parameters, which are carried in the configuration block. Leaves
+         * hold 2<sup>leafSize</sup> state blocks of message, and each node above them hashes the
+         * outputs of 2<sup>fanOut</sup> nodes below, up to maxHeight levels. Passing all zeroes
+         * selects ordinary sequential hashing.
+         *
+         * @param leafSize  Y<sub>l</sub>, the log2 of the number of blocks in a leaf, at least 1.
+         * @param fanOut    Y<sub>f</sub>, the log2 of the number of children of a node, at least 1.
+         * @param maxHeight Y<sub>m</sub>, the maximum height of the tree, at least 2.
+         * @return the current builder instance.
+         */
+        public Builder setTreeParameters(int leafSize, int fanOut, int maxHeight)
+        {
+            if (leafSize == 0 && fanOut == 0 && maxHeight == 0)
+            {
+                this.treeLeafSize = 0;
+                this.treeFanOut = 0;
+                this.treeMaxHeight = 0;
+                return this;
+            }
+            if (leafSize < 1 || leafSize > 255 || fanOut < 1 || fanOut > 255)
+            {
+                throw new IllegalArgumentException("Tree leaf size and fan out must be in the range 1..255.");
+            }
+            if (maxHeight < 2 || maxHeight > 255)
+            {
+                throw new IllegalArgumentException("Tree maximum height must be in the range 2..255.");
+            }
+            this.treeLeafSize = leafSize;
+            this.treeFanOut = fanOut;
+            this.treeMaxHeight = maxHeight;
+            return this;
+        }
+
         /**
          * Constructs a new {@link SkeinParameters} instance with the parameters provided to this
          * builder.
          */
         public SkeinParameters build()
         {
-            return new SkeinParameters(parameters);
+            return new SkeinParameters(parameters, treeLeafSize, treeFanOut, treeMaxHeight);
         }
     }
 }
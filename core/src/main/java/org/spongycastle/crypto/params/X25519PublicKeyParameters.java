@@ -0,0 +1,29 @@
+package org.spongycastle.crypto.params;
+
+import org.spongycastle.math.ec.rfc7748.X25519;
+import org.spongycastle.util.Arrays;
+
+public final class X25519PublicKeyParameters
+    extends AsymmetricKeyParameter
+{
+    public static final int KEY_SIZE = X25519.POINT_SIZE;
+
+    private final byte[] data = new byte[KEY_SIZE];
+
+    public X25519PublicKeyParameters(byte[] buf, int off)
+    {
+        super(false);
+
+        System.arraycopy(buf, off, data, 0, KEY_SIZE);
+    }
+
+    public void encode(byte[] buf, int off)
+    {
+        System.arraycopy(data, 0, buf, off, KEY_SIZE);
+    }
+
+    public byte[] getEncoded()
+    {
+        return Arrays.clone(data);
+    }
+}
@@ -0,0 +1,374 @@
+package org.spongycastle.crypto.signers;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.crypto.util.ParallelTasks;
+import org.spongycastle.math.ec.ECAlgorithms;
+import org.spongycastle.math.ec.ECConstants;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECFieldElement;
+import org.spongycastle.math.ec.ECPoint;
+
+/**
+ * Verifies a batch of EC-DSA signatures, as described in X9.62, sharing work between them.
+ * <p>
+ * Every signature is checked exactly as {@link ECDSASigner#verifySignature(byte[], BigInteger,
+ * BigInteger)} would check it and gets its own result, so one bad signature does not fail the
+ * batch. Across the batch the inversions of s are done with a single modular inversion per group
+ * order, points that have to be normalized share one field inversion per curve, equal public keys
+ * share their precomputations, and the generator's precomputation is shared by every signature.
+ * Given an Executor, large batches are split into runs verified on separate tasks.
+ * </p>
+ */
+public class ECDSABatchVerifier
+    implements ECConstants
+{
+    /**
+     * The smallest number of signatures handed to a single task when a batch is split.
+     */
+    private static final int MIN_TASK_SIGNATURES = 16;
+
+    private final ECDSASigner signer;
+    private final Executor executor;
+
+    private final List<Entry> entries = new ArrayList<Entry>();
+    private final Map<ECPoint, ECPoint> keys = new HashMap<ECPoint, ECPoint>();
+
+    private static class Entry
+    {
+        final byte[] message;
+        final BigInteger r;
+        final BigInteger s;
+        final ECDomainParameters parameters;
+        final ECPoint q;
+
+        Entry(byte[] message, BigInteger r, BigInteger s, ECDomainParameters parameters, ECPoint q)
+        {
+            this.message = message;
+            this.r = r;
+            this.s = s;
+            this.parameters = parameters;
+            this.q = q;
+        }
+    }
+
+    /**
+     * Create a verifier which works on the calling thread.
+     */
+    public ECDSABatchVerifier()
+    {
+        this(null);
+    }
+
+    /**
+     * Create a verifier which splits large batches across an executor.
+     *
+     * @param executor the executor to verify on, null for the calling thread.
+     */
+    public ECDSABatchVerifier(Executor executor)
+    {
+        this(new ECDSASigner(), executor);
+    }
+
+    /**
+     * Create a verifier which derives the message representative with the passed in signer.
+     *
+     * @param signer the signer whose calculateE() and getDenominator() are used.
+     * @param executor the executor to verify on, null for the calling thread.
+     */
+    public ECDSABatchVerifier(ECDSASigner signer, Executor executor)
+    {
+        this.signer = signer;
+        this.executor = executor;
+    }
+
+    /**
+     * Add a signature to the batch.
+     *
+     * @param message the message hash the signature was made over.
+     * @param r the r value of the signature.
+     * @param s the s value of the signature.
+     * @param key the public key to verify against.
+     */
+    public void add(byte[] message, BigInteger r, BigInteger s, ECPublicKeyParameters key)
+    {
+        ECPoint q = key.getQ();
+
+        // equal keys decoded separately share one point, and so its precomputation
+        if (q.isNormalized())
+        {
+            ECPoint shared = keys.get(q);
+            if (shared == null)
+            {
+                keys.put(q, q);
+            }
+            else
+            {
+                q = shared;
+            }
+        }
+
+        entries.add(new Entry(message, r, s, key.getParameters(), q));
+    }
+
+    /**
+     * Return the number of signatures waiting to be verified.
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Discard the signatures added so far.
+     */
+    public void reset()
+    {
+        entries.clear();
+        keys.clear();
+    }
+
+    /**
+     * Verify every signature added since the last call, leaving the batch empty.
+     *
+     * @return the result for each signature, in the order they were added.
+     */
+    public boolean[] verify()
+    {
+        final Entry[] batch = entries.toArray(new Entry[entries.size()]);
+        final boolean[] results = new boolean[batch.length];
+
+        reset();
+
+        if (executor == null || batch.length < 2 * MIN_TASK_SIGNATURES)
+        {
+            verifyRange(batch, 0, batch.length, results);
+            return results;
+        }
+
+        int tasks = (batch.length + MIN_TASK_SIGNATURES - 1) / MIN_TASK_SIGNATURES;
+
+        ParallelTasks.run(executor, tasks, new ParallelTasks.Task()
+        {
+            public void run(int index)
+            {
+                int from = index * MIN_TASK_SIGNATURES;
+
+                verifyRange(batch, from, Math.min(batch.length, from + MIN_TASK_SIGNATURES), results);
+            }
+        });
+
+        return results;
+    }
+
+    private void verifyRange(Entry[] batch, int from, int to, boolean[] results)
+    {
+        int count = to - from;
+        BigInteger[] cs = new BigInteger[count];
+        BigInteger[] ns = new BigInteger[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            Entry entry = batch[from + i];
+            BigInteger n = entry.parameters.getN();
+
+            // r and s in the range [1,n-1]
+            if (entry.r.compareTo(ONE) >= 0 && entry.r.compareTo(n) < 0
+                && entry.s.compareTo(ONE) >= 0 && entry.s.compareTo(n) < 0)
+            {
+                cs[i] = entry.s;
+                ns[i] = n;
+            }
+        }
+
+        invertAll(cs, ns);
+
+        ECPoint[] pending = new ECPoint[count];
+        boolean anyPending = false;
+
+        for (int i = 0; i < count; ++i)
+        {
+            BigInteger c = cs[i];
+            if (c == null)
+            {
+                continue;
+            }
+
+            Entry entry = batch[from + i];
+            BigInteger n = ns[i];
+            BigInteger e = signer.calculateE(n, entry.message);
+
+            BigInteger u1 = e.multiply(c).mod(n);
+            BigInteger u2 = entry.r.multiply(c).mod(n);
+
+            ECPoint point = ECAlgorithms.sumOfTwoMultiplies(entry.parameters.getG(), u1, entry.q, u2);
+
+            // components must be bogus.
+            if (point.isInfinity())
+            {
+                continue;
+            }
+
+            int check = checkProjective(point, entry.r, n);
+            if (check < 0)
+            {
+                pending[i] = point;
+                anyPending = true;
+            }
+            else
+            {
+                results[from + i] = (check != 0);
+            }
+        }
+
+        if (anyPending)
+        {
+            normalizeAll(pending);
+
+            for (int i = 0; i < count; ++i)
+            {
+                if (pending[i] != null)
+                {
+                    BigInteger v = pending[i].getAffineXCoord().toBigInteger().mod(ns[i]);
+                    results[from + i] = v.equals(batch[from + i].r);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compare r with the x coordinate of a point left in projective coordinates, as done by
+     * ECDSASigner.
+     *
+     * @return 1 on a match, 0 on a mismatch, or -1 if the point has to be normalized first.
+     */
+    private int checkProjective(ECPoint point, BigInteger r, BigInteger n)
+    {
+        ECCurve curve = point.getCurve();
+        if (curve != null)
+        {
+            BigInteger cofactor = curve.getCofactor();
+            if (cofactor != null && cofactor.compareTo(EIGHT) <= 0)
+            {
+                ECFieldElement D = signer.getDenominator(curve.getCoordinateSystem(), point);
+                if (D != null && !D.isZero())
+                {
+                    ECFieldElement X = point.getXCoord();
+                    while (curve.isValidFieldElement(r))
+                    {
+                        ECFieldElement R = curve.fromBigInteger(r).multiply(D);
+                        if (R.equals(X))
+                        {
+                            return 1;
+                        }
+                        r = r.add(n);
+                    }
+                    return 0;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Replace each non-null value with its inverse modulo the matching modulus, using one modular
+     * inversion for each distinct modulus (Montgomery's trick).
+     */
+    private static void invertAll(BigInteger[] values, BigInteger[] moduli)
+    {
+        int count = values.length;
+        boolean[] inverted = new boolean[count];
+        int[] indices = new int[count];
+        BigInteger[] products = new BigInteger[count];
+
+        for (int first = 0; first < count; ++first)
+        {
+            if (values[first] == null || inverted[first])
+            {
+                continue;
+            }
+
+            BigInteger n = moduli[first];
+            int len = 0;
+            BigInteger product = ONE;
+
+            for (int i = first; i < count; ++i)
+            {
+                if (values[i] != null && !inverted[i] && moduli[i].equals(n))
+                {
+                    product = product.multiply(values[i]).mod(n);
+                    products[len] = product;
+                    indices[len++] = i;
+                    inverted[i] = true;
+                }
+            }
+
+            // n is prime and each value is in [1,n-1], so the product is invertible
+            BigInteger inverse = product.modInverse(n);
+
+            for (int j = len - 1; j > 0; --j)
+            {
+                int i = indices[j];
+                BigInteger value = values[i];
+                values[i] = inverse.multiply(products[j - 1]).mod(n);
+                inverse = inverse.multiply(value).mod(n);
+            }
+            values[indices[0]] = inverse;
+        }
+    }
+
+    /**
+     * Normalize the non-null points, with a single inversion for each curve.
+     */
+    private static void normalizeAll(ECPoint[] points)
+    {
+        int count = points.length;
+        boolean[] normalized = new boolean[count];
+        ECPoint[] group = new ECPoint[count];
+        int[] indices = new int[count];
+
+        for (int first = 0; first < count; ++first)
+        {
+            if (points[first] == null || normalized[first])
+            {
+                continue;
+            }
+
+            ECCurve curve = points[first].getCurve();
+            int len = 0;
+
+            for (int i = first; i < count; ++i)
+            {
+                if (points[i] != null && !normalized[i] && points[i].getCurve() == curve)
+                {
+                    group[len] = points[i];
+                    indices[len++] = i;
+                    normalized[i] = true;
+                }
+            }
+
+            if (curve == null)
+            {
+                for (int j = 0; j < len; ++j)
+                {
+                    points[indices[j]] = group[j].normalize();
+                }
+            }
+            else
+            {
+                curve.normalizeAll(group, 0, len, null);
+                for (int j = 0; j < len; ++j)
+                {
+                    points[indices[j]] = group[j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.spongycastle.crypto.signers;
+
+import java.io.ByteArrayOutputStream;
+
+import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.Signer;
+import org.spongycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.spongycastle.crypto.params.Ed25519PublicKeyParameters;
+
+/**
+ * Ed25519 signatures, as described in RFC 8032.
+ * <p>
+ * Ed25519 hashes the message twice, so the whole message is buffered until the signature is
+ * generated or verified.
+ * </p>
+ */
+public class Ed25519Signer
+    implements Signer
+{
+    private final Buffer buffer = new Buffer();
+
+    private boolean forSigning;
+    private Ed25519PrivateKeyParameters privateKey;
+    private Ed25519PublicKeyParameters publicKey;
+
+    public void init(boolean forSigning, CipherParameters parameters)
+    {
+        this.forSigning = forSigning;
+
+        if (forSigning)
+        {
+            this.privateKey = (Ed25519PrivateKeyParameters)parameters;
+            this.publicKey = privateKey.generatePublicKey();
+        }
+        else
+        {
+            this.privateKey = null;
+            this.publicKey = (Ed25519PublicKeyParameters)parameters;
+        }
+
+        reset();
+    }
+
+    public void update(byte b)
+    {
+        buffer.write(b);
+    }
+
+    public void update(byte[] in, int off, int len)
+    {
+        buffer.write(in, off, len);
+    }
+
+    public byte[] generateSignature()
+    {
+        if (!forSigning || privateKey == null)
+        {
+            throw new IllegalStateException("Ed25519Signer not initialised for signature generation.");
+        }
+
+        return buffer.generateSignature(privateKey, publicKey);
+    }
+
+    public boolean verifySignature(byte[] signature)
+    {
+        if (forSigning || publicKey == null)
+        {
+            throw new IllegalStateException("Ed25519Signer not initialised for signature verification.");
+        }
+
+        return buffer.verifySignature(publicKey, signature);
+    }
+
+    public void reset()
+    {
+        buffer.reset();
+    }
+
+    private static class Buffer
+        extends ByteArrayOutputStream
+    {
+        byte[] generateSignature(Ed25519PrivateKeyParameters privateKey, Ed25519PublicKeyParameters publicKey)
+        {
+            byte[] signature = new byte[Ed25519PrivateKeyParameters.SIGNATURE_SIZE];
+            privateKey.sign(publicKey, buf, 0, count, signature, 0);
+            reset();
+            return signature;
+        }
+
+        boolean verifySignature(Ed25519PublicKeyParameters publicKey, byte[] signature)
+        {
+            if (Ed25519PrivateKeyParameters.SIGNATURE_SIZE != signature.length)
+            {
+                reset();
+                return false;
+            }
+
+            boolean result = publicKey.verify(buf, 0, count, signature, 0);
+            reset();
+            return result;
+        }
+
+        public synchronized void reset()
+        {
+            java.util.Arrays.fill(buf, 0, count, (byte)0);
+            this.count = 0;
+        }
+    }
+}
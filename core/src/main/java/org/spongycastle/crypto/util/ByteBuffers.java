@@ -0,0 +1,228 @@
+package org.spongycastle.crypto.util;
+
+import java.nio.ByteBuffer;
+
+import org.spongycastle.crypto.ByteBufferDigest;
+import org.spongycastle.crypto.ByteBufferMac;
+import org.spongycastle.crypto.ByteBufferStreamCipher;
+import org.spongycastle.crypto.DataLengthException;
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.Mac;
+import org.spongycastle.crypto.OutputLengthException;
+import org.spongycastle.crypto.StreamCipher;
+import org.spongycastle.crypto.modes.AEADBlockCipher;
+import org.spongycastle.crypto.modes.ByteBufferAEADBlockCipher;
+
+/**
+ * Utility methods for passing ByteBuffers to the lightweight API.
+ * <p>
+ * Where the digest, MAC or cipher supports ByteBuffers directly the call is passed straight
+ * through, otherwise buffers backed by an accessible array are used in place and other buffers
+ * (such as direct buffers) are processed in chunks through a temporary array.
+ * </p>
+ */
+public final class ByteBuffers
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private ByteBuffers()
+    {
+    }
+
+    /**
+     * Update a digest with the remaining bytes in in, leaving in's position at its limit.
+     *
+     * @param digest the digest to update.
+     * @param in the buffer containing the data.
+     */
+    public static void update(Digest digest, ByteBuffer in)
+    {
+        if (digest instanceof ByteBufferDigest)
+        {
+            ((ByteBufferDigest)digest).update(in);
+        }
+        else if (in.hasArray())
+        {
+            digest.update(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+        }
+        else
+        {
+            byte[] buf = new byte[Math.min(in.remaining(), CHUNK_SIZE)];
+
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), buf.length);
+
+                in.get(buf, 0, len);
+                digest.update(buf, 0, len);
+            }
+        }
+    }
+
+    /**
+     * Update a MAC with the remaining bytes in in, leaving in's position at its limit.
+     *
+     * @param mac the MAC to update.
+     * @param in the buffer containing the data.
+     */
+    public static void update(Mac mac, ByteBuffer in)
+    {
+        if (mac instanceof ByteBufferMac)
+        {
+            ((ByteBufferMac)mac).update(in);
+        }
+        else if (in.hasArray())
+        {
+            mac.update(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+        }
+        else
+        {
+            byte[] buf = new byte[Math.min(in.remaining(), CHUNK_SIZE)];
+
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), buf.length);
+
+                in.get(buf, 0, len);
+                mac.update(buf, 0, len);
+            }
+        }
+    }
+
+    /**
+     * Process the remaining bytes in in with a stream cipher, writing the result to out.
+     *
+     * @param cipher the stream cipher to use.
+     * @param in the input buffer.
+     * @param out the output buffer.
+     * @return the number of bytes processed.
+     * @exception DataLengthException if out does not have room for the output.
+     */
+    public static int processBytes(StreamCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        if (cipher instanceof ByteBufferStreamCipher)
+        {
+            return ((ByteBufferStreamCipher)cipher).processBytes(in, out);
+        }
+
+        int len = in.remaining();
+        if (out.remaining() < len)
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        if (in.hasArray() && out.hasArray())
+        {
+            cipher.processBytes(in.array(), in.arrayOffset() + in.position(), len,
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + len);
+        }
+        else
+        {
+            byte[] buf = new byte[Math.min(len, CHUNK_SIZE)];
+
+            while (in.hasRemaining())
+            {
+                int chunk = Math.min(in.remaining(), buf.length);
+
+                in.get(buf, 0, chunk);
+                cipher.processBytes(buf, 0, chunk, buf, 0);
+                out.put(buf, 0, chunk);
+            }
+        }
+
+        return len;
+    }
+
+    /**
+     * Add the remaining bytes in in to the associated data of an AEAD cipher, leaving in's position
+     * at its limit.
+     *
+     * @param cipher the AEAD cipher to update.
+     * @param in the buffer containing the associated data.
+     */
+    public static void processAADBytes(AEADBlockCipher cipher, ByteBuffer in)
+    {
+        if (cipher instanceof ByteBufferAEADBlockCipher)
+        {
+            ((ByteBufferAEADBlockCipher)cipher).processAADBytes(in);
+        }
+        else if (in.hasArray())
+        {
+            cipher.processAADBytes(in.array(), in.arrayOffset() + in.position(), in.remaining());
+            in.position(in.limit());
+        }
+        else
+        {
+            byte[] buf = new byte[Math.min(in.remaining(), CHUNK_SIZE)];
+
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), buf.length);
+
+                in.get(buf, 0, len);
+                cipher.processAADBytes(buf, 0, len);
+            }
+        }
+    }
+
+    /**
+     * Process the remaining bytes in in with an AEAD cipher, writing any output produced to out.
+     *
+     * @param cipher the AEAD cipher to use.
+     * @param in the input buffer.
+     * @param out the output buffer.
+     * @return the number of bytes written to out.
+     * @exception DataLengthException if out does not have room for the output.
+     */
+    public static int processBytes(AEADBlockCipher cipher, ByteBuffer in, ByteBuffer out)
+        throws DataLengthException
+    {
+        if (cipher instanceof ByteBufferAEADBlockCipher)
+        {
+            return ((ByteBufferAEADBlockCipher)cipher).processBytes(in, out);
+        }
+
+        if (out.remaining() < cipher.getUpdateOutputSize(in.remaining()))
+        {
+            throw new OutputLengthException("output buffer too short");
+        }
+
+        int resultLen;
+        if (in.hasArray() && out.hasArray())
+        {
+            resultLen = cipher.processBytes(in.array(), in.arrayOffset() + in.position(), in.remaining(),
+                out.array(), out.arrayOffset() + out.position());
+            in.position(in.limit());
+            out.position(out.position() + resultLen);
+        }
+        else
+        {
+            byte[] buf = new byte[Math.min(in.remaining(), CHUNK_SIZE)];
+            byte[] outBuf = new byte[cipher.getUpdateOutputSize(buf.length)];
+
+            resultLen = 0;
+            while (in.hasRemaining())
+            {
+                int len = Math.min(in.remaining(), buf.length);
+
+                in.get(buf, 0, len);
+
+                if (outBuf.length < cipher.getUpdateOutputSize(len))
+                {
+                    outBuf = new byte[cipher.getUpdateOutputSize(len)];
+                }
+
+                int outLen = cipher.processBytes(buf, 0, len, outBuf, 0);
+                out.put(outBuf, 0, outLen);
+                resultLen += outLen;
+            }
+        }
+
+        return resultLen;
+    }
+}
@@ -0,0 +1,151 @@
+package org.spongycastle.crypto.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a fixed number of independent tasks over an Executor, with the first on the calling thread.
+ * <p>
+ * {@link #run(Executor, int, Task)} only returns, normally or not, once every task that was handed
+ * to the executor has finished, so the caller can read or clear the state the tasks share straight
+ * away. A failure in any task, including an Error, is rethrown on the calling thread.
+ * </p>
+ */
+public final class ParallelTasks
+{
+    /**
+     * One of a set of independent tasks, identified by its index.
+     */
+    public interface Task
+    {
+        void run(int index);
+    }
+
+    private ParallelTasks()
+    {
+    }
+
+    /**
+     * Run tasks 0 to count - 1, task 0 on the calling thread and the rest on executor. Tasks the
+     * executor rejects are run on the calling thread instead.
+     *
+     * @param executor the executor to run tasks 1 to count - 1 on.
+     * @param count the number of tasks.
+     * @param task the tasks to run.
+     */
+    public static void run(Executor executor, int count, final Task task)
+    {
+        if (count < 1)
+        {
+            return;
+        }
+
+        final CountDownLatch done = new CountDownLatch(count - 1);
+        final Throwable[] failure = new Throwable[1];
+
+        int submitted = 1;
+        try
+        {
+            for (; submitted < count; ++submitted)
+            {
+                final int index = submitted;
+                Runnable worker = new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            task.run(index);
+                        }
+                        catch (Throwable e)
+                        {
+                            fail(failure, e);
+                        }
+                        finally
+                        {
+                            done.countDown();
+                        }
+                    }
+                };
+
+                try
+                {
+                    executor.execute(worker);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    worker.run();
+                }
+            }
+
+            task.run(0);
+        }
+        catch (Throwable e)
+        {
+            fail(failure, e);
+        }
+        finally
+        {
+            // tasks never handed to the executor won't count down themselves
+            for (int i = submitted; i < count; ++i)
+            {
+                done.countDown();
+            }
+
+            await(done);
+        }
+
+        Throwable e;
+        synchronized (failure)
+        {
+            e = failure[0];
+        }
+
+        if (e instanceof RuntimeException)
+        {
+            throw (RuntimeException)e;
+        }
+        if (e instanceof Error)
+        {
+            throw (Error)e;
+        }
+        if (e != null)
+        {
+            throw new IllegalStateException("parallel task failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void fail(Throwable[] failure, Throwable e)
+    {
+        synchronized (failure)
+        {
+            // the first failure is the one reported
+            if (failure[0] == null)
+            {
+                failure[0] = e;
+            }
+        }
+    }
+
+    private static void await(CountDownLatch done)
+    {
+        boolean interrupted = false;
+        for (;;)
+        {
+            try
+            {
+                done.await();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
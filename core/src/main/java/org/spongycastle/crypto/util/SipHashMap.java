@@ -0,0 +1,273 @@
+package org.spongycastle.crypto.util;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.spongycastle.crypto.macs.SipHash;
+import org.spongycastle.util.Arrays;
+
+/**
+ * A hash map keyed by the contents of byte arrays, with the keys hashed by SipHash-2-4 under a
+ * random per-map key.
+ * <p>
+ * Without the key the bucket a given byte string lands in cannot be predicted, so a peer choosing
+ * the keys (session IDs, serial numbers, encoded OIDs) cannot force them to collide and turn
+ * lookups into linear scans. The map is not synchronized.
+ * </p>
+ */
+public class SipHashMap<V>
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private final long k0;
+    private final long k1;
+
+    private byte[][] keys;
+    private long[] hashes;
+    private Object[] values;
+    private int size;
+
+    /**
+     * Create a map keyed from a new SecureRandom.
+     */
+    public SipHashMap()
+    {
+        this(new SecureRandom());
+    }
+
+    /**
+     * Create a map with its hash key drawn from the passed in random.
+     *
+     * @param random the source of the SipHash key.
+     */
+    public SipHashMap(SecureRandom random)
+    {
+        this.k0 = random.nextLong();
+        this.k1 = random.nextLong();
+
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public V get(byte[] key)
+    {
+        return get(key, 0, key.length);
+    }
+
+    /**
+     * Return the value stored against the byte string in key[keyOff..keyOff + keyLen).
+     *
+     * @return the value, or null if there is none.
+     */
+    public V get(byte[] key, int keyOff, int keyLen)
+    {
+        int index = find(key, keyOff, keyLen, hash(key, keyOff, keyLen));
+
+        return index < 0 ? null : (V)values[index];
+    }
+
+    public boolean containsKey(byte[] key)
+    {
+        return find(key, 0, key.length, hash(key, 0, key.length)) >= 0;
+    }
+
+    /**
+     * Store value against the contents of key, the map keeps its own copy of key.
+     *
+     * @return the value previously stored against key, or null if there was none.
+     */
+    public V put(byte[] key, V value)
+    {
+        long h = hash(key, 0, key.length);
+        int index = find(key, 0, key.length, h);
+
+        if (index >= 0)
+        {
+            V old = (V)values[index];
+            values[index] = value;
+            return old;
+        }
+
+        if (2 * (size + 1) > keys.length)
+        {
+            resize(keys.length * 2);
+        }
+
+        insert(Arrays.clone(key), h, value);
+        ++size;
+
+        return null;
+    }
+
+    /**
+     * Remove the entry for key.
+     *
+     * @return the value stored against key, or null if there was none.
+     */
+    public V remove(byte[] key)
+    {
+        int index = find(key, 0, key.length, hash(key, 0, key.length));
+        if (index < 0)
+        {
+            return null;
+        }
+
+        V old = (V)values[index];
+        int mask = keys.length - 1;
+
+        // backward shift deletion, so probe sequences stay unbroken without tombstones
+        int hole = index;
+        for (int i = (hole + 1) & mask; keys[i] != null; i = (i + 1) & mask)
+        {
+            int home = slot(hashes[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask))
+            {
+                keys[hole] = keys[i];
+                hashes[hole] = hashes[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+
+        keys[hole] = null;
+        hashes[hole] = 0;
+        values[hole] = null;
+        --size;
+
+        return old;
+    }
+
+    public void clear()
+    {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Return copies of the keys currently in the map, in no particular order.
+     */
+    public List<byte[]> keys()
+    {
+        List<byte[]> result = new ArrayList<byte[]>(size);
+
+        for (int i = 0; i < keys.length; ++i)
+        {
+            if (keys[i] != null)
+            {
+                result.add(Arrays.clone(keys[i]));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Return the values currently in the map, in no particular order.
+     */
+    public List<V> values()
+    {
+        List<V> result = new ArrayList<V>(size);
+
+        for (int i = 0; i < keys.length; ++i)
+        {
+            if (keys[i] != null)
+            {
+                result.add((V)values[i]);
+            }
+        }
+
+        return result;
+    }
+
+    private long hash(byte[] key, int keyOff, int keyLen)
+    {
+        return SipHash.hash(k0, k1, key, keyOff, keyLen);
+    }
+
+    private int slot(long h)
+    {
+        return (int)(h ^ (h >>> 32)) & (keys.length - 1);
+    }
+
+    private int find(byte[] key, int keyOff, int keyLen, long h)
+    {
+        int mask = keys.length - 1;
+
+        for (int i = slot(h); keys[i] != null; i = (i + 1) & mask)
+        {
+            if (hashes[i] == h && matches(keys[i], key, keyOff, keyLen))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void insert(byte[] key, long h, Object value)
+    {
+        int mask = keys.length - 1;
+        int i = slot(h);
+
+        while (keys[i] != null)
+        {
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        hashes[i] = h;
+        values[i] = value;
+    }
+
+    private void resize(int capacity)
+    {
+        byte[][] oldKeys = keys;
+        long[] oldHashes = hashes;
+        Object[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; ++i)
+        {
+            if (oldKeys[i] != null)
+            {
+                insert(oldKeys[i], oldHashes[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        this.keys = new byte[capacity][];
+        this.hashes = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    private static boolean matches(byte[] stored, byte[] key, int keyOff, int keyLen)
+    {
+        if (stored.length != keyLen)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < keyLen; ++i)
+        {
+            if (stored[i] != key[keyOff + i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
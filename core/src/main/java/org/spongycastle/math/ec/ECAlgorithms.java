@@ -265,6 +265,10 @@ static ECPoint implShamirsTrickWNaf(ECPoint P, BigInteger k,
         int widthP = Math.max(2, Math.min(16, WNafUtil.getWindowSize(k.bitLength())));
         int widthQ = Math.max(2, Math.min(16, WNafUtil.getWindowSize(l.bitLength())));
 
+        // a fixed point, typically the generator, may already have a wider table
+        widthP = WNafUtil.getWindowSize(P, widthP, 8);
+        widthQ = WNafUtil.getWindowSize(Q, widthQ, 8);
+
         WNafPreCompInfo infoP = WNafUtil.precompute(P, widthP, true);
         WNafPreCompInfo infoQ = WNafUtil.precompute(Q, widthQ, true);
 
@@ -368,6 +372,7 @@ static ECPoint implSumOfMultiplies(ECPoint[] ps, BigInteger[] ks)
             BigInteger ki = ks[i]; negs[i] = ki.signum() < 0; ki = ki.abs();
 
             int width = Math.max(2, Math.min(16, WNafUtil.getWindowSize(ki.bitLength())));
+            width = WNafUtil.getWindowSize(ps[i], width, 8);
             infos[i] = WNafUtil.precompute(ps[i], width, true);
             wnafs[i] = WNafUtil.generateWindowNaf(width, ki);
         }
@@ -1,7 +1,6 @@
 package org.spongycastle.math.ec;
 
 import java.math.BigInteger;
-import java.util.Hashtable;
 import java.util.Random;
 
 import org.spongycastle.math.ec.endo.ECEndomorphism;
@@ -93,7 +92,7 @@ public ECCurve create()
 
     protected int coord = COORD_AFFINE;
     protected ECEndomorphism endomorphism = null;
-    protected ECMultiplier multiplier = null;
+    protected volatile ECMultiplier multiplier = null;
 
     protected ECCurve(FiniteField field)
     {
@@ -173,11 +172,7 @@ public boolean supportsCoordinateSystem(int coord)
     public PreCompInfo getPreCompInfo(ECPoint point, String name)
     {
         checkPoint(point);
-        synchronized (point)
-        {
-            Hashtable table = point.preCompTable;
-            return table == null ? null : (PreCompInfo)table.get(name);
-        }
+        return point.getPreCompInfo(name);
     }
 
     /**
@@ -195,15 +190,29 @@ public PreCompInfo getPreCompInfo(ECPoint point, String name)
     public void setPreCompInfo(ECPoint point, String name, PreCompInfo preCompInfo)
     {
         checkPoint(point);
-        synchronized (point)
-        {
-            Hashtable table = point.preCompTable;
-            if (null == table)
-            {
-                point.preCompTable = table = new Hashtable(4);
-            }
-            table.put(name, preCompInfo);
-        }
+        point.setPreCompInfo(name, preCompInfo);
+    }
+
+    /**
+     * Publishes <code>PreCompInfo</code> for a point on this curve, under a given name, provided
+     * the precomputation currently stored there is still <code>expect</code>. A
+     * <code>PreCompInfo</code> must not be modified once it has been published, as other threads
+     * may be reading it without locks; a larger precomputation is published as a new object.
+     * 
+     * @param point
+     *            The <code>ECPoint</code> to store precomputations for.
+     * @param name
+     *            A <code>String</code> used to index precomputations of different types.
+     * @param expect
+     *            The <code>PreCompInfo</code> the update was computed from, or null if there was none.
+     * @param update
+     *            The values precomputed by the <code>ECMultiplier</code>.
+     * @return true if <code>update</code> was published, false if another thread published first.
+     */
+    public boolean compareAndSetPreCompInfo(ECPoint point, String name, PreCompInfo expect, PreCompInfo update)
+    {
+        checkPoint(point);
+        return point.compareAndSetPreCompInfo(name, expect, update);
     }
 
     public ECPoint importPoint(ECPoint p)
@@ -345,13 +354,21 @@ public ECEndomorphism getEndomorphism()
     /**
      * Sets the default <code>ECMultiplier</code>, unless already set. 
      */
-    public synchronized ECMultiplier getMultiplier()
+    public ECMultiplier getMultiplier()
     {
-        if (this.multiplier == null)
+        ECMultiplier m = this.multiplier;
+        if (m == null)
         {
-            this.multiplier = createDefaultMultiplier();
+            synchronized (this)
+            {
+                if (this.multiplier == null)
+                {
+                    this.multiplier = createDefaultMultiplier();
+                }
+                m = this.multiplier;
+            }
         }
-        return this.multiplier;
+        return m;
     }
 
     /**
@@ -666,7 +683,7 @@ public static BigInteger inverse(int m, int[] ks, BigInteger x)
          * <code>s<sub>1</sub></code> used for partial modular reduction for
          * Koblitz curves.
          */
-        private BigInteger[] si = null;
+        private volatile BigInteger[] si = null;
 
         private static FiniteField buildField(int m, int k1, int k2, int k3)
         {
@@ -852,13 +869,15 @@ private ECFieldElement solveQuadraticEquation(ECFieldElement beta)
          * <code>s<sub>1</sub></code> used for partial modular reduction for
          * Koblitz curves.
          */
-        synchronized BigInteger[] getSi()
+        BigInteger[] getSi()
         {
-            if (si == null)
+            BigInteger[] s = this.si;
+            if (s == null)
             {
-                si = Tnaf.getSi(this);
+                // a race only computes the same values twice
+                this.si = s = Tnaf.getSi(this);
             }
-            return si;
+            return s;
         }
 
         /**
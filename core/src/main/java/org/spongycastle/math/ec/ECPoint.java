@@ -2,6 +2,9 @@
 
 import java.math.BigInteger;
 import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * base class for points on elliptic curves.
@@ -10,6 +13,14 @@
 {
     protected static ECFieldElement[] EMPTY_ZS = new ECFieldElement[0];
 
+    private static final AtomicReferenceFieldUpdater<ECPoint, PreCompInfo> FIXED_POINT_PRECOMP =
+        AtomicReferenceFieldUpdater.newUpdater(ECPoint.class, PreCompInfo.class, "fixedPointPreComp");
+    private static final AtomicReferenceFieldUpdater<ECPoint, PreCompInfo> WNAF_PRECOMP =
+        AtomicReferenceFieldUpdater.newUpdater(ECPoint.class, PreCompInfo.class, "wnafPreComp");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ECPoint, ConcurrentMap> PRECOMP_MAP =
+        AtomicReferenceFieldUpdater.newUpdater(ECPoint.class, ConcurrentMap.class, "preCompMap");
+
     protected static ECFieldElement[] getInitialZCoords(ECCurve curve)
     {
         // Cope with null curve, most commonly used by implicitlyCa
@@ -48,9 +59,21 @@ protected static ECFieldElement[] getInitialZCoords(ECCurve curve)
 
     protected boolean withCompression;
 
+    /**
+     * @deprecated no longer read or written here, precomputations are kept in lock-free fields.
+     */
     // Hashtable is (String -> PreCompInfo)
     protected Hashtable preCompTable = null;
 
+    /*
+     * Precomputations are read on every multiplication, from any number of threads, so they are
+     * kept without locks: the two well-known ones in their own fields and any others in a
+     * concurrent map created on first use.
+     */
+    private volatile PreCompInfo fixedPointPreComp = null;
+    private volatile PreCompInfo wnafPreComp = null;
+    private volatile ConcurrentMap<String, PreCompInfo> preCompMap = null;
+
     protected ECPoint(ECCurve curve, ECFieldElement x, ECFieldElement y)
     {
         this(curve, x, y, getInitialZCoords(curve));
@@ -77,6 +100,85 @@ public final ECPoint getDetachedPoint()
         return normalize().detach();
     }
 
+    PreCompInfo getPreCompInfo(String name)
+    {
+        AtomicReferenceFieldUpdater<ECPoint, PreCompInfo> slot = getPreCompSlot(name);
+        if (slot != null)
+        {
+            return slot.get(this);
+        }
+
+        ConcurrentMap<String, PreCompInfo> map = this.preCompMap;
+        return map == null ? null : map.get(name);
+    }
+
+    void setPreCompInfo(String name, PreCompInfo preCompInfo)
+    {
+        AtomicReferenceFieldUpdater<ECPoint, PreCompInfo> slot = getPreCompSlot(name);
+        if (slot != null)
+        {
+            slot.set(this, preCompInfo);
+        }
+        else if (preCompInfo == null)
+        {
+            ConcurrentMap<String, PreCompInfo> map = this.preCompMap;
+            if (map != null)
+            {
+                map.remove(name);
+            }
+        }
+        else
+        {
+            getPreCompMap().put(name, preCompInfo);
+        }
+    }
+
+    boolean compareAndSetPreCompInfo(String name, PreCompInfo expect, PreCompInfo update)
+    {
+        AtomicReferenceFieldUpdater<ECPoint, PreCompInfo> slot = getPreCompSlot(name);
+        if (slot != null)
+        {
+            return slot.compareAndSet(this, expect, update);
+        }
+
+        if (expect == null)
+        {
+            return update == null ? getPreCompInfo(name) == null : getPreCompMap().putIfAbsent(name, update) == null;
+        }
+
+        ConcurrentMap<String, PreCompInfo> map = this.preCompMap;
+        if (map == null)
+        {
+            return false;
+        }
+
+        return update == null ? map.remove(name, expect) : map.replace(name, expect, update);
+    }
+
+    private static AtomicReferenceFieldUpdater<ECPoint, PreCompInfo> getPreCompSlot(String name)
+    {
+        if (FixedPointUtil.PRECOMP_NAME.equals(name))
+        {
+            return FIXED_POINT_PRECOMP;
+        }
+        if (WNafUtil.PRECOMP_NAME.equals(name))
+        {
+            return WNAF_PRECOMP;
+        }
+        return null;
+    }
+
+    private ConcurrentMap<String, PreCompInfo> getPreCompMap()
+    {
+        ConcurrentMap<String, PreCompInfo> map = this.preCompMap;
+        if (map == null)
+        {
+            PRECOMP_MAP.compareAndSet(this, null, new ConcurrentHashMap<String, PreCompInfo>(4));
+            map = this.preCompMap;
+        }
+        return map;
+    }
+
     public ECCurve getCurve()
     {
         return curve;
@@ -2,8 +2,44 @@
 
 import java.math.BigInteger;
 
+/**
+ * Multiplies a fixed point with a precomputed comb, optionally split into several combs (Lim-Lee)
+ * to trade table memory for fewer doublings.
+ * <p>
+ * Without a budget a single comb of 32 or 64 points is used. Given a budget in bytes, the table
+ * for each base point grows to the shape that is cheapest within it. For a 256-bit order, 64KB
+ * buys four combs of 256 points, taking a multiplication from 52 doublings and additions down to
+ * 8 doublings and 32 additions.
+ * </p>
+ */
 public class FixedPointCombMultiplier extends AbstractECMultiplier
 {
+    private final int budget;
+
+    /**
+     * Create a multiplier with the default budget, see {@link FixedPointUtil#getDefaultBudget()}.
+     */
+    public FixedPointCombMultiplier()
+    {
+        this(FixedPointUtil.getDefaultBudget());
+    }
+
+    /**
+     * Create a multiplier whose tables may use up to budget bytes for each base point. A budget
+     * too small for the single comb leaves the single comb in use.
+     *
+     * @param budget the memory allowed for each table, 0 for the single comb.
+     */
+    public FixedPointCombMultiplier(int budget)
+    {
+        if (budget < 0)
+        {
+            throw new IllegalArgumentException("'budget' cannot be negative");
+        }
+
+        this.budget = budget;
+    }
+
     protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
     {
         ECCurve c = p.getCurve();
@@ -20,31 +56,50 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
             throw new IllegalStateException("fixed-point comb doesn't support scalars larger than the curve order");
         }
 
-        int minWidth = getWidthForCombSize(size);
+        int minWidth = getWidthForCombSize(size), minCombs = 1;
 
-        FixedPointPreCompInfo info = FixedPointUtil.precompute(p, minWidth);
+        if (budget > 0)
+        {
+            int[] shape = FixedPointUtil.getCombShape(c, size, budget);
+
+            // a budget below the default table would only buy a narrower, slower comb
+            if (shape != null && (shape[1] << shape[0]) >= (1 << minWidth))
+            {
+                minWidth = shape[0];
+                minCombs = shape[1];
+            }
+        }
+
+        FixedPointPreCompInfo info = FixedPointUtil.precompute(p, minWidth, minCombs);
         ECPoint[] lookupTable = info.getPreComp();
         int width = info.getWidth();
+        int combs = info.getCombs();
 
-        int d = (size + width - 1) / width;
+        int d = (size + width * combs - 1) / (width * combs);
 
         ECPoint R = c.getInfinity();
 
-        int top = d * width - 1; 
         for (int i = 0; i < d; ++i)
         {
-            int index = 0;
+            int column = d - 1 - i;
 
-            for (int j = top - i; j >= 0; j -= d)
+            for (int comb = 0; comb < combs; ++comb)
             {
-                index <<= 1;
-                if (k.testBit(j))
+                int index = 0;
+
+                // comb 'comb' holds the rows [comb * width, (comb + 1) * width), each d bits long
+                for (int j = (comb + 1) * width - 1; j >= comb * width; --j)
                 {
-                    index |= 1;
+                    index <<= 1;
+                    if (k.testBit(j * d + column))
+                    {
+                        index |= 1;
+                    }
                 }
-            }
 
-            R = R.twicePlus(lookupTable[index]);
+                ECPoint point = lookupTable[(comb << width) + index];
+                R = (comb == 0) ? R.twicePlus(point) : R.add(point);
+            }
         }
 
         return R;
@@ -18,6 +18,12 @@ public class FixedPointPreCompInfo implements PreCompInfo
      */
     protected int width = -1;
 
+    /**
+     * The number of combs, each a table of 2^width points covering its own part of the scalar, held
+     * one after the other in preComp.
+     */
+    protected int combs = 1;
+
     public ECPoint[] getPreComp()
     {
         return preComp;
@@ -37,4 +43,14 @@ public void setWidth(int width)
     {
         this.width = width;
     }
+
+    public int getCombs()
+    {
+        return combs;
+    }
+
+    public void setCombs(int combs)
+    {
+        this.combs = combs;
+    }
 }
@@ -0,0 +1,483 @@
+package org.spongycastle.math.ec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.spongycastle.math.field.FiniteField;
+import org.spongycastle.math.field.PolynomialExtensionField;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.io.Streams;
+
+/**
+ * A store of fixed-point comb tables shared by every curve object with the same domain parameters,
+ * and their serialised form.
+ * <p>
+ * Tables are kept by the field, curve coefficients, base point and comb size they were built for,
+ * rather than by ECPoint instance, so a curve from CustomNamedCurves and the same curve parsed from
+ * ASN.1 share one table, and a new curve object only has to import the points instead of repeating
+ * the doublings. Tables can be written out with {@link #write(ECPoint, OutputStream)} and loaded
+ * back, in this or another JVM, from a stream, a (possibly memory-mapped) buffer, or the
+ * <code>fixed_point_tables.bin</code> resource next to this class, which is read on first use if
+ * present. The core jar ships that resource with the tables for the CustomNamedCurves generators.
+ * </p>
+ * <p>
+ * Loaded points are checked against the curve equation and the table's base point, but the tables
+ * are otherwise trusted: only load them from a source you would load classes from.
+ * </p>
+ */
+public class FixedPointStore
+{
+    private static final int MAGIC = 0x42434650;    // "BCFP"
+    private static final int VERSION = 2;
+
+    /**
+     * The name of the resource, relative to this class, loaded on first use.
+     */
+    public static final String RESOURCE_NAME = "fixed_point_tables.bin";
+
+    /**
+     * The most tables held, so curves from untrusted parameters cannot grow the store without bound.
+     */
+    private static final int MAX_TABLES = 128;
+
+    private static final ConcurrentHashMap<Key, Table> TABLES = new ConcurrentHashMap<Key, Table>();
+
+    private static volatile boolean resourceChecked = false;
+
+    private static class Key
+    {
+        private final byte[] id;
+        private final int hashCode;
+
+        Key(byte[] id)
+        {
+            this.id = id;
+            this.hashCode = Arrays.hashCode(id);
+        }
+
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && Arrays.areEqual(id, ((Key)o).id);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+
+    private static class Table
+    {
+        final int width;
+        final int combs;
+        final int elementLength;
+        final ByteBuffer entries;
+
+        Table(int width, int combs, int elementLength, ByteBuffer entries)
+        {
+            this.width = width;
+            this.combs = combs;
+            this.elementLength = elementLength;
+            this.entries = entries;
+        }
+
+        boolean covers(int minWidth, int minCombs)
+        {
+            return width >= minWidth && combs >= minCombs;
+        }
+    }
+
+    /**
+     * Write the fixed-point table already computed for p as a single versioned record. Records
+     * can be concatenated and loaded together.
+     *
+     * @param p the point the table was computed for.
+     * @param out the stream to write to.
+     * @throws IllegalStateException if p has no fixed-point table.
+     */
+    public static void write(ECPoint p, OutputStream out)
+        throws IOException
+    {
+        FixedPointPreCompInfo info = FixedPointUtil.getFixedPointPreCompInfo(
+            p.getCurve().getPreCompInfo(p, FixedPointUtil.PRECOMP_NAME));
+
+        if (info.getPreComp() == null)
+        {
+            throw new IllegalStateException("no fixed-point precomputation for point");
+        }
+
+        out.write(encode(p, info));
+    }
+
+    /**
+     * Load every table from a stream of records.
+     *
+     * @return the number of tables added to the store.
+     */
+    public static int load(InputStream in)
+        throws IOException
+    {
+        return load(ByteBuffer.wrap(Streams.readAll(in)));
+    }
+
+    /**
+     * Load every table from a file of records. The file is memory-mapped, and the tables are read
+     * from the mapping as they are used.
+     *
+     * @return the number of tables added to the store.
+     */
+    public static int load(File file)
+        throws IOException
+    {
+        FileInputStream fIn = new FileInputStream(file);
+        try
+        {
+            FileChannel channel = fIn.getChannel();
+
+            return load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        finally
+        {
+            fIn.close();
+        }
+    }
+
+    /**
+     * Load every table from the remaining bytes of buf, which is left unchanged. The tables are
+     * read from buf as they are used, so it should not be modified afterwards.
+     *
+     * @return the number of tables added to the store.
+     * @throws IllegalArgumentException if the buffer does not hold a sequence of records.
+     */
+    public static int load(ByteBuffer buf)
+    {
+        ByteBuffer in = buf.asReadOnlyBuffer();
+        int count = 0;
+
+        try
+        {
+            while (in.hasRemaining())
+            {
+                if (in.getInt() != MAGIC)
+                {
+                    throw new IllegalArgumentException("invalid fixed-point table record");
+                }
+
+                int version = in.get() & 0xFF;
+                int length = in.getInt();
+                if (length < 0 || length > in.remaining())
+                {
+                    throw new IllegalArgumentException("truncated fixed-point table record");
+                }
+
+                ByteBuffer body = in.slice();
+                body.limit(length);
+                in.position(in.position() + length);
+
+                // records from later versions are skipped, version 1 tables hold a single comb
+                if (version >= 1 && version <= VERSION && add(body, version))
+                {
+                    ++count;
+                }
+            }
+        }
+        catch (BufferUnderflowException e)
+        {
+            throw new IllegalArgumentException("truncated fixed-point table record");
+        }
+
+        return count;
+    }
+
+    /**
+     * Discard every stored table. Tables already attached to points are not affected.
+     */
+    public static void clear()
+    {
+        TABLES.clear();
+    }
+
+    /**
+     * Return a table for p of at least minWidth and minCombs from the store, imported onto p's
+     * curve.
+     *
+     * @return the table, or null if the store has none.
+     */
+    static FixedPointPreCompInfo lookup(ECPoint p, int combSize, int minWidth, int minCombs)
+    {
+        loadResource();
+
+        if (TABLES.isEmpty())
+        {
+            return null;
+        }
+
+        Key key = new Key(identify(p, combSize));
+        Table table = TABLES.get(key);
+        if (table == null || !table.covers(minWidth, minCombs))
+        {
+            return null;
+        }
+
+        ECPoint[] lookupTable = importTable(p, table);
+        if (lookupTable == null)
+        {
+            // doesn't describe this curve after all, compute a fresh one
+            TABLES.remove(key, table);
+            return null;
+        }
+
+        FixedPointPreCompInfo info = new FixedPointPreCompInfo();
+        info.setPreComp(lookupTable);
+        info.setWidth(table.width);
+        info.setCombs(table.combs);
+        return info;
+    }
+
+    /**
+     * Keep a newly computed table for p, so equal curves can share it.
+     */
+    static void remember(ECPoint p, FixedPointPreCompInfo info)
+    {
+        byte[] record = encode(p, info);
+
+        // skip the magic, version and length
+        add(ByteBuffer.wrap(record, 9, record.length - 9), VERSION);
+    }
+
+    private static boolean add(ByteBuffer body, int version)
+    {
+        body = body.slice();
+
+        int keyLength = body.getInt();
+        if (keyLength < 0 || keyLength > body.remaining())
+        {
+            throw new IllegalArgumentException("invalid fixed-point table key");
+        }
+
+        byte[] id = new byte[keyLength];
+        body.get(id);
+        int width = body.get() & 0xFF;
+        int combs = version < 2 ? 1 : body.getShort() & 0xFFFF;
+        int elementLength = body.getInt();
+
+        if (width < 1 || width > 16 || combs < 1 || elementLength < 1
+            || body.remaining() != (long)combs * ((1 << width) - 1) * 2 * elementLength)
+        {
+            throw new IllegalArgumentException("invalid fixed-point table size");
+        }
+
+        Key key = new Key(id);
+        Table table = new Table(width, combs, elementLength, body.slice());
+
+        for (;;)
+        {
+            Table existing = TABLES.get(key);
+            if (existing == null)
+            {
+                if (TABLES.size() >= MAX_TABLES)
+                {
+                    return false;
+                }
+                if (TABLES.putIfAbsent(key, table) == null)
+                {
+                    return true;
+                }
+            }
+            else if (existing.covers(width, combs))
+            {
+                return false;
+            }
+            else if (TABLES.replace(key, existing, table))
+            {
+                return true;
+            }
+        }
+    }
+
+    private static void loadResource()
+    {
+        if (resourceChecked)
+        {
+            return;
+        }
+
+        synchronized (TABLES)
+        {
+            if (resourceChecked)
+            {
+                return;
+            }
+
+            try
+            {
+                InputStream in = FixedPointStore.class.getResourceAsStream(RESOURCE_NAME);
+                if (in != null)
+                {
+                    try
+                    {
+                        load(in);
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                // the tables are only an optimisation, without them they are computed
+            }
+
+            resourceChecked = true;
+        }
+    }
+
+    private static byte[] encode(ECPoint p, FixedPointPreCompInfo info)
+    {
+        ECCurve c = p.getCurve();
+        ECPoint[] lookupTable = info.getPreComp();
+        int width = info.getWidth();
+        int combs = info.getCombs();
+        int elementLength = (c.getFieldSize() + 7) / 8;
+
+        try
+        {
+            byte[] id = identify(p, FixedPointUtil.getCombSize(c));
+
+            ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+            DataOutputStream dOut = new DataOutputStream(bOut);
+
+            dOut.writeInt(MAGIC);
+            dOut.writeByte(VERSION);
+            dOut.writeInt(4 + id.length + 1 + 2 + 4 + combs * ((1 << width) - 1) * 2 * elementLength);
+            dOut.writeInt(id.length);
+            dOut.write(id);
+            dOut.writeByte(width);
+            dOut.writeShort(combs);
+            dOut.writeInt(elementLength);
+
+            // the first point of each comb is the infinity and isn't written
+            for (int i = 0; i < lookupTable.length; ++i)
+            {
+                if ((i & ((1 << width) - 1)) != 0)
+                {
+                    ECPoint q = lookupTable[i].normalize();
+                    dOut.write(q.getAffineXCoord().getEncoded());
+                    dOut.write(q.getAffineYCoord().getEncoded());
+                }
+            }
+
+            dOut.close();
+
+            return bOut.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("unable to encode fixed-point table: " + e.getMessage());
+        }
+    }
+
+    private static ECPoint[] importTable(ECPoint p, Table table)
+    {
+        ECCurve c = p.getCurve();
+        int elementLength = table.elementLength;
+
+        if (elementLength != (c.getFieldSize() + 7) / 8)
+        {
+            return null;
+        }
+
+        ByteBuffer entries = table.entries.duplicate();
+        byte[] encoding = new byte[elementLength];
+
+        int mask = (1 << table.width) - 1;
+        ECPoint[] lookupTable = new ECPoint[table.combs << table.width];
+
+        for (int i = 0; i < lookupTable.length; ++i)
+        {
+            // each comb starts with the infinity, which isn't stored
+            if ((i & mask) == 0)
+            {
+                lookupTable[i] = c.getInfinity();
+                continue;
+            }
+
+            entries.get(encoding);
+            BigInteger x = new BigInteger(1, encoding);
+            entries.get(encoding);
+            BigInteger y = new BigInteger(1, encoding);
+
+            if (!c.isValidFieldElement(x) || !c.isValidFieldElement(y))
+            {
+                return null;
+            }
+
+            ECPoint q = c.createPoint(x, y);
+            if (!q.satisfiesCurveEquation())
+            {
+                return null;
+            }
+
+            lookupTable[i] = q;
+        }
+
+        return lookupTable[1].equals(p) ? lookupTable : null;
+    }
+
+    /*
+     * Everything the table depends on: the field, the curve coefficients, the affine base point
+     * and the comb size.
+     */
+    private static byte[] identify(ECPoint p, int combSize)
+    {
+        ECCurve c = p.getCurve();
+        FiniteField field = c.getField();
+        ECPoint q = p.normalize();
+
+        try
+        {
+            ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+            DataOutputStream dOut = new DataOutputStream(bOut);
+
+            byte[] characteristic = field.getCharacteristic().toByteArray();
+            dOut.writeInt(characteristic.length);
+            dOut.write(characteristic);
+            dOut.writeInt(field.getDimension());
+
+            if (field instanceof PolynomialExtensionField)
+            {
+                int[] exponents = ((PolynomialExtensionField)field).getMinimalPolynomial().getExponentsPresent();
+                dOut.writeInt(exponents.length);
+                for (int i = 0; i < exponents.length; ++i)
+                {
+                    dOut.writeInt(exponents[i]);
+                }
+            }
+
+            dOut.write(c.getA().getEncoded());
+            dOut.write(c.getB().getEncoded());
+            dOut.write(q.getAffineXCoord().getEncoded());
+            dOut.write(q.getAffineYCoord().getEncoded());
+            dOut.writeInt(combSize);
+
+            dOut.close();
+
+            return bOut.toByteArray();
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("unable to identify curve: " + e.getMessage());
+        }
+    }
+}
@@ -2,14 +2,95 @@
 
 import java.math.BigInteger;
 
+import org.spongycastle.util.Properties;
+
 public class FixedPointUtil
 {
     public static final String PRECOMP_NAME = "bc_fixed_point";
 
+    /**
+     * System property giving the default table budget, in bytes per base point, see
+     * {@link #getDefaultBudget()}.
+     */
+    public static final String BUDGET_PROPERTY = "org.spongycastle.ec.fixed_point_budget";
+
+    /**
+     * The widest comb a budget will select; wider tables take longer to build than they save.
+     */
+    private static final int MAX_WIDTH = 10;
+
+    /*
+     * Rough heap use of a table point beyond its coordinates: the point, its field element objects
+     * and the z array.
+     */
+    private static final int POINT_OVERHEAD = 160;
+
+    private static final int DEFAULT_BUDGET = Math.max(0, Properties.asInteger(BUDGET_PROPERTY, 0));
+
     public static int getCombSize(ECCurve c)
     {
         BigInteger order = c.getOrder();
-        return order == null ? c.getFieldSize() + 1 : order.bitLength(); 
+        return order == null ? c.getFieldSize() + 1 : order.bitLength();
+    }
+
+    /**
+     * Return the table budget used by a {@link FixedPointCombMultiplier} created without one, set
+     * by the org.spongycastle.ec.fixed_point_budget system property. Zero, the default, keeps the
+     * original single comb of 32 or 64 points.
+     */
+    public static int getDefaultBudget()
+    {
+        return DEFAULT_BUDGET;
+    }
+
+    /**
+     * Return an estimate of the heap taken by a table of the given number of points on c.
+     */
+    public static long getTableSize(ECCurve c, int points)
+    {
+        // two coordinates, held in whole ints
+        int coordinateSize = ((c.getFieldSize() + 31) >>> 5) << 2;
+
+        return (long)points * (2 * coordinateSize + POINT_OVERHEAD);
+    }
+
+    /**
+     * Choose the comb width and number of combs that make multiplication by a scalar of combSize
+     * bits cheapest, with tables no larger than budget bytes.
+     *
+     * @return the width and number of combs, or null if even the smallest comb is over budget.
+     */
+    public static int[] getCombShape(ECCurve c, int combSize, int budget)
+    {
+        int[] best = null;
+        long bestCost = Long.MAX_VALUE, bestSize = 0;
+
+        for (int width = 2; width <= MAX_WIDTH; ++width)
+        {
+            int maxCombs = (combSize + width - 1) / width;
+
+            for (int combs = 1; combs <= maxCombs; ++combs)
+            {
+                long size = getTableSize(c, combs << width);
+                if (size > budget)
+                {
+                    break;
+                }
+
+                // each column of the comb is a doubling and an addition per comb
+                int d = (combSize + width * combs - 1) / (width * combs);
+                long cost = (long)d * (combs + 1);
+
+                if (cost < bestCost || (cost == bestCost && size < bestSize))
+                {
+                    best = new int[]{ width, combs };
+                    bestCost = cost;
+                    bestSize = size;
+                }
+            }
+        }
+
+        return best;
     }
 
     public static FixedPointPreCompInfo getFixedPointPreCompInfo(PreCompInfo preCompInfo)
@@ -23,47 +104,100 @@ public static FixedPointPreCompInfo getFixedPointPreCompInfo(PreCompInfo preComp
     }
 
     public static FixedPointPreCompInfo precompute(ECPoint p, int minWidth)
+    {
+        return precompute(p, minWidth, 1);
+    }
+
+    /**
+     * Build, or find, a comb table for p of at least minWidth and minCombs. An existing table that
+     * is smaller in either respect is replaced by one at least as large as both.
+     */
+    public static FixedPointPreCompInfo precompute(ECPoint p, int minWidth, int minCombs)
     {
         ECCurve c = p.getCurve();
 
-        int n = 1 << minWidth;
-        FixedPointPreCompInfo info = getFixedPointPreCompInfo(c.getPreCompInfo(p, PRECOMP_NAME));
-        ECPoint[] lookupTable = info.getPreComp();
+        PreCompInfo existing = c.getPreCompInfo(p, PRECOMP_NAME);
+        FixedPointPreCompInfo info = getFixedPointPreCompInfo(existing);
 
-        if (lookupTable == null || lookupTable.length < n)
+        if (info.getPreComp() != null && info.getWidth() >= minWidth && info.getCombs() >= minCombs)
         {
-            int bits = getCombSize(c);
-            int d = (bits + minWidth - 1) / minWidth;
+            return info;
+        }
 
-            ECPoint[] pow2Table = new ECPoint[minWidth];
-            pow2Table[0] = p;
-            for (int i = 1; i < minWidth; ++i)
-            {
-                pow2Table[i] = pow2Table[i - 1].timesPow2(d);
-            }
-    
-            c.normalizeAll(pow2Table);
-    
-            lookupTable = new ECPoint[n];
-            lookupTable[0] = c.getInfinity();
-    
-            for (int bit = minWidth - 1; bit >= 0; --bit)
+        if (info.getPreComp() != null)
+        {
+            // grow in both directions, so alternating requests cannot keep replacing the table
+            minWidth = Math.max(minWidth, info.getWidth());
+            minCombs = Math.max(minCombs, info.getCombs());
+        }
+
+        int bits = getCombSize(c);
+
+        // an equal curve may already have built the table, or it may have been loaded
+        FixedPointPreCompInfo stored = FixedPointStore.lookup(p, bits, minWidth, minCombs);
+        if (stored != null)
+        {
+            return publish(c, p, existing, stored, minWidth, minCombs);
+        }
+
+        int width = minWidth, combs = minCombs;
+        int rows = width * combs;
+        int d = (bits + rows - 1) / rows;
+
+        ECPoint[] pow2Table = new ECPoint[rows];
+        pow2Table[0] = p;
+        for (int i = 1; i < rows; ++i)
+        {
+            pow2Table[i] = pow2Table[i - 1].timesPow2(d);
+        }
+
+        c.normalizeAll(pow2Table);
+
+        int n = 1 << width;
+        ECPoint[] lookupTable = new ECPoint[combs << width];
+
+        for (int comb = 0; comb < combs; ++comb)
+        {
+            int base = comb << width;
+            lookupTable[base] = c.getInfinity();
+
+            for (int bit = width - 1; bit >= 0; --bit)
             {
-                ECPoint pow2 = pow2Table[bit];
+                ECPoint pow2 = pow2Table[comb * width + bit];
 
                 int step = 1 << bit;
                 for (int i = step; i < n; i += (step << 1))
                 {
-                    lookupTable[i] = lookupTable[i - step].add(pow2);
+                    lookupTable[base + i] = lookupTable[base + i - step].add(pow2);
                 }
             }
+        }
 
-            c.normalizeAll(lookupTable);
+        c.normalizeAll(lookupTable);
 
-            info.setPreComp(lookupTable);
-            info.setWidth(minWidth);
+        // published precomputations are read without locks, so a larger table is a new object
+        info = new FixedPointPreCompInfo();
+        info.setPreComp(lookupTable);
+        info.setWidth(width);
+        info.setCombs(combs);
 
-            c.setPreCompInfo(p, PRECOMP_NAME, info);
+        FixedPointStore.remember(p, info);
+
+        return publish(c, p, existing, info, minWidth, minCombs);
+    }
+
+    private static FixedPointPreCompInfo publish(ECCurve c, ECPoint p, PreCompInfo existing,
+        FixedPointPreCompInfo info, int minWidth, int minCombs)
+    {
+        if (!c.compareAndSetPreCompInfo(p, PRECOMP_NAME, existing, info))
+        {
+            // another thread got there first, share its table if it is large enough
+            FixedPointPreCompInfo published = getFixedPointPreCompInfo(c.getPreCompInfo(p, PRECOMP_NAME));
+            if (published.getPreComp() != null && published.getWidth() >= minWidth
+                && published.getCombs() >= minCombs)
+            {
+                return published;
+            }
         }
 
         return info;
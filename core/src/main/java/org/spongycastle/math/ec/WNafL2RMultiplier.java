@@ -19,6 +19,7 @@ protected ECPoint multiplyPositive(ECPoint p, BigInteger k)
     {
         // Clamp the window width in the range [2, 16]
         int width = Math.max(2, Math.min(16, getWindowSize(k.bitLength())));
+        width = WNafUtil.getWindowSize(p, width, 16);
 
         WNafPreCompInfo wnafPreCompInfo = WNafUtil.precompute(p, width, true);
         ECPoint[] preComp = wnafPreCompInfo.getPreComp();
@@ -343,6 +343,33 @@ public static int getWindowSize(int bits, int[] windowSizeCutoffs)
         return w + 2;
     }
 
+    /**
+     * Widen a window to match the table already precomputed for p, if that is wider. Tables are
+     * only ever extended, so once a point has been given a wide table, for instance a generator set
+     * up with a call to {@link #precompute(ECPoint, int, boolean)}, every multiplication of it
+     * gets the shorter NAF for free.
+     *
+     * @param p the point to be multiplied
+     * @param width the window width chosen for the scalar
+     * @param maxWidth the widest window the caller can handle
+     * @return the window size to use
+     */
+    public static int getWindowSize(ECPoint p, int width, int maxWidth)
+    {
+        ECPoint[] preComp = getWNafPreCompInfo(p).getPreComp();
+        if (preComp != null)
+        {
+            // a table of 2^(w-2) points serves a window of width w
+            int existing = 2;
+            while ((2 << (existing - 2)) <= preComp.length)
+            {
+                ++existing;
+            }
+            width = Math.max(width, Math.min(maxWidth, existing));
+        }
+        return width;
+    }
+
     public static ECPoint mapPointWithPrecomp(ECPoint p, int width, boolean includeNegated,
         ECPointMap pointMap)
     {
@@ -350,7 +377,7 @@ public static ECPoint mapPointWithPrecomp(ECPoint p, int width, boolean includeN
         WNafPreCompInfo wnafPreCompP = precompute(p, width, includeNegated);
 
         ECPoint q = pointMap.map(p);
-        WNafPreCompInfo wnafPreCompQ = getWNafPreCompInfo(c.getPreCompInfo(q, PRECOMP_NAME));
+        WNafPreCompInfo wnafPreCompQ = new WNafPreCompInfo();
 
         ECPoint twiceP = wnafPreCompP.getTwice();
         if (twiceP != null)
@@ -385,9 +412,26 @@ public static ECPoint mapPointWithPrecomp(ECPoint p, int width, boolean includeN
     public static WNafPreCompInfo precompute(ECPoint p, int width, boolean includeNegated)
     {
         ECCurve c = p.getCurve();
-        WNafPreCompInfo wnafPreCompInfo = getWNafPreCompInfo(c.getPreCompInfo(p, PRECOMP_NAME));
+        PreCompInfo existing = c.getPreCompInfo(p, PRECOMP_NAME);
+        WNafPreCompInfo existingWNaf = getWNafPreCompInfo(existing);
+
+        int reqPreCompLen = 1 << Math.max(0, width - 2);
+
+        if (isSufficient(existingWNaf, reqPreCompLen, includeNegated))
+        {
+            return existingWNaf;
+        }
 
-        int iniPreCompLen = 0, reqPreCompLen = 1 << Math.max(0, width - 2);
+        /*
+         * Published precomputations are read without locks, so the larger tables go in a new object
+         * which is then published in place of the one they were computed from.
+         */
+        WNafPreCompInfo wnafPreCompInfo = new WNafPreCompInfo();
+        wnafPreCompInfo.setPreComp(existingWNaf.getPreComp());
+        wnafPreCompInfo.setPreCompNeg(existingWNaf.getPreCompNeg());
+        wnafPreCompInfo.setTwice(existingWNaf.getTwice());
+
+        int iniPreCompLen = 0;
 
         ECPoint[] preComp = wnafPreCompInfo.getPreComp();
         if (preComp == null)
@@ -512,11 +556,34 @@ public static WNafPreCompInfo precompute(ECPoint p, int width, boolean includeNe
             wnafPreCompInfo.setPreCompNeg(preCompNeg);
         }
 
-        c.setPreCompInfo(p, PRECOMP_NAME, wnafPreCompInfo);
+        if (!c.compareAndSetPreCompInfo(p, PRECOMP_NAME, existing, wnafPreCompInfo))
+        {
+            // another thread got there first, share its tables if they are large enough
+            WNafPreCompInfo published = getWNafPreCompInfo(c.getPreCompInfo(p, PRECOMP_NAME));
+            if (isSufficient(published, reqPreCompLen, includeNegated))
+            {
+                return published;
+            }
+        }
 
         return wnafPreCompInfo;
     }
 
+    private static boolean isSufficient(WNafPreCompInfo info, int reqPreCompLen, boolean includeNegated)
+    {
+        ECPoint[] preComp = info.getPreComp();
+        if (preComp == null || preComp.length < reqPreCompLen)
+        {
+            return false;
+        }
+        if (includeNegated)
+        {
+            ECPoint[] preCompNeg = info.getPreCompNeg();
+            return preCompNeg != null && preCompNeg.length >= reqPreCompLen;
+        }
+        return true;
+    }
+
     private static byte[] trim(byte[] a, int length)
     {
         byte[] result = new byte[length];
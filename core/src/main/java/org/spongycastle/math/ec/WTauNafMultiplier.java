@@ -83,7 +83,7 @@ private static ECPoint.AbstractF2m multiplyFromWTnaf(ECPoint.AbstractF2m p, byte
 
             WTauNafPreCompInfo pre = new WTauNafPreCompInfo();
             pre.setPreComp(pu);
-            curve.setPreCompInfo(p, PRECOMP_NAME, pre);
+            curve.compareAndSetPreCompInfo(p, PRECOMP_NAME, preCompInfo, pre);
         }
         else
         {
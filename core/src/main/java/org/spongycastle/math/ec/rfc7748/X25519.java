@@ -0,0 +1,162 @@
+package org.spongycastle.math.ec.rfc7748;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.math.ec.rfc8032.Ed25519;
+
+/**
+ * The X25519 function of RFC 7748, a Montgomery ladder over Curve25519.
+ * <p>
+ * The ladder runs for a fixed 255 steps with conditional swaps in place of branches, so its timing
+ * does not depend on the scalar. Public keys are calculated on the birationally equivalent Edwards
+ * curve instead, where the base point tables of {@link Ed25519} make them several times cheaper.
+ * </p>
+ */
+public abstract class X25519
+{
+    public static final int POINT_SIZE = 32;
+    public static final int SCALAR_SIZE = 32;
+
+    private static final int C_A24 = 121665;
+
+    /**
+     * Calculate the shared secret k * u into r.
+     *
+     * @return false if the result is all zeroes, as it is for u of small order.
+     */
+    public static boolean calculateAgreement(byte[] k, int kOff, byte[] u, int uOff, byte[] r, int rOff)
+    {
+        scalarMult(k, kOff, u, uOff, r, rOff);
+
+        int d = 0;
+        for (int i = 0; i < POINT_SIZE; ++i)
+        {
+            d |= r[rOff + i];
+        }
+        return d != 0;
+    }
+
+    public static void generatePrivateKey(SecureRandom random, byte[] k)
+    {
+        random.nextBytes(k);
+
+        k[0] &= 0xF8;
+        k[SCALAR_SIZE - 1] &= 0x7F;
+        k[SCALAR_SIZE - 1] |= 0x40;
+    }
+
+    public static void generatePublicKey(byte[] k, int kOff, byte[] r, int rOff)
+    {
+        scalarMultBase(k, kOff, r, rOff);
+    }
+
+    public static void scalarMult(byte[] k, int kOff, byte[] u, int uOff, byte[] r, int rOff)
+    {
+        int[] n = decodeScalar(k, kOff);
+
+        int[] x1 = X25519Field.create();
+        X25519Field.decode(u, uOff, x1);
+        int[] x2 = X25519Field.create();
+        X25519Field.one(x2);
+        int[] z2 = X25519Field.create();
+        int[] x3 = X25519Field.create();
+        X25519Field.copy(x1, 0, x3, 0);
+        int[] z3 = X25519Field.create();
+        X25519Field.one(z3);
+
+        int[] A = X25519Field.create();
+        int[] B = X25519Field.create();
+        int[] C = X25519Field.create();
+        int[] D = X25519Field.create();
+        int[] E = X25519Field.create();
+
+        int swap = 0;
+        for (int bit = 254; bit >= 0; --bit)
+        {
+            int kt = (n[bit >>> 5] >>> (bit & 0x1F)) & 1;
+            swap ^= kt;
+            X25519Field.cswap(swap, x2, x3);
+            X25519Field.cswap(swap, z2, z3);
+            swap = kt;
+
+            X25519Field.add(x2, z2, A);
+            X25519Field.sub(x2, z2, B);
+            X25519Field.add(x3, z3, C);
+            X25519Field.sub(x3, z3, D);
+
+            X25519Field.mul(D, A, D);           // DA
+            X25519Field.mul(C, B, C);           // CB
+            X25519Field.sqr(A, A);              // AA
+            X25519Field.sqr(B, B);              // BB
+            X25519Field.sub(A, B, E);           // E = AA - BB
+
+            X25519Field.add(D, C, x3);
+            X25519Field.sqr(x3, x3);
+            X25519Field.sub(D, C, z3);
+            X25519Field.sqr(z3, z3);
+            X25519Field.mul(z3, x1, z3);
+
+            X25519Field.mul(A, B, x2);
+            X25519Field.mul(E, C_A24, z2);
+            X25519Field.add(z2, A, z2);
+            X25519Field.mul(z2, E, z2);
+        }
+
+        X25519Field.cswap(swap, x2, x3);
+        X25519Field.cswap(swap, z2, z3);
+
+        X25519Field.inv(z2, z2);
+        X25519Field.mul(x2, z2, x2);
+
+        X25519Field.encode(x2, r, rOff);
+    }
+
+    public static void scalarMultBase(byte[] k, int kOff, byte[] r, int rOff)
+    {
+        byte[] n = new byte[SCALAR_SIZE];
+        encodeScalar(decodeScalar(k, kOff), n);
+
+        int[] y = X25519Field.create();
+        int[] z = X25519Field.create();
+
+        Ed25519.scalarMultBaseYZ(n, 0, y, z);
+
+        // u = (1 + y) / (1 - y) = (Z + Y) / (Z - Y)
+        int[] t = X25519Field.create();
+        X25519Field.sub(z, y, t);
+        X25519Field.add(z, y, z);
+        X25519Field.inv(t, t);
+        X25519Field.mul(z, t, z);
+
+        X25519Field.encode(z, r, rOff);
+    }
+
+    /*
+     * Read a scalar, clamped as RFC 7748 section 5 requires.
+     */
+    private static int[] decodeScalar(byte[] k, int kOff)
+    {
+        int[] n = new int[8];
+        for (int i = 0; i < 8; ++i, kOff += 4)
+        {
+            n[i] = (k[kOff] & 0xFF) | (k[kOff + 1] & 0xFF) << 8 | (k[kOff + 2] & 0xFF) << 16 | k[kOff + 3] << 24;
+        }
+
+        n[0] &= 0xFFFFFFF8;
+        n[7] &= 0x7FFFFFFF;
+        n[7] |= 0x40000000;
+        return n;
+    }
+
+    private static void encodeScalar(int[] n, byte[] k)
+    {
+        for (int i = 0; i < 8; ++i)
+        {
+            int w = n[i];
+            k[4 * i] = (byte)w;
+            k[4 * i + 1] = (byte)(w >>> 8);
+            k[4 * i + 2] = (byte)(w >>> 16);
+            k[4 * i + 3] = (byte)(w >>> 24);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package org.spongycastle.math.ec.rfc7748;
+
+/**
+ * Constant-time arithmetic in GF(2^255 - 19), the field under Curve25519 and edwards25519.
+ * <p>
+ * An element is an int[10] of limbs alternately 26 and 25 bits wide (radix 2^25.5). Products are
+ * accumulated in longs and carried without any branch or memory access that depends on the
+ * values, and add and sub leave their results uncarried, so at most one add or sub should separate
+ * two multiplications. Results are only fully reduced by {@link #normalize(int[])} and
+ * {@link #encode(int[], byte[], int)}.
+ * </p>
+ */
+public abstract class X25519Field
+{
+    public static final int SIZE = 10;
+
+    private static final int M25 = 0x01FFFFFF;
+    private static final int M26 = 0x03FFFFFF;
+
+    public static void add(int[] x, int[] y, int[] z)
+    {
+        for (int i = 0; i < SIZE; ++i)
+        {
+            z[i] = x[i] + y[i];
+        }
+    }
+
+    /**
+     * Propagate the carries of z so every limb is back in range.
+     */
+    public static void carry(int[] z)
+    {
+        int z0 = z[0], z1 = z[1], z2 = z[2], z3 = z[3], z4 = z[4];
+        int z5 = z[5], z6 = z[6], z7 = z[7], z8 = z[8], z9 = z[9];
+
+        z1 += (z0 >> 26); z0 &= M26;
+        z2 += (z1 >> 25); z1 &= M25;
+        z3 += (z2 >> 26); z2 &= M26;
+        z4 += (z3 >> 25); z3 &= M25;
+        z5 += (z4 >> 26); z4 &= M26;
+        z6 += (z5 >> 25); z5 &= M25;
+        z7 += (z6 >> 26); z6 &= M26;
+        z8 += (z7 >> 25); z7 &= M25;
+        z9 += (z8 >> 26); z8 &= M26;
+        z0 += (z9 >> 25) * 19; z9 &= M25;
+        z1 += (z0 >> 26); z0 &= M26;
+
+        z[0] = z0; z[1] = z1; z[2] = z2; z[3] = z3; z[4] = z4;
+        z[5] = z5; z[6] = z6; z[7] = z7; z[8] = z8; z[9] = z9;
+    }
+
+    /**
+     * Set z to x if cond is 1, leave it unchanged if cond is 0.
+     */
+    public static void cmov(int cond, int[] x, int xOff, int[] z, int zOff)
+    {
+        int mask = -cond;
+        for (int i = 0; i < SIZE; ++i)
+        {
+            int z_i = z[zOff + i];
+            z[zOff + i] = z_i ^ ((z_i ^ x[xOff + i]) & mask);
+        }
+    }
+
+    /**
+     * Negate z if negate is 1, leave it unchanged if negate is 0.
+     */
+    public static void cnegate(int negate, int[] z)
+    {
+        int mask = -negate;
+        for (int i = 0; i < SIZE; ++i)
+        {
+            z[i] = (z[i] ^ mask) - mask;
+        }
+    }
+
+    /**
+     * Exchange a and b if swap is 1, leave them unchanged if swap is 0.
+     */
+    public static void cswap(int swap, int[] a, int[] b)
+    {
+        int mask = -swap;
+        for (int i = 0; i < SIZE; ++i)
+        {
+            int a_i = a[i], b_i = b[i];
+            int dummy = mask & (a_i ^ b_i);
+            a[i] = a_i ^ dummy;
+            b[i] = b_i ^ dummy;
+        }
+    }
+
+    public static void copy(int[] x, int xOff, int[] z, int zOff)
+    {
+        System.arraycopy(x, xOff, z, zOff, SIZE);
+    }
+
+    public static int[] create()
+    {
+        return new int[SIZE];
+    }
+
+    public static int[] createTable(int n)
+    {
+        return new int[SIZE * n];
+    }
+
+    /**
+     * Read a 32 byte little-endian value, ignoring the top bit as RFC 7748 requires. The result is
+     * not reduced, values from p to 2^255 - 1 are accepted.
+     */
+    public static void decode(byte[] x, int xOff, int[] z)
+    {
+        int n0 = decode32(x, xOff), n1 = decode32(x, xOff + 4), n2 = decode32(x, xOff + 8);
+        int n3 = decode32(x, xOff + 12), n4 = decode32(x, xOff + 16), n5 = decode32(x, xOff + 20);
+        int n6 = decode32(x, xOff + 24), n7 = decode32(x, xOff + 28);
+
+        z[0] = n0 & M26;
+        z[1] = ((n0 >>> 26) | (n1 << 6)) & M25;
+        z[2] = ((n1 >>> 19) | (n2 << 13)) & M26;
+        z[3] = ((n2 >>> 13) | (n3 << 19)) & M25;
+        z[4] = (n3 >>> 6) & M26;
+        z[5] = n4 & M25;
+        z[6] = ((n4 >>> 25) | (n5 << 7)) & M26;
+        z[7] = ((n5 >>> 19) | (n6 << 13)) & M25;
+        z[8] = ((n6 >>> 12) | (n7 << 20)) & M26;
+        z[9] = (n7 >>> 6) & M25;
+    }
+
+    /**
+     * Write x, fully reduced, as 32 little-endian bytes. x itself is left as it was.
+     */
+    public static void encode(int[] x, byte[] z, int zOff)
+    {
+        int[] t = create();
+        copy(x, 0, t, 0);
+        normalize(t);
+
+        int t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4];
+        int t5 = t[5], t6 = t[6], t7 = t[7], t8 = t[8], t9 = t[9];
+
+        encode32(t0 | (t1 << 26), z, zOff);
+        encode32((t1 >>> 6) | (t2 << 19), z, zOff + 4);
+        encode32((t2 >>> 13) | (t3 << 13), z, zOff + 8);
+        encode32((t3 >>> 19) | (t4 << 6), z, zOff + 12);
+        encode32(t5 | (t6 << 25), z, zOff + 16);
+        encode32((t6 >>> 7) | (t7 << 19), z, zOff + 20);
+        encode32((t7 >>> 13) | (t8 << 12), z, zOff + 24);
+        encode32((t8 >>> 20) | (t9 << 6), z, zOff + 28);
+    }
+
+    public static void inv(int[] x, int[] z)
+    {
+        // z = x^(p - 2) = x^(2^255 - 21)
+        int[] x11 = create(), t = create();
+        pow2250m1(x, x11, t);
+        sqr(t, 5, t);
+        mul(t, x11, z);
+    }
+
+    /**
+     * Return 1 if x is zero modulo p, 0 otherwise, in constant time.
+     */
+    public static int isZero(int[] x)
+    {
+        int[] t = create();
+        copy(x, 0, t, 0);
+        normalize(t);
+
+        int d = 0;
+        for (int i = 0; i < SIZE; ++i)
+        {
+            d |= t[i];
+        }
+        return ((d | -d) >>> 31) ^ 1;
+    }
+
+    public static boolean isZeroVar(int[] x)
+    {
+        return isZero(x) != 0;
+    }
+
+    public static void mul(int[] x, int y, int[] z)
+    {
+        reduce((long)x[0] * y, (long)x[1] * y, (long)x[2] * y, (long)x[3] * y, (long)x[4] * y,
+            (long)x[5] * y, (long)x[6] * y, (long)x[7] * y, (long)x[8] * y, (long)x[9] * y, z);
+    }
+
+    public static void mul(int[] x, int[] y, int[] z)
+    {
+        int x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3], x4 = x[4];
+        int x5 = x[5], x6 = x[6], x7 = x[7], x8 = x[8], x9 = x[9];
+        int y0 = y[0], y1 = y[1], y2 = y[2], y3 = y[3], y4 = y[4];
+        int y5 = y[5], y6 = y[6], y7 = y[7], y8 = y[8], y9 = y[9];
+
+        // two odd limbs sit half a bit apart from their product's position
+        int x1_2 = x1 << 1, x3_2 = x3 << 1, x5_2 = x5 << 1, x7_2 = x7 << 1, x9_2 = x9 << 1;
+
+        long h0 = (long)x0 * y0
+            + 19L * ((long)x1_2 * y9 + (long)x2 * y8 + (long)x3_2 * y7 + (long)x4 * y6 + (long)x5_2 * y5
+                + (long)x6 * y4 + (long)x7_2 * y3 + (long)x8 * y2 + (long)x9_2 * y1);
+        long h1 = (long)x0 * y1 + (long)x1 * y0
+            + 19L * ((long)x2 * y9 + (long)x3 * y8 + (long)x4 * y7 + (long)x5 * y6 + (long)x6 * y5 + (long)x7 * y4
+                + (long)x8 * y3 + (long)x9 * y2);
+        long h2 = (long)x0 * y2 + (long)x1_2 * y1 + (long)x2 * y0
+            + 19L * ((long)x3_2 * y9 + (long)x4 * y8 + (long)x5_2 * y7 + (long)x6 * y6 + (long)x7_2 * y5
+                + (long)x8 * y4 + (long)x9_2 * y3);
+        long h3 = (long)x0 * y3 + (long)x1 * y2 + (long)x2 * y1 + (long)x3 * y0
+            + 19L * ((long)x4 * y9 + (long)x5 * y8 + (long)x6 * y7 + (long)x7 * y6 + (long)x8 * y5 + (long)x9 * y4);
+        long h4 = (long)x0 * y4 + (long)x1_2 * y3 + (long)x2 * y2 + (long)x3_2 * y1 + (long)x4 * y0
+            + 19L * ((long)x5_2 * y9 + (long)x6 * y8 + (long)x7_2 * y7 + (long)x8 * y6 + (long)x9_2 * y5);
+        long h5 = (long)x0 * y5 + (long)x1 * y4 + (long)x2 * y3 + (long)x3 * y2 + (long)x4 * y1 + (long)x5 * y0
+            + 19L * ((long)x6 * y9 + (long)x7 * y8 + (long)x8 * y7 + (long)x9 * y6);
+        long h6 = (long)x0 * y6 + (long)x1_2 * y5 + (long)x2 * y4 + (long)x3_2 * y3 + (long)x4 * y2
+            + (long)x5_2 * y1 + (long)x6 * y0
+            + 19L * ((long)x7_2 * y9 + (long)x8 * y8 + (long)x9_2 * y7);
+        long h7 = (long)x0 * y7 + (long)x1 * y6 + (long)x2 * y5 + (long)x3 * y4 + (long)x4 * y3 + (long)x5 * y2
+            + (long)x6 * y1 + (long)x7 * y0
+            + 19L * ((long)x8 * y9 + (long)x9 * y8);
+        long h8 = (long)x0 * y8 + (long)x1_2 * y7 + (long)x2 * y6 + (long)x3_2 * y5 + (long)x4 * y4
+            + (long)x5_2 * y3 + (long)x6 * y2 + (long)x7_2 * y1 + (long)x8 * y0
+            + 19L * ((long)x9_2 * y9);
+        long h9 = (long)x0 * y9 + (long)x1 * y8 + (long)x2 * y7 + (long)x3 * y6 + (long)x4 * y5 + (long)x5 * y4
+            + (long)x6 * y3 + (long)x7 * y2 + (long)x8 * y1 + (long)x9 * y0;
+
+        reduce(h0, h1, h2, h3, h4, h5, h6, h7, h8, h9, z);
+    }
+
+    public static void negate(int[] x, int[] z)
+    {
+        for (int i = 0; i < SIZE; ++i)
+        {
+            z[i] = -x[i];
+        }
+    }
+
+    /**
+     * Fully reduce z, leaving every limb in range and the value below p.
+     */
+    public static void normalize(int[] z)
+    {
+        // adding 4p makes every limb of a sum or difference non-negative
+        int z0 = z[0] + (M26 - 18) * 4, z1 = z[1] + M25 * 4, z2 = z[2] + M26 * 4, z3 = z[3] + M25 * 4;
+        int z4 = z[4] + M26 * 4, z5 = z[5] + M25 * 4, z6 = z[6] + M26 * 4, z7 = z[7] + M25 * 4;
+        int z8 = z[8] + M26 * 4, z9 = z[9] + M25 * 4;
+
+        // two passes leave the value below 2^255 with every limb in range
+        for (int pass = 0; pass < 2; ++pass)
+        {
+            z1 += (z0 >> 26); z0 &= M26;
+            z2 += (z1 >> 25); z1 &= M25;
+            z3 += (z2 >> 26); z2 &= M26;
+            z4 += (z3 >> 25); z3 &= M25;
+            z5 += (z4 >> 26); z4 &= M26;
+            z6 += (z5 >> 25); z5 &= M25;
+            z7 += (z6 >> 26); z6 &= M26;
+            z8 += (z7 >> 25); z7 &= M25;
+            z9 += (z8 >> 26); z8 &= M26;
+            z0 += (z9 >> 25) * 19; z9 &= M25;
+        }
+
+        // q is 1 if z + 19 reaches 2^255, i.e. z >= p
+        int q = (z0 + 19) >> 26;
+        q = (z1 + q) >> 25;
+        q = (z2 + q) >> 26;
+        q = (z3 + q) >> 25;
+        q = (z4 + q) >> 26;
+        q = (z5 + q) >> 25;
+        q = (z6 + q) >> 26;
+        q = (z7 + q) >> 25;
+        q = (z8 + q) >> 26;
+        q = (z9 + q) >> 25;
+
+        z0 += q * 19;
+        z1 += (z0 >> 26); z0 &= M26;
+        z2 += (z1 >> 25); z1 &= M25;
+        z3 += (z2 >> 26); z2 &= M26;
+        z4 += (z3 >> 25); z3 &= M25;
+        z5 += (z4 >> 26); z4 &= M26;
+        z6 += (z5 >> 25); z5 &= M25;
+        z7 += (z6 >> 26); z6 &= M26;
+        z8 += (z7 >> 25); z7 &= M25;
+        z9 += (z8 >> 26); z8 &= M26;
+        z9 &= M25;
+
+        z[0] = z0; z[1] = z1; z[2] = z2; z[3] = z3; z[4] = z4;
+        z[5] = z5; z[6] = z6; z[7] = z7; z[8] = z8; z[9] = z9;
+    }
+
+    public static void one(int[] z)
+    {
+        z[0] = 1;
+        for (int i = 1; i < SIZE; ++i)
+        {
+            z[i] = 0;
+        }
+    }
+
+    /**
+     * z = x^((p - 5) / 8) = x^(2^252 - 3), as used for square roots.
+     */
+    public static void powPm5d8(int[] x, int[] z)
+    {
+        int[] x11 = create(), t = create();
+        pow2250m1(x, x11, t);
+        sqr(t, 2, t);
+        mul(t, x, z);
+    }
+
+    public static void sqr(int[] x, int[] z)
+    {
+        int x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3], x4 = x[4];
+        int x5 = x[5], x6 = x[6], x7 = x[7], x8 = x[8], x9 = x[9];
+
+        int x0_2 = x0 << 1, x1_2 = x1 << 1, x2_2 = x2 << 1, x3_2 = x3 << 1, x4_2 = x4 << 1;
+        int x5_2 = x5 << 1, x6_2 = x6 << 1, x7_2 = x7 << 1, x8_2 = x8 << 1, x9_2 = x9 << 1;
+        int x1_4 = x1 << 2, x3_4 = x3 << 2, x5_4 = x5 << 2, x7_4 = x7 << 2;
+
+        long h0 = (long)x0 * x0
+            + 19L * ((long)x1_4 * x9 + (long)x2_2 * x8 + (long)x3_4 * x7 + (long)x4_2 * x6 + (long)x5_2 * x5);
+        long h1 = (long)x0_2 * x1
+            + 19L * ((long)x2_2 * x9 + (long)x3_2 * x8 + (long)x4_2 * x7 + (long)x5_2 * x6);
+        long h2 = (long)x0_2 * x2 + (long)x1_2 * x1
+            + 19L * ((long)x3_4 * x9 + (long)x4_2 * x8 + (long)x5_4 * x7 + (long)x6 * x6);
+        long h3 = (long)x0_2 * x3 + (long)x1_2 * x2
+            + 19L * ((long)x4_2 * x9 + (long)x5_2 * x8 + (long)x6_2 * x7);
+        long h4 = (long)x0_2 * x4 + (long)x1_4 * x3 + (long)x2 * x2
+            + 19L * ((long)x5_4 * x9 + (long)x6_2 * x8 + (long)x7_2 * x7);
+        long h5 = (long)x0_2 * x5 + (long)x1_2 * x4 + (long)x2_2 * x3
+            + 19L * ((long)x6_2 * x9 + (long)x7_2 * x8);
+        long h6 = (long)x0_2 * x6 + (long)x1_4 * x5 + (long)x2_2 * x4 + (long)x3_2 * x3
+            + 19L * ((long)x7_4 * x9 + (long)x8 * x8);
+        long h7 = (long)x0_2 * x7 + (long)x1_2 * x6 + (long)x2_2 * x5 + (long)x3_2 * x4
+            + 19L * ((long)x8_2 * x9);
+        long h8 = (long)x0_2 * x8 + (long)x1_4 * x7 + (long)x2_2 * x6 + (long)x3_4 * x5 + (long)x4 * x4
+            + 19L * ((long)x9_2 * x9);
+        long h9 = (long)x0_2 * x9 + (long)x1_2 * x8 + (long)x2_2 * x7 + (long)x3_2 * x6 + (long)x4_2 * x5;
+
+        reduce(h0, h1, h2, h3, h4, h5, h6, h7, h8, h9, z);
+    }
+
+    /**
+     * Square x n times.
+     */
+    public static void sqr(int[] x, int n, int[] z)
+    {
+        sqr(x, z);
+        while (--n > 0)
+        {
+            sqr(z, z);
+        }
+    }
+
+    public static void sub(int[] x, int[] y, int[] z)
+    {
+        for (int i = 0; i < SIZE; ++i)
+        {
+            z[i] = x[i] - y[i];
+        }
+    }
+
+    public static void zero(int[] z)
+    {
+        for (int i = 0; i < SIZE; ++i)
+        {
+            z[i] = 0;
+        }
+    }
+
+    private static int decode32(byte[] bs, int off)
+    {
+        int n = bs[off] & 0xFF;
+        n |= (bs[++off] & 0xFF) << 8;
+        n |= (bs[++off] & 0xFF) << 16;
+        n |= bs[++off] << 24;
+        return n;
+    }
+
+    private static void encode32(int n, byte[] bs, int off)
+    {
+        bs[off] = (byte)n;
+        bs[++off] = (byte)(n >>> 8);
+        bs[++off] = (byte)(n >>> 16);
+        bs[++off] = (byte)(n >>> 24);
+    }
+
+    /*
+     * r11 = x^11, r = x^(2^250 - 1), the common prefix of the inversion and square root chains.
+     */
+    private static void pow2250m1(int[] x, int[] r11, int[] r)
+    {
+        int[] t0 = create(), t1 = create(), t2 = create();
+
+        sqr(x, t0);
+        sqr(t0, 2, t1);
+        mul(x, t1, t1);
+        mul(t0, t1, r11);
+        sqr(r11, t0);
+        mul(t1, t0, t0);            // 2^5 - 1
+        sqr(t0, 5, t1);
+        mul(t1, t0, t0);            // 2^10 - 1
+        sqr(t0, 10, t1);
+        mul(t1, t0, t1);            // 2^20 - 1
+        sqr(t1, 20, t2);
+        mul(t2, t1, t1);            // 2^40 - 1
+        sqr(t1, 10, t1);
+        mul(t1, t0, t0);            // 2^50 - 1
+        sqr(t0, 50, t1);
+        mul(t1, t0, t1);            // 2^100 - 1
+        sqr(t1, 100, t2);
+        mul(t2, t1, t1);            // 2^200 - 1
+        sqr(t1, 50, t1);
+        mul(t1, t0, r);             // 2^250 - 1
+    }
+
+    private static void reduce(long h0, long h1, long h2, long h3, long h4, long h5, long h6, long h7, long h8,
+        long h9, int[] z)
+    {
+        h1 += (h0 >> 26); h0 &= M26;
+        h2 += (h1 >> 25); h1 &= M25;
+        h3 += (h2 >> 26); h2 &= M26;
+        h4 += (h3 >> 25); h3 &= M25;
+        h5 += (h4 >> 26); h4 &= M26;
+        h6 += (h5 >> 25); h5 &= M25;
+        h7 += (h6 >> 26); h6 &= M26;
+        h8 += (h7 >> 25); h7 &= M25;
+        h9 += (h8 >> 26); h8 &= M26;
+        h0 += (h9 >> 25) * 19; h9 &= M25;
+        h1 += (h0 >> 26); h0 &= M26;
+
+        z[0] = (int)h0; z[1] = (int)h1; z[2] = (int)h2; z[3] = (int)h3; z[4] = (int)h4;
+        z[5] = (int)h5; z[6] = (int)h6; z[7] = (int)h7; z[8] = (int)h8; z[9] = (int)h9;
+    }
+}
@@ -0,0 +1,932 @@
+package org.spongycastle.math.ec.rfc8032;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.digests.SHA512Digest;
+import org.spongycastle.math.ec.rfc7748.X25519Field;
+import org.spongycastle.math.raw.Nat256;
+import org.spongycastle.util.Arrays;
+
+/**
+ * Ed25519 signatures as described in RFC 8032, on the twisted Edwards curve edwards25519.
+ * <p>
+ * Points are kept in extended coordinates (X:Y:Z:T) and added with the formulas of Hisil, Wong,
+ * Carter and Dawson. Multiples of the base point are read, in constant time, from a table of 32 x
+ * 8 precomputed points built on first use, so signing and key generation take 64 additions and 4
+ * doublings. Verification works only on public data and uses a faster variable-time double
+ * scalar multiplication.
+ * </p>
+ */
+public abstract class Ed25519
+{
+    public static final int PUBLIC_KEY_SIZE = 32;
+    public static final int SECRET_KEY_SIZE = 32;
+    public static final int SIGNATURE_SIZE = 64;
+
+    private static final int POINT_BYTES = 32;
+    private static final int SCALAR_INTS = 8;
+    private static final int SCALAR_BYTES = 32;
+
+    // 2^255 - 19
+    private static final int[] P = new int[]{ 0xFFFFFFED, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF,
+        0xFFFFFFFF, 0x7FFFFFFF };
+    // 2^252 + 27742317777372353535851937790883648493, the order of the base point
+    private static final int[] L = new int[]{ 0x5CF5D3ED, 0x5812631A, 0xA2F79CD6, 0x14DEF9DE, 0x00000000, 0x00000000,
+        0x00000000, 0x10000000 };
+
+    // 2^252 modulo L, as signed 21-bit limbs
+    private static final long L0 = 666643;
+    private static final long L1 = 470296;
+    private static final long L2 = 654183;
+    private static final long L3 = -997805;
+    private static final long L4 = 136657;
+    private static final long L5 = -683901;
+
+    // d = -121665/121666
+    private static final int[] C_d = new int[]{ 0x035978A3, 0x00D37284, 0x03156EBD, 0x006A0A0E, 0x0001C029, 0x0179E898,
+        0x03A03CBB, 0x01CE7198, 0x02E2B6FF, 0x01480DB3 };
+    private static final int[] C_d2 = new int[]{ 0x02B2F159, 0x01A6E509, 0x022ADD7A, 0x00D4141D, 0x00038052, 0x00F3D130,
+        0x03407977, 0x019CE331, 0x01C56DFF, 0x00901B67 };
+    private static final int[] C_sqrt_m1 = new int[]{ 0x020EA0B0, 0x0186C9D2, 0x008F189D, 0x0035697F, 0x00BD0C60,
+        0x01FBD7A7, 0x02804C9E, 0x01E16569, 0x0004FC1D, 0x00AE0C92 };
+
+    private static final int[] B_x = new int[]{ 0x0325D51A, 0x018B5823, 0x00F6592A, 0x0104A92D, 0x01A4B31D, 0x01D6DC5C,
+        0x027118FE, 0x007FD814, 0x013CD6E5, 0x0085A4DB };
+    private static final int[] B_y = new int[]{ 0x02666658, 0x01999999, 0x00CCCCCC, 0x01333333, 0x01999999, 0x00666666,
+        0x03333333, 0x00CCCCCC, 0x02666666, 0x01999999 };
+
+    private static final int PRECOMP_BLOCKS = 32;
+    private static final int PRECOMP_POINTS = 8;
+    private static final int PRECOMP_ENTRY = 3 * X25519Field.SIZE;
+
+    private static final int WNAF_POINTS = 8;
+
+    private static class PointExt
+    {
+        int[] x = X25519Field.create();
+        int[] y = X25519Field.create();
+        int[] z = X25519Field.create();
+        int[] t = X25519Field.create();
+    }
+
+    /*
+     * An affine point as (y + x, y - x, 2dxy), ready to be added to an extended point.
+     */
+    private static class PointPrecomp
+    {
+        int[] ypx = X25519Field.create();
+        int[] ymx = X25519Field.create();
+        int[] xyd = X25519Field.create();
+    }
+
+    private static final Object precompLock = new Object();
+    // (j + 1) * 256^i * B for block i and point j
+    private static volatile int[] precompBaseComb = null;
+    // B, 3B, 5B, ..., 15B for verification
+    private static PointPrecomp[] precompBaseWnaf = null;
+
+    public static void generatePrivateKey(SecureRandom random, byte[] k)
+    {
+        random.nextBytes(k);
+    }
+
+    public static void generatePublicKey(byte[] sk, int skOff, byte[] pk, int pkOff)
+    {
+        Digest d = new SHA512Digest();
+        byte[] h = new byte[d.getDigestSize()];
+
+        d.update(sk, skOff, SECRET_KEY_SIZE);
+        d.doFinal(h, 0);
+
+        byte[] s = new byte[SCALAR_BYTES];
+        pruneScalar(h, 0, s);
+
+        scalarMultBaseEncoded(s, pk, pkOff);
+    }
+
+    /**
+     * Build the base point tables now, rather than on first use.
+     */
+    public static void precompute()
+    {
+        if (precompBaseComb != null)
+        {
+            return;
+        }
+
+        synchronized (precompLock)
+        {
+            if (precompBaseComb == null)
+            {
+                precompBaseWnaf = createBaseWnaf();
+                precompBaseComb = createBaseComb();
+            }
+        }
+    }
+
+    /**
+     * Calculate the y and z coordinates of k times the base point, for X25519.
+     *
+     * @param k a 32 byte little-endian scalar, with its top bit clear.
+     */
+    public static void scalarMultBaseYZ(byte[] k, int kOff, int[] y, int[] z)
+    {
+        byte[] n = new byte[SCALAR_BYTES];
+        System.arraycopy(k, kOff, n, 0, SCALAR_BYTES);
+
+        PointExt p = new PointExt();
+        scalarMultBase(n, p);
+
+        X25519Field.copy(p.y, 0, y, 0);
+        X25519Field.copy(p.z, 0, z, 0);
+    }
+
+    public static void sign(byte[] sk, int skOff, byte[] m, int mOff, int mLen, byte[] sig, int sigOff)
+    {
+        Digest d = new SHA512Digest();
+        byte[] h = new byte[d.getDigestSize()];
+
+        d.update(sk, skOff, SECRET_KEY_SIZE);
+        d.doFinal(h, 0);
+
+        byte[] s = new byte[SCALAR_BYTES];
+        pruneScalar(h, 0, s);
+
+        byte[] pk = new byte[POINT_BYTES];
+        scalarMultBaseEncoded(s, pk, 0);
+
+        implSign(d, h, s, pk, 0, m, mOff, mLen, sig, sigOff);
+    }
+
+    /**
+     * Sign with a public key already derived from sk, saving one base point multiplication.
+     */
+    public static void sign(byte[] sk, int skOff, byte[] pk, int pkOff, byte[] m, int mOff, int mLen, byte[] sig,
+        int sigOff)
+    {
+        Digest d = new SHA512Digest();
+        byte[] h = new byte[d.getDigestSize()];
+
+        d.update(sk, skOff, SECRET_KEY_SIZE);
+        d.doFinal(h, 0);
+
+        byte[] s = new byte[SCALAR_BYTES];
+        pruneScalar(h, 0, s);
+
+        implSign(d, h, s, pk, pkOff, m, mOff, mLen, sig, sigOff);
+    }
+
+    public static boolean verify(byte[] sig, int sigOff, byte[] pk, int pkOff, byte[] m, int mOff, int mLen)
+    {
+        byte[] R = copy(sig, sigOff, POINT_BYTES);
+        byte[] S = copy(sig, sigOff + POINT_BYTES, SCALAR_BYTES);
+
+        if (!checkPointVar(R) || !checkScalarVar(S))
+        {
+            return false;
+        }
+
+        PointExt pA = new PointExt();
+        if (!decodePointVar(pk, pkOff, true, pA))
+        {
+            return false;
+        }
+
+        Digest d = new SHA512Digest();
+        byte[] h = new byte[d.getDigestSize()];
+
+        d.update(R, 0, POINT_BYTES);
+        d.update(pk, pkOff, POINT_BYTES);
+        d.update(m, mOff, mLen);
+        d.doFinal(h, 0);
+
+        byte[] k = reduceScalar(h);
+
+        // R' = [S]B - [k]A, which must encode to R
+        PointExt pR = new PointExt();
+        scalarMultStrausVar(S, k, pA, pR);
+
+        byte[] check = new byte[POINT_BYTES];
+        encodePoint(pR, check, 0);
+
+        return Arrays.areEqual(check, R);
+    }
+
+    private static void implSign(Digest d, byte[] h, byte[] s, byte[] pk, int pkOff, byte[] m, int mOff, int mLen,
+        byte[] sig, int sigOff)
+    {
+        d.update(h, SCALAR_BYTES, SCALAR_BYTES);
+        d.update(m, mOff, mLen);
+        d.doFinal(h, 0);
+
+        byte[] r = reduceScalar(h);
+        byte[] R = new byte[POINT_BYTES];
+        scalarMultBaseEncoded(r, R, 0);
+
+        d.update(R, 0, POINT_BYTES);
+        d.update(pk, pkOff, POINT_BYTES);
+        d.update(m, mOff, mLen);
+        d.doFinal(h, 0);
+
+        byte[] k = reduceScalar(h);
+        byte[] S = mulAddScalar(k, s, r);
+
+        System.arraycopy(R, 0, sig, sigOff, POINT_BYTES);
+        System.arraycopy(S, 0, sig, sigOff + POINT_BYTES, SCALAR_BYTES);
+    }
+
+    private static boolean checkPointVar(byte[] p)
+    {
+        int[] t = decodeWords(p, 0);
+        t[SCALAR_INTS - 1] &= 0x7FFFFFFF;
+        return !Nat256.gte(t, P);
+    }
+
+    private static boolean checkScalarVar(byte[] s)
+    {
+        return !Nat256.gte(decodeWords(s, 0), L);
+    }
+
+    private static byte[] copy(byte[] buf, int off, int len)
+    {
+        byte[] result = new byte[len];
+        System.arraycopy(buf, off, result, 0, len);
+        return result;
+    }
+
+    private static int[] decodeWords(byte[] bs, int off)
+    {
+        int[] n = new int[SCALAR_INTS];
+        for (int i = 0; i < SCALAR_INTS; ++i, off += 4)
+        {
+            n[i] = (bs[off] & 0xFF) | (bs[off + 1] & 0xFF) << 8 | (bs[off + 2] & 0xFF) << 16 | bs[off + 3] << 24;
+        }
+        return n;
+    }
+
+    /*
+     * Decompress a point as in RFC 8032 5.1.3, optionally negating it.
+     */
+    private static boolean decodePointVar(byte[] p, int pOff, boolean negate, PointExt r)
+    {
+        byte[] py = copy(p, pOff, POINT_BYTES);
+        if (!checkPointVar(py))
+        {
+            return false;
+        }
+
+        int x_0 = (py[POINT_BYTES - 1] & 0x80) >>> 7;
+        py[POINT_BYTES - 1] &= 0x7F;
+
+        X25519Field.decode(py, 0, r.y);
+
+        int[] u = X25519Field.create();
+        int[] v = X25519Field.create();
+
+        X25519Field.sqr(r.y, u);
+        X25519Field.mul(C_d, u, v);
+        // u = y^2 - 1, v = dy^2 + 1
+        u[0] -= 1;
+        v[0] += 1;
+
+        if (!sqrtRatioVar(u, v, r.x))
+        {
+            return false;
+        }
+
+        X25519Field.normalize(r.x);
+        if (x_0 == 1 && X25519Field.isZeroVar(r.x))
+        {
+            return false;
+        }
+
+        if (negate ^ (x_0 != (r.x[0] & 1)))
+        {
+            X25519Field.negate(r.x, r.x);
+        }
+
+        X25519Field.one(r.z);
+        X25519Field.mul(r.x, r.y, r.t);
+        return true;
+    }
+
+    private static void encodePoint(PointExt p, byte[] r, int rOff)
+    {
+        int[] x = X25519Field.create();
+        int[] y = X25519Field.create();
+
+        X25519Field.inv(p.z, y);
+        X25519Field.mul(p.x, y, x);
+        X25519Field.mul(p.y, y, y);
+        X25519Field.normalize(x);
+
+        X25519Field.encode(y, r, rOff);
+        r[rOff + POINT_BYTES - 1] |= (x[0] & 1) << 7;
+    }
+
+    /*
+     * x = sqrt(u / v), as in RFC 8032 5.1.3 step 3.
+     */
+    private static boolean sqrtRatioVar(int[] u, int[] v, int[] x)
+    {
+        int[] uv3 = X25519Field.create();
+        int[] uv7 = X25519Field.create();
+
+        X25519Field.mul(u, v, uv3);
+        X25519Field.sqr(v, uv7);
+        X25519Field.mul(uv3, uv7, uv3);
+        X25519Field.sqr(uv7, uv7);
+        X25519Field.mul(uv7, uv3, uv7);
+
+        int[] t = X25519Field.create();
+        X25519Field.powPm5d8(uv7, t);
+        X25519Field.mul(t, uv3, x);
+
+        int[] vx2 = X25519Field.create();
+        X25519Field.sqr(x, vx2);
+        X25519Field.mul(vx2, v, vx2);
+
+        X25519Field.sub(vx2, u, t);
+        if (X25519Field.isZeroVar(t))
+        {
+            return true;
+        }
+
+        X25519Field.add(vx2, u, t);
+        if (X25519Field.isZeroVar(t))
+        {
+            X25519Field.mul(x, C_sqrt_m1, x);
+            return true;
+        }
+
+        return false;
+    }
+
+    /*
+     * r = p + q, or p - q if negate is set. Not constant time in negate.
+     */
+    private static void pointAddVar(boolean negate, PointExt p, PointExt q, PointExt r)
+    {
+        int[] A = X25519Field.create();
+        int[] B = X25519Field.create();
+        int[] C = X25519Field.create();
+        int[] D = X25519Field.create();
+        int[] E = X25519Field.create();
+        int[] F = X25519Field.create();
+        int[] G = X25519Field.create();
+        int[] H = X25519Field.create();
+
+        int[] nb, nc, nf, ng;
+        if (negate)
+        {
+            nb = E; nc = D; nf = G; ng = F;
+        }
+        else
+        {
+            nb = D; nc = E; nf = F; ng = G;
+        }
+
+        X25519Field.sub(p.y, p.x, A);
+        X25519Field.add(p.y, p.x, B);
+        X25519Field.sub(q.y, q.x, nb);
+        X25519Field.add(q.y, q.x, nc);
+        X25519Field.mul(A, D, A);
+        X25519Field.mul(B, E, B);
+        X25519Field.mul(p.t, q.t, C);
+        X25519Field.mul(C, C_d2, C);
+        X25519Field.mul(p.z, q.z, D);
+        X25519Field.add(D, D, D);
+        X25519Field.sub(B, A, E);
+        X25519Field.add(B, A, H);
+        X25519Field.sub(D, C, nf);
+        X25519Field.add(D, C, ng);
+        X25519Field.mul(E, F, r.x);
+        X25519Field.mul(G, H, r.y);
+        X25519Field.mul(E, H, r.t);
+        X25519Field.mul(F, G, r.z);
+    }
+
+    /*
+     * r += p, or r -= p if negate is set. Not constant time in negate.
+     */
+    private static void pointAddPrecomp(boolean negate, PointPrecomp p, PointExt r)
+    {
+        int[] A = X25519Field.create();
+        int[] B = X25519Field.create();
+        int[] C = X25519Field.create();
+        int[] D = X25519Field.create();
+        int[] E = X25519Field.create();
+        int[] F = X25519Field.create();
+        int[] G = X25519Field.create();
+        int[] H = X25519Field.create();
+
+        int[] pa, pb, nf, ng;
+        if (negate)
+        {
+            pa = p.ypx; pb = p.ymx; nf = G; ng = F;
+        }
+        else
+        {
+            pa = p.ymx; pb = p.ypx; nf = F; ng = G;
+        }
+
+        X25519Field.sub(r.y, r.x, A);
+        X25519Field.add(r.y, r.x, B);
+        X25519Field.mul(A, pa, A);
+        X25519Field.mul(B, pb, B);
+        X25519Field.mul(r.t, p.xyd, C);
+        X25519Field.add(r.z, r.z, D);
+        X25519Field.sub(B, A, E);
+        X25519Field.add(B, A, H);
+        X25519Field.sub(D, C, nf);
+        X25519Field.add(D, C, ng);
+        X25519Field.mul(E, F, r.x);
+        X25519Field.mul(G, H, r.y);
+        X25519Field.mul(E, H, r.t);
+        X25519Field.mul(F, G, r.z);
+    }
+
+    private static void pointDouble(PointExt r)
+    {
+        int[] A = X25519Field.create();
+        int[] B = X25519Field.create();
+        int[] C = X25519Field.create();
+        int[] E = X25519Field.create();
+        int[] F = X25519Field.create();
+        int[] G = X25519Field.create();
+        int[] H = X25519Field.create();
+
+        X25519Field.add(r.x, r.y, E);
+        X25519Field.sqr(r.x, A);
+        X25519Field.sqr(r.y, B);
+        X25519Field.sqr(r.z, C);
+        X25519Field.add(C, C, C);
+        X25519Field.sqr(E, E);
+        X25519Field.add(A, B, H);
+        X25519Field.sub(H, E, E);
+        X25519Field.sub(A, B, G);
+        X25519Field.add(C, G, F);
+        X25519Field.mul(E, F, r.x);
+        X25519Field.mul(G, H, r.y);
+        X25519Field.mul(E, H, r.t);
+        X25519Field.mul(F, G, r.z);
+    }
+
+    private static void pointCopy(PointExt p, PointExt r)
+    {
+        X25519Field.copy(p.x, 0, r.x, 0);
+        X25519Field.copy(p.y, 0, r.y, 0);
+        X25519Field.copy(p.z, 0, r.z, 0);
+        X25519Field.copy(p.t, 0, r.t, 0);
+    }
+
+    private static void pointSetBase(PointExt r)
+    {
+        X25519Field.copy(B_x, 0, r.x, 0);
+        X25519Field.copy(B_y, 0, r.y, 0);
+        X25519Field.one(r.z);
+        X25519Field.mul(r.x, r.y, r.t);
+    }
+
+    private static void pointSetNeutral(PointExt r)
+    {
+        X25519Field.zero(r.x);
+        X25519Field.one(r.y);
+        X25519Field.one(r.z);
+        X25519Field.zero(r.t);
+    }
+
+    /*
+     * Convert p to affine coordinates in precomputed form.
+     */
+    private static void pointToPrecomp(PointExt p, PointPrecomp r)
+    {
+        int[] x = X25519Field.create();
+        int[] y = X25519Field.create();
+
+        X25519Field.inv(p.z, y);
+        X25519Field.mul(p.x, y, x);
+        X25519Field.mul(p.y, y, y);
+
+        X25519Field.add(y, x, r.ypx);
+        X25519Field.carry(r.ypx);
+        X25519Field.sub(y, x, r.ymx);
+        X25519Field.carry(r.ymx);
+        X25519Field.mul(x, y, r.xyd);
+        X25519Field.mul(r.xyd, C_d2, r.xyd);
+    }
+
+    /*
+     * Load, in constant time, the precomputed point |digit| * 256^block * B, negated if digit is
+     * negative.
+     */
+    private static void pointLookup(int block, int digit, PointPrecomp p)
+    {
+        int[] table = precompBaseComb;
+        int off = block * PRECOMP_POINTS * PRECOMP_ENTRY;
+
+        int sign = digit >>> 31;
+        int abs = (digit ^ -sign) + sign;
+
+        X25519Field.one(p.ypx);
+        X25519Field.one(p.ymx);
+        X25519Field.zero(p.xyd);
+
+        for (int j = 1; j <= PRECOMP_POINTS; ++j)
+        {
+            int cond = ((abs ^ j) - 1) >>> 31;
+            X25519Field.cmov(cond, table, off, p.ypx, 0);
+            X25519Field.cmov(cond, table, off + X25519Field.SIZE, p.ymx, 0);
+            X25519Field.cmov(cond, table, off + 2 * X25519Field.SIZE, p.xyd, 0);
+            off += PRECOMP_ENTRY;
+        }
+
+        X25519Field.cswap(sign, p.ypx, p.ymx);
+        X25519Field.cnegate(sign, p.xyd);
+    }
+
+    private static int[] createBaseComb()
+    {
+        int[] table = X25519Field.createTable(PRECOMP_BLOCKS * PRECOMP_POINTS * 3);
+        int off = 0;
+
+        PointExt b = new PointExt();
+        pointSetBase(b);
+
+        PointExt s = new PointExt();
+        PointPrecomp q = new PointPrecomp();
+
+        for (int block = 0; block < PRECOMP_BLOCKS; ++block)
+        {
+            pointCopy(b, s);
+
+            for (int j = 0; j < PRECOMP_POINTS; ++j)
+            {
+                pointToPrecomp(s, q);
+                X25519Field.copy(q.ypx, 0, table, off);
+                X25519Field.copy(q.ymx, 0, table, off + X25519Field.SIZE);
+                X25519Field.copy(q.xyd, 0, table, off + 2 * X25519Field.SIZE);
+                off += PRECOMP_ENTRY;
+
+                pointAddVar(false, s, b, s);
+            }
+
+            for (int i = 0; i < 8; ++i)
+            {
+                pointDouble(b);
+            }
+        }
+
+        return table;
+    }
+
+    private static PointPrecomp[] createBaseWnaf()
+    {
+        PointExt[] points = pointPrecomputeVar(null, WNAF_POINTS);
+
+        PointPrecomp[] result = new PointPrecomp[WNAF_POINTS];
+        for (int i = 0; i < WNAF_POINTS; ++i)
+        {
+            result[i] = new PointPrecomp();
+            pointToPrecomp(points[i], result[i]);
+        }
+        return result;
+    }
+
+    /*
+     * Return p, 3p, 5p, ... in extended coordinates, with p the base point if null.
+     */
+    private static PointExt[] pointPrecomputeVar(PointExt p, int count)
+    {
+        PointExt[] result = new PointExt[count];
+
+        result[0] = new PointExt();
+        if (p == null)
+        {
+            pointSetBase(result[0]);
+        }
+        else
+        {
+            pointCopy(p, result[0]);
+        }
+
+        PointExt d = new PointExt();
+        pointCopy(result[0], d);
+        pointDouble(d);
+
+        for (int i = 1; i < count; ++i)
+        {
+            result[i] = new PointExt();
+            pointAddVar(false, result[i - 1], d, result[i]);
+        }
+        return result;
+    }
+
+    private static void pruneScalar(byte[] n, int nOff, byte[] r)
+    {
+        System.arraycopy(n, nOff, r, 0, SCALAR_BYTES);
+
+        r[0] &= 0xF8;
+        r[SCALAR_BYTES - 1] &= 0x7F;
+        r[SCALAR_BYTES - 1] |= 0x40;
+    }
+
+    /*
+     * r = k * B in constant time, for k below 2^255.
+     */
+    private static void scalarMultBase(byte[] k, PointExt r)
+    {
+        // k as 64 signed radix 16 digits in [-8, 8]
+        int[] e = new int[2 * SCALAR_BYTES];
+        for (int i = 0; i < SCALAR_BYTES; ++i)
+        {
+            e[2 * i] = k[i] & 0x0F;
+            e[2 * i + 1] = (k[i] >>> 4) & 0x0F;
+        }
+
+        int carry = 0;
+        for (int i = 0; i < e.length - 1; ++i)
+        {
+            e[i] += carry;
+            carry = (e[i] + 8) >> 4;
+            e[i] -= carry << 4;
+        }
+        e[e.length - 1] += carry;
+
+        precompute();
+
+        PointPrecomp p = new PointPrecomp();
+        pointSetNeutral(r);
+
+        for (int i = 1; i < e.length; i += 2)
+        {
+            pointLookup(i >>> 1, e[i], p);
+            pointAddPrecomp(false, p, r);
+        }
+
+        for (int i = 0; i < 4; ++i)
+        {
+            pointDouble(r);
+        }
+
+        for (int i = 0; i < e.length; i += 2)
+        {
+            pointLookup(i >>> 1, e[i], p);
+            pointAddPrecomp(false, p, r);
+        }
+    }
+
+    private static void scalarMultBaseEncoded(byte[] k, byte[] r, int rOff)
+    {
+        PointExt p = new PointExt();
+        scalarMultBase(k, p);
+        encodePoint(p, r, rOff);
+    }
+
+    /*
+     * r = nb * B + np * p, in variable time.
+     */
+    private static void scalarMultStrausVar(byte[] nb, byte[] np, PointExt p, PointExt r)
+    {
+        precompute();
+
+        byte[] ws_b = slideVar(nb);
+        byte[] ws_p = slideVar(np);
+
+        PointPrecomp[] tb = precompBaseWnaf;
+        PointExt[] tp = pointPrecomputeVar(p, WNAF_POINTS);
+
+        pointSetNeutral(r);
+
+        int bit = 255;
+        while (bit > 0 && ws_b[bit] == 0 && ws_p[bit] == 0)
+        {
+            --bit;
+        }
+
+        for (; bit >= 0; --bit)
+        {
+            pointDouble(r);
+
+            int wb = ws_b[bit];
+            if (wb != 0)
+            {
+                pointAddPrecomp(wb < 0, tb[(wb < 0 ? -wb : wb) >>> 1], r);
+            }
+
+            int wp = ws_p[bit];
+            if (wp != 0)
+            {
+                pointAddVar(wp < 0, r, tp[(wp < 0 ? -wp : wp) >>> 1], r);
+            }
+        }
+    }
+
+    /*
+     * Recode a 256 bit scalar as signed odd digits in [-15, 15], no two non-zero digits closer than
+     * five positions apart.
+     */
+    private static byte[] slideVar(byte[] n)
+    {
+        byte[] r = new byte[256];
+        for (int i = 0; i < 256; ++i)
+        {
+            r[i] = (byte)(1 & (n[i >>> 3] >>> (i & 7)));
+        }
+
+        for (int i = 0; i < 256; ++i)
+        {
+            if (r[i] == 0)
+            {
+                continue;
+            }
+
+            for (int b = 1; b <= 6 && i + b < 256; ++b)
+            {
+                if (r[i + b] == 0)
+                {
+                    continue;
+                }
+
+                int shifted = r[i + b] << b;
+                if (r[i] + shifted <= 15)
+                {
+                    r[i] += shifted;
+                    r[i + b] = 0;
+                }
+                else if (r[i] - shifted >= -15)
+                {
+                    r[i] -= shifted;
+                    for (int k = i + b; k < 256; ++k)
+                    {
+                        if (r[k] == 0)
+                        {
+                            r[k] = 1;
+                            break;
+                        }
+                        r[k] = 0;
+                    }
+                }
+                else
+                {
+                    break;
+                }
+            }
+        }
+
+        return r;
+    }
+
+    /*
+     * Scalar arithmetic modulo L on 21-bit limbs, with a fixed sequence of folds and carries.
+     */
+
+    private static byte[] reduceScalar(byte[] n)
+    {
+        long[] s = new long[24];
+        for (int i = 0; i < 23; ++i)
+        {
+            s[i] = decodeBits(n, 21 * i, 21);
+        }
+        s[23] = decodeBits(n, 21 * 23, 29);
+
+        return reduceLimbs(s);
+    }
+
+    /*
+     * (a * b + c) mod L
+     */
+    private static byte[] mulAddScalar(byte[] a, byte[] b, byte[] c)
+    {
+        long[] al = new long[12], bl = new long[12];
+        long[] s = new long[24];
+
+        for (int i = 0; i < 12; ++i)
+        {
+            int bits = (i < 11) ? 21 : 25;
+            al[i] = decodeBits(a, 21 * i, bits);
+            bl[i] = decodeBits(b, 21 * i, bits);
+            s[i] = decodeBits(c, 21 * i, bits);
+        }
+
+        for (int i = 0; i < 12; ++i)
+        {
+            for (int j = 0; j < 12; ++j)
+            {
+                s[i + j] += al[i] * bl[j];
+            }
+        }
+
+        for (int i = 0; i < 23; i += 2)
+        {
+            carryRound(s, i);
+        }
+        for (int i = 1; i < 22; i += 2)
+        {
+            carryRound(s, i);
+        }
+
+        return reduceLimbs(s);
+    }
+
+    private static byte[] reduceLimbs(long[] s)
+    {
+        for (int i = 23; i >= 18; --i)
+        {
+            fold(s, i);
+        }
+        for (int i = 6; i <= 16; i += 2)
+        {
+            carryRound(s, i);
+        }
+        for (int i = 7; i <= 15; i += 2)
+        {
+            carryRound(s, i);
+        }
+
+        for (int i = 17; i >= 12; --i)
+        {
+            fold(s, i);
+        }
+        for (int i = 0; i <= 10; i += 2)
+        {
+            carryRound(s, i);
+        }
+        for (int i = 1; i <= 11; i += 2)
+        {
+            carryRound(s, i);
+        }
+
+        fold(s, 12);
+        for (int i = 0; i <= 11; ++i)
+        {
+            carryFloor(s, i);
+        }
+
+        fold(s, 12);
+        for (int i = 0; i <= 10; ++i)
+        {
+            carryFloor(s, i);
+        }
+
+        byte[] r = new byte[SCALAR_BYTES];
+        long acc = 0;
+        int accBits = 0, off = 0;
+        for (int i = 0; i < 12; ++i)
+        {
+            acc |= s[i] << accBits;
+            accBits += 21;
+            while (accBits >= 8)
+            {
+                r[off++] = (byte)acc;
+                acc >>>= 8;
+                accBits -= 8;
+            }
+        }
+        r[off] = (byte)acc;
+        return r;
+    }
+
+    private static void carryFloor(long[] s, int i)
+    {
+        long c = s[i] >> 21;
+        s[i + 1] += c;
+        s[i] -= c << 21;
+    }
+
+    private static void carryRound(long[] s, int i)
+    {
+        long c = (s[i] + (1L << 20)) >> 21;
+        s[i + 1] += c;
+        s[i] -= c << 21;
+    }
+
+    private static long decodeBits(byte[] bs, int bitOff, int bitLen)
+    {
+        int off = bitOff >>> 3, shift = bitOff & 7;
+        int len = (shift + bitLen + 7) >>> 3;
+
+        long n = 0;
+        for (int i = len - 1; i >= 0; --i)
+        {
+            n = (n << 8) | (bs[off + i] & 0xFF);
+        }
+        return (n >>> shift) & ((1L << bitLen) - 1);
+    }
+
+    /*
+     * s[i] * 2^(21i) = s[i] * 2^(21(i - 12)) * 2^252
+     */
+    private static void fold(long[] s, int i)
+    {
+        long v = s[i];
+        s[i - 12] += v * L0;
+        s[i - 11] += v * L1;
+        s[i - 10] += v * L2;
+        s[i - 9] += v * L3;
+        s[i - 8] += v * L4;
+        s[i - 7] += v * L5;
+        s[i] = 0;
+    }
+}
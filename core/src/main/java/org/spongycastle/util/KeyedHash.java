@@ -0,0 +1,78 @@
+package org.spongycastle.util;
+
+/**
+ * Keyed hashes for tables whose keys come from outside, such as a peer or parsed data, so the keys
+ * cannot be chosen to collide.
+ */
+public final class KeyedHash
+{
+    private KeyedHash()
+    {
+    }
+
+    /**
+     * Calculate SipHash-2-4 of a message, as the SipHash MAC in org.spongycastle.crypto.macs would.
+     *
+     * @param k0 the first 64 bits of the key, as read little-endian.
+     * @param k1 the second 64 bits of the key, as read little-endian.
+     * @param in the array holding the message.
+     * @param off the offset of the message in in.
+     * @param len the length of the message.
+     * @return the 64 bit SipHash-2-4 value.
+     */
+    public static long sipHash24(long k0, long k1, byte[] in, int off, int len)
+    {
+        long v0 = k0 ^ 0x736f6d6570736575L;
+        long v1 = k1 ^ 0x646f72616e646f6dL;
+        long v2 = k0 ^ 0x6c7967656e657261L;
+        long v3 = k1 ^ 0x7465646279746573L;
+
+        int end = off + (len & ~7);
+        for (; off < end; off += 8)
+        {
+            long m = Pack.littleEndianToLong(in, off);
+
+            v3 ^= m;
+            for (int r = 0; r < 2; ++r)
+            {
+                v0 += v1; v2 += v3; v1 = rotateLeft(v1, 13); v3 = rotateLeft(v3, 16);
+                v1 ^= v0; v3 ^= v2; v0 = rotateLeft(v0, 32);
+                v2 += v1; v0 += v3; v1 = rotateLeft(v1, 17); v3 = rotateLeft(v3, 21);
+                v1 ^= v2; v3 ^= v0; v2 = rotateLeft(v2, 32);
+            }
+            v0 ^= m;
+        }
+
+        long m = (len & 0xffL) << 56;
+        for (int i = 0, n = len & 7; i < n; ++i)
+        {
+            m |= (in[off + i] & 0xffL) << (i << 3);
+        }
+
+        v3 ^= m;
+        for (int r = 0; r < 2; ++r)
+        {
+            v0 += v1; v2 += v3; v1 = rotateLeft(v1, 13); v3 = rotateLeft(v3, 16);
+            v1 ^= v0; v3 ^= v2; v0 = rotateLeft(v0, 32);
+            v2 += v1; v0 += v3; v1 = rotateLeft(v1, 17); v3 = rotateLeft(v3, 21);
+            v1 ^= v2; v3 ^= v0; v2 = rotateLeft(v2, 32);
+        }
+        v0 ^= m;
+
+        v2 ^= 0xffL;
+        for (int r = 0; r < 4; ++r)
+        {
+            v0 += v1; v2 += v3; v1 = rotateLeft(v1, 13); v3 = rotateLeft(v3, 16);
+            v1 ^= v0; v3 ^= v2; v0 = rotateLeft(v0, 32);
+            v2 += v1; v0 += v3; v1 = rotateLeft(v1, 17); v3 = rotateLeft(v3, 21);
+            v1 ^= v2; v3 ^= v0; v2 = rotateLeft(v2, 32);
+        }
+
+        return v0 ^ v1 ^ v2 ^ v3;
+    }
+
+    private static long rotateLeft(long x, int n)
+    {
+        return (x << n) | (x >>> -n);
+    }
+}
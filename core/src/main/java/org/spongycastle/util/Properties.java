@@ -33,4 +33,38 @@ public Object run()
             return false;
         }
     }
+
+    /**
+     * Return the value of a system property as an integer, or defaultValue if it is not set, is
+     * not an integer, or cannot be read.
+     */
+    public static int asInteger(final String propertyName, int defaultValue)
+    {
+        try
+        {
+            String value = (String)AccessController.doPrivileged(new PrivilegedAction()
+            {
+                // JDK 1.4 compatibility
+                public Object run()
+                {
+                    return System.getProperty(propertyName);
+                }
+            });
+
+            if (value != null)
+            {
+                return Integer.parseInt(value.trim());
+            }
+        }
+        catch (AccessControlException e)
+        {
+            // fall through to the default
+        }
+        catch (NumberFormatException e)
+        {
+            // fall through to the default
+        }
+
+        return defaultValue;
+    }
 }
@@ -15,4 +15,22 @@ public static boolean isOverrideSet(final String propertyName)
 
 	    return "true".equals(Strings.toLowerCase(value));
     }
+
+    public static int asInteger(final String propertyName, int defaultValue)
+    {
+	    String value = System.getProperty(propertyName);
+	    if (value == null)
+	    {
+		return defaultValue;
+	    }
+
+	    try
+	    {
+		return Integer.parseInt(value.trim());
+	    }
+	    catch (NumberFormatException e)
+	    {
+		return defaultValue;
+	    }
+    }
 }
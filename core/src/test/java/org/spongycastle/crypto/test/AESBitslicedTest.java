@@ -0,0 +1,228 @@
+package org.spongycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.BlockCipher;
+import org.spongycastle.crypto.engines.AESBitslicedEngine;
+import org.spongycastle.crypto.engines.AESEngine;
+import org.spongycastle.crypto.modes.GCMBlockCipher;
+import org.spongycastle.crypto.modes.SICBlockCipher;
+import org.spongycastle.crypto.params.AEADParameters;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.params.ParametersWithIV;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Test vectors from the NIST standard tests and Brian Gladman's vector set
+ * <a href="http://fp.gladman.plus.com/cryptography_technology/rijndael/">
+ * http://fp.gladman.plus.com/cryptography_technology/rijndael/</a>
+ */
+public class AESBitslicedTest
+    extends CipherTest
+{
+    static SimpleTest[]  tests = 
+            {
+                new BlockCipherVectorTest(0, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("80000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "0EDD33D3C621E546455BD8BA1418BEC8"),
+                new BlockCipherVectorTest(1, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000080")),
+                        "00000000000000000000000000000000", "172AEAB3D507678ECAF455C12587ADB7"),
+                new BlockCipherMonteCarloTest(2, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "C34C052CC0DA8D73451AFE5F03BE297F"),
+                new BlockCipherMonteCarloTest(3, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("5F060D3716B345C253F6749ABAC10917")),
+                        "355F697E8B868B65B25A04E18D782AFA", "ACC863637868E3E068D2FD6E3508454A"),
+                new BlockCipherVectorTest(4, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "6CD02513E8D4DC986B4AFE087A60BD0C"),
+                new BlockCipherMonteCarloTest(5, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("AAFE47EE82411A2BF3F6752AE8D7831138F041560631B114")),
+                        "F3F6752AE8D7831138F041560631B114", "77BA00ED5412DFF27C8ED91F3C376172"),
+                new BlockCipherVectorTest(6, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("0000000000000000000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "DDC6BF790C15760D8D9AEB6F9A75FD4E"),
+                new BlockCipherMonteCarloTest(7, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("28E79E2AFC5F7745FCCABE2F6257C2EF4C4EDFB37324814ED4137C288711A386")),
+                        "C737317FE0846F132B23C8C2A672CE22", "E58B82BFBA53C0040DC610C642121168"),
+                new BlockCipherVectorTest(8, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("80000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "0EDD33D3C621E546455BD8BA1418BEC8"),
+                new BlockCipherVectorTest(9, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000080")),
+                        "00000000000000000000000000000000", "172AEAB3D507678ECAF455C12587ADB7"),
+                new BlockCipherMonteCarloTest(10, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "C34C052CC0DA8D73451AFE5F03BE297F"),
+                new BlockCipherMonteCarloTest(11, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("5F060D3716B345C253F6749ABAC10917")),
+                        "355F697E8B868B65B25A04E18D782AFA", "ACC863637868E3E068D2FD6E3508454A"),
+                new BlockCipherVectorTest(12, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "6CD02513E8D4DC986B4AFE087A60BD0C"),
+                new BlockCipherMonteCarloTest(13, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("AAFE47EE82411A2BF3F6752AE8D7831138F041560631B114")),
+                        "F3F6752AE8D7831138F041560631B114", "77BA00ED5412DFF27C8ED91F3C376172"),
+                new BlockCipherVectorTest(14, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("0000000000000000000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "DDC6BF790C15760D8D9AEB6F9A75FD4E"),
+                new BlockCipherMonteCarloTest(15, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("28E79E2AFC5F7745FCCABE2F6257C2EF4C4EDFB37324814ED4137C288711A386")),
+                        "C737317FE0846F132B23C8C2A672CE22", "E58B82BFBA53C0040DC610C642121168"),
+                new BlockCipherVectorTest(16, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("80000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "0EDD33D3C621E546455BD8BA1418BEC8"),
+                new BlockCipherVectorTest(17, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000080")),
+                        "00000000000000000000000000000000", "172AEAB3D507678ECAF455C12587ADB7"),
+                new BlockCipherMonteCarloTest(18, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("00000000000000000000000000000000")),
+                        "00000000000000000000000000000000", "C34C052CC0DA8D73451AFE5F03BE297F"),
+                new BlockCipherMonteCarloTest(19, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("5F060D3716B345C253F6749ABAC10917")),
+                        "355F697E8B868B65B25A04E18D782AFA", "ACC863637868E3E068D2FD6E3508454A"),
+                new BlockCipherVectorTest(20, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "6CD02513E8D4DC986B4AFE087A60BD0C"),
+                new BlockCipherMonteCarloTest(21, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("AAFE47EE82411A2BF3F6752AE8D7831138F041560631B114")),
+                        "F3F6752AE8D7831138F041560631B114", "77BA00ED5412DFF27C8ED91F3C376172"),
+                new BlockCipherVectorTest(22, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("0000000000000000000000000000000000000000000000000000000000000000")),
+                        "80000000000000000000000000000000", "DDC6BF790C15760D8D9AEB6F9A75FD4E"),
+                new BlockCipherMonteCarloTest(23, 10000, new AESBitslicedEngine(),
+                        new KeyParameter(Hex.decode("28E79E2AFC5F7745FCCABE2F6257C2EF4C4EDFB37324814ED4137C288711A386")),
+                        "C737317FE0846F132B23C8C2A672CE22", "E58B82BFBA53C0040DC610C642121168")
+            };
+    
+    private BlockCipher _engine = new AESBitslicedEngine();
+
+    AESBitslicedTest()
+    {
+        super(tests, new AESBitslicedEngine(), new KeyParameter(new byte[16]));
+    }
+
+    public String getName()
+    {
+        return "AESBitsliced";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        super.performTest();
+
+        byte[] keyBytes = new byte[16];
+        
+        _engine.init(true, new KeyParameter(keyBytes));
+        
+        //
+        // init tests
+        //
+        try
+        {
+            byte[]      dudKey = new byte[6];
+            
+            _engine.init(true, new KeyParameter(dudKey));
+            
+            fail("failed key length check");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected 
+        }
+        
+        try
+        {
+            byte[]      iv = new byte[16];
+
+            _engine.init(true, new ParametersWithIV(null, iv));
+            
+            fail("failed parameter check");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected 
+        }
+
+        //
+        // multi-block and CTR/GCM use against the table based engine
+        //
+        SecureRandom random = new SecureRandom();
+        for (int keySize = 16; keySize <= 32; keySize += 8)
+        {
+            byte[] key = new byte[keySize];
+            random.nextBytes(key);
+
+            checkAgainstAESEngine(key, new byte[16 * 23], true);
+            checkAgainstAESEngine(key, new byte[16 * 23], false);
+
+            byte[] data = new byte[1037];
+            random.nextBytes(data);
+
+            SICBlockCipher ctr = new SICBlockCipher(new AESBitslicedEngine());
+            SICBlockCipher ctrRef = new SICBlockCipher(new AESEngine());
+            ctr.init(true, new ParametersWithIV(new KeyParameter(key), new byte[16]));
+            ctrRef.init(true, new ParametersWithIV(new KeyParameter(key), new byte[16]));
+
+            byte[] out = new byte[data.length];
+            byte[] ref = new byte[data.length];
+            ctr.processBytes(data, 0, data.length, out, 0);
+            ctrRef.processBytes(data, 0, data.length, ref, 0);
+
+            if (!areEqual(out, ref))
+            {
+                fail("CTR mismatch with AESEngine");
+            }
+
+            AEADParameters aeadParams = new AEADParameters(new KeyParameter(key), 128, new byte[12]);
+            GCMBlockCipher gcm = new GCMBlockCipher(new AESBitslicedEngine());
+            GCMBlockCipher gcmRef = new GCMBlockCipher(new AESEngine());
+            gcm.init(true, aeadParams);
+            gcmRef.init(true, aeadParams);
+
+            out = new byte[gcm.getOutputSize(data.length)];
+            ref = new byte[gcmRef.getOutputSize(data.length)];
+            gcm.doFinal(out, gcm.processBytes(data, 0, data.length, out, 0));
+            gcmRef.doFinal(ref, gcmRef.processBytes(data, 0, data.length, ref, 0));
+
+            if (!areEqual(out, ref))
+            {
+                fail("GCM mismatch with AESEngine");
+            }
+        }
+    }
+
+    private void checkAgainstAESEngine(byte[] key, byte[] data, boolean forEncryption)
+    {
+        new SecureRandom().nextBytes(data);
+
+        AESBitslicedEngine engine = new AESBitslicedEngine();
+        AESEngine ref = new AESEngine();
+
+        engine.init(forEncryption, new KeyParameter(key));
+        ref.init(forEncryption, new KeyParameter(key));
+
+        byte[] out = new byte[data.length];
+        byte[] expected = new byte[data.length];
+
+        engine.processBlocks(data, 0, data.length / 16, out, 0);
+        for (int i = 0; i < data.length; i += 16)
+        {
+            ref.processBlock(data, i, expected, i);
+        }
+
+        if (!areEqual(out, expected))
+        {
+            fail("multi-block mismatch with AESEngine");
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new AESBitslicedTest());
+    }
+}
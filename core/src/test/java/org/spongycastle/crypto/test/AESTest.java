@@ -388,6 +388,59 @@ private void skipTest()
         }
     }
 
+    private void sicBulkTest()
+    {
+        CipherParameters params = new ParametersWithIV(new KeyParameter(Hex.decode("5F060D3716B345C253F6749ABAC10917")), Hex.decode("000000000000000000000000000000F0"));
+        SICBlockCipher bulkEngine = new SICBlockCipher(new AESEngine());
+        SICBlockCipher byteEngine = new SICBlockCipher(new AESEngine());
+
+        SecureRandom rand = new SecureRandom();
+        byte[]       plain = new byte[4096];
+        byte[]       expected = new byte[plain.length];
+        byte[]       cipher = new byte[plain.length];
+
+        rand.nextBytes(plain);
+
+        byteEngine.init(true, params);
+        for (int i = 0; i != plain.length; i++)
+        {
+            expected[i] = byteEngine.returnByte(plain[i]);
+        }
+
+        for (int chunk = 1; chunk < 200; chunk += 7)
+        {
+            bulkEngine.init(true, params);
+
+            for (int off = 0; off < plain.length; off += chunk)
+            {
+                bulkEngine.processBytes(plain, off, Math.min(chunk, plain.length - off), cipher, off);
+            }
+
+            if (!areEqual(expected, cipher))
+            {
+                fail("bulk SIC output mismatch for chunk size " + chunk);
+            }
+        }
+
+        bulkEngine.init(true, params);
+        bulkEngine.seekTo(37);
+        bulkEngine.processBytes(plain, 37, 1000, cipher, 0);
+
+        byte[]       fragment = new byte[1000];
+
+        System.arraycopy(cipher, 0, fragment, 0, fragment.length);
+
+        if (!areEqual(expected, 37, fragment, 0))
+        {
+            fail("bulk SIC output mismatch after seek");
+        }
+
+        if (bulkEngine.getPosition() != 1037)
+        {
+            fail("bulk SIC position incorrect - 1037 got " + bulkEngine.getPosition());
+        }
+    }
+
     private void ctrCounterTest()
     {
         CipherParameters params = new ParametersWithIV(new KeyParameter(Hex.decode("5F060D3716B345C253F6749ABAC10917")), Hex.decode("000000000000000000000000000000"));
@@ -467,6 +520,7 @@ public void performTest()
         testNullCFB();
 
         skipTest();
+        sicBulkTest();
         ctrCounterTest();
     }
 
@@ -1,10 +1,14 @@
 package org.spongycastle.crypto.test;
 
 import java.io.UnsupportedEncodingException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.crypto.Digest;
 import org.spongycastle.crypto.digests.Blake2bDigest;
+import org.spongycastle.crypto.digests.Blake2bpDigest;
 import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
 import org.spongycastle.util.encoders.Hex;
 import org.spongycastle.util.test.SimpleTest;
 
@@ -154,6 +158,8 @@ public void performTest() throws Exception
 
 		cloneTest();
 		resetTest();
+		treeTest();
+		parallelTest();
 	}
 
 	private void cloneTest()
@@ -241,6 +247,81 @@ private void resetTest()
 		}
 	}
 
+	private void treeTest()
+	{
+		Blake2bDigest node = new Blake2bDigest(null, 64, null, null, 4, 2, 4096, 1, 0, 64, true);
+		byte[] input = Strings.toByteArray("abc");
+		byte[] expected = Hex.decode("e09b6466c0ba5cc2826725618b77666c476e5e264230d1c4700491bddfb18256f49f39d81e3fbd38e92784b427b45763f84c7338f4ffc7c0f860f7c7b1984d14");
+
+		node.update(input, 0, input.length);
+		byte[] hash = new byte[64];
+		node.doFinal(hash, 0);
+		if (!areEqual(expected, hash))
+		{
+			fail("tree node mismatch", new String(Hex.encode(expected)), new String(Hex.encode(hash)));
+		}
+
+		// the last node flag must survive reset
+		node.update(input, 0, input.length);
+		node.doFinal(hash, 0);
+		if (!areEqual(expected, hash))
+		{
+			fail("tree node mismatch after reset");
+		}
+	}
+
+	private void parallelTest()
+	{
+		checkParallel(new Blake2bpDigest(), 0, "b5ef811a8038f70b628fa8b294daae7492b1ebe343a80eaabbf1f6ae664dd67b9d90b0120791eab81dc96985f28849f6a305186a85501b405114bfa678df9380");
+		checkParallel(new Blake2bpDigest(), 1000, "1ce5b8d6f6fcc89fcb6ed29f12796cc210a03f4763e528cb2c0e1b4b1255d6ae86c79332529f6368d0bcfe9d316a5f999a53af47a8f0ec4412ce19156bbafd04");
+		checkParallel(new Blake2bpDigest(), 200000, "93c7f3db0b37fbc9f578e5b419462d37c4cabf25440a1c7d1787a337633a8fe47dbc438150a23fe36144f06481250cbee2802e3610bb3838d4e18a1614c345b1");
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try
+		{
+			checkParallel(new Blake2bpDigest(executor), 200000, "93c7f3db0b37fbc9f578e5b419462d37c4cabf25440a1c7d1787a337633a8fe47dbc438150a23fe36144f06481250cbee2802e3610bb3838d4e18a1614c345b1");
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private void checkParallel(Digest digest, int length, String expected)
+	{
+		byte[] input = new byte[length];
+		for (int i = 0; i < length; i++)
+		{
+			input[i] = (byte)i;
+		}
+		byte[] hash = new byte[digest.getDigestSize()];
+
+		// in one go, then in odd sized pieces with single bytes between them
+		digest.update(input, 0, input.length);
+		digest.doFinal(hash, 0);
+		if (!Arrays.areEqual(Hex.decode(expected), hash))
+		{
+			fail(digest.getAlgorithmName() + " mismatch on " + length + " bytes", expected, new String(Hex.encode(hash)));
+		}
+
+		int off = 0;
+		while (off < length)
+		{
+			int len = Math.min(length - off, 1 + (off % 777));
+			digest.update(input, off, len);
+			off += len;
+			if (off < length)
+			{
+				digest.update(input[off++]);
+			}
+		}
+		digest.doFinal(hash, 0);
+		if (!Arrays.areEqual(Hex.decode(expected), hash))
+		{
+			fail(digest.getAlgorithmName() + " mismatch on split " + length + " bytes");
+		}
+	}
+
 	public static void main(String[] args) throws Exception
 	{
 		runTest(new Blake2bDigestTest());
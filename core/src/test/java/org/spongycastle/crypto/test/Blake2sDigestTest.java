@@ -0,0 +1,132 @@
+package org.spongycastle.crypto.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.digests.Blake2sDigest;
+import org.spongycastle.crypto.digests.Blake2spDigest;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+public class Blake2sDigestTest
+    extends SimpleTest
+{
+    // hash, input/message
+    private static final String[][] unkeyedTestVectors =
+    {
+        { "69217a3079908094e11121d042354a7c1f55b6482ca1a51e1b250dfd1ed0eef9", "" },
+        { "508c5e8c327c14e2e1a72ba34eeb452f37458b209ed63a294d999b4c86675982", "abc" }
+    };
+
+    public String getName()
+    {
+        return "Blake2s";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        Blake2sDigest digest = new Blake2sDigest();
+        for (int i = 0; i < unkeyedTestVectors.length; i++)
+        {
+            byte[] input = Strings.toByteArray(unkeyedTestVectors[i][1]);
+            for (int j = 0; j < input.length; j++)
+            {
+                digest.update(input[j]);
+            }
+
+            byte[] hash = new byte[32];
+            digest.doFinal(hash, 0);
+
+            if (!Arrays.areEqual(Hex.decode(unkeyedTestVectors[i][0]), hash))
+            {
+                fail("Blake2s mismatch on test vector ", unkeyedTestVectors[i][0], new String(Hex.encode(hash)));
+            }
+        }
+
+        checkParallel(new Blake2sDigest(), 1000, "b5f9d7799111edafc9326fbf667be98140b5e20ce5e151793c59125bf654ac18");
+
+        // key, salt and personalization with a truncated digest
+        Blake2sDigest keyed = new Blake2sDigest(Strings.toByteArray("key"), 20, Strings.toByteArray("saltsalt"),
+            Strings.toByteArray("personal"));
+        checkDigest(keyed, "abc", "b22efd5adb18e1ac152338bcea7a2e232a2f9c1c");
+        checkDigest(new Blake2sDigest(keyed), "abc", "b22efd5adb18e1ac152338bcea7a2e232a2f9c1c");
+
+        // a node with every tree parameter set, including the high bits of the node offset
+        Blake2sDigest node = new Blake2sDigest(null, 32, null, null, 8, 3, 4096, (1L << 40) + 5, 2, 32, true);
+        checkDigest(node, "abc", "84f2c6eda2b4ff5d4ef9a6957c67113ff4746dce168202670433b33d58317422");
+        checkDigest(node, "abc", "84f2c6eda2b4ff5d4ef9a6957c67113ff4746dce168202670433b33d58317422");
+
+        checkParallel(new Blake2spDigest(), 0, "dd0e891776933f43c7d032b08a917e25741f8aa9a12c12e1cac8801500f2ca4f");
+        checkParallel(new Blake2spDigest(), 1000, "7e2830f74fc7c4d224a201b46f95e37ebbfb56dddc492f8227e4d905201734b8");
+        checkParallel(new Blake2spDigest(), 200000, "3e99708d961df301c83cbc5830f1882699161545f16241dfad6e95f9a96ceb3c");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            checkParallel(new Blake2spDigest(executor), 200000, "3e99708d961df301c83cbc5830f1882699161545f16241dfad6e95f9a96ceb3c");
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void checkDigest(Digest digest, String input, String expected)
+    {
+        byte[] in = Strings.toByteArray(input);
+        byte[] hash = new byte[digest.getDigestSize()];
+
+        digest.update(in, 0, in.length);
+        digest.doFinal(hash, 0);
+
+        if (!Arrays.areEqual(Hex.decode(expected), hash))
+        {
+            fail(digest.getAlgorithmName() + " mismatch", expected, new String(Hex.encode(hash)));
+        }
+    }
+
+    private void checkParallel(Digest digest, int length, String expected)
+    {
+        byte[] input = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            input[i] = (byte)i;
+        }
+        byte[] hash = new byte[digest.getDigestSize()];
+
+        digest.update(input, 0, input.length);
+        digest.doFinal(hash, 0);
+        if (!Arrays.areEqual(Hex.decode(expected), hash))
+        {
+            fail(digest.getAlgorithmName() + " mismatch on " + length + " bytes", expected, new String(Hex.encode(hash)));
+        }
+
+        // odd sized pieces with single bytes between them
+        int off = 0;
+        while (off < length)
+        {
+            int len = Math.min(length - off, 1 + (off % 777));
+            digest.update(input, off, len);
+            off += len;
+            if (off < length)
+            {
+                digest.update(input[off++]);
+            }
+        }
+        digest.doFinal(hash, 0);
+        if (!Arrays.areEqual(Hex.decode(expected), hash))
+        {
+            fail(digest.getAlgorithmName() + " mismatch on split " + length + " bytes");
+        }
+    }
+
+    public static void main(String[] args)
+        throws Exception
+    {
+        runTest(new Blake2sDigestTest());
+    }
+}
@@ -0,0 +1,237 @@
+package org.spongycastle.crypto.test;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.Mac;
+import org.spongycastle.crypto.StreamCipher;
+import org.spongycastle.crypto.digests.MD2Digest;
+import org.spongycastle.crypto.digests.SHA1Digest;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.digests.SHA3Digest;
+import org.spongycastle.crypto.digests.SHA512Digest;
+import org.spongycastle.crypto.engines.AESEngine;
+import org.spongycastle.crypto.engines.ChaChaEngine;
+import org.spongycastle.crypto.macs.HMac;
+import org.spongycastle.crypto.macs.Poly1305;
+import org.spongycastle.crypto.modes.AEADBlockCipher;
+import org.spongycastle.crypto.modes.CCMBlockCipher;
+import org.spongycastle.crypto.modes.GCMBlockCipher;
+import org.spongycastle.crypto.modes.SICBlockCipher;
+import org.spongycastle.crypto.params.AEADParameters;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.params.ParametersWithIV;
+import org.spongycastle.crypto.util.ByteBuffers;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Check the ByteBuffer support in the lightweight API against the byte array methods.
+ */
+public class ByteBufferTest
+    extends SimpleTest
+{
+    private static final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ByteBuffer";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        byte[] data = new byte[1001];
+        random.nextBytes(data);
+
+        checkDigest(new SHA1Digest(), new SHA1Digest(), data);
+        checkDigest(new SHA256Digest(), new SHA256Digest(), data);
+        checkDigest(new SHA512Digest(), new SHA512Digest(), data);
+        checkDigest(new SHA3Digest(256), new SHA3Digest(256), data);
+        checkDigest(new MD2Digest(), new MD2Digest(), data);
+
+        byte[] key = new byte[32];
+        random.nextBytes(key);
+
+        checkMac(new HMac(new SHA256Digest()), new HMac(new SHA256Digest()), new KeyParameter(key), data);
+        checkMac(new Poly1305(), new Poly1305(), new KeyParameter(key), data);
+
+        byte[] iv = new byte[16];
+        random.nextBytes(iv);
+
+        checkStreamCipher(new SICBlockCipher(new AESEngine()), new SICBlockCipher(new AESEngine()),
+            new ParametersWithIV(new KeyParameter(key), iv), data);
+        checkStreamCipher(new ChaChaEngine(), new ChaChaEngine(),
+            new ParametersWithIV(new KeyParameter(key), Arrays.copyOfRange(iv, 0, 8)), data);
+
+        checkAEAD(new GCMBlockCipher(new AESEngine()), new GCMBlockCipher(new AESEngine()), key, 12, data);
+        checkAEAD(new CCMBlockCipher(new AESEngine()), new CCMBlockCipher(new AESEngine()), key, 12, data);
+    }
+
+    private void checkDigest(Digest bufDigest, Digest arrayDigest, byte[] data)
+    {
+        arrayDigest.update(data, 0, data.length);
+        byte[] expected = new byte[arrayDigest.getDigestSize()];
+        arrayDigest.doFinal(expected, 0);
+
+        byte[] result = new byte[bufDigest.getDigestSize()];
+        for (int split = 0; split < 150; split += 7)
+        {
+            ByteBuffer direct = directCopy(data);
+            ByteBuffer heap = ByteBuffer.wrap(data);
+
+            // a partial update from the array, then the rest from the buffers
+            bufDigest.update(data, 0, split);
+            direct.position(split);
+            direct.limit(split + (data.length - split) / 2);
+            ByteBuffers.update(bufDigest, direct);
+            isTrue("direct position", direct.position() == direct.limit());
+            heap.position(direct.limit());
+            ByteBuffers.update(bufDigest, heap);
+            isTrue("heap position", heap.position() == heap.limit());
+
+            bufDigest.doFinal(result, 0);
+            if (!Arrays.areEqual(expected, result))
+            {
+                fail(bufDigest.getAlgorithmName() + " ByteBuffer digest mismatch at split " + split);
+            }
+        }
+    }
+
+    private void checkMac(Mac bufMac, Mac arrayMac, KeyParameter key, byte[] data)
+    {
+        arrayMac.init(key);
+        arrayMac.update(data, 0, data.length);
+        byte[] expected = new byte[arrayMac.getMacSize()];
+        arrayMac.doFinal(expected, 0);
+
+        bufMac.init(key);
+
+        byte[] result = new byte[bufMac.getMacSize()];
+        for (int split = 0; split < 150; split += 7)
+        {
+            ByteBuffer direct = directCopy(data);
+
+            bufMac.update(data, 0, split);
+            direct.position(split);
+            ByteBuffers.update(bufMac, direct);
+            isTrue("direct position", direct.position() == direct.limit());
+
+            bufMac.doFinal(result, 0);
+            if (!Arrays.areEqual(expected, result))
+            {
+                fail(bufMac.getAlgorithmName() + " ByteBuffer mac mismatch at split " + split);
+            }
+        }
+    }
+
+    private void checkStreamCipher(StreamCipher bufCipher, StreamCipher arrayCipher, ParametersWithIV params, byte[] data)
+    {
+        byte[] expected = new byte[data.length];
+        arrayCipher.init(true, params);
+        arrayCipher.processBytes(data, 0, data.length, expected, 0);
+
+        for (int split = 0; split < 150; split += 7)
+        {
+            bufCipher.init(true, params);
+
+            byte[] result = new byte[data.length];
+            ByteBuffer out = ByteBuffer.allocateDirect(data.length);
+
+            bufCipher.processBytes(data, 0, split, result, 0);
+            out.position(split);
+
+            ByteBuffer in = directCopy(data);
+            in.position(split);
+            int len = ByteBuffers.processBytes(bufCipher, in, out);
+            isTrue("length", len == data.length - split);
+            isTrue("out position", out.position() == data.length);
+
+            out.position(split);
+            out.get(result, split, len);
+
+            if (!Arrays.areEqual(expected, result))
+            {
+                fail(bufCipher.getAlgorithmName() + " ByteBuffer stream mismatch at split " + split);
+            }
+        }
+    }
+
+    private void checkAEAD(AEADBlockCipher bufCipher, AEADBlockCipher arrayCipher, byte[] key, int nonceSize, byte[] data)
+        throws Exception
+    {
+        byte[] aad = new byte[53];
+        random.nextBytes(aad);
+
+        for (int split = 0; split < 100; split += 11)
+        {
+            byte[] nonce = new byte[nonceSize];
+            random.nextBytes(nonce);
+            AEADParameters params = new AEADParameters(new KeyParameter(key), 128, nonce);
+
+            arrayCipher.init(true, params);
+            arrayCipher.processAADBytes(aad, 0, aad.length);
+            byte[] expected = new byte[arrayCipher.getOutputSize(data.length)];
+            int len = arrayCipher.processBytes(data, 0, data.length, expected, 0);
+            arrayCipher.doFinal(expected, len);
+
+            byte[] result = processAEAD(bufCipher, true, params, aad, data, split);
+            if (!Arrays.areEqual(expected, result))
+            {
+                fail(bufCipher.getAlgorithmName() + " ByteBuffer encryption mismatch at split " + split);
+            }
+
+            result = processAEAD(bufCipher, false, params, aad, expected, split);
+            if (!Arrays.areEqual(data, result))
+            {
+                fail(bufCipher.getAlgorithmName() + " ByteBuffer decryption mismatch at split " + split);
+            }
+        }
+    }
+
+    private byte[] processAEAD(AEADBlockCipher cipher, boolean forEncryption, AEADParameters params, byte[] aad,
+        byte[] input, int split)
+        throws Exception
+    {
+        cipher.init(forEncryption, params);
+
+        ByteBuffer aadBuf = directCopy(aad);
+        aadBuf.limit(split % aad.length);
+        ByteBuffers.processAADBytes(cipher, aadBuf);
+        aadBuf.limit(aad.length);
+        ByteBuffers.processAADBytes(cipher, aadBuf);
+
+        ByteBuffer in = directCopy(input);
+        ByteBuffer out = ByteBuffer.allocateDirect(cipher.getOutputSize(input.length));
+
+        in.limit(split);
+        ByteBuffers.processBytes(cipher, in, out);
+        in.limit(input.length);
+        ByteBuffers.processBytes(cipher, in, out);
+
+        byte[] result = new byte[cipher.getOutputSize(0) + out.position()];
+        int len = out.position();
+        out.flip();
+        out.get(result, 0, len);
+        cipher.doFinal(result, len);
+
+        return result;
+    }
+
+    private static ByteBuffer directCopy(byte[] data)
+    {
+        ByteBuffer buf = ByteBuffer.allocateDirect(data.length);
+
+        buf.put(data);
+        buf.flip();
+
+        return buf;
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ByteBufferTest());
+    }
+}
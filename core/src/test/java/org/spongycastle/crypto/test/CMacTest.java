@@ -10,6 +10,7 @@
 import org.spongycastle.crypto.engines.RijndaelEngine;
 import org.spongycastle.crypto.engines.Shacal2Engine;
 import org.spongycastle.crypto.macs.CMac;
+import org.spongycastle.crypto.macs.CMacKey;
 import org.spongycastle.crypto.macs.CMacWithIV;
 import org.spongycastle.crypto.params.KeyParameter;
 import org.spongycastle.crypto.params.ParametersWithIV;
@@ -312,9 +313,72 @@ public void performTest()
         testCMac(new DESEngine(), "2b7e151628aed2a6", "3cc3a242585e49f9");
         testCMac(new Shacal2Engine(), "2b7e151628aed2a6abf7158809cf4f3c", "794b2766cd0d550877f1ded48ab74f9ddff20f32e6d69fae8a1ede4205e7d640");
 
+        testCMacKey();
         testExceptions();
     }
 
+    private void testCMacKey()
+    {
+        CMacKey key = new CMacKey(new AESEngine(), keyBytes128);
+        CMac mac1 = new CMac(new AESEngine());
+        CMac mac2 = new CMac(new AESFastEngine());
+
+        byte[][] inputs = { input0, input16, input40, input64 };
+        byte[][] outputs = { output_k128_m0, output_k128_m16, output_k128_m40, output_k128_m64 };
+        byte[][] outputs256 = { output_k256_m0, output_k256_m16, output_k256_m40, output_k256_m64 };
+
+        for (int i = 0; i < inputs.length; i++)
+        {
+            mac1.init(key);
+            checkMac(mac1, inputs[i], false, outputs[i]);
+
+            // a second init with the same key only resets
+            mac1.update(input64, 0, 7);
+            mac1.init(key);
+            checkMac(mac1, inputs[i], true, outputs[i]);
+
+            // the key is shared, switching key type on the same MAC still works
+            mac2.init(new KeyParameter(keyBytes256));
+            checkMac(mac2, inputs[i], false, outputs256[i]);
+            mac2.init(key);
+            checkMac(mac2, inputs[i], true, outputs[i]);
+        }
+
+        try
+        {
+            new CMac(new DESedeEngine()).init(key);
+            fail("CMac accepted CMacKey for another cipher");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkMac(Mac mac, byte[] input, boolean byteWise, byte[] expected)
+    {
+        if (byteWise)
+        {
+            for (int i = 0; i < input.length; i++)
+            {
+                mac.update(input[i]);
+            }
+        }
+        else
+        {
+            mac.update(input, 0, input.length);
+        }
+
+        byte[] out = new byte[mac.getMacSize()];
+
+        mac.doFinal(out, 0);
+
+        if (!areEqual(out, expected))
+        {
+            fail("Failed - expected " + Strings.fromByteArray(Hex.encode(expected)) + " got " + new String(Hex.encode(out)));
+        }
+    }
+
     private void testCMac(BlockCipher cipher, String keyBytes, String expected)
     {
         testCMac(cipher, Hex.decode(keyBytes), general_input, Hex.decode(expected));
@@ -0,0 +1,87 @@
+package org.spongycastle.crypto.test;
+
+import org.spongycastle.crypto.digests.CSHAKEDigest;
+import org.spongycastle.crypto.digests.SHAKEDigest;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * cSHAKE test vectors from:
+ * <p>
+ * https://csrc.nist.gov/CSRC/media/Projects/Cryptographic-Standards-and-Guidelines/documents/examples/cSHAKE_samples.pdf
+ */
+public class CSHAKETest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "CSHAKE";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        CSHAKEDigest cshake = new CSHAKEDigest(128, new byte[0], Strings.toByteArray("Email Signature"));
+
+        cshake.update(Hex.decode("00010203"), 0, 4);
+
+        byte[] res = new byte[32];
+
+        cshake.doOutput(res, 0, res.length);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode("c1c36925b6409a04f1b504fcbca9d82b4017277cb5ed2b2065fc1d3814d5aaf5"), res));
+
+        cshake = new CSHAKEDigest(256, new byte[0], Strings.toByteArray("Email Signature"));
+
+        byte[] data = new byte[200];
+        for (int i = 0; i != data.length; i++)
+        {
+            data[i] = (byte)i;
+        }
+
+        cshake.update(data, 0, data.length);
+
+        res = new byte[64];
+
+        cshake.doFinal(res, 0, res.length);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode(
+            "07dc27b11e51fbac75bc7b3c1d983e8b4b85fb1defaf218912ac86430273091727f42b17ed1df63e8ec118f04b23633c1dfb1574c8fb55cb45da8e25afb092bb"), res));
+
+        // the customization survives doFinal() and copies
+        cshake.update(data, 0, 100);
+        CSHAKEDigest copy = new CSHAKEDigest(cshake);
+        copy.update(data, 100, 100);
+        copy.doFinal(res, 0, res.length);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode(
+            "07dc27b11e51fbac75bc7b3c1d983e8b4b85fb1defaf218912ac86430273091727f42b17ed1df63e8ec118f04b23633c1dfb1574c8fb55cb45da8e25afb092bb"), res));
+
+        // no function name or customization string gives SHAKE
+        checkSHAKE(128, new CSHAKEDigest(128, null, new byte[0]), Hex.decode("eeaabeef"));
+        checkSHAKE(256, new CSHAKEDigest(256, null, null), Hex.decode("eeaabeef"));
+    }
+
+    private void checkSHAKE(int bitSize, CSHAKEDigest cshake, byte[] msg)
+    {
+        SHAKEDigest ref = new SHAKEDigest(bitSize);
+
+        ref.update(msg, 0, msg.length);
+        cshake.update(msg, 0, msg.length);
+
+        byte[] res1 = new byte[32];
+        byte[] res2 = new byte[32];
+
+        ref.doFinal(res1, 0, res1.length);
+        cshake.doFinal(res2, 0, res2.length);
+
+        isTrue("cSHAKE not equal to SHAKE", Arrays.areEqual(res1, res2));
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new CSHAKETest());
+    }
+}
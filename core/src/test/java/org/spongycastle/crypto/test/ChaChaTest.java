@@ -4,7 +4,9 @@
 
 import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.StreamCipher;
+import org.spongycastle.crypto.engines.ChaCha7539Engine;
 import org.spongycastle.crypto.engines.ChaChaEngine;
+import org.spongycastle.crypto.engines.Salsa20Engine;
 import org.spongycastle.crypto.params.KeyParameter;
 import org.spongycastle.crypto.params.ParametersWithIV;
 import org.spongycastle.util.encoders.Hex;
@@ -159,6 +161,11 @@ public void performTest()
                   set6v1_0, set6v1_65472, set6v1_65536);
         reinitBug();
         skipTest();
+        bulkTest(new ChaChaEngine(), 32, 8, 0);
+        bulkTest(new ChaChaEngine(8), 16, 8, 0);
+        bulkTest(new ChaChaEngine(), 32, 8, 0xffffffffL * 64 - 100);
+        bulkTest(new ChaCha7539Engine(), 32, 12, 0);
+        bulkTest(new Salsa20Engine(), 32, 8, 0);
     }
 
     private void chachaTest1(int rounds, CipherParameters params, String v0, String v192, String v256, String v448)
@@ -395,6 +402,64 @@ private void skipTest()
         }
     }
 
+    private void bulkTest(Salsa20Engine engine, int keySize, int ivSize, long start)
+    {
+        SecureRandom rand = new SecureRandom();
+        byte[]       key = new byte[keySize];
+        byte[]       iv = new byte[ivSize];
+        byte[]       plain = new byte[1500];
+
+        rand.nextBytes(key);
+        rand.nextBytes(iv);
+        rand.nextBytes(plain);
+
+        CipherParameters params = new ParametersWithIV(new KeyParameter(key), iv);
+
+        // reference output, one byte at a time
+        byte[] expected = new byte[plain.length];
+
+        engine.init(true, params);
+        engine.seekTo(start);
+        for (int i = 0; i != plain.length; i++)
+        {
+            expected[i] = engine.returnByte(plain[i]);
+        }
+
+        for (int split = 0; split < 200; split += 7)
+        {
+            byte[] cipher = new byte[plain.length + 1];
+
+            engine.init(true, params);
+            engine.seekTo(start);
+            engine.processBytes(plain, 0, split, cipher, 1);
+            engine.processBytes(plain, split, plain.length - split, cipher, 1 + split);
+
+            if (!areEqual(expected, 0, cipher, 1))
+            {
+                fail(engine.getAlgorithmName() + " bulk output mismatch at split " + split);
+            }
+
+            if (engine.getPosition() != start + plain.length)
+            {
+                fail(engine.getAlgorithmName() + " bulk position wrong at split " + split);
+            }
+
+            // in place
+            byte[] buf = new byte[plain.length];
+            System.arraycopy(plain, 0, buf, 0, plain.length);
+
+            engine.init(true, params);
+            engine.seekTo(start);
+            engine.processBytes(buf, 0, split, buf, 0);
+            engine.processBytes(buf, split, buf.length - split, buf, split);
+
+            if (!areEqual(expected, buf))
+            {
+                fail(engine.getAlgorithmName() + " in place bulk output mismatch at split " + split);
+            }
+        }
+    }
+
     public static void main(
         String[]    args)
     {
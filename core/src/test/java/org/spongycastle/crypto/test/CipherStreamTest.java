@@ -2,8 +2,11 @@
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
 import java.security.SecureRandom;
 
 import org.spongycastle.crypto.BlockCipher;
@@ -34,6 +37,8 @@
 import org.spongycastle.crypto.engines.TwofishEngine;
 import org.spongycastle.crypto.engines.XSalsa20Engine;
 import org.spongycastle.crypto.engines.XTEAEngine;
+import org.spongycastle.crypto.io.BoundedBufferPool;
+import org.spongycastle.crypto.io.BufferPool;
 import org.spongycastle.crypto.io.CipherInputStream;
 import org.spongycastle.crypto.io.CipherOutputStream;
 import org.spongycastle.crypto.io.InvalidCipherTextIOException;
@@ -43,6 +48,7 @@
 import org.spongycastle.crypto.modes.CFBBlockCipher;
 import org.spongycastle.crypto.modes.CTSBlockCipher;
 import org.spongycastle.crypto.modes.EAXBlockCipher;
+import org.spongycastle.crypto.modes.GCMBlockCipher;
 import org.spongycastle.crypto.modes.NISTCTSBlockCipher;
 import org.spongycastle.crypto.modes.OCBBlockCipher;
 import org.spongycastle.crypto.modes.OFBBlockCipher;
@@ -480,6 +486,147 @@ public void performTest()
             this.streamSize = testSizes[i];
             performTests();
         }
+
+        performPooledTests();
+    }
+
+    private void performPooledTests()
+        throws Exception
+    {
+        BufferPool pool = new BoundedBufferPool(4);
+        KeyParameter key = new KeyParameter(new byte[16]);
+        CipherParameters withIv = new ParametersWithIV(key, new byte[16]);
+
+        int[] sizes = new int[]{ 0, 15, 65536, 65537, 200001 };
+        for (int i = 0; i < sizes.length; i++)
+        {
+            byte[] data = new byte[sizes[i]];
+            for (int j = 0; j < data.length; j++)
+            {
+                data[j] = (byte)(j * 7);
+            }
+
+            testPooled(new PaddedBufferedBlockCipher(new CBCBlockCipher(new AESEngine()), new PKCS7Padding()), withIv, pool, data);
+            testPooled(new BufferedBlockCipher(new SICBlockCipher(new AESEngine())), withIv, pool, data);
+            testPooled(new GCMBlockCipher(new AESEngine()), withIv, pool, data);
+            testPooled(new ChaChaEngine(), new ParametersWithIV(key, new byte[8]), pool, data);
+        }
+
+        testNonBlockingChannels(pool);
+    }
+
+    private void testNonBlockingChannels(BufferPool pool)
+        throws Exception
+    {
+        Pipe pipe = Pipe.open();
+        try
+        {
+            pipe.source().configureBlocking(false);
+            pipe.sink().configureBlocking(false);
+
+            StreamCipher cipher = new ChaChaEngine();
+            cipher.init(true, new ParametersWithIV(new KeyParameter(new byte[16]), new byte[8]));
+
+            CipherOutputStream cOut = new CipherOutputStream(new ByteArrayOutputStream(), cipher, pool, 1024);
+            try
+            {
+                cOut.transferFrom(pipe.source());
+                fail("non-blocking channel accepted by transferFrom");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+
+            CipherInputStream cIn = new CipherInputStream(new ByteArrayInputStream(new byte[100]), cipher, pool, 1024);
+            try
+            {
+                cIn.transferTo(pipe.sink());
+                fail("non-blocking channel accepted by transferTo");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+            cIn.close();
+        }
+        finally
+        {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+    }
+
+    /**
+     * Encrypt from a channel through a pooled CipherOutputStream, then decrypt through a pooled
+     * CipherInputStream into a channel.
+     */
+    private void testPooled(Object cipher, CipherParameters params, BufferPool pool, byte[] data)
+        throws Exception
+    {
+        ByteArrayOutputStream ct = new ByteArrayOutputStream();
+
+        init(cipher, true, params);
+        CipherOutputStream cOut = (CipherOutputStream)createPooledOutputStream(ct, cipher, pool);
+        long written = cOut.transferFrom(Channels.newChannel(new ByteArrayInputStream(data)));
+        cOut.close();
+
+        isTrue("transferFrom length: " + getName(cipher), written == data.length);
+
+        init(cipher, false, params);
+        CipherInputStream cIn = (CipherInputStream)createPooledInputStream(ct.toByteArray(), cipher, pool);
+        ByteArrayOutputStream pt = new ByteArrayOutputStream();
+        long read = cIn.transferTo(Channels.newChannel(pt));
+        cIn.close();
+
+        try
+        {
+            cIn.read();
+            fail("read after close: " + getName(cipher));
+        }
+        catch (IOException e)
+        {
+            isTrue("read after close: " + getName(cipher), "stream closed".equals(e.getMessage()));
+        }
+
+        isTrue("transferTo length: " + getName(cipher), read == data.length);
+        if (!Arrays.areEqual(data, pt.toByteArray()))
+        {
+            fail("Failed pooled channel transfer - decrypted data doesn't match: " + getName(cipher));
+        }
+    }
+
+    private OutputStream createPooledOutputStream(OutputStream output, Object cipher, BufferPool pool)
+    {
+        if (cipher instanceof BufferedBlockCipher)
+        {
+            return new CipherOutputStream(output, (BufferedBlockCipher)cipher, pool, BoundedBufferPool.DEFAULT_BUFFER_SIZE);
+        }
+        else if (cipher instanceof AEADBlockCipher)
+        {
+            return new CipherOutputStream(output, (AEADBlockCipher)cipher, pool, BoundedBufferPool.DEFAULT_BUFFER_SIZE);
+        }
+        else
+        {
+            return new CipherOutputStream(output, (StreamCipher)cipher, pool, BoundedBufferPool.DEFAULT_BUFFER_SIZE);
+        }
+    }
+
+    private InputStream createPooledInputStream(byte[] data, Object cipher, BufferPool pool)
+    {
+        ByteArrayInputStream input = new ByteArrayInputStream(data);
+        if (cipher instanceof BufferedBlockCipher)
+        {
+            return new CipherInputStream(input, (BufferedBlockCipher)cipher, pool, BoundedBufferPool.DEFAULT_BUFFER_SIZE);
+        }
+        else if (cipher instanceof AEADBlockCipher)
+        {
+            return new CipherInputStream(input, (AEADBlockCipher)cipher, pool, BoundedBufferPool.DEFAULT_BUFFER_SIZE);
+        }
+        else
+        {
+            return new CipherInputStream(input, (StreamCipher)cipher, pool, BoundedBufferPool.DEFAULT_BUFFER_SIZE);
+        }
     }
 
     private void performTests()
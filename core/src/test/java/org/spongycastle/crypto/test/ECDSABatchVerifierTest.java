@@ -0,0 +1,183 @@
+package org.spongycastle.crypto.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.spongycastle.asn1.x9.ECNamedCurveTable;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.AsymmetricCipherKeyPair;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.crypto.generators.ECKeyPairGenerator;
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.crypto.params.ECKeyGenerationParameters;
+import org.spongycastle.crypto.params.ECPrivateKeyParameters;
+import org.spongycastle.crypto.params.ECPublicKeyParameters;
+import org.spongycastle.crypto.params.ParametersWithRandom;
+import org.spongycastle.crypto.signers.ECDSABatchVerifier;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Checks ECDSABatchVerifier gives the same result as ECDSASigner for every signature in a batch.
+ */
+public class ECDSABatchVerifierTest
+    extends SimpleTest
+{
+    private final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "ECDSABatchVerifier";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        X9ECParameters p256 = CustomNamedCurves.getByName("secp256r1");
+        X9ECParameters b283 = ECNamedCurveTable.getByName("sect283k1");
+
+        ECDomainParameters[] domains = new ECDomainParameters[]{
+            new ECDomainParameters(p256.getCurve(), p256.getG(), p256.getN(), p256.getH()),
+            new ECDomainParameters(b283.getCurve(), b283.getG(), b283.getN(), b283.getH()),
+            noCofactorDomain(ECNamedCurveTable.getByName("secp256r1"))
+        };
+
+        for (int i = 0; i < domains.length; ++i)
+        {
+            batchTest(new ECDomainParameters[]{ domains[i] }, 40, null);
+        }
+
+        // a batch mixing curves
+        batchTest(domains, 30, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            batchTest(domains, 70, executor);
+            batchTest(new ECDomainParameters[]{ domains[0] }, 33, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier();
+        if (verifier.verify().length != 0)
+        {
+            fail("empty batch gave results");
+        }
+    }
+
+    /*
+     * The curve without its order or cofactor, so verification has to normalize the point.
+     */
+    private ECDomainParameters noCofactorDomain(X9ECParameters x9)
+    {
+        ECCurve.Fp fp = (ECCurve.Fp)x9.getCurve();
+        ECCurve curve = new ECCurve.Fp(fp.getQ(), fp.getA().toBigInteger(), fp.getB().toBigInteger());
+        ECPoint g = curve.importPoint(x9.getG());
+
+        return new ECDomainParameters(curve, g, x9.getN());
+    }
+
+    private void batchTest(ECDomainParameters[] domains, int count, ExecutorService executor)
+    {
+        AsymmetricCipherKeyPair[] pairs = new AsymmetricCipherKeyPair[domains.length * 2];
+        for (int i = 0; i < pairs.length; ++i)
+        {
+            ECKeyPairGenerator kpGen = new ECKeyPairGenerator();
+            kpGen.init(new ECKeyGenerationParameters(domains[i % domains.length], random));
+            pairs[i] = kpGen.generateKeyPair();
+        }
+
+        ECDSABatchVerifier verifier = new ECDSABatchVerifier(executor);
+        boolean[] expected = new boolean[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            AsymmetricCipherKeyPair pair = pairs[i % pairs.length];
+            ECPublicKeyParameters pub = (ECPublicKeyParameters)pair.getPublic();
+            BigInteger n = pub.getParameters().getN();
+
+            byte[] message = new byte[32];
+            random.nextBytes(message);
+
+            ECDSASigner signer = new ECDSASigner();
+            signer.init(true, new ParametersWithRandom((ECPrivateKeyParameters)pair.getPrivate(), random));
+            BigInteger[] sig = signer.generateSignature(message);
+            BigInteger r = sig[0], s = sig[1];
+
+            switch (i % 7)
+            {
+            case 1:
+                message[3] ^= 1;
+                break;
+            case 2:
+                s = n.subtract(s);
+                break;
+            case 3:
+                // a key equal to the signer's but decoded separately
+                pub = new ECPublicKeyParameters(pub.getParameters().getCurve().decodePoint(pub.getQ().getEncoded(true)),
+                    pub.getParameters());
+                break;
+            case 4:
+                pub = (ECPublicKeyParameters)pairs[(i + 1) % pairs.length].getPublic();
+                break;
+            case 5:
+                r = (i % 2 == 0) ? n : BigInteger.valueOf(0);
+                break;
+            case 6:
+                s = r.add(n);
+                break;
+            default:
+                break;
+            }
+
+            signer.init(false, pub);
+            expected[i] = signer.verifySignature(message, r, s);
+
+            verifier.add(message, r, s, pub);
+        }
+
+        if (verifier.size() != count)
+        {
+            fail("wrong batch size");
+        }
+
+        boolean[] results = verifier.verify();
+
+        if (verifier.size() != 0)
+        {
+            fail("batch not emptied by verify");
+        }
+
+        int valid = 0;
+        for (int i = 0; i < count; ++i)
+        {
+            if (results[i] != expected[i])
+            {
+                fail("batch result " + i + " differs from ECDSASigner");
+            }
+            if (results[i])
+            {
+                ++valid;
+            }
+        }
+
+        // cases 0, 2 (s and n - s are both valid) and 3
+        if (valid == 0)
+        {
+            fail("no valid signatures in batch");
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ECDSABatchVerifierTest());
+    }
+}
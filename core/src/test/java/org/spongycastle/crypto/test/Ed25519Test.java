@@ -0,0 +1,155 @@
+package org.spongycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.AsymmetricCipherKeyPair;
+import org.spongycastle.crypto.KeyGenerationParameters;
+import org.spongycastle.crypto.Signer;
+import org.spongycastle.crypto.generators.Ed25519KeyPairGenerator;
+import org.spongycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.spongycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.spongycastle.crypto.signers.Ed25519Signer;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Ed25519 test vectors from RFC 8032 section 7.1, and sign/verify with generated key pairs.
+ */
+public class Ed25519Test
+    extends SimpleTest
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public String getName()
+    {
+        return "Ed25519";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        vectorTest("TEST 1",
+            "9d61b19deffd5a60ba844af492ec2cc44449c5697b326919703bac031cae7f60",
+            "d75a980182b10ab7d54bfed3c964073a0ee172f3daa62325af021a68f707511a",
+            "",
+            "e5564300c360ac729086e2cc806e828a84877f1eb8e5d974d873e065224901555fb8821590a33bacc61e39701cf9b46bd25bf5f0595bbe24655141438e7a100b");
+        vectorTest("TEST 2",
+            "4ccd089b28ff96da9db6c346ec114e0f5b8a319f35aba624da8cf6ed4fb8a6fb",
+            "3d4017c3e843895a92b70aa74d1b7ebc9c982ccf2ec4968cc0cd55f12af4660c",
+            "72",
+            "92a009a9f0d4cab8720e820b5f642540a2b27b5416503f8fb3762223ebdb69da085ac1e43e15996e458f3613d0f11d8c387b2eaeb4302aeeb00d291612bb0c00");
+        vectorTest("TEST 3",
+            "c5aa8df43f9f837bedb7442f31dcb7b166d38535076f094b85ce3a2e0b4458f7",
+            "fc51cd8e6218a1a38da47ed00230f0580816ed13ba3303ac5deb911548908025",
+            "af82",
+            "6291d657deec24024827e69c3abe01a30ce548a284743a445e3680d7db5ac3ac18ff9b538d16f290ae67f760984dc6594a7c15e9716ed28dc027beceea1ec40a");
+        vectorTest("TEST SHA(abc)",
+            "833fe62409237b9d62ec77587520911e9a759cec1d19755b7da901b96dca3d42",
+            "ec172b93ad5e563bf4932c70e1245034c35467ef2efd4d64ebf819683467e2bf",
+            "ddaf35a193617abacc417349ae20413112e6fa4e89a97ea20a9eeee64b55d39a"
+                + "2192992a274fc1a836ba3c23a3feebbd454d4423643ce80e2a9ac94fa54ca49f",
+            "dc2a4459e7369633a52b1bf277839a00201009a3efbf3ecb69bea2186c26b589"
+                + "09351fc9ac90b3ecfdfbc7c66431e0303dca179c138ac17ad9bef1177331a704");
+
+        randomTest();
+        malleabilityTest();
+    }
+
+    private void vectorTest(String name, String sk, String pk, String msg, String sig)
+        throws Exception
+    {
+        Ed25519PrivateKeyParameters privateKey = new Ed25519PrivateKeyParameters(Hex.decode(sk), 0);
+        Ed25519PublicKeyParameters publicKey = privateKey.generatePublicKey();
+
+        isTrue(name + ": public key wrong", areEqual(Hex.decode(pk), publicKey.getEncoded()));
+
+        byte[] m = Hex.decode(msg);
+
+        Signer signer = new Ed25519Signer();
+        signer.init(true, privateKey);
+        signer.update(m, 0, m.length);
+        byte[] signature = signer.generateSignature();
+
+        isTrue(name + ": signature wrong", areEqual(Hex.decode(sig), signature));
+
+        Signer verifier = new Ed25519Signer();
+        verifier.init(false, new Ed25519PublicKeyParameters(Hex.decode(pk), 0));
+        verifier.update(m, 0, m.length);
+
+        isTrue(name + ": signature not verified", verifier.verifySignature(signature));
+    }
+
+    private void randomTest()
+        throws Exception
+    {
+        Ed25519KeyPairGenerator kpGen = new Ed25519KeyPairGenerator();
+        kpGen.init(new KeyGenerationParameters(RANDOM, 256));
+
+        Signer signer = new Ed25519Signer();
+        Signer verifier = new Ed25519Signer();
+
+        for (int i = 0; i < 10; ++i)
+        {
+            AsymmetricCipherKeyPair kp = kpGen.generateKeyPair();
+
+            byte[] msg = new byte[RANDOM.nextInt(256) + 1];
+            RANDOM.nextBytes(msg);
+
+            signer.init(true, kp.getPrivate());
+            signer.update(msg, 0, msg.length);
+            byte[] signature = signer.generateSignature();
+
+            verifier.init(false, kp.getPublic());
+            verifier.update(msg, 0, msg.length);
+            isTrue("signature not verified", verifier.verifySignature(signature));
+
+            // the signer is reset after each signature
+            verifier.update(msg, 0, msg.length);
+            isTrue("signature not verified after reset", verifier.verifySignature(signature));
+
+            byte[] badMsg = Arrays.clone(msg);
+            badMsg[RANDOM.nextInt(badMsg.length)] ^= 1;
+            verifier.update(badMsg, 0, badMsg.length);
+            isTrue("modified message verified", !verifier.verifySignature(signature));
+
+            byte[] badSig = Arrays.clone(signature);
+            badSig[RANDOM.nextInt(badSig.length)] ^= (byte)(1 << RANDOM.nextInt(8));
+            verifier.update(msg, 0, msg.length);
+            isTrue("modified signature verified", !verifier.verifySignature(badSig));
+
+            verifier.update(msg, 0, msg.length);
+            isTrue("truncated signature verified", !verifier.verifySignature(Arrays.copyOf(signature, 63)));
+        }
+    }
+
+    /*
+     * S + L verifies the same equation as S, so it must be rejected as not canonical.
+     */
+    private void malleabilityTest()
+    {
+        byte[] msg = Hex.decode("72");
+        byte[] sig = Hex.decode("92a009a9f0d4cab8720e820b5f642540a2b27b5416503f8fb3762223ebdb69da"
+            + "085ac1e43e15996e458f3613d0f11d8c387b2eaeb4302aeeb00d291612bb0c00");
+        byte[] L = Hex.decode("edd3f55c1a631258d69cf7a2def9de1400000000000000000000000000000010");
+
+        int c = 0;
+        for (int i = 0; i < 32; ++i)
+        {
+            c += (sig[32 + i] & 0xFF) + (L[i] & 0xFF);
+            sig[32 + i] = (byte)c;
+            c >>>= 8;
+        }
+
+        Ed25519PublicKeyParameters publicKey = new Ed25519PublicKeyParameters(
+            Hex.decode("3d4017c3e843895a92b70aa74d1b7ebc9c982ccf2ec4968cc0cd55f12af4660c"), 0);
+
+        isTrue("non-canonical S accepted", !publicKey.verify(msg, 0, msg.length, sig, 0));
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new Ed25519Test());
+    }
+}
@@ -9,10 +9,12 @@
 import org.spongycastle.crypto.modes.GCMBlockCipher;
 import org.spongycastle.crypto.modes.gcm.BasicGCMMultiplier;
 import org.spongycastle.crypto.modes.gcm.GCMMultiplier;
+import org.spongycastle.crypto.modes.gcm.Tables1kAggregateGCMMultiplier;
 import org.spongycastle.crypto.modes.gcm.Tables64kGCMMultiplier;
 import org.spongycastle.crypto.modes.gcm.Tables8kGCMMultiplier;
 import org.spongycastle.crypto.params.AEADParameters;
 import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Times;
 import org.spongycastle.util.encoders.Hex;
 import org.spongycastle.util.test.SimpleTest;
@@ -305,6 +307,7 @@ public void performTest() throws Exception
         randomTests();
         outputSizeTests();
         testExceptions();
+        testSplitInput();
     }
 
     protected BlockCipher createAESEngine()
@@ -312,6 +315,87 @@ protected BlockCipher createAESEngine()
         return new AESEngine();
     }
 
+    private void testSplitInput() throws InvalidCipherTextException
+    {
+        SecureRandom srng = new SecureRandom();
+        AEADParameters parameters = new AEADParameters(new KeyParameter(new byte[16]), 96, new byte[12]);
+
+        byte[] P = new byte[1000];
+        srng.nextBytes(P);
+
+        // reference values, one byte at a time
+        GCMBlockCipher cipher = initCipher(new BasicGCMMultiplier(), true, parameters);
+        byte[] C = new byte[cipher.getOutputSize(P.length)];
+        int len = 0;
+        for (int i = 0; i != P.length; i++)
+        {
+            len += cipher.processByte(P[i], C, len);
+        }
+        cipher.doFinal(C, len);
+
+        for (int split = 0; split < 200; split += 13)
+        {
+            cipher = initCipher(new Tables1kAggregateGCMMultiplier(), true, parameters);
+
+            byte[] buf = new byte[C.length];
+            System.arraycopy(P, 0, buf, 0, P.length);
+
+            // in place, in two parts
+            len = cipher.processBytes(buf, 0, split, buf, 0);
+            len += cipher.processBytes(buf, split, P.length - split, buf, len);
+            cipher.doFinal(buf, len);
+
+            if (!areEqual(C, buf))
+            {
+                fail("incorrect in place encrypt with split at " + split);
+            }
+
+            cipher.init(false, parameters);
+
+            byte[] dec = new byte[cipher.getOutputSize(C.length)];
+            len = cipher.processBytes(C, 0, split, dec, 0);
+            len += cipher.processBytes(C, split, C.length - split, dec, len);
+            cipher.doFinal(dec, len);
+
+            if (!areEqual(P, dec))
+            {
+                fail("incorrect decrypt with split at " + split);
+            }
+
+            // streamed, so later pieces start with the held back tag bytes
+            int piece = split + 1;
+            for (int inPlace = 0; inPlace != 2; inPlace++)
+            {
+                cipher.init(false, parameters);
+
+                byte[] in = Arrays.clone(C);
+                byte[] out = (inPlace == 0) ? new byte[C.length] : in;
+                len = 0;
+                for (int off = 0; off < in.length; off += piece)
+                {
+                    len += cipher.processBytes(in, off, Math.min(piece, in.length - off), out, len);
+                }
+                cipher.doFinal(out, len);
+
+                if (!areEqual(P, Arrays.copyOfRange(out, 0, P.length)))
+                {
+                    fail("incorrect streamed decrypt in pieces of " + piece + (inPlace == 0 ? "" : " in place"));
+                }
+            }
+
+            cipher.init(false, parameters);
+
+            buf = Arrays.clone(C);
+            len = cipher.processBytes(buf, 0, buf.length, buf, 0);
+            cipher.doFinal(buf, len);
+
+            if (!areEqual(P, Arrays.copyOfRange(buf, 0, P.length)))
+            {
+                fail("incorrect in place decrypt");
+            }
+        }
+    }
+
     private void testExceptions() throws InvalidCipherTextException
     {
         GCMBlockCipher gcm = new GCMBlockCipher(createAESEngine());
@@ -388,6 +472,7 @@ private void runTestCase(String[] testVector, int macLength)
         runTestCase(new BasicGCMMultiplier(), new BasicGCMMultiplier(), testName, K, IV, A, P, C, T);
         runTestCase(new Tables8kGCMMultiplier(), new Tables8kGCMMultiplier(), testName, K, IV, A, P, C, T);
         runTestCase(new Tables64kGCMMultiplier(), new Tables64kGCMMultiplier(), testName, K, IV, A, P, C, T);
+        runTestCase(new Tables1kAggregateGCMMultiplier(), new Tables1kAggregateGCMMultiplier(), testName, K, IV, A, P, C, T);
     }
 
     private void runTestCase(
@@ -525,6 +610,7 @@ private void randomTests()
         randomTests(srng, new BasicGCMMultiplier());
         randomTests(srng, new Tables8kGCMMultiplier());
         randomTests(srng, new Tables64kGCMMultiplier());
+        randomTests(srng, new Tables1kAggregateGCMMultiplier());
     }
 
     private void randomTests(SecureRandom srng, GCMMultiplier m)
@@ -289,6 +289,58 @@ public void performTest()
         {
             fail("HKDF failed generator test " + 102);
         }
+
+        bulkTest();
+    }
+
+    private void bulkTest()
+    {
+        // several keys from one PRK, as in a key schedule, against one generator per key
+        byte[] ikm = Hex.decode("0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b0b");
+        byte[] salt = Hex.decode("000102030405060708090a0b0c");
+        byte[][] infos = { Hex.decode("6b6579"), Hex.decode("6976"), new byte[0], Hex.decode("f0f1f2f3f4f5f6f7f8f9") };
+        int[] lengths = { 16, 12, 0, 100 };
+
+        HKDFBytesGenerator hkdf = new HKDFBytesGenerator(new SHA256Digest());
+        hkdf.init(new HKDFParameters(ikm, salt, Hex.decode("c0c1")));
+
+        // part way through a normal expansion, which the bulk call must leave alone
+        byte[] first = new byte[10];
+        hkdf.generateBytes(first, 0, first.length);
+
+        byte[] bulk = new byte[3 + 128];
+        if (hkdf.generateBytes(infos, lengths, bulk, 3) != 128)
+        {
+            fail("wrong bulk length");
+        }
+
+        int off = 3;
+        for (int i = 0; i < infos.length; i++)
+        {
+            HKDFBytesGenerator single = new HKDFBytesGenerator(new SHA256Digest());
+            single.init(new HKDFParameters(ikm, salt, infos[i]));
+
+            byte[] okm = new byte[lengths[i]];
+            single.generateBytes(okm, 0, okm.length);
+
+            byte[] part = new byte[lengths[i]];
+            System.arraycopy(bulk, off, part, 0, part.length);
+            compareOKM(200 + i, part, okm);
+            off += lengths[i];
+        }
+
+        byte[] rest = new byte[40];
+        hkdf.generateBytes(rest, 0, rest.length);
+
+        HKDFBytesGenerator single = new HKDFBytesGenerator(new SHA256Digest());
+        single.init(new HKDFParameters(ikm, salt, Hex.decode("c0c1")));
+        byte[] all = new byte[50];
+        single.generateBytes(all, 0, all.length);
+
+        byte[] joined = new byte[50];
+        System.arraycopy(first, 0, joined, 0, 10);
+        System.arraycopy(rest, 0, joined, 10, 40);
+        compareOKM(210, joined, all);
     }
 
     public String getName()
@@ -0,0 +1,120 @@
+package org.spongycastle.crypto.test;
+
+import org.spongycastle.crypto.macs.KMAC;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * KMAC test vectors from:
+ * <p>
+ * https://csrc.nist.gov/CSRC/media/Projects/Cryptographic-Standards-and-Guidelines/documents/examples/KMAC_samples.pdf
+ */
+public class KMACTest
+    extends SimpleTest
+{
+    private static final byte[] KEY = Hex.decode("404142434445464748494A4B4C4D4E4F505152535455565758595A5B5C5D5E5F");
+
+    public String getName()
+    {
+        return "KMAC";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        KMAC kmac = new KMAC(128, new byte[0]);
+
+        isTrue("wrong name", "KMAC128".equals(kmac.getAlgorithmName()));
+
+        kmac.init(new KeyParameter(KEY));
+
+        kmac.update(Hex.decode("00010203"), 0, 4);
+
+        byte[] res = new byte[32];
+
+        kmac.doFinal(res, 0, res.length);
+
+        isTrue("oops: " + Hex.toHexString(res), Arrays.areEqual(Hex.decode("e5780b0d3ea6f7d3a429c5706aa43a00fadbd7d49628839e3187243f456ee14e"), res));
+
+        kmac = new KMAC(128, Strings.toByteArray("My Tagged Application"));
+
+        kmac.init(new KeyParameter(KEY));
+
+        kmac.update(Hex.decode("00010203"), 0, 4);
+
+        kmac.doFinal(res, 0, res.length);
+
+        isTrue("oops: " + Hex.toHexString(res), Arrays.areEqual(Hex.decode("3b1fba963cd8b0b59e8c1a6d71888b7143651af8ba0a7070c0979e2811324aa5"), res));
+
+        // the key remains after doFinal()
+        kmac.update(Hex.decode("00010203"), 0, 4);
+
+        kmac.doFinal(res, 0);
+
+        isTrue("oops: " + Hex.toHexString(res), Arrays.areEqual(Hex.decode("3b1fba963cd8b0b59e8c1a6d71888b7143651af8ba0a7070c0979e2811324aa5"), res));
+
+        kmac = new KMAC(256, Strings.toByteArray("My Tagged Application"));
+
+        kmac.init(new KeyParameter(KEY));
+
+        kmac.update(Hex.decode("00010203"), 0, 4);
+
+        res = new byte[64];
+
+        kmac.doFinal(res, 0, res.length);
+
+        isTrue("oops: " + Hex.toHexString(res), Arrays.areEqual(Hex.decode(
+            "20c570c31346f703c9ac36c61c03cb64c3970d0cfc787e9b79599d273a68d2f7f69d4cc3de9d104a351689f27cf6f5951f0103f33f4f24871024d9c27773a8dd"), res));
+
+        // KMACXOF
+        kmac = new KMAC(128, new byte[0]);
+
+        kmac.init(new KeyParameter(KEY));
+
+        kmac.update(Hex.decode("00010203"), 0, 4);
+
+        res = new byte[32];
+
+        kmac.doOutput(res, 0, 16);
+        kmac.doOutput(res, 16, 16);
+
+        isTrue("oops: " + Hex.toHexString(res), Arrays.areEqual(Hex.decode("cd83740bbd92ccc8cf032b1481a0f4460e7ca9dd12b08a0c4031178bacd6ec35"), res));
+
+        kmac = new KMAC(256, Strings.toByteArray("My Tagged Application"));
+
+        kmac.init(new KeyParameter(KEY));
+
+        byte[] data = new byte[200];
+        for (int i = 0; i != data.length; i++)
+        {
+            data[i] = (byte)i;
+        }
+
+        kmac.update(data, 0, data.length);
+
+        res = new byte[64];
+
+        kmac.doOutput(res, 0, res.length);
+
+        isTrue("oops: " + Hex.toHexString(res), Arrays.areEqual(Hex.decode(
+            "d5be731c954ed7732846bb59dbe3a8e30f83e77a4bff4459f2f1c2b4ecebb8ce67ba01c62e8ab8578d2d499bd1bb276768781190020a306a97de281dcc30305d"), res));
+
+        try
+        {
+            new KMAC(128, null).update((byte)0);
+            fail("no exception on uninitialised KMAC");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new KMACTest());
+    }
+}
@@ -0,0 +1,214 @@
+package org.spongycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.BlockCipher;
+import org.spongycastle.crypto.BufferedBlockCipher;
+import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.MultiBlockCipher;
+import org.spongycastle.crypto.engines.AESBitslicedEngine;
+import org.spongycastle.crypto.engines.AESEngine;
+import org.spongycastle.crypto.engines.AESFastEngine;
+import org.spongycastle.crypto.engines.CamelliaEngine;
+import org.spongycastle.crypto.engines.SerpentEngine;
+import org.spongycastle.crypto.engines.TnepresEngine;
+import org.spongycastle.crypto.engines.TwofishEngine;
+import org.spongycastle.crypto.modes.CBCBlockCipher;
+import org.spongycastle.crypto.paddings.PaddedBufferedBlockCipher;
+import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.params.ParametersWithIV;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Check the multi-block path of ciphers against the single block one.
+ */
+public class MultiBlockCipherTest
+    extends SimpleTest
+{
+    private static final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MultiBlockCipher";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        checkEngine(new AESEngine(), new AESEngine(), 16);
+        checkEngine(new AESEngine(), new AESEngine(), 32);
+        checkEngine(new AESFastEngine(), new AESFastEngine(), 24);
+        checkEngine(new AESBitslicedEngine(), new AESEngine(), 16);
+        checkEngine(new AESBitslicedEngine(), new AESEngine(), 32);
+        checkEngine(new CamelliaEngine(), new CamelliaEngine(), 16);
+        checkEngine(new CamelliaEngine(), new CamelliaEngine(), 32);
+        checkEngine(new TwofishEngine(), new TwofishEngine(), 32);
+        checkEngine(new SerpentEngine(), new SerpentEngine(), 16);
+        checkEngine(new TnepresEngine(), new TnepresEngine(), 16);
+
+        checkCBC(new AESEngine());
+        checkCBC(new CamelliaEngine());
+        checkCBC(new AESBitslicedEngine());
+    }
+
+    private void checkEngine(MultiBlockCipher multi, BlockCipher single, int keySize)
+    {
+        CipherParameters key = new KeyParameter(randomBytes(keySize));
+
+        checkEngine(multi, single, key, true);
+        checkEngine(multi, single, key, false);
+    }
+
+    private void checkEngine(MultiBlockCipher multi, BlockCipher single, CipherParameters key, boolean forEncryption)
+    {
+        int blockSize = single.getBlockSize();
+
+        multi.init(forEncryption, key);
+        single.init(forEncryption, key);
+
+        for (int blockCount = 0; blockCount < 20; blockCount++)
+        {
+            byte[] in = randomBytes(blockSize * blockCount + 3);
+            byte[] expected = new byte[in.length];
+            byte[] out = new byte[in.length];
+
+            for (int i = 0; i != blockCount; i++)
+            {
+                single.processBlock(in, 3 + i * blockSize, expected, 3 + i * blockSize);
+            }
+
+            int len = multi.processBlocks(in, 3, blockCount, out, 3);
+            if (len != blockSize * blockCount)
+            {
+                fail(multi.getAlgorithmName() + " returned wrong length");
+            }
+            if (!Arrays.areEqual(expected, out))
+            {
+                fail(multi.getAlgorithmName() + " multi-block output mismatch for " + blockCount + " blocks");
+            }
+
+            // in place
+            multi.processBlocks(in, 3, blockCount, in, 3);
+            System.arraycopy(expected, 3, out, 3, blockSize * blockCount);
+            for (int i = 0; i != 3; i++)
+            {
+                out[i] = in[i];
+            }
+            if (!Arrays.areEqual(in, out))
+            {
+                fail(multi.getAlgorithmName() + " in place multi-block output mismatch for " + blockCount + " blocks");
+            }
+        }
+    }
+
+    private void checkCBC(BlockCipher engine)
+        throws Exception
+    {
+        int blockSize = engine.getBlockSize();
+        CipherParameters params = new ParametersWithIV(new KeyParameter(randomBytes(16)), randomBytes(blockSize));
+
+        for (int length = 0; length < 1000; length += 37)
+        {
+            byte[] plain = randomBytes(length);
+
+            BufferedBlockCipher enc = new PaddedBufferedBlockCipher(new CBCBlockCipher(engine));
+            enc.init(true, params);
+            byte[] cipherText = new byte[enc.getOutputSize(plain.length)];
+            int cLen = enc.processBytes(plain, 0, plain.length, cipherText, 0);
+            enc.doFinal(cipherText, cLen);
+
+            // reference decryption, one block at a time
+            CBCBlockCipher single = new CBCBlockCipher(new ForceSingleBlockCipher(engine));
+            single.init(false, params);
+            byte[] expected = new byte[cipherText.length];
+            for (int i = 0; i != cipherText.length; i += blockSize)
+            {
+                single.processBlock(cipherText, i, expected, i);
+            }
+
+            // multi-block decryption, in place
+            CBCBlockCipher multi = new CBCBlockCipher(engine);
+            multi.init(false, params);
+            byte[] buf = Arrays.clone(cipherText);
+            multi.processBlocks(buf, 0, buf.length / blockSize, buf, 0);
+            if (!Arrays.areEqual(expected, buf))
+            {
+                fail(multi.getAlgorithmName() + " in place multi-block decryption mismatch at length " + length);
+            }
+
+            // buffered decryption, with odd sized updates
+            BufferedBlockCipher dec = new PaddedBufferedBlockCipher(new CBCBlockCipher(engine));
+            dec.init(false, params);
+            byte[] out = new byte[cipherText.length];
+            int outLen = 0;
+            int pos = 0;
+            while (pos < cipherText.length)
+            {
+                int chunk = Math.min(cipherText.length - pos, 1 + (pos % 53));
+                outLen += dec.processBytes(cipherText, pos, chunk, out, outLen);
+                pos += chunk;
+            }
+            outLen += dec.doFinal(out, outLen);
+
+            if (outLen != plain.length || !Arrays.areEqual(plain, Arrays.copyOfRange(out, 0, outLen)))
+            {
+                fail(dec.getUnderlyingCipher().getAlgorithmName() + " buffered decryption mismatch at length " + length);
+            }
+        }
+    }
+
+    private static byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+
+        random.nextBytes(bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Hides the multi-block interface of the wrapped cipher.
+     */
+    private static class ForceSingleBlockCipher
+        implements BlockCipher
+    {
+        private final BlockCipher cipher;
+
+        ForceSingleBlockCipher(BlockCipher cipher)
+        {
+            this.cipher = cipher;
+        }
+
+        public void init(boolean forEncryption, CipherParameters params)
+        {
+            cipher.init(forEncryption, params);
+        }
+
+        public String getAlgorithmName()
+        {
+            return cipher.getAlgorithmName();
+        }
+
+        public int getBlockSize()
+        {
+            return cipher.getBlockSize();
+        }
+
+        public int processBlock(byte[] in, int inOff, byte[] out, int outOff)
+        {
+            return cipher.processBlock(in, inOff, out, outOff);
+        }
+
+        public void reset()
+        {
+            cipher.reset();
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new MultiBlockCipherTest());
+    }
+}
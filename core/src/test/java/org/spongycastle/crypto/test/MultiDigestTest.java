@@ -0,0 +1,113 @@
+package org.spongycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.digests.MultiDigest;
+import org.spongycastle.crypto.digests.SHA1Digest;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.digests.SHA512Digest;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Check MultiDigest batches against hashing each message with its own digest.
+ */
+public class MultiDigestTest
+    extends SimpleTest
+{
+    private static final SecureRandom random = new SecureRandom();
+
+    public String getName()
+    {
+        return "MultiDigest";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        // every length up to three blocks, covering all padding boundaries
+        byte[][] inputs = new byte[200][];
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            inputs[i] = new byte[(i * 7) % 193];
+            random.nextBytes(inputs[i]);
+        }
+
+        checkBatch(new SHA256Digest(), new SHA256Digest(), inputs);
+        checkBatch(new SHA1Digest(), new SHA1Digest(), inputs);
+        checkBatch(new SHA512Digest(), new SHA512Digest(), inputs);
+
+        // odd sized batch
+        checkBatch(new SHA256Digest(), new SHA256Digest(), new byte[][]{ inputs[5], inputs[6], inputs[7] });
+
+        byte[][] large = new byte[3001][];
+        for (int i = 0; i < large.length; ++i)
+        {
+            large[i] = new byte[i % 100];
+            random.nextBytes(large[i]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            checkParallel(new SHA256Digest(), new SHA256Digest(), large, executor);
+            checkParallel(new SHA512Digest(), new SHA512Digest(), large, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        try
+        {
+            new MultiDigest(new SHA256Digest()).hashAll(inputs, new byte[][]{ new byte[32] });
+            fail("short outputs not detected");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkBatch(Digest multi, Digest single, byte[][] inputs)
+    {
+        byte[][] outputs = new byte[inputs.length][];
+
+        new MultiDigest(multi).hashAll(inputs, outputs);
+
+        checkOutputs(single, inputs, outputs);
+    }
+
+    private void checkParallel(Digest multi, Digest single, byte[][] inputs, ExecutorService executor)
+    {
+        byte[][] outputs = new byte[inputs.length][];
+
+        new MultiDigest(multi).hashAll(inputs, outputs, executor, 4);
+
+        checkOutputs(single, inputs, outputs);
+    }
+
+    private void checkOutputs(Digest single, byte[][] inputs, byte[][] outputs)
+    {
+        byte[] expected = new byte[single.getDigestSize()];
+        for (int i = 0; i < inputs.length; ++i)
+        {
+            single.update(inputs[i], 0, inputs[i].length);
+            single.doFinal(expected, 0);
+
+            if (!Arrays.areEqual(expected, outputs[i]))
+            {
+                fail(single.getAlgorithmName() + " mismatch for message " + i + " of length " + inputs[i].length);
+            }
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new MultiDigestTest());
+    }
+}
@@ -1,6 +1,8 @@
 package org.spongycastle.crypto.test;
 
 import java.io.ByteArrayInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.asn1.ASN1InputStream;
 import org.spongycastle.asn1.ASN1OctetString;
@@ -13,7 +15,13 @@
 import org.spongycastle.asn1.pkcs.RC2CBCParameter;
 import org.spongycastle.crypto.BufferedBlockCipher;
 import org.spongycastle.crypto.CipherParameters;
+import org.spongycastle.crypto.Digest;
 import org.spongycastle.crypto.PBEParametersGenerator;
+import org.spongycastle.crypto.digests.SHA1Digest;
+import org.spongycastle.crypto.digests.SHA224Digest;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.digests.SHA384Digest;
+import org.spongycastle.crypto.digests.SHA512Digest;
 import org.spongycastle.crypto.engines.DESEngine;
 import org.spongycastle.crypto.engines.DESedeEngine;
 import org.spongycastle.crypto.engines.RC2Engine;
@@ -255,6 +263,64 @@ public void performTest()
         {
             fail("192 (60000) test failed");
         }
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            // the anonymous subclasses are not recognised by the direct implementation, so use HMac
+            checkDirect(new SHA1Digest(), new SHA1Digest() {}, executor);
+            checkDirect(new SHA224Digest(), new SHA224Digest() {}, executor);
+            checkDirect(new SHA256Digest(), new SHA256Digest() {}, executor);
+            checkDirect(new SHA384Digest(), new SHA384Digest() {}, executor);
+            checkDirect(new SHA512Digest(), new SHA512Digest() {}, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void checkDirect(Digest direct, Digest hmac, ExecutorService executor)
+    {
+        int[] passwordLengths = { 0, 8, 64, 111, 128, 129, 200 };
+        int[] saltLengths = { 0, 16, 51, 52, 55, 56, 64, 111, 112, 128 };
+
+        for (int i = 0; i < passwordLengths.length; i++)
+        {
+            byte[] password = new byte[passwordLengths[i]];
+            for (int j = 0; j < password.length; j++)
+            {
+                password[j] = (byte)(j + 1);
+            }
+
+            for (int j = 0; j < saltLengths.length; j++)
+            {
+                byte[] salt = new byte[saltLengths[j]];
+                for (int k = 0; k < salt.length; k++)
+                {
+                    salt[k] = (byte)(k * 3);
+                }
+                int count = 1 + i + j;
+
+                PBEParametersGenerator expected = new PKCS5S2ParametersGenerator(hmac);
+                expected.init(password, salt, count);
+                byte[] expectedKey = ((KeyParameter)expected.generateDerivedParameters(1000)).getKey();
+
+                PBEParametersGenerator gen = new PKCS5S2ParametersGenerator(direct);
+                gen.init(password, salt, count);
+                if (!areEqual(expectedKey, ((KeyParameter)gen.generateDerivedParameters(1000)).getKey()))
+                {
+                    fail(direct.getAlgorithmName() + " direct PBKDF2 failed: " + password.length + "/" + salt.length);
+                }
+
+                gen = new PKCS5S2ParametersGenerator(direct, executor);
+                gen.init(password, salt, count);
+                if (!areEqual(expectedKey, ((KeyParameter)gen.generateDerivedParameters(1000)).getKey()))
+                {
+                    fail(direct.getAlgorithmName() + " parallel PBKDF2 failed: " + password.length + "/" + salt.length);
+                }
+            }
+        }
     }
 
     public static void main(
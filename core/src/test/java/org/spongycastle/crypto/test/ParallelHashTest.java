@@ -0,0 +1,143 @@
+package org.spongycastle.crypto.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.spongycastle.crypto.digests.ParallelHash;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * ParallelHash test vectors from:
+ * <p>
+ * https://csrc.nist.gov/CSRC/media/Projects/Cryptographic-Standards-and-Guidelines/documents/examples/ParallelHash_samples.pdf
+ */
+public class ParallelHashTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "ParallelHash";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        byte[] sample = Hex.decode("000102030405060710111213141516172021222324252627");
+
+        ParallelHash pHash = new ParallelHash(128, new byte[0], 8);
+
+        pHash.update(sample, 0, sample.length);
+
+        byte[] res = new byte[pHash.getDigestSize()];
+
+        pHash.doFinal(res, 0);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode("ba8dc1d1d979331d3f813603c67f72609ab5e44b94a0b8f9af46514454a2b4f5"), res));
+
+        pHash = new ParallelHash(256, Strings.toByteArray("Parallel Data"), 8);
+
+        pHash.update(sample, 0, sample.length);
+
+        res = new byte[pHash.getDigestSize()];
+
+        pHash.doFinal(res, 0);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode(
+            "cdf15289b54f6212b4bc270528b49526006dd9b54e2b6add1ef6900dda3963bb33a72491f236969ca8afaea29c682d47a393c065b38e29fae651a2091c833110"), res));
+
+        // ParallelHashXOF, a byte at a time
+        pHash = new ParallelHash(128, new byte[0], 8);
+
+        for (int i = 0; i != sample.length; i++)
+        {
+            pHash.update(sample[i]);
+        }
+
+        res = new byte[32];
+
+        pHash.doOutput(res, 0, 16);
+        pHash.doOutput(res, 16, 16);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode("fe47d661e49ffe5b7d999922c062356750caf552985b8e8ce6667f2727c3c8d3"), res));
+
+        byte[] big = new byte[300001];
+        for (int i = 0; i != big.length; i++)
+        {
+            big[i] = (byte)(i * 7);
+        }
+
+        checkLarge(null, big);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            checkLarge(executor, big);
+            checkSmallBlocks(executor, big);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void checkLarge(ExecutorService executor, byte[] big)
+    {
+        ParallelHash pHash = new ParallelHash(128, Strings.toByteArray("big"), 1024, 256, executor);
+
+        byte[] res = new byte[32];
+
+        pHash.update(big, 0, big.length);
+        pHash.doFinal(res, 0);
+
+        isTrue("large mismatch", Arrays.areEqual(Hex.decode("90c3d7ccabc74954c3e5091ce03c3f47aaa63b5e80980b3a38c59da6fa422838"), res));
+
+        // a block split across updates, then the rest in one go
+        pHash.update(big, 0, 1500);
+        pHash.update(big, 1500, big.length - 1500);
+        pHash.doFinal(res, 0);
+
+        isTrue("large split mismatch", Arrays.areEqual(Hex.decode("90c3d7ccabc74954c3e5091ce03c3f47aaa63b5e80980b3a38c59da6fa422838"), res));
+
+        pHash = new ParallelHash(256, null, 1000, 512, executor);
+
+        res = new byte[64];
+
+        pHash.update(big, 0, big.length);
+        pHash.doOutput(res, 0, res.length);
+
+        isTrue("large XOF mismatch", Arrays.areEqual(Hex.decode(
+            "9872cd227307f9e2ef87c0ef0c46ae215a23d2750030af6aee0acb2d12b1b097e3921bb0967566e89f6bdc05149f318f15da58f5ff4afb8d606393e4da37fcce"), res));
+    }
+
+    /*
+     * Blocks smaller than their digests, over enough input to take several rounds of tasks.
+     */
+    private void checkSmallBlocks(ExecutorService executor, byte[] big)
+    {
+        int[] blockSizes = { 1, 7, 100 };
+        for (int i = 0; i < blockSizes.length; i++)
+        {
+            ParallelHash serial = new ParallelHash(256, null, blockSizes[i], 512);
+            ParallelHash parallel = new ParallelHash(256, null, blockSizes[i], 512, executor);
+
+            byte[] expected = new byte[64], res = new byte[64];
+
+            serial.update(big, 0, 100000);
+            serial.doFinal(expected, 0);
+
+            parallel.update(big, 0, 3);
+            parallel.update(big, 3, 100000 - 3);
+            parallel.doFinal(res, 0);
+
+            isTrue("small block mismatch, B = " + blockSizes[i], Arrays.areEqual(expected, res));
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new ParallelHashTest());
+    }
+}
@@ -0,0 +1,181 @@
+package org.spongycastle.crypto.test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.spongycastle.crypto.util.ParallelTasks;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * Check ParallelTasks runs every task, waits for them, and reports their failures.
+ */
+public class ParallelTasksTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "ParallelTasks";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            allRun(executor);
+            errorRethrown(executor);
+            runtimeExceptionRethrown(executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        rejectedRunOnCaller();
+        submittedAwaitedAfterExecuteFails();
+    }
+
+    private void allRun(Executor executor)
+    {
+        final int[] ran = new int[17];
+
+        ParallelTasks.run(executor, ran.length, new ParallelTasks.Task()
+        {
+            public void run(int index)
+            {
+                ++ran[index];
+            }
+        });
+
+        for (int i = 0; i < ran.length; ++i)
+        {
+            isTrue("task " + i + " not run once", ran[i] == 1);
+        }
+    }
+
+    private void errorRethrown(Executor executor)
+    {
+        try
+        {
+            ParallelTasks.run(executor, 4, new ParallelTasks.Task()
+            {
+                public void run(int index)
+                {
+                    if (index == 2)
+                    {
+                        throw new StackOverflowError("task 2");
+                    }
+                }
+            });
+            fail("Error in a task not rethrown");
+        }
+        catch (StackOverflowError e)
+        {
+            isTrue("wrong Error rethrown", "task 2".equals(e.getMessage()));
+        }
+    }
+
+    private void runtimeExceptionRethrown(Executor executor)
+    {
+        try
+        {
+            ParallelTasks.run(executor, 4, new ParallelTasks.Task()
+            {
+                public void run(int index)
+                {
+                    if (index == 0)
+                    {
+                        throw new IllegalArgumentException("task 0");
+                    }
+                }
+            });
+            fail("exception in the calling thread's task not rethrown");
+        }
+        catch (IllegalArgumentException e)
+        {
+            isTrue("wrong exception rethrown", "task 0".equals(e.getMessage()));
+        }
+    }
+
+    private void rejectedRunOnCaller()
+    {
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger ran = new AtomicInteger();
+
+        ParallelTasks.run(new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        }, 5, new ParallelTasks.Task()
+        {
+            public void run(int index)
+            {
+                isTrue("rejected task not run on the caller", Thread.currentThread() == caller);
+                ran.incrementAndGet();
+            }
+        });
+
+        isTrue("rejected tasks not all run", ran.get() == 5);
+    }
+
+    private void submittedAwaitedAfterExecuteFails()
+        throws Exception
+    {
+        final AtomicInteger finished = new AtomicInteger();
+        final Thread[] worker = new Thread[1];
+
+        // accepts the first task, which is slow, then fails outright
+        Executor executor = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                if (worker[0] != null)
+                {
+                    throw new IllegalStateException("executor broken");
+                }
+                worker[0] = new Thread(command);
+                worker[0].start();
+            }
+        };
+
+        try
+        {
+            ParallelTasks.run(executor, 4, new ParallelTasks.Task()
+            {
+                public void run(int index)
+                {
+                    try
+                    {
+                        Thread.sleep(200);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    finished.incrementAndGet();
+                }
+            });
+            fail("executor failure not rethrown");
+        }
+        catch (IllegalStateException e)
+        {
+            isTrue("wrong exception rethrown", "executor broken".equals(e.getMessage()));
+        }
+
+        // the task already handed over had finished before run() returned
+        isTrue("returned before the submitted task finished", finished.get() == 1);
+        worker[0].join();
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new ParallelTasksTest());
+    }
+}
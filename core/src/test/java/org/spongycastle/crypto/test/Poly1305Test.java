@@ -1,5 +1,6 @@
 package org.spongycastle.crypto.test;
 
+import java.math.BigInteger;
 import java.security.SecureRandom;
 
 import org.spongycastle.crypto.CipherKeyGenerator;
@@ -117,6 +118,7 @@ public void performTest()
         testSequential();
         testReset();
         rfc7539Test();
+        testReference();
     }
 
     private void testCase(int i)
@@ -504,6 +506,94 @@ private void checkVector(byte[] keyMaterial, byte[] input, byte[] tag)
         }
     }
 
+    private void testReference()
+    {
+        SecureRandom random = new SecureRandom();
+
+        for (int i = 0; i < 100; i++)
+        {
+            byte[] key = new byte[32];
+            byte[] input = new byte[random.nextInt(600)];
+
+            if (i < 10)
+            {
+                // maximal limbs, exercising the carries
+                Arrays.fill(key, (byte)0xff);
+                Arrays.fill(input, (byte)0xff);
+            }
+            else
+            {
+                random.nextBytes(key);
+                random.nextBytes(input);
+            }
+            Poly1305KeyGenerator.clamp(key);
+
+            byte[] expected = referenceMac(key, input);
+
+            Poly1305 poly1305 = new Poly1305();
+            poly1305.init(new KeyParameter(key));
+
+            // feed the input in irregular pieces to cover the buffered and direct paths
+            int pos = 0;
+            while (pos < input.length)
+            {
+                int len = Math.min(input.length - pos, random.nextInt(100));
+                poly1305.update(input, pos, len);
+                pos += len;
+            }
+
+            byte[] mac = new byte[poly1305.getMacSize()];
+            poly1305.doFinal(mac, 0);
+
+            if (!Arrays.areEqual(expected, mac))
+            {
+                fail("reference mismatch for length " + input.length, Hex.toHexString(expected), Hex.toHexString(mac));
+            }
+
+            poly1305.update(input, 0, input.length);
+            poly1305.doFinal(mac, 0);
+
+            if (!Arrays.areEqual(expected, mac))
+            {
+                fail("single update mismatch for length " + input.length, Hex.toHexString(expected), Hex.toHexString(mac));
+            }
+        }
+    }
+
+    private static byte[] referenceMac(byte[] key, byte[] input)
+    {
+        BigInteger p = BigInteger.ONE.shiftLeft(130).subtract(BigInteger.valueOf(5));
+        BigInteger r = littleEndian(key, 0, 16);
+        BigInteger s = littleEndian(key, 16, 16);
+        BigInteger acc = BigInteger.ZERO;
+
+        for (int off = 0; off < input.length; off += 16)
+        {
+            int len = Math.min(16, input.length - off);
+            BigInteger n = littleEndian(input, off, len).setBit(8 * len);
+
+            acc = acc.add(n).multiply(r).mod(p);
+        }
+
+        byte[] le = acc.add(s).toByteArray();
+        byte[] tag = new byte[16];
+        for (int i = 0; i < 16 && i < le.length; i++)
+        {
+            tag[i] = le[le.length - 1 - i];
+        }
+        return tag;
+    }
+
+    private static BigInteger littleEndian(byte[] buf, int off, int len)
+    {
+        byte[] be = new byte[len];
+        for (int i = 0; i < len; i++)
+        {
+            be[i] = buf[off + len - 1 - i];
+        }
+        return new BigInteger(1, be);
+    }
+
     public static void main(String[] args)
         throws Exception
     {
@@ -10,6 +10,7 @@
         new AESTest(),
         new AESLightTest(),
         new AESFastTest(),
+        new AESBitslicedTest(),
         new AESWrapTest(),
         new AESWrapPadTest(),
         new DESTest(),
@@ -21,6 +22,9 @@
         new DSATest(),
         new ECTest(),
         new DeterministicDSATest(),
+        new ECDSABatchVerifierTest(),
+        new X25519Test(),
+        new Ed25519Test(),
         new GOST3410Test(),
         new ECGOST3410Test(),
         new ECIESTest(),
@@ -145,9 +149,18 @@
         new OpenBSDBCryptTest(),
         new X931SignerTest(),
         new Blake2bDigestTest(),
+        new Blake2sDigestTest(),
         new KeccakDigestTest(),
         new SHAKEDigestTest(),
-        new SM4Test()
+        new CSHAKETest(),
+        new KMACTest(),
+        new TupleHashTest(),
+        new ParallelHashTest(),
+        new SM4Test(),
+        new MultiBlockCipherTest(),
+        new ByteBufferTest(),
+        new MultiDigestTest(),
+        new ParallelTasksTest()
     };
 
     public static void main(
@@ -2,6 +2,8 @@
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.crypto.generators.SCrypt;
 import org.spongycastle.util.Strings;
@@ -23,6 +25,7 @@ public void performTest() throws Exception
     {
         testParameters();
         testVectors();
+        testParallel();
     }
 
     public void testParameters()
@@ -66,6 +69,43 @@ private void checkIllegal(String msg, byte[] pass, byte[] salt, int N, int r, in
         }
     }
 
+    public void testParallel()
+    {
+        byte[] P = Strings.toByteArray("password");
+        byte[] S = Strings.toByteArray("NaCl");
+        int N = 1024, r = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            SCrypt.Scratch single = new SCrypt.Scratch(N, r);
+            SCrypt.Scratch lanes = new SCrypt.Scratch(N, r, 2);
+
+            for (int p = 1; p <= 5; ++p)
+            {
+                byte[] expected = SCrypt.generate(P, S, N, r, p, 64);
+
+                isTrue("executor p=" + p, areEqual(expected, SCrypt.generate(P, S, N, r, p, 64, executor)));
+                isTrue("scratch p=" + p, areEqual(expected, SCrypt.generate(P, S, N, r, p, 64, null, single)));
+                isTrue("executor scratch p=" + p, areEqual(expected, SCrypt.generate(P, S, N, r, p, 64, executor, lanes)));
+            }
+
+            try
+            {
+                SCrypt.generate(P, S, 2 * N, r, 1, 64, null, single);
+                fail("mismatched scratch not detected");
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
     public void testVectors()
         throws Exception
     {
@@ -1,7 +1,9 @@
 package org.spongycastle.crypto.test;
 
+import org.spongycastle.crypto.CipherParameters;
 import org.spongycastle.crypto.digests.SHA256Digest;
 import org.spongycastle.crypto.macs.HMac;
+import org.spongycastle.crypto.macs.HMacKey;
 import org.spongycastle.crypto.params.KeyParameter;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.encoders.Hex;
@@ -94,6 +96,76 @@ public TestResult perform()
                     "Reset with vector " + vector + " failed");
         }
 
+        //
+        // test precomputed keys, mixed with plain keys on the same HMac
+        //
+        for (int i = 0; i < messages.length; i++)
+        {
+            m = messages[i].getBytes();
+            if (messages[i].startsWith("0x"))
+            {
+                m = Hex.decode(messages[i].substring(2));
+            }
+
+            HMacKey key = new HMacKey(new SHA256Digest(), Hex.decode(keys[i]));
+
+            HMac keyMac = key.createMac();
+            keyMac.update(m, 0, m.length);
+            keyMac.doFinal(resBuf, 0);
+
+            if (!Arrays.areEqual(resBuf, Hex.decode(digests[i])))
+            {
+                return new SimpleTestResult(false, getName() + ": HMacKey vector " + i + " failed got -" + new String(Hex.encode(resBuf)));
+            }
+
+            // re-keying with the current key part way through a message starts again
+            CipherParameters first = (i % 2 == 0) ? (CipherParameters)key : new KeyParameter(Hex.decode(keys[i]));
+            hmac.init(first);
+            hmac.update(m, 0, 3);
+            hmac.init(new KeyParameter(Hex.decode(keys[i])));
+            hmac.update(m, 0, m.length);
+            hmac.doFinal(resBuf, 0);
+
+            if (!Arrays.areEqual(resBuf, Hex.decode(digests[i])))
+            {
+                return new SimpleTestResult(false, getName() + ": re-key vector " + i + " failed got -" + new String(Hex.encode(resBuf)));
+            }
+
+            hmac.init(key);
+            hmac.update(m, 0, 3);
+            hmac.reset();
+            hmac.update(m, 0, m.length);
+            hmac.doFinal(resBuf, 0);
+
+            if (!Arrays.areEqual(resBuf, Hex.decode(digests[i])))
+            {
+                return new SimpleTestResult(false, getName() + ": HMacKey reset vector " + i + " failed got -" + new String(Hex.encode(resBuf)));
+            }
+        }
+
+        //
+        // a key with a trailing zero byte pads to the same block as the key without it
+        //
+        hmac.init(new KeyParameter(Hex.decode(keys[1])));
+        hmac.init(new KeyParameter(Hex.decode(keys[1] + "00")));
+        m = messages[1].getBytes();
+        hmac.update(m, 0, m.length);
+        hmac.doFinal(resBuf, 0);
+
+        if (!Arrays.areEqual(resBuf, Hex.decode(digests[1])))
+        {
+            return new SimpleTestResult(false, getName() + ": zero padded key failed");
+        }
+
+        hmac.init(new KeyParameter(Hex.decode("4a656666")));
+        hmac.update(m, 0, m.length);
+        hmac.doFinal(resBuf, 0);
+
+        if (Arrays.areEqual(resBuf, Hex.decode(digests[1])))
+        {
+            return new SimpleTestResult(false, getName() + ": changed key not picked up");
+        }
+
         return new SimpleTestResult(true, getName() + ": Okay");
     }
 
@@ -1,9 +1,15 @@
 package org.spongycastle.crypto.test;
 
 import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.spongycastle.crypto.macs.SipHash;
 import org.spongycastle.crypto.params.KeyParameter;
+import org.spongycastle.crypto.util.SipHashMap;
+import org.spongycastle.util.Integers;
 import org.spongycastle.util.Pack;
 import org.spongycastle.util.encoders.Hex;
 import org.spongycastle.util.test.SimpleTest;
@@ -33,12 +39,19 @@ public void performTest()
         runMAC(key, input, UPDATE_BYTES);
         runMAC(key, input, UPDATE_FULL);
         runMAC(key, input, UPDATE_MIX);
-        
+
+        if (SipHash.hash(Pack.littleEndianToLong(key, 0), Pack.littleEndianToLong(key, 8), input, 0, input.length) != 0xa129ca6149be45e5L)
+        {
+            fail("Result does not match expected value for hash()");
+        }
+
         SecureRandom random = new SecureRandom();
         for (int i = 0; i < 100; ++i)
         {
             randomTest(random);
         }
+
+        mapTest(random);
     }
 
     private void runMAC(byte[] key, byte[] input, int updateType)
@@ -95,12 +108,93 @@ private void randomTest(SecureRandom random)
         updateMAC(mac, input, UPDATE_MIX);
         long result3 = mac.doFinal();
 
-        if (result1 != result2 || result1 != result3)
+        int off = RNGUtils.nextInt(random, length);
+        byte[] padded = new byte[off + length + 3];
+        System.arraycopy(input, 0, padded, off, length);
+        long result4 = SipHash.hash(Pack.littleEndianToLong(key, 0), Pack.littleEndianToLong(key, 8), padded, off, length);
+
+        if (result1 != result2 || result1 != result3 || result1 != result4)
         {
             fail("Inconsistent results in random test");
         }
     }
 
+    private void mapTest(SecureRandom random)
+    {
+        SipHashMap<Integer> map = new SipHashMap<Integer>(random);
+        Map<String, Integer> expected = new HashMap<String, Integer>();
+
+        // short keys over a small range, so puts, overwrites and removes all get exercised
+        for (int i = 0; i < 5000; ++i)
+        {
+            byte[] key = new byte[RNGUtils.nextInt(random, 3)];
+            random.nextBytes(key);
+            for (int j = 0; j < key.length; ++j)
+            {
+                key[j] &= 0x0f;
+            }
+            String hex = Hex.toHexString(key);
+
+            if (RNGUtils.nextInt(random, 3) == 0)
+            {
+                if (!equal(expected.remove(hex), map.remove(key)))
+                {
+                    fail("SipHashMap remove mismatch");
+                }
+            }
+            else
+            {
+                Integer value = Integers.valueOf(i);
+                if (!equal(expected.put(hex, value), map.put(key, value)))
+                {
+                    fail("SipHashMap put mismatch");
+                }
+            }
+
+            if (map.size() != expected.size())
+            {
+                fail("SipHashMap size mismatch");
+            }
+        }
+
+        for (Iterator it = expected.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry)it.next();
+            byte[] key = Hex.decode((String)entry.getKey());
+            byte[] padded = new byte[key.length + 2];
+            System.arraycopy(key, 0, padded, 1, key.length);
+
+            if (!entry.getValue().equals(map.get(key)) || !entry.getValue().equals(map.get(padded, 1, key.length)))
+            {
+                fail("SipHashMap get mismatch");
+            }
+        }
+
+        List<byte[]> keys = map.keys();
+        if (keys.size() != expected.size())
+        {
+            fail("SipHashMap keys mismatch");
+        }
+        for (int i = 0; i < keys.size(); ++i)
+        {
+            if (!expected.containsKey(Hex.toHexString((byte[])keys.get(i))))
+            {
+                fail("SipHashMap unexpected key");
+            }
+        }
+
+        map.clear();
+        if (!map.isEmpty() || map.get(new byte[0]) != null)
+        {
+            fail("SipHashMap clear failed");
+        }
+    }
+
+    private static boolean equal(Object a, Object b)
+    {
+        return a == null ? b == null : a.equals(b);
+    }
+
     private void updateMAC(SipHash mac, byte[] input, int updateType)
     {
         switch (updateType)
@@ -1,9 +1,12 @@
 package org.spongycastle.crypto.test;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.spongycastle.crypto.Digest;
 import org.spongycastle.crypto.digests.SkeinDigest;
+import org.spongycastle.crypto.params.SkeinParameters;
 import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Memoable;
 import org.spongycastle.util.encoders.Hex;
@@ -204,6 +207,134 @@ public void performTest()
             Case test = TEST_CASES[i];
             runTest(test);
         }
+
+        treeTest();
+    }
+
+    // tree parameters leaf = 2, fan out = 2, max height = 2 over the bytes ff, fe, ... 00, computed
+    // by a separate implementation written directly from the tree process of the specification
+    private static final Case[] TREE_CASES = {
+        new Case(256, 256, "", "60de7c614ddeeb72159a1a00fce59105d644bd725f5ea6a0310b0d999da08774"),
+        new Case(512, 512, "", "3911e4b08de143b3bfa10cc808e10abe359d29b01078e901a649fbe24eff4663"
+            + "4ad749d77a7ee5830e3e9c37e3bdd25bad42d69a9ea99c84323d9b790cf11543"),
+        new Case(1024, 1024, "", "17490e18926194c02fcba4f3c85719885b78e19a664e30d817c49a501e73691f"
+            + "cfb93bc3c689491310001b94fd59d8868cb19e8bb1a382f1987176f072acdd55"
+            + "238ae35e7b235c9ab977f41334a32ca148629382d665bbbcaa86dbe3b6684786"
+            + "77bb6bda9b889b087acb95d6cc53466cbd0baab660b177bc66d86d909ab4cbe6")
+    };
+
+    private void treeTest()
+        throws Exception
+    {
+        byte[] message = new byte[256];
+        for (int i = 0; i < message.length; i++)
+        {
+            message[i] = (byte)(0xff - i);
+        }
+
+        SkeinParameters tree222 = new SkeinParameters.Builder().setTreeParameters(2, 2, 2).build();
+
+        for (int i = 0; i < TREE_CASES.length; i++)
+        {
+            Case dc = TREE_CASES[i];
+
+            byte[] output = treeHash(new SkeinDigest(dc.getBlockSize(), dc.getOutputSize()), tree222, message, 17);
+            if (!areEqual(dc.getDigest(), output))
+            {
+                fail("tree vector mismatch", new String(Hex.encode(dc.getDigest())), new String(Hex.encode(output)));
+            }
+        }
+
+        // a tree hash is not the sequential hash
+        if (areEqual(TREE_CASES[0].getDigest(), treeHash(new SkeinDigest(256, 256), null, message, 256)))
+        {
+            fail("tree hash matches sequential hash");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            SkeinParameters[] trees = {
+                new SkeinParameters.Builder().setTreeParameters(1, 1, 255).build(),
+                new SkeinParameters.Builder().setTreeParameters(3, 2, 3).build(),
+                new SkeinParameters.Builder().setTreeParameters(1, 2, 2).build()
+            };
+            int[] lengths = { 0, 32, 33, 1000, 100000, 300001 };
+
+            for (int t = 0; t < trees.length; t++)
+            {
+                for (int l = 0; l < lengths.length; l++)
+                {
+                    byte[] data = new byte[lengths[l]];
+                    for (int i = 0; i < data.length; i++)
+                    {
+                        data[i] = (byte)(i * 7 + 3);
+                    }
+
+                    byte[] expected = treeHash(new SkeinDigest(512, 512), trees[t], data, 65);
+                    byte[] whole = treeHash(new SkeinDigest(512, 512), trees[t], data, data.length + 1);
+                    byte[] parallel = treeHash(new SkeinDigest(512, 512, executor), trees[t], data, data.length + 1);
+                    byte[] parallelChunked = treeHash(new SkeinDigest(512, 512, executor), trees[t], data, 70001);
+
+                    if (!areEqual(expected, whole) || !areEqual(expected, parallel) || !areEqual(expected, parallelChunked))
+                    {
+                        fail("tree hash depends on update pattern for length " + data.length);
+                    }
+                }
+            }
+
+            // copy part way through the tree
+            byte[] data = new byte[200000];
+            SkeinDigest digest = new SkeinDigest(512, 512, executor);
+            digest.init(trees[1]);
+            digest.update(data, 0, 100003);
+
+            SkeinDigest copy = (SkeinDigest)digest.copy();
+
+            digest.update(data, 100003, data.length - 100003);
+            copy.update(data, 100003, data.length - 100003);
+
+            byte[] output = new byte[64];
+            byte[] copyOutput = new byte[64];
+            digest.doFinal(output, 0);
+            copy.doFinal(copyOutput, 0);
+
+            if (!areEqual(output, copyOutput) || !areEqual(output, treeHash(new SkeinDigest(512, 512), trees[1], data, 4096)))
+            {
+                fail("tree hash copy mismatch");
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // zero tree parameters are sequential hashing
+        SkeinParameters sequential = new SkeinParameters.Builder(tree222).setTreeParameters(0, 0, 0).build();
+        byte[] message2 = TEST_CASES[7].getMessage();
+        if (!areEqual(TEST_CASES[7].getDigest(),
+            treeHash(new SkeinDigest(TEST_CASES[7].getBlockSize(), TEST_CASES[7].getOutputSize()), sequential, message2, 5)))
+        {
+            fail("zero tree parameters not sequential");
+        }
+    }
+
+    private byte[] treeHash(SkeinDigest digest, SkeinParameters params, byte[] message, int chunk)
+    {
+        if (params != null)
+        {
+            digest.init(params);
+        }
+
+        for (int off = 0; off < message.length; off += chunk)
+        {
+            digest.update(message, off, Math.min(chunk, message.length - off));
+        }
+
+        byte[] output = new byte[digest.getDigestSize()];
+        digest.doFinal(output, 0);
+
+        return output;
     }
 
     private void runTest(Case dc)
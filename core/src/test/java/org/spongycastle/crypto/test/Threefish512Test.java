@@ -1,8 +1,10 @@
 package org.spongycastle.crypto.test;
 
+import org.spongycastle.crypto.OutputLengthException;
 import org.spongycastle.crypto.engines.ThreefishEngine;
 import org.spongycastle.crypto.params.KeyParameter;
 import org.spongycastle.crypto.params.TweakableBlockCipherParameters;
+import org.spongycastle.util.Arrays;
 import org.spongycastle.util.encoders.Hex;
 import org.spongycastle.util.test.SimpleTest;
 
@@ -42,6 +44,73 @@ public String getName()
         return "Threefish-512";
     }
 
+    public void performTest()
+        throws Exception
+    {
+        super.performTest();
+
+        wordBlocksTest(true);
+        wordBlocksTest(false);
+    }
+
+    private void wordBlocksTest(boolean forEncryption)
+    {
+        ThreefishEngine engine = new ThreefishEngine(ThreefishEngine.BLOCKSIZE_512);
+        long[] key = new long[8];
+        long[] tweak = new long[] { 0x0706050403020100L, 0x0f0e0d0c0b0a0908L };
+        for (int i = 0; i < key.length; i++)
+        {
+            key[i] = 0x1011121314151617L * (i + 1);
+        }
+        engine.init(forEncryption, key, tweak);
+
+        long[] in = new long[5 * 8 + 3];
+        for (int i = 0; i < in.length; i++)
+        {
+            in[i] = i * 0x0123456789abcdefL;
+        }
+
+        long[] expected = new long[in.length + 1];
+        long[] block = new long[8];
+        long[] out = new long[8];
+        for (int b = 0; b < 5; b++)
+        {
+            System.arraycopy(in, 3 + b * 8, block, 0, 8);
+            engine.processBlock(block, out);
+            System.arraycopy(out, 0, expected, 1 + b * 8, 8);
+        }
+
+        long[] bulk = new long[in.length + 1];
+        if (engine.processBlocks(in, 3, 5, bulk, 1) != 5 * 8)
+        {
+            fail("wrong word count from processBlocks");
+        }
+        if (!Arrays.areEqual(expected, bulk))
+        {
+            fail("processBlocks on words does not match processBlock");
+        }
+
+        // in place
+        engine.processBlocks(in, 3, 5, in, 3);
+        for (int i = 0; i < 5 * 8; i++)
+        {
+            if (in[3 + i] != expected[1 + i])
+            {
+                fail("in place processBlocks on words does not match processBlock");
+            }
+        }
+
+        try
+        {
+            engine.processBlocks(in, 3, 5, new long[5 * 8 - 1], 0);
+            fail("no exception on short output");
+        }
+        catch (OutputLengthException e)
+        {
+            // expected
+        }
+    }
+
     public static void main(
         String[] args)
     {
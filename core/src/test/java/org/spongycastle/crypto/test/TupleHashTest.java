@@ -0,0 +1,70 @@
+package org.spongycastle.crypto.test;
+
+import org.spongycastle.crypto.digests.TupleHash;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.Strings;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * TupleHash test vectors from:
+ * <p>
+ * https://csrc.nist.gov/CSRC/media/Projects/Cryptographic-Standards-and-Guidelines/documents/examples/TupleHash_samples.pdf
+ */
+public class TupleHashTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "TupleHash";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        TupleHash tHash = new TupleHash(128, new byte[0]);
+
+        tHash.update(Hex.decode("000102"), 0, 3);
+        tHash.update(Hex.decode("101112131415"), 0, 6);
+
+        byte[] res = new byte[tHash.getDigestSize()];
+
+        tHash.doFinal(res, 0);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode("c5d8786c1afb9b82111ab34b65b2c0048fa64e6d48e263264ce1707d3ffc8ed1"), res));
+
+        tHash = new TupleHash(256, Strings.toByteArray("My Tuple App"));
+
+        tHash.update(Hex.decode("000102"), 0, 3);
+        tHash.update(Hex.decode("101112131415"), 0, 6);
+        tHash.update(Hex.decode("202122232425262728"), 0, 9);
+
+        res = new byte[tHash.getDigestSize()];
+
+        tHash.doFinal(res, 0);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode(
+            "45000be63f9b6bfd89f54717670f69a9bc763591a4f05c50d68891a744bcc6e7d6d5b5e82c018da999ed35b0bb49c9678e526abd8e85c13ed254021db9e790ce"), res));
+
+        // TupleHashXOF, from a copy of a partially updated instance
+        tHash = new TupleHash(128, new byte[0]);
+
+        tHash.update(Hex.decode("000102"), 0, 3);
+
+        TupleHash copy = new TupleHash(tHash);
+
+        copy.update(Hex.decode("101112131415"), 0, 6);
+
+        res = new byte[32];
+
+        copy.doOutput(res, 0, 10);
+        copy.doOutput(res, 10, 22);
+
+        isTrue("oops!", Arrays.areEqual(Hex.decode("2f103cd7c32320353495c68de1a8129245c6325f6f2a3d608d92179c96e68488"), res));
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new TupleHashTest());
+    }
+}
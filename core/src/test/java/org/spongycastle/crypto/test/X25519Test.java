@@ -0,0 +1,182 @@
+package org.spongycastle.crypto.test;
+
+import java.security.SecureRandom;
+
+import org.spongycastle.crypto.AsymmetricCipherKeyPair;
+import org.spongycastle.crypto.KeyGenerationParameters;
+import org.spongycastle.crypto.agreement.X25519Agreement;
+import org.spongycastle.crypto.generators.X25519KeyPairGenerator;
+import org.spongycastle.crypto.params.X25519PrivateKeyParameters;
+import org.spongycastle.crypto.params.X25519PublicKeyParameters;
+import org.spongycastle.math.ec.rfc7748.X25519;
+import org.spongycastle.util.Arrays;
+import org.spongycastle.util.encoders.Hex;
+import org.spongycastle.util.test.SimpleTest;
+
+/**
+ * X25519 test vectors from RFC 7748, and agreement between generated key pairs.
+ */
+public class X25519Test
+    extends SimpleTest
+{
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public String getName()
+    {
+        return "X25519";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        scalarMultTest(
+            "a546e36bf0527c9d3b16154b82465edd62144c0ac1fc5a18506a2244ba449ac4",
+            "e6db6867583030db3594c1a424b15f7c726624ec26b3353b10a903a6d0ab1c4c",
+            "c3da55379de9c6908e94ea4df28d084f32eccf03491c71f754b4075577a28552");
+        scalarMultTest(
+            "4b66e9d4d1b4673c5ad22691957d6af5c11b6421e0ea01d42ca4169e7918ba0d",
+            "e5210f12786811d3f4b7959d0538ae2c31dbe7106fc03c3efc4cd549c715a493",
+            "95cbde9476e8907d7aade45cb4b873f88b595a68799fa152e6f8f7647aac7957");
+
+        iterationTest();
+        diffieHellmanTest();
+        agreementTest();
+        baseTest();
+        smallOrderTest();
+    }
+
+    private void scalarMultTest(String k, String u, String r)
+    {
+        byte[] result = new byte[X25519.POINT_SIZE];
+        X25519.scalarMult(Hex.decode(k), 0, Hex.decode(u), 0, result, 0);
+
+        isTrue("scalarMult wrong", areEqual(Hex.decode(r), result));
+    }
+
+    private void iterationTest()
+    {
+        byte[] k = new byte[X25519.SCALAR_SIZE];
+        k[0] = 9;
+        byte[] u = Arrays.clone(k);
+
+        for (int i = 1; i <= 1000; ++i)
+        {
+            byte[] r = new byte[X25519.POINT_SIZE];
+            X25519.scalarMult(k, 0, u, 0, r, 0);
+            u = k;
+            k = r;
+
+            if (i == 1)
+            {
+                isTrue("iteration 1 wrong", areEqual(
+                    Hex.decode("422c8e7a6227d7bca1350b3e2bb7279f7897b87bb6854b783c60e80311ae3079"), k));
+            }
+        }
+
+        isTrue("iteration 1000 wrong", areEqual(
+            Hex.decode("684cf59ba83309552800ef566f2f4d3c1c3887c49360e3875f2eb94d99532c51"), k));
+    }
+
+    private void diffieHellmanTest()
+    {
+        byte[] a = Hex.decode("77076d0a7318a57d3c16c17251b26645df4c2f87ebc0992ab177fba51db92c2a");
+        byte[] b = Hex.decode("5dab087e624a8a4b79e17f8b83800ee66f3bb1292618b6fd1c2f8b27ff88e0eb");
+
+        byte[] aPub = new byte[X25519.POINT_SIZE];
+        byte[] bPub = new byte[X25519.POINT_SIZE];
+        X25519.generatePublicKey(a, 0, aPub, 0);
+        X25519.generatePublicKey(b, 0, bPub, 0);
+
+        isTrue("alice public key wrong", areEqual(
+            Hex.decode("8520f0098930a754748b7ddcb43ef75a0dbf3a0d26381af4eba4a98eaa9b4e6a"), aPub));
+        isTrue("bob public key wrong", areEqual(
+            Hex.decode("de9edb7d7b7dc1b4d35b61c2ece435373f8343c85b78674dadfc7e146f882b4f"), bPub));
+
+        byte[] k = Hex.decode("4a5d9d5ba4ce2de1728e3bf480350f25e07e21c947d19e3376f09b3c1e161742");
+        byte[] s = new byte[X25519.POINT_SIZE];
+
+        isTrue("alice agreement failed", X25519.calculateAgreement(a, 0, bPub, 0, s, 0));
+        isTrue("alice secret wrong", areEqual(k, s));
+        isTrue("bob agreement failed", X25519.calculateAgreement(b, 0, aPub, 0, s, 0));
+        isTrue("bob secret wrong", areEqual(k, s));
+    }
+
+    private void agreementTest()
+    {
+        X25519KeyPairGenerator kpGen = new X25519KeyPairGenerator();
+        kpGen.init(new KeyGenerationParameters(RANDOM, 256));
+
+        for (int i = 0; i < 10; ++i)
+        {
+            AsymmetricCipherKeyPair kpA = kpGen.generateKeyPair();
+            AsymmetricCipherKeyPair kpB = kpGen.generateKeyPair();
+
+            X25519Agreement agreeA = new X25519Agreement();
+            agreeA.init(kpA.getPrivate());
+            byte[] secretA = new byte[agreeA.getAgreementSize()];
+            agreeA.calculateAgreement(kpB.getPublic(), secretA, 0);
+
+            X25519Agreement agreeB = new X25519Agreement();
+            agreeB.init(kpB.getPrivate());
+            byte[] secretB = new byte[agreeB.getAgreementSize()];
+            agreeB.calculateAgreement(kpA.getPublic(), secretB, 0);
+
+            isTrue("agreement failed", areEqual(secretA, secretB));
+        }
+    }
+
+    /*
+     * The base point multiplication goes through Ed25519, so compare it with the ladder.
+     */
+    private void baseTest()
+    {
+        byte[] u = new byte[X25519.POINT_SIZE];
+        u[0] = 9;
+
+        for (int i = 0; i < 20; ++i)
+        {
+            byte[] k = new byte[X25519.SCALAR_SIZE];
+            RANDOM.nextBytes(k);
+
+            byte[] r1 = new byte[X25519.POINT_SIZE];
+            X25519.scalarMultBase(k, 0, r1, 0);
+
+            byte[] r2 = new byte[X25519.POINT_SIZE];
+            X25519.scalarMult(k, 0, u, 0, r2, 0);
+
+            isTrue("base point multiplication wrong", areEqual(r1, r2));
+        }
+    }
+
+    private void smallOrderTest()
+    {
+        X25519PrivateKeyParameters privateKey = new X25519PrivateKeyParameters(RANDOM);
+
+        // u = 0 and u = 1 both have small order
+        for (int u = 0; u < 2; ++u)
+        {
+            byte[] encoded = new byte[X25519PublicKeyParameters.KEY_SIZE];
+            encoded[0] = (byte)u;
+
+            X25519Agreement agreement = new X25519Agreement();
+            agreement.init(privateKey);
+
+            try
+            {
+                agreement.calculateAgreement(new X25519PublicKeyParameters(encoded, 0),
+                    new byte[agreement.getAgreementSize()], 0);
+                fail("small order point accepted");
+            }
+            catch (IllegalStateException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new X25519Test());
+    }
+}
@@ -39,6 +39,7 @@ public static void main(String[] args)
 //        speedTestCipher(new ThreefishEngine(ThreefishEngine.BLOCKSIZE_1024), input);
 //        speedTestCipher(new ThreefishReferenceEngine(), input);
         speedTestCipher(new AESFastEngine(), input);
+        speedTestThreefishWords(new ThreefishEngine(ThreefishEngine.BLOCKSIZE_512), input);
 //        speedTestCipher(new TwofishEngine(), input);
 //        speedTestCipher(new BlowfishEngine(), input);
     }
@@ -180,6 +181,49 @@ private static void speedTestCipherForMode(String mode, BlockCipher cipher, byte
         System.out.println(cipher.getAlgorithmName() + " Average speed:    " + CLOCK_SPEED / (double)(mbPerSecond * (1024 * 1024)) + " c/b");
     }
 
+    /**
+     * Time Threefish over data already held as 64 bit words, as Skein uses it, a block at a time and
+     * in bulk.
+     */
+    private static void speedTestThreefishWords(ThreefishEngine cipher, byte[] input)
+    {
+        int blockWords = cipher.getBlockSize() / 8;
+        long[] words = new long[(input.length / 8) / blockWords * blockWords];
+        for (int i = 0; i < words.length; i++)
+        {
+            words[i] = ThreefishEngine.bytesToWord(input, i * 8);
+        }
+        long[] out = new long[words.length];
+
+        cipher.init(true, new long[blockWords], new long[2]);
+
+        for (int run = 0; run < 3; run++)
+        {
+            long start = System.nanoTime();
+            long[] in = new long[blockWords];
+            long[] block = new long[blockWords];
+            for (int i = 0; i < words.length; i += blockWords)
+            {
+                System.arraycopy(words, i, in, 0, blockWords);
+                cipher.processBlock(in, block);
+                System.arraycopy(block, 0, out, i, blockWords);
+            }
+            long single = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            cipher.processBlocks(words, 0, words.length / blockWords, out, 0);
+            long bulk = System.nanoTime() - start;
+
+            System.out.println(cipher.getAlgorithmName() + " words, block at a time: " + mbPerSecond(words.length * 8L, single) + " MB/s");
+            System.out.println(cipher.getAlgorithmName() + " words, processBlocks:    " + mbPerSecond(words.length * 8L, bulk) + " MB/s");
+        }
+    }
+
+    private static long mbPerSecond(long bytes, long nanos)
+    {
+        return (long)((double)bytes / nanos * 1000000000 / (1024 * 1024));
+    }
+
     private static long testCipher(BlockCipher cipher, byte[] input)
     {
         long start = System.nanoTime();
@@ -25,6 +25,8 @@ public static Test suite()
 
         suite.addTestSuite(ECAlgorithmsTest.class);
         suite.addTestSuite(ECPointTest.class);
+        suite.addTestSuite(FixedPointCombTest.class);
+        suite.addTestSuite(FixedPointStoreTest.class);
 
         return new BCTestSetup(suite);
     }
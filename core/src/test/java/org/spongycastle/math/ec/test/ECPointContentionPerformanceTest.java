@@ -0,0 +1,123 @@
+package org.spongycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.util.Times;
+
+/**
+ * Measures the rate of multiplications of one shared base point as the number of threads grows,
+ * which shows up any locking on the precomputation tables and the curve's multiplier.
+ */
+public class ECPointContentionPerformanceTest extends TestCase
+{
+    static final int MILLIS_PER_ROUND = 1000;
+    static final int MILLIS_WARMUP = 1000;
+
+    static final int MAX_THREADS = 2 * Runtime.getRuntime().availableProcessors();
+
+    private double multiplyRate(final ECPoint g, final BigInteger[] ks, int numThreads, long millis)
+        throws InterruptedException
+    {
+        final long goalTime = Times.nanoTime() + 1000000L * millis;
+        final long[] counts = new long[numThreads];
+
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; ++i)
+        {
+            final int index = i;
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    int ki = index;
+                    long count = 0;
+                    do
+                    {
+                        g.multiply(ks[ki]);
+                        if (++ki == ks.length)
+                        {
+                            ki = 0;
+                        }
+                        ++count;
+                    }
+                    while (Times.nanoTime() < goalTime);
+                    counts[index] = count;
+                }
+            };
+        }
+
+        long startTime = Times.nanoTime();
+        for (int i = 0; i < numThreads; ++i)
+        {
+            threads[i].start();
+        }
+        for (int i = 0; i < numThreads; ++i)
+        {
+            threads[i].join();
+        }
+        long elapsed = Times.nanoTime() - startTime;
+
+        long total = 0;
+        for (int i = 0; i < numThreads; ++i)
+        {
+            total += counts[i];
+        }
+        return total * 1000000000.0 / elapsed;
+    }
+
+    private void contendedMult(String curveName)
+        throws Exception
+    {
+        X9ECParameters spec = CustomNamedCurves.getByName(curveName);
+        ECPoint g = spec.getG();
+        BigInteger n = spec.getN();
+
+        SecureRandom random = new SecureRandom();
+        BigInteger[] ks = new BigInteger[128];
+        for (int i = 0; i < ks.length; ++i)
+        {
+            ks[i] = new BigInteger(n.bitLength() - 1, random);
+        }
+
+        multiplyRate(g, ks, 1, MILLIS_WARMUP);
+
+        System.out.println(curveName + " (" + Runtime.getRuntime().availableProcessors() + " processors)");
+
+        double singleRate = 0.0;
+        for (int numThreads = 1; numThreads <= MAX_THREADS; numThreads *= 2)
+        {
+            double rate = multiplyRate(g, ks, numThreads, MILLIS_PER_ROUND);
+            if (numThreads == 1)
+            {
+                singleRate = rate;
+            }
+
+            StringBuffer sb = new StringBuffer();
+            sb.append("   ");
+            sb.append(numThreads);
+            sb.append(" threads");
+            for (int j = sb.length(); j < 16; ++j)
+            {
+                sb.append(' ');
+            }
+            sb.append(": ");
+            sb.append((long)rate);
+            sb.append(" mults/sec (x");
+            sb.append(Math.round(rate / singleRate * 100) / 100.0);
+            sb.append(')');
+            System.out.println(sb.toString());
+        }
+    }
+
+    public void testContendedMultiply()
+        throws Exception
+    {
+        contendedMult("secp256r1");
+        contendedMult("secp256k1");
+    }
+}
@@ -545,6 +545,62 @@ private List enumToList(Enumeration en)
         return rv;
     }
 
+    /**
+     * Multiply fresh points from several threads at once, so the precomputations are built and
+     * published concurrently, and check every product.
+     */
+    public void testConcurrentPrecomputation()
+        throws Exception
+    {
+        String[] names = { "secp256r1", "sect283k1" };
+
+        for (int i = 0; i < names.length; ++i)
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName(names[i]);
+            if (x9 == null)
+            {
+                x9 = ECNamedCurveTable.getByName(names[i]);
+            }
+
+            for (int round = 0; round < 4; ++round)
+            {
+                // an equal point with no precomputation yet
+                final ECPoint g = x9.getCurve().createPoint(x9.getG().getAffineXCoord().toBigInteger(),
+                    x9.getG().getAffineYCoord().toBigInteger());
+                final BigInteger[] ks = new BigInteger[4];
+                final ECPoint[] results = new ECPoint[ks.length];
+                for (int j = 0; j < ks.length; ++j)
+                {
+                    ks[j] = new BigInteger(x9.getN().bitLength() - 1, secRand);
+                }
+
+                Thread[] threads = new Thread[ks.length];
+                for (int j = 0; j < threads.length; ++j)
+                {
+                    final int index = j;
+                    threads[j] = new Thread()
+                    {
+                        public void run()
+                        {
+                            results[index] = g.multiply(ks[index]);
+                        }
+                    };
+                    threads[j].start();
+                }
+                for (int j = 0; j < threads.length; ++j)
+                {
+                    threads[j].join();
+                }
+
+                for (int j = 0; j < ks.length; ++j)
+                {
+                    assertPointsEqual("Concurrent multiplication incorrect", ECAlgorithms.referenceMultiply(g, ks[j]),
+                        results[j]);
+                }
+            }
+        }
+    }
+
     private void assertPointsEqual(String message, ECPoint a, ECPoint b)
     {
         // NOTE: We intentionally test points for equality in both directions
@@ -0,0 +1,136 @@
+package org.spongycastle.math.ec.test;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.crypto.params.ECPrivateKeyParameters;
+import org.spongycastle.crypto.params.ParametersWithRandom;
+import org.spongycastle.crypto.signers.ECDSASigner;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECMultiplier;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.math.ec.FixedPointStore;
+import org.spongycastle.math.ec.FixedPointUtil;
+import org.spongycastle.util.Times;
+
+/**
+ * Measures fixed-point multiplication and ECDSA signing as the comb table budget grows.
+ */
+public class FixedPointCombPerformanceTest extends TestCase
+{
+    static final int MILLIS_PER_ROUND = 1000;
+    static final int MILLIS_WARMUP = 3000;
+
+    static final int[] BUDGETS = { 0, 16384, 65536, 262144, 1 << 20 };
+
+    private final SecureRandom random = new SecureRandom();
+
+    private static double rate(Runnable op, long millis)
+    {
+        long startTime = Times.nanoTime();
+        long goalTime = startTime + 1000000L * millis;
+        long count = 0;
+        do
+        {
+            op.run();
+            ++count;
+        }
+        while (Times.nanoTime() < goalTime);
+
+        return count * 1000000000.0 / (Times.nanoTime() - startTime);
+    }
+
+    private void budgetedComb(String curveName)
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName(curveName);
+        final BigInteger n = x9.getN();
+
+        System.out.println(curveName);
+
+        for (int i = 0; i < BUDGETS.length; ++i)
+        {
+            final int budget = BUDGETS[i];
+
+            // a new curve object and an empty store, so the table is built to this budget
+            FixedPointStore.clear();
+            ECCurve curve = x9.getCurve().configure().create();
+            final ECPoint g = curve.importPoint(x9.getG());
+            ECDomainParameters domain = new ECDomainParameters(curve, g, n, x9.getH());
+
+            final FixedPointCombMultiplier comb = new FixedPointCombMultiplier(budget);
+            final BigInteger[] ks = new BigInteger[128];
+            for (int j = 0; j < ks.length; ++j)
+            {
+                ks[j] = new BigInteger(n.bitLength() - 1, random);
+            }
+
+            Runnable multiply = new Runnable()
+            {
+                int ki = 0;
+
+                public void run()
+                {
+                    comb.multiply(g, ks[ki]);
+                    ki = (ki + 1) & (ks.length - 1);
+                }
+            };
+
+            final ECDSASigner signer = new ECDSASigner()
+            {
+                protected ECMultiplier createBasePointMultiplier()
+                {
+                    return comb;
+                }
+            };
+            signer.init(true, new ParametersWithRandom(new ECPrivateKeyParameters(ks[0], domain), random));
+            final byte[] message = new byte[32];
+
+            Runnable sign = new Runnable()
+            {
+                public void run()
+                {
+                    signer.generateSignature(message);
+                }
+            };
+
+            rate(multiply, MILLIS_WARMUP);
+            double multiplyRate = rate(multiply, MILLIS_PER_ROUND);
+            rate(sign, MILLIS_WARMUP);
+            double signRate = rate(sign, MILLIS_PER_ROUND);
+
+            int[] shape = budget == 0 ? null : FixedPointUtil.getCombShape(curve, FixedPointUtil.getCombSize(curve), budget);
+
+            StringBuffer sb = new StringBuffer();
+            sb.append("   budget ");
+            sb.append(budget);
+            for (int j = sb.length(); j < 20; ++j)
+            {
+                sb.append(' ');
+            }
+            sb.append(shape == null ? "default" : shape[0] + "-bit x " + shape[1]);
+            for (int j = sb.length(); j < 34; ++j)
+            {
+                sb.append(' ');
+            }
+            sb.append(": ");
+            sb.append((long)multiplyRate);
+            sb.append(" mults/sec, ");
+            sb.append((long)signRate);
+            sb.append(" sigs/sec");
+            System.out.println(sb.toString());
+        }
+
+        FixedPointStore.clear();
+    }
+
+    public void testBudgetedComb()
+    {
+        budgetedComb("secp256r1");
+        budgetedComb("secp384r1");
+    }
+}
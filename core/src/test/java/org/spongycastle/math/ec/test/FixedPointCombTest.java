@@ -0,0 +1,188 @@
+package org.spongycastle.math.ec.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.spongycastle.asn1.x9.ECNamedCurveTable;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.math.ec.ECAlgorithms;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.math.ec.FixedPointPreCompInfo;
+import org.spongycastle.math.ec.FixedPointStore;
+import org.spongycastle.math.ec.FixedPointUtil;
+import org.spongycastle.math.ec.WNafUtil;
+
+/**
+ * Checks fixed-point multiplication with tables of various shapes against the reference
+ * double-and-add.
+ */
+public class FixedPointCombTest extends TestCase
+{
+    private static final String[] CURVES = { "secp256r1", "secp384r1", "sect283k1" };
+
+    private static final int[] BUDGETS = { 0, 1, 4096, 16384, 65536, 1 << 20 };
+
+    private final SecureRandom random = new SecureRandom();
+
+    protected void tearDown()
+    {
+        FixedPointStore.clear();
+    }
+
+    public void testBudgets()
+    {
+        for (int i = 0; i < CURVES.length; ++i)
+        {
+            for (int j = 0; j < BUDGETS.length; ++j)
+            {
+                // each budget gets its own curve, so the table is built to its shape
+                FixedPointStore.clear();
+                checkComb(freshGenerator(CURVES[i]), new FixedPointCombMultiplier(BUDGETS[j]));
+            }
+        }
+    }
+
+    public void testGrowingTable()
+    {
+        ECPoint g = freshGenerator("secp256r1");
+
+        // each multiplier needs a larger table than the last, which replaces it
+        for (int j = 0; j < BUDGETS.length; ++j)
+        {
+            checkComb(g, new FixedPointCombMultiplier(BUDGETS[j]));
+        }
+
+        // and a smaller budget is then served by the large table
+        checkComb(g, new FixedPointCombMultiplier(0));
+    }
+
+    public void testCombShape()
+    {
+        ECCurve c = freshGenerator("secp256r1").getCurve();
+        int bits = FixedPointUtil.getCombSize(c);
+
+        assertNull(FixedPointUtil.getCombShape(c, bits, 1));
+
+        // the table fits, and has more rows than the default comb of width 5
+        int[] shape = FixedPointUtil.getCombShape(c, bits, 65536);
+        assertTrue(FixedPointUtil.getTableSize(c, shape[1] << shape[0]) <= 65536);
+        assertTrue(shape[0] * shape[1] > 5);
+
+        // more memory never makes the multiplication more expensive
+        int lastCost = Integer.MAX_VALUE;
+        for (int budget = 1024; budget <= (1 << 22); budget <<= 1)
+        {
+            shape = FixedPointUtil.getCombShape(c, bits, budget);
+            int rows = shape[0] * shape[1];
+            int cost = ((bits + rows - 1) / rows) * (shape[1] + 1);
+            assertTrue(cost <= lastCost);
+            lastCost = cost;
+        }
+    }
+
+    public void testSmallBudget()
+    {
+        // have the packaged tables loaded, then drop them, so the table is built to this budget
+        new FixedPointCombMultiplier(0).multiply(freshGenerator("secp256r1"), BigInteger.ONE);
+        FixedPointStore.clear();
+
+        ECPoint g = freshGenerator("secp256r1");
+
+        // too small for the default comb of width 5, so the default is used rather than a narrower one
+        checkComb(g, new FixedPointCombMultiplier(4096));
+
+        FixedPointPreCompInfo info = (FixedPointPreCompInfo)g.getCurve().getPreCompInfo(g, FixedPointUtil.PRECOMP_NAME);
+        assertEquals(5, info.getWidth());
+        assertEquals(1, info.getCombs());
+    }
+
+    public void testInvalidBudget()
+    {
+        try
+        {
+            new FixedPointCombMultiplier(-1);
+            fail("negative budget accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+    }
+
+    public void testStoredMultiComb()
+        throws Exception
+    {
+        ECPoint g = freshGenerator("secp384r1");
+        FixedPointCombMultiplier comb = new FixedPointCombMultiplier(65536);
+        comb.multiply(g, BigInteger.ONE);
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        FixedPointStore.write(g, bOut);
+
+        FixedPointStore.clear();
+        assertEquals(1, FixedPointStore.load(new ByteArrayInputStream(bOut.toByteArray())));
+
+        ECPoint h = freshGenerator("secp384r1");
+        checkComb(h, comb);
+
+        FixedPointPreCompInfo info = (FixedPointPreCompInfo)h.getCurve().getPreCompInfo(h, FixedPointUtil.PRECOMP_NAME);
+        assertTrue(info.getCombs() > 1);
+    }
+
+    public void testWiderWNafTable()
+    {
+        ECPoint g = freshGenerator("secp256r1");
+        ECPoint q = g.multiply(BigInteger.valueOf(7)).normalize();
+
+        // give the generator a table wider than verification would otherwise build
+        WNafUtil.precompute(g, 8, true);
+        assertEquals(8, WNafUtil.getWindowSize(g, 5, 8));
+        assertEquals(6, WNafUtil.getWindowSize(g, 5, 6));
+        assertEquals(5, WNafUtil.getWindowSize(q, 5, 8));
+
+        BigInteger n = g.getCurve().getOrder();
+        for (int i = 0; i < 10; ++i)
+        {
+            BigInteger a = new BigInteger(n.bitLength(), random).mod(n);
+            BigInteger b = new BigInteger(n.bitLength(), random).mod(n);
+
+            ECPoint expected = ECAlgorithms.referenceMultiply(g, a).add(ECAlgorithms.referenceMultiply(q, b));
+            assertEquals(expected, ECAlgorithms.sumOfTwoMultiplies(g, a, q, b));
+            assertEquals(ECAlgorithms.referenceMultiply(g, a), g.multiply(a));
+        }
+    }
+
+    /*
+     * The generic implementation of the named curve, in a curve object nothing else has used.
+     */
+    private ECPoint freshGenerator(String name)
+    {
+        X9ECParameters x9 = ECNamedCurveTable.getByName(name);
+        ECCurve curve = x9.getCurve().configure().create();
+
+        return curve.importPoint(x9.getG());
+    }
+
+    private void checkComb(ECPoint g, FixedPointCombMultiplier comb)
+    {
+        BigInteger n = g.getCurve().getOrder();
+
+        for (int i = 0; i < 10; ++i)
+        {
+            BigInteger k = new BigInteger(n.bitLength(), random).mod(n);
+
+            ECPoint expected = ECAlgorithms.referenceMultiply(g, k);
+            assertEquals(expected, comb.multiply(g, k));
+        }
+
+        // the edges of the scalar range
+        assertEquals(g.normalize(), comb.multiply(g, BigInteger.ONE));
+        assertTrue(comb.multiply(g, n).isInfinity());
+        assertEquals(g.negate().normalize(), comb.multiply(g, n.subtract(BigInteger.ONE)));
+    }
+}
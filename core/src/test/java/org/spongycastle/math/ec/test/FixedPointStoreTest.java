@@ -0,0 +1,244 @@
+package org.spongycastle.math.ec.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.spongycastle.asn1.x9.ECNamedCurveTable;
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.math.ec.ECAlgorithms;
+import org.spongycastle.math.ec.ECCurve;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.math.ec.FixedPointStore;
+import org.spongycastle.util.Arrays;
+
+/**
+ * Checks fixed-point tables survive being written out and loaded back, and are only used for the
+ * curve and base point they were built for.
+ */
+public class FixedPointStoreTest extends TestCase
+{
+    private static final String[] CURVES = { "secp256r1", "sect283k1", "secp521r1" };
+
+    private final SecureRandom random = new SecureRandom();
+
+    protected void tearDown()
+    {
+        FixedPointStore.clear();
+    }
+
+    public void testSharedBetweenEqualCurves()
+    {
+        for (int i = 0; i < CURVES.length; ++i)
+        {
+            FixedPointStore.clear();
+
+            // the custom and generic implementations of the same curve
+            checkComb(CustomNamedCurves.getByName(CURVES[i]).getG());
+            checkComb(freshGenerator(CURVES[i]));
+        }
+    }
+
+    public void testWriteAndLoad()
+        throws Exception
+    {
+        for (int i = 0; i < CURVES.length; ++i)
+        {
+            byte[] record = writeTable(CustomNamedCurves.getByName(CURVES[i]).getG());
+
+            FixedPointStore.clear();
+            assertEquals(1, FixedPointStore.load(new ByteArrayInputStream(record)));
+
+            ECPoint g = freshGenerator(CURVES[i]);
+            checkComb(g);
+
+            // the loaded table was used, so writing it out again gives the same record
+            ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+            FixedPointStore.write(g, bOut);
+            assertTrue(Arrays.areEqual(record, bOut.toByteArray()));
+        }
+    }
+
+    public void testMappedFile()
+        throws Exception
+    {
+        File file = File.createTempFile("fixed_point", ".bin");
+        try
+        {
+            FileOutputStream fOut = new FileOutputStream(file);
+            FixedPointTableWriter.writeAll(fOut);
+            fOut.close();
+
+            FixedPointStore.clear();
+            assertTrue(FixedPointStore.load(file) > CURVES.length);
+
+            for (int i = 0; i < CURVES.length; ++i)
+            {
+                checkComb(freshGenerator(CURVES[i]));
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    public void testPackagedTables()
+        throws Exception
+    {
+        InputStream in = FixedPointStore.class.getResourceAsStream(FixedPointStore.RESOURCE_NAME);
+        assertNotNull("packaged tables missing", in);
+
+        // every table in the resource is accepted, one for each of the CustomNamedCurves
+        FixedPointStore.clear();
+        try
+        {
+            assertEquals(AllTests.enumToList(CustomNamedCurves.getNames()).size(), FixedPointStore.load(in));
+        }
+        finally
+        {
+            in.close();
+        }
+
+        for (int i = 0; i < CURVES.length; ++i)
+        {
+            checkComb(freshGenerator(CURVES[i]));
+        }
+    }
+
+    public void testTableForOtherPointIgnored()
+        throws Exception
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        byte[] record = writeTable(x9.getG());
+        byte[] other = writeTable(x9.getG().twice().normalize());
+
+        // the generator's header with the points of another base point's table
+        int keyLength = ByteBuffer.wrap(record, 9, 4).getInt();
+        int entriesStart = 9 + 4 + keyLength + 1 + 2 + 4;
+        byte[] spliced = Arrays.concatenate(Arrays.copyOfRange(record, 0, entriesStart),
+            Arrays.copyOfRange(other, entriesStart, other.length));
+
+        FixedPointStore.clear();
+        assertEquals(1, FixedPointStore.load(ByteBuffer.wrap(spliced)));
+
+        checkComb(freshGenerator("secp256r1"));
+    }
+
+    public void testVersion1Record()
+        throws Exception
+    {
+        byte[] record = writeTable(CustomNamedCurves.getByName("secp256r1").getG());
+
+        // the same table in the first version of the record, without the number of combs
+        int keyLength = ByteBuffer.wrap(record, 9, 4).getInt();
+        int combsStart = 9 + 4 + keyLength + 1;
+        byte[] v1 = Arrays.concatenate(Arrays.copyOfRange(record, 0, combsStart),
+            Arrays.copyOfRange(record, combsStart + 2, record.length));
+        v1[4] = 1;
+        ByteBuffer.wrap(v1, 5, 4).putInt(v1.length - 9);
+
+        FixedPointStore.clear();
+        assertEquals(1, FixedPointStore.load(ByteBuffer.wrap(v1)));
+
+        ECPoint g = freshGenerator("secp256r1");
+        checkComb(g);
+
+        // the loaded table was used, and is written back out in the current version
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        FixedPointStore.write(g, bOut);
+        assertTrue(Arrays.areEqual(record, bOut.toByteArray()));
+    }
+
+    public void testCorruptTableRejected()
+        throws Exception
+    {
+        X9ECParameters x9 = CustomNamedCurves.getByName("secp256r1");
+        byte[] record = writeTable(x9.getG());
+
+        // a point of the table moved off the curve
+        record[record.length - 1] ^= 1;
+
+        FixedPointStore.clear();
+        FixedPointStore.load(ByteBuffer.wrap(record));
+
+        checkComb(freshGenerator("secp256r1"));
+    }
+
+    public void testMalformedRecords()
+        throws Exception
+    {
+        byte[] record = writeTable(CustomNamedCurves.getByName("secp256r1").getG());
+
+        try
+        {
+            FixedPointStore.load(ByteBuffer.wrap(Arrays.copyOfRange(record, 0, record.length - 1)));
+            fail("truncated record accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        byte[] badMagic = Arrays.clone(record);
+        badMagic[0] ^= 1;
+        try
+        {
+            FixedPointStore.load(ByteBuffer.wrap(badMagic));
+            fail("bad magic accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            // expected
+        }
+
+        // a record from a later version is skipped
+        byte[] later = Arrays.clone(record);
+        later[4] = 3;
+        FixedPointStore.clear();
+        assertEquals(0, FixedPointStore.load(ByteBuffer.wrap(later)));
+    }
+
+    /*
+     * The generic implementation of the named curve, in a curve object nothing else has used.
+     */
+    private ECPoint freshGenerator(String name)
+    {
+        X9ECParameters x9 = ECNamedCurveTable.getByName(name);
+        ECCurve curve = x9.getCurve().configure().create();
+
+        return curve.importPoint(x9.getG());
+    }
+
+    private byte[] writeTable(ECPoint g)
+        throws Exception
+    {
+        new FixedPointCombMultiplier().multiply(g, BigInteger.ONE);
+
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        FixedPointStore.write(g, bOut);
+        return bOut.toByteArray();
+    }
+
+    private void checkComb(ECPoint g)
+    {
+        FixedPointCombMultiplier comb = new FixedPointCombMultiplier();
+        BigInteger n = g.getCurve().getOrder();
+
+        for (int i = 0; i < 10; ++i)
+        {
+            BigInteger k = new BigInteger(n.bitLength(), random).mod(n);
+
+            ECPoint expected = ECAlgorithms.referenceMultiply(g, k);
+            assertEquals(expected, comb.multiply(g, k));
+        }
+    }
+}
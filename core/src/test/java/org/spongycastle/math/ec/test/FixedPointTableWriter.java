@@ -0,0 +1,67 @@
+package org.spongycastle.math.ec.test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Enumeration;
+
+import org.spongycastle.asn1.x9.X9ECParameters;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
+import org.spongycastle.math.ec.ECConstants;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+import org.spongycastle.math.ec.FixedPointStore;
+
+/**
+ * Writes the fixed-point comb tables for the generators of all the CustomNamedCurves, in the form
+ * read by {@link FixedPointStore}.
+ * <p>
+ * The output of <code>FixedPointTableWriter &lt;file&gt;</code> is checked in as
+ * <code>core/src/main/resources/org/spongycastle/math/ec/fixed_point_tables.bin</code>, which is
+ * packaged with the classes and picked up by FixedPointStore on first use. Rerun it whenever the
+ * record format, or the comb width the multiplier uses by default, changes.
+ * </p>
+ */
+public class FixedPointTableWriter
+{
+    /**
+     * Write a table for each of the CustomNamedCurves to out.
+     */
+    public static void writeAll(OutputStream out)
+        throws IOException
+    {
+        // the single comb, whatever budget the system property sets
+        FixedPointCombMultiplier multiplier = new FixedPointCombMultiplier(0);
+
+        for (Enumeration en = CustomNamedCurves.getNames(); en.hasMoreElements();)
+        {
+            X9ECParameters x9 = CustomNamedCurves.getByName((String)en.nextElement());
+            ECPoint g = x9.getG();
+
+            // builds the table at the width the comb multiplier itself uses
+            multiplier.multiply(g, ECConstants.ONE);
+
+            FixedPointStore.write(g, out);
+        }
+    }
+
+    public static void main(String[] args)
+        throws IOException
+    {
+        if (args.length != 1)
+        {
+            System.err.println("usage: FixedPointTableWriter <file>");
+            System.exit(1);
+        }
+
+        OutputStream out = new FileOutputStream(args[0]);
+        try
+        {
+            writeAll(out);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.spongycastle.jcajce.provider.asymmetric;
+
+import org.spongycastle.asn1.edec.EdECObjectIdentifiers;
+import org.spongycastle.jcajce.provider.asymmetric.edec.KeyFactorySpi;
+import org.spongycastle.jcajce.provider.config.ConfigurableProvider;
+import org.spongycastle.jcajce.provider.util.AsymmetricAlgorithmProvider;
+
+public class EdEC
+{
+    private static final String PREFIX = "org.spongycastle.jcajce.provider.asymmetric" + ".edec.";
+
+    public static class Mappings
+        extends AsymmetricAlgorithmProvider
+    {
+        public Mappings()
+        {
+        }
+
+        public void configure(ConfigurableProvider provider)
+        {
+            provider.addAlgorithm("KeyFactory.X25519", PREFIX + "KeyFactorySpi");
+            provider.addAlgorithm("KeyFactory.Ed25519", PREFIX + "KeyFactorySpi");
+
+            registerOid(provider, EdECObjectIdentifiers.id_X25519, "X25519", new KeyFactorySpi());
+            registerOid(provider, EdECObjectIdentifiers.id_Ed25519, "Ed25519", new KeyFactorySpi());
+
+            provider.addAlgorithm("KeyPairGenerator.X25519", PREFIX + "KeyPairGeneratorSpi$X25519");
+            provider.addAlgorithm("KeyPairGenerator.Ed25519", PREFIX + "KeyPairGeneratorSpi$Ed25519");
+
+            provider.addAlgorithm("KeyAgreement.X25519", PREFIX + "KeyAgreementSpi");
+            provider.addAlgorithm("Alg.Alias.KeyAgreement." + EdECObjectIdentifiers.id_X25519, "X25519");
+
+            provider.addAlgorithm("Signature.Ed25519", PREFIX + "SignatureSpi");
+            provider.addAlgorithm("Alg.Alias.Signature." + EdECObjectIdentifiers.id_Ed25519, "Ed25519");
+            provider.addAlgorithm("Alg.Alias.Signature.OID." + EdECObjectIdentifiers.id_Ed25519, "Ed25519");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.spongycastle.jcajce.provider.asymmetric.edec;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.PublicKey;
+
+import org.spongycastle.asn1.ASN1Encoding;
+import org.spongycastle.asn1.edec.EdECObjectIdentifiers;
+import org.spongycastle.asn1.x509.AlgorithmIdentifier;
+import org.spongycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.spongycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.spongycastle.util.Arrays;
+
+public class BCEdDSAPublicKey
+    implements PublicKey
+{
+    static final long serialVersionUID = 1L;
+
+    private transient Ed25519PublicKeyParameters publicKey;
+
+    BCEdDSAPublicKey(Ed25519PublicKeyParameters publicKey)
+    {
+        this.publicKey = publicKey;
+    }
+
+    BCEdDSAPublicKey(SubjectPublicKeyInfo info)
+    {
+        populate(info);
+    }
+
+    private void populate(SubjectPublicKeyInfo info)
+    {
+        byte[] encoded = info.getPublicKeyData().getOctets();
+        if (encoded.length != Ed25519PublicKeyParameters.KEY_SIZE)
+        {
+            throw new IllegalArgumentException("invalid Ed25519 public key length");
+        }
+
+        this.publicKey = new Ed25519PublicKeyParameters(encoded, 0);
+    }
+
+    public String getAlgorithm()
+    {
+        return "Ed25519";
+    }
+
+    public String getFormat()
+    {
+        return "X.509";
+    }
+
+    public byte[] getEncoded()
+    {
+        try
+        {
+            SubjectPublicKeyInfo info = new SubjectPublicKeyInfo(
+                new AlgorithmIdentifier(EdECObjectIdentifiers.id_Ed25519), publicKey.getEncoded());
+
+            return info.getEncoded(ASN1Encoding.DER);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    Ed25519PublicKeyParameters engineGetKeyParameters()
+    {
+        return publicKey;
+    }
+
+    public boolean equals(Object o)
+    {
+        if (o == this)
+        {
+            return true;
+        }
+
+        if (!(o instanceof BCEdDSAPublicKey))
+        {
+            return false;
+        }
+
+        return Arrays.areEqual(publicKey.getEncoded(), ((BCEdDSAPublicKey)o).publicKey.getEncoded());
+    }
+
+    public int hashCode()
+    {
+        return Arrays.hashCode(publicKey.getEncoded());
+    }
+
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+
+        populate(SubjectPublicKeyInfo.getInstance((byte[])in.readObject()));
+    }
+
+    private void writeObject(ObjectOutputStream out)
+        throws IOException
+    {
+        out.defaultWriteObject();
+
+        out.writeObject(this.getEncoded());
+    }
+}
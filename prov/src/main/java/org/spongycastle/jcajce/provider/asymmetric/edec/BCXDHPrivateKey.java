@@ -0,0 +1,113 @@
+package org.spongycastle.jcajce.provider.asymmetric.edec;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.PrivateKey;
+
+import org.spongycastle.asn1.ASN1Encoding;
+import org.spongycastle.asn1.ASN1OctetString;
+import org.spongycastle.asn1.DEROctetString;
+import org.spongycastle.asn1.edec.EdECObjectIdentifiers;
+import org.spongycastle.asn1.pkcs.PrivateKeyInfo;
+import org.spongycastle.asn1.x509.AlgorithmIdentifier;
+import org.spongycastle.crypto.params.X25519PrivateKeyParameters;
+import org.spongycastle.util.Arrays;
+
+public class BCXDHPrivateKey
+    implements PrivateKey
+{
+    static final long serialVersionUID = 1L;
+
+    private transient X25519PrivateKeyParameters privateKey;
+
+    BCXDHPrivateKey(X25519PrivateKeyParameters privateKey)
+    {
+        this.privateKey = privateKey;
+    }
+
+    BCXDHPrivateKey(PrivateKeyInfo info)
+        throws IOException
+    {
+        populate(info);
+    }
+
+    private void populate(PrivateKeyInfo info)
+        throws IOException
+    {
+        // RFC 8410: the privateKey OCTET STRING holds a CurvePrivateKey, itself an OCTET STRING
+        byte[] encoded = ASN1OctetString.getInstance(info.parsePrivateKey()).getOctets();
+        if (encoded.length != X25519PrivateKeyParameters.KEY_SIZE)
+        {
+            throw new IllegalArgumentException("invalid X25519 private key length");
+        }
+
+        this.privateKey = new X25519PrivateKeyParameters(encoded, 0);
+    }
+
+    public String getAlgorithm()
+    {
+        return "X25519";
+    }
+
+    public String getFormat()
+    {
+        return "PKCS#8";
+    }
+
+    public byte[] getEncoded()
+    {
+        try
+        {
+            PrivateKeyInfo info = new PrivateKeyInfo(new AlgorithmIdentifier(EdECObjectIdentifiers.id_X25519),
+                new DEROctetString(privateKey.getEncoded()));
+
+            return info.getEncoded(ASN1Encoding.DER);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    X25519PrivateKeyParameters engineGetKeyParameters()
+    {
+        return privateKey;
+    }
+
+    public boolean equals(Object o)
+    {
+        if (o == this)
+        {
+            return true;
+        }
+
+        if (!(o instanceof BCXDHPrivateKey))
+        {
+            return false;
+        }
+
+        return Arrays.constantTimeAreEqual(privateKey.getEncoded(), ((BCXDHPrivateKey)o).privateKey.getEncoded());
+    }
+
+    public int hashCode()
+    {
+        return Arrays.hashCode(privateKey.getEncoded());
+    }
+
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+
+        populate(PrivateKeyInfo.getInstance((byte[])in.readObject()));
+    }
+
+    private void writeObject(ObjectOutputStream out)
+        throws IOException
+    {
+        out.defaultWriteObject();
+
+        out.writeObject(this.getEncoded());
+    }
+}
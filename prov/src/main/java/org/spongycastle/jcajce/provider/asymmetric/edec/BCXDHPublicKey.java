@@ -0,0 +1,108 @@
+package org.spongycastle.jcajce.provider.asymmetric.edec;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.PublicKey;
+
+import org.spongycastle.asn1.ASN1Encoding;
+import org.spongycastle.asn1.edec.EdECObjectIdentifiers;
+import org.spongycastle.asn1.x509.AlgorithmIdentifier;
+import org.spongycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.spongycastle.crypto.params.X25519PublicKeyParameters;
+import org.spongycastle.util.Arrays;
+
+public class BCXDHPublicKey
+    implements PublicKey
+{
+    static final long serialVersionUID = 1L;
+
+    private transient X25519PublicKeyParameters publicKey;
+
+    BCXDHPublicKey(X25519PublicKeyParameters publicKey)
+    {
+        this.publicKey = publicKey;
+    }
+
+    BCXDHPublicKey(SubjectPublicKeyInfo info)
+    {
+        populate(info);
+    }
+
+    private void populate(SubjectPublicKeyInfo info)
+    {
+        byte[] encoded = info.getPublicKeyData().getOctets();
+        if (encoded.length != X25519PublicKeyParameters.KEY_SIZE)
+        {
+            throw new IllegalArgumentException("invalid X25519 public key length");
+        }
+
+        this.publicKey = new X25519PublicKeyParameters(encoded, 0);
+    }
+
+    public String getAlgorithm()
+    {
+        return "X25519";
+    }
+
+    public String getFormat()
+    {
+        return "X.509";
+    }
+
+    public byte[] getEncoded()
+    {
+        try
+        {
+            SubjectPublicKeyInfo info = new SubjectPublicKeyInfo(
+                new AlgorithmIdentifier(EdECObjectIdentifiers.id_X25519), publicKey.getEncoded());
+
+            return info.getEncoded(ASN1Encoding.DER);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    X25519PublicKeyParameters engineGetKeyParameters()
+    {
+        return publicKey;
+    }
+
+    public boolean equals(Object o)
+    {
+        if (o == this)
+        {
+            return true;
+        }
+
+        if (!(o instanceof BCXDHPublicKey))
+        {
+            return false;
+        }
+
+        return Arrays.areEqual(publicKey.getEncoded(), ((BCXDHPublicKey)o).publicKey.getEncoded());
+    }
+
+    public int hashCode()
+    {
+        return Arrays.hashCode(publicKey.getEncoded());
+    }
+
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+
+        populate(SubjectPublicKeyInfo.getInstance((byte[])in.readObject()));
+    }
+
+    private void writeObject(ObjectOutputStream out)
+        throws IOException
+    {
+        out.defaultWriteObject();
+
+        out.writeObject(this.getEncoded());
+    }
+}
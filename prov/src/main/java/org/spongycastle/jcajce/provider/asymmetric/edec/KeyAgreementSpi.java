@@ -0,0 +1,94 @@
+package org.spongycastle.jcajce.provider.asymmetric.edec;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+
+import org.spongycastle.crypto.agreement.X25519Agreement;
+import org.spongycastle.jcajce.provider.asymmetric.util.BaseAgreementSpi;
+
+/**
+ * X25519 key agreement, the shared secret is the raw 32 byte result of RFC 7748.
+ */
+public class KeyAgreementSpi
+    extends BaseAgreementSpi
+{
+    private X25519Agreement agreement;
+    private byte[] result;
+
+    public KeyAgreementSpi()
+    {
+        super("X25519", null);
+    }
+
+    protected byte[] calcSecret()
+    {
+        return result;
+    }
+
+    protected void engineInit(
+        Key key,
+        SecureRandom random)
+        throws InvalidKeyException
+    {
+        if (!(key instanceof BCXDHPrivateKey))
+        {
+            throw new InvalidKeyException("X25519 key agreement requires an X25519 private key");
+        }
+
+        agreement = new X25519Agreement();
+        agreement.init(((BCXDHPrivateKey)key).engineGetKeyParameters());
+        result = null;
+    }
+
+    protected void engineInit(
+        Key key,
+        AlgorithmParameterSpec params,
+        SecureRandom random)
+        throws InvalidKeyException, InvalidAlgorithmParameterException
+    {
+        if (params != null)
+        {
+            throw new InvalidAlgorithmParameterException("X25519 takes no parameters");
+        }
+
+        engineInit(key, random);
+    }
+
+    protected Key engineDoPhase(
+        Key key,
+        boolean lastPhase)
+        throws InvalidKeyException, IllegalStateException
+    {
+        if (agreement == null)
+        {
+            throw new IllegalStateException("X25519 not initialised.");
+        }
+
+        if (!lastPhase)
+        {
+            throw new IllegalStateException("X25519 can only be between two parties.");
+        }
+
+        if (!(key instanceof BCXDHPublicKey))
+        {
+            throw new InvalidKeyException("X25519 key agreement requires an X25519 public key for doPhase");
+        }
+
+        byte[] secret = new byte[agreement.getAgreementSize()];
+        try
+        {
+            agreement.calculateAgreement(((BCXDHPublicKey)key).engineGetKeyParameters(), secret, 0);
+        }
+        catch (IllegalStateException e)
+        {
+            throw new InvalidKeyException("calculation failed: " + e.getMessage());
+        }
+
+        result = secret;
+
+        return null;
+    }
+}
@@ -0,0 +1,75 @@
+package org.spongycastle.jcajce.provider.asymmetric.edec;
+
+import java.io.IOException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+import org.spongycastle.asn1.ASN1ObjectIdentifier;
+import org.spongycastle.asn1.edec.EdECObjectIdentifiers;
+import org.spongycastle.asn1.pkcs.PrivateKeyInfo;
+import org.spongycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.spongycastle.jcajce.provider.asymmetric.util.BaseKeyFactorySpi;
+
+/**
+ * Key factory for X25519 and Ed25519 keys in their RFC 8410 encodings.
+ */
+public class KeyFactorySpi
+    extends BaseKeyFactorySpi
+{
+    public KeyFactorySpi()
+    {
+    }
+
+    protected Key engineTranslateKey(
+        Key key)
+        throws InvalidKeyException
+    {
+        if (key instanceof BCXDHPublicKey || key instanceof BCXDHPrivateKey
+            || key instanceof BCEdDSAPublicKey || key instanceof BCEdDSAPrivateKey)
+        {
+            return key;
+        }
+
+        throw new InvalidKeyException("key type unknown");
+    }
+
+    public PrivateKey generatePrivate(PrivateKeyInfo info)
+        throws IOException
+    {
+        ASN1ObjectIdentifier algOid = info.getPrivateKeyAlgorithm().getAlgorithm();
+
+        if (algOid.equals(EdECObjectIdentifiers.id_X25519))
+        {
+            return new BCXDHPrivateKey(info);
+        }
+        else if (algOid.equals(EdECObjectIdentifiers.id_Ed25519))
+        {
+            return new BCEdDSAPrivateKey(info);
+        }
+        else
+        {
+            throw new IOException("algorithm identifier " + algOid + " in key not recognised");
+        }
+    }
+
+    public PublicKey generatePublic(SubjectPublicKeyInfo info)
+        throws IOException
+    {
+        ASN1ObjectIdentifier algOid = info.getAlgorithm().getAlgorithm();
+
+        if (algOid.equals(EdECObjectIdentifiers.id_X25519))
+        {
+            return new BCXDHPublicKey(info);
+        }
+        else if (algOid.equals(EdECObjectIdentifiers.id_Ed25519))
+        {
+            return new BCEdDSAPublicKey(info);
+        }
+        else
+        {
+            throw new IOException("algorithm identifier " + algOid + " in key not recognised");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.spongycastle.jcajce.provider.asymmetric.edec;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidParameterException;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+
+import org.spongycastle.crypto.AsymmetricCipherKeyPair;
+import org.spongycastle.crypto.AsymmetricCipherKeyPairGenerator;
+import org.spongycastle.crypto.KeyGenerationParameters;
+import org.spongycastle.crypto.generators.Ed25519KeyPairGenerator;
+import org.spongycastle.crypto.generators.X25519KeyPairGenerator;
+import org.spongycastle.crypto.params.Ed25519PrivateKeyParameters;
+import org.spongycastle.crypto.params.Ed25519PublicKeyParameters;
+import org.spongycastle.crypto.params.X25519PrivateKeyParameters;
+import org.spongycastle.crypto.params.X25519PublicKeyParameters;
+
+public abstract class KeyPairGeneratorSpi
+    extends java.security.KeyPairGenerator
+{
+    private final AsymmetricCipherKeyPairGenerator engine;
+
+    private boolean initialised = false;
+
+    KeyPairGeneratorSpi(String algorithm, AsymmetricCipherKeyPairGenerator engine)
+    {
+        super(algorithm);
+
+        this.engine = engine;
+    }
+
+    public void initialize(
+        int strength,
+        SecureRandom random)
+    {
+        if (strength != 255 && strength != 256)
+        {
+            throw new InvalidParameterException("unknown key size.");
+        }
+
+        engine.init(new KeyGenerationParameters(random, 256));
+        initialised = true;
+    }
+
+    public void initialize(
+        AlgorithmParameterSpec params,
+        SecureRandom random)
+        throws InvalidAlgorithmParameterException
+    {
+        throw new InvalidAlgorithmParameterException(getAlgorithm() + " takes no parameters");
+    }
+
+    public KeyPair generateKeyPair()
+    {
+        if (!initialised)
+        {
+            engine.init(new KeyGenerationParameters(new SecureRandom(), 256));
+            initialised = true;
+        }
+
+        AsymmetricCipherKeyPair pair = engine.generateKeyPair();
+
+        return createKeyPair(pair);
+    }
+
+    abstract KeyPair createKeyPair(AsymmetricCipherKeyPair pair);
+
+    public static class X25519
+        extends KeyPairGeneratorSpi
+    {
+        public X25519()
+        {
+            super("X25519", new X25519KeyPairGenerator());
+        }
+
+        KeyPair createKeyPair(AsymmetricCipherKeyPair pair)
+        {
+            return new KeyPair(new BCXDHPublicKey((X25519PublicKeyParameters)pair.getPublic()),
+                new BCXDHPrivateKey((X25519PrivateKeyParameters)pair.getPrivate()));
+        }
+    }
+
+    public static class Ed25519
+        extends KeyPairGeneratorSpi
+    {
+        public Ed25519()
+        {
+            super("Ed25519", new Ed25519KeyPairGenerator());
+        }
+
+        KeyPair createKeyPair(AsymmetricCipherKeyPair pair)
+        {
+            return new KeyPair(new BCEdDSAPublicKey((Ed25519PublicKeyParameters)pair.getPublic()),
+                new BCEdDSAPrivateKey((Ed25519PrivateKeyParameters)pair.getPrivate()));
+        }
+    }
+}
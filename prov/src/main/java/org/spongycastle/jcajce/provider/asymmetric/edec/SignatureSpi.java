@@ -0,0 +1,108 @@
+package org.spongycastle.jcajce.provider.asymmetric.edec;
+
+import java.security.InvalidKeyException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.spec.AlgorithmParameterSpec;
+
+import org.spongycastle.crypto.signers.Ed25519Signer;
+
+/**
+ * Ed25519 signatures, as described in RFC 8032. The whole message is signed, there is no separate
+ * digest.
+ */
+public class SignatureSpi
+    extends java.security.SignatureSpi
+{
+    private final Ed25519Signer signer = new Ed25519Signer();
+
+    public SignatureSpi()
+    {
+    }
+
+    protected void engineInitVerify(
+        PublicKey publicKey)
+        throws InvalidKeyException
+    {
+        if (!(publicKey instanceof BCEdDSAPublicKey))
+        {
+            throw new InvalidKeyException("Ed25519 signature requires an Ed25519 public key");
+        }
+
+        signer.init(false, ((BCEdDSAPublicKey)publicKey).engineGetKeyParameters());
+    }
+
+    protected void engineInitSign(
+        PrivateKey privateKey)
+        throws InvalidKeyException
+    {
+        if (!(privateKey instanceof BCEdDSAPrivateKey))
+        {
+            throw new InvalidKeyException("Ed25519 signature requires an Ed25519 private key");
+        }
+
+        signer.init(true, ((BCEdDSAPrivateKey)privateKey).engineGetKeyParameters());
+    }
+
+    protected void engineUpdate(
+        byte b)
+        throws SignatureException
+    {
+        signer.update(b);
+    }
+
+    protected void engineUpdate(
+        byte[] b,
+        int off,
+        int len)
+        throws SignatureException
+    {
+        signer.update(b, off, len);
+    }
+
+    protected byte[] engineSign()
+        throws SignatureException
+    {
+        try
+        {
+            return signer.generateSignature();
+        }
+        catch (Exception e)
+        {
+            throw new SignatureException(e.toString());
+        }
+    }
+
+    protected boolean engineVerify(
+        byte[] sigBytes)
+        throws SignatureException
+    {
+        return signer.verifySignature(sigBytes);
+    }
+
+    protected void engineSetParameter(
+        AlgorithmParameterSpec params)
+    {
+        throw new UnsupportedOperationException("engineSetParameter unsupported");
+    }
+
+    /**
+     * @deprecated replaced with #engineSetParameter(java.security.spec.AlgorithmParameterSpec)
+     */
+    protected void engineSetParameter(
+        String param,
+        Object value)
+    {
+        throw new UnsupportedOperationException("engineSetParameter unsupported");
+    }
+
+    /**
+     * @deprecated
+     */
+    protected Object engineGetParameter(
+        String param)
+    {
+        throw new UnsupportedOperationException("engineGetParameter unsupported");
+    }
+}
@@ -41,6 +41,7 @@
 import org.spongycastle.asn1.x509.GeneralNames;
 import org.spongycastle.asn1.x509.IssuingDistributionPoint;
 import org.spongycastle.asn1.x509.TBSCertList;
+import org.spongycastle.crypto.util.SipHashMap;
 import org.spongycastle.jcajce.util.JcaJceHelper;
 import org.spongycastle.jce.X509Principal;
 import org.spongycastle.util.Strings;
@@ -65,6 +66,7 @@
     private boolean isIndirect;
     private boolean isHashCodeSet = false;
     private int     hashCodeValue;
+    private volatile SipHashMap<IndexedEntry> serialIndex;
 
     static boolean isIndirectCRL(X509CRL crl)
         throws CRLException
@@ -342,30 +344,61 @@ private Set loadCRLEntries()
 
     public X509CRLEntry getRevokedCertificate(BigInteger serialNumber)
     {
-        Enumeration certs = c.getRevokedCertificateEnumeration();
+        IndexedEntry indexed = getSerialIndex().get(serialNumber.toByteArray());
 
-        X500Name previousCertificateIssuer = null; // the issuer
-        while (certs.hasMoreElements())
+        if (indexed != null)
         {
-            TBSCertList.CRLEntry entry = (TBSCertList.CRLEntry)certs.nextElement();
+            return new X509CRLEntryObject(indexed.entry, isIndirect, indexed.previousCertificateIssuer);
+        }
 
-            if (serialNumber.equals(entry.getUserCertificate().getValue()))
-            {
-                return new X509CRLEntryObject(entry, isIndirect, previousCertificateIssuer);
-            }
+        return null;
+    }
 
-            if (isIndirect && entry.hasExtensions())
+    /**
+     * Index the revoked certificates by serial number on first use, so repeated lookups against a
+     * large CRL do not walk the whole list. Only the first entry for a serial is kept, as that is
+     * the one a scan of the list finds.
+     */
+    private SipHashMap<IndexedEntry> getSerialIndex()
+    {
+        SipHashMap<IndexedEntry> index = serialIndex;
+
+        if (index == null)
+        {
+            index = new SipHashMap<IndexedEntry>();
+
+            Enumeration certs = c.getRevokedCertificateEnumeration();
+
+            X500Name previousCertificateIssuer = null; // the issuer
+            X500Name caName = c.getIssuer();
+            while (certs.hasMoreElements())
             {
-                Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+                TBSCertList.CRLEntry entry = TBSCertList.CRLEntry.getInstance(certs.nextElement());
+                X500Name entryIssuer = previousCertificateIssuer;
 
-                if (currentCaName != null)
+                if (isIndirect && entry.hasExtensions())
                 {
-                    previousCertificateIssuer = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
+                    Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
+
+                    if (currentCaName != null)
+                    {
+                        previousCertificateIssuer = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
+                        caName = previousCertificateIssuer;
+                    }
+                }
+
+                byte[] serial = entry.getUserCertificate().getValue().toByteArray();
+                if (!index.containsKey(serial))
+                {
+                    index.put(serial, new IndexedEntry(entry, entryIssuer, caName));
                 }
             }
+
+            // the index is never changed once built, so publishing it through the volatile is enough
+            serialIndex = index;
         }
 
-        return null;
+        return index;
     }
 
     public Set getRevokedCertificates()
@@ -564,56 +597,30 @@ public boolean isRevoked(Certificate cert)
             throw new IllegalArgumentException("X.509 CRL used with non X.509 Cert");
         }
 
-        Enumeration certs = c.getRevokedCertificateEnumeration();
-
-        X500Name caName = c.getIssuer();
+        BigInteger serial = ((X509Certificate)cert).getSerialNumber();
+        IndexedEntry indexed = getSerialIndex().get(serial.toByteArray());
 
-        if (certs.hasMoreElements())
+        if (indexed != null)
         {
-            BigInteger serial = ((X509Certificate)cert).getSerialNumber();
+            X500Name issuer;
 
-            while (certs.hasMoreElements())
+            if (cert instanceof  X509Certificate)
             {
-                TBSCertList.CRLEntry entry = TBSCertList.CRLEntry.getInstance(certs.nextElement());
-
-                if (isIndirect && entry.hasExtensions())
+                issuer = X500Name.getInstance(((X509Certificate)cert).getIssuerX500Principal().getEncoded());
+            }
+            else
+            {
+                try
                 {
-                    Extension currentCaName = entry.getExtensions().getExtension(Extension.certificateIssuer);
-
-                    if (currentCaName != null)
-                    {
-                        caName = X500Name.getInstance(GeneralNames.getInstance(currentCaName.getParsedValue()).getNames()[0].getName());
-                    }
+                    issuer = org.spongycastle.asn1.x509.Certificate.getInstance(cert.getEncoded()).getIssuer();
                 }
-
-                if (entry.getUserCertificate().getValue().equals(serial))
+                catch (CertificateEncodingException e)
                 {
-                    X500Name issuer;
-
-                    if (cert instanceof  X509Certificate)
-                    {
-                        issuer = X500Name.getInstance(((X509Certificate)cert).getIssuerX500Principal().getEncoded());
-                    }
-                    else
-                    {
-                        try
-                        {
-                            issuer = org.spongycastle.asn1.x509.Certificate.getInstance(cert.getEncoded()).getIssuer();
-                        }
-                        catch (CertificateEncodingException e)
-                        {
-                            throw new IllegalArgumentException("Cannot process certificate: " + e.getMessage());
-                        }
-                    }
-
-                    if (!caName.equals(issuer))
-                    {
-                        return false;
-                    }
-
-                    return true;
+                    throw new IllegalArgumentException("Cannot process certificate: " + e.getMessage());
                 }
             }
+
+            return indexed.caName.equals(issuer);
         }
 
         return false;
@@ -663,5 +670,18 @@ public int hashCode()
 
         return hashCodeValue;
     }
-}
 
+    private static class IndexedEntry
+    {
+        final TBSCertList.CRLEntry entry;
+        final X500Name previousCertificateIssuer;
+        final X500Name caName;
+
+        IndexedEntry(TBSCertList.CRLEntry entry, X500Name previousCertificateIssuer, X500Name caName)
+        {
+            this.entry = entry;
+            this.previousCertificateIssuer = previousCertificateIssuer;
+            this.caName = caName;
+        }
+    }
+}
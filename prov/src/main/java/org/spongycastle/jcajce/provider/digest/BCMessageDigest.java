@@ -1,8 +1,10 @@
 package org.spongycastle.jcajce.provider.digest;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 
 import org.spongycastle.crypto.Digest;
+import org.spongycastle.crypto.util.ByteBuffers;
 
 public class BCMessageDigest
     extends MessageDigest
@@ -36,6 +38,12 @@ public void engineUpdate(
         digest.update(input, offset, len);
     }
 
+    public void engineUpdate(
+        ByteBuffer input)
+    {
+        ByteBuffers.update(digest, input);
+    }
+
     public byte[] engineDigest() 
     {
         byte[]  digestBytes = new byte[digest.getDigestSize()];
@@ -2,6 +2,9 @@
 
 import org.spongycastle.asn1.misc.MiscObjectIdentifiers;
 import org.spongycastle.crypto.digests.Blake2bDigest;
+import org.spongycastle.crypto.digests.Blake2bpDigest;
+import org.spongycastle.crypto.digests.Blake2sDigest;
+import org.spongycastle.crypto.digests.Blake2spDigest;
 import org.spongycastle.jcajce.provider.config.ConfigurableProvider;
 
 public class Blake2b
@@ -87,6 +90,63 @@ public Object clone()
         }
     }
 
+    static public class Blake2bp512
+        extends BCMessageDigest
+        implements Cloneable
+    {
+        public Blake2bp512()
+        {
+            super(new Blake2bpDigest());
+        }
+
+        public Object clone()
+            throws CloneNotSupportedException
+        {
+            Blake2bp512 d = (Blake2bp512)super.clone();
+            d.digest = new Blake2bpDigest((Blake2bpDigest)digest);
+
+            return d;
+        }
+    }
+
+    static public class Blake2s256
+        extends BCMessageDigest
+        implements Cloneable
+    {
+        public Blake2s256()
+        {
+            super(new Blake2sDigest(256));
+        }
+
+        public Object clone()
+            throws CloneNotSupportedException
+        {
+            Blake2s256 d = (Blake2s256)super.clone();
+            d.digest = new Blake2sDigest((Blake2sDigest)digest);
+
+            return d;
+        }
+    }
+
+    static public class Blake2sp256
+        extends BCMessageDigest
+        implements Cloneable
+    {
+        public Blake2sp256()
+        {
+            super(new Blake2spDigest());
+        }
+
+        public Object clone()
+            throws CloneNotSupportedException
+        {
+            Blake2sp256 d = (Blake2sp256)super.clone();
+            d.digest = new Blake2spDigest((Blake2spDigest)digest);
+
+            return d;
+        }
+    }
+
     public static class Mappings
         extends DigestAlgorithmProvider
     {
@@ -109,6 +169,10 @@ public void configure(ConfigurableProvider provider)
 
             provider.addAlgorithm("MessageDigest.BLAKE2B-160", PREFIX + "$Blake2b160");
             provider.addAlgorithm("Alg.Alias.MessageDigest." + MiscObjectIdentifiers.id_blake2b160, "BLAKE2B-160");
+
+            provider.addAlgorithm("MessageDigest.BLAKE2BP-512", PREFIX + "$Blake2bp512");
+            provider.addAlgorithm("MessageDigest.BLAKE2S-256", PREFIX + "$Blake2s256");
+            provider.addAlgorithm("MessageDigest.BLAKE2SP-256", PREFIX + "$Blake2sp256");
         }
     }
 }
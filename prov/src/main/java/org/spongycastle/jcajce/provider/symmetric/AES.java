@@ -20,6 +20,7 @@
 import org.spongycastle.crypto.DataLengthException;
 import org.spongycastle.crypto.InvalidCipherTextException;
 import org.spongycastle.crypto.Mac;
+import org.spongycastle.crypto.engines.AESBitslicedEngine;
 import org.spongycastle.crypto.engines.AESEngine;
 import org.spongycastle.crypto.engines.AESWrapEngine;
 import org.spongycastle.crypto.engines.RFC3211WrapEngine;
@@ -44,6 +45,7 @@
 import org.spongycastle.jcajce.provider.symmetric.util.IvAlgorithmParameters;
 import org.spongycastle.jcajce.provider.symmetric.util.PBESecretKeyFactory;
 import org.spongycastle.jcajce.spec.AEADParameterSpec;
+import org.spongycastle.util.Properties;
 
 public final class AES
 {
@@ -52,6 +54,20 @@
     private AES()
     {
     }
+
+    /**
+     * Return the AES engine to use, the constant time bitsliced one if
+     * "org.spongycastle.aes.bitsliced" is set to true.
+     */
+    private static BlockCipher createEngine()
+    {
+        if (Properties.isOverrideSet("org.spongycastle.aes.bitsliced"))
+        {
+            return new AESBitslicedEngine();
+        }
+
+        return new AESEngine();
+    }
     
     public static class ECB
         extends BaseBlockCipher
@@ -62,7 +78,7 @@ public ECB()
             {
                 public BlockCipher get()
                 {
-                    return new AESEngine();
+                    return createEngine();
                 }
             });
         }
@@ -73,7 +89,7 @@ public BlockCipher get()
     {
         public CBC()
         {
-            super(new CBCBlockCipher(new AESEngine()), 128);
+            super(new CBCBlockCipher(createEngine()), 128);
         }
     }
 
@@ -82,7 +98,7 @@ public CBC()
     {
         public CFB()
         {
-            super(new BufferedBlockCipher(new CFBBlockCipher(new AESEngine(), 128)), 128);
+            super(new BufferedBlockCipher(new CFBBlockCipher(createEngine(), 128)), 128);
         }
     }
 
@@ -91,7 +107,7 @@ public CFB()
     {
         public OFB()
         {
-            super(new BufferedBlockCipher(new OFBBlockCipher(new AESEngine(), 128)), 128);
+            super(new BufferedBlockCipher(new OFBBlockCipher(createEngine(), 128)), 128);
         }
     }
 
@@ -100,7 +116,7 @@ public OFB()
     {
         public GCM()
         {
-            super(new GCMBlockCipher(new AESEngine()));
+            super(new GCMBlockCipher(createEngine()));
         }
     }
 
@@ -109,7 +125,7 @@ public GCM()
     {
         public CCM()
         {
-            super(new CCMBlockCipher(new AESEngine()), false, 16);
+            super(new CCMBlockCipher(createEngine()), false, 16);
         }
     }
 
@@ -118,7 +134,7 @@ public CCM()
     {
         public AESCMAC()
         {
-            super(new CMac(new AESEngine()));
+            super(new CMac(createEngine()));
         }
     }
 
@@ -127,7 +143,7 @@ public AESCMAC()
     {
         public AESGMAC()
         {
-            super(new GMac(new GCMBlockCipher(new AESEngine())));
+            super(new GMac(new GCMBlockCipher(createEngine())));
         }
     }
 
@@ -142,7 +158,7 @@ public AESCCMMAC()
         private static class CCMMac
             implements Mac
         {
-            private final CCMBlockCipher ccm = new CCMBlockCipher(new AESEngine());
+            private final CCMBlockCipher ccm = new CCMBlockCipher(createEngine());
 
             private int macLength = 8;
 
@@ -210,7 +226,7 @@ public KeyFactory()
     {
         public Poly1305()
         {
-            super(new org.spongycastle.crypto.macs.Poly1305(new AESEngine()));
+            super(new org.spongycastle.crypto.macs.Poly1305(createEngine()));
         }
     }
 
@@ -237,7 +253,7 @@ public Wrap()
     {
         public RFC3211Wrap()
         {
-            super(new RFC3211WrapEngine(new AESEngine()), 16);
+            super(new RFC3211WrapEngine(createEngine()), 16);
         }
     }
 
@@ -246,7 +262,7 @@ public RFC3211Wrap()
     {
         public RFC5649Wrap()
         {
-            super(new RFC5649WrapEngine(new AESEngine()));
+            super(new RFC5649WrapEngine(createEngine()));
         }
     }
 
@@ -258,7 +274,7 @@ public RFC5649Wrap()
     {
         public PBEWithAESCBC()
         {
-            super(new CBCBlockCipher(new AESEngine()));
+            super(new CBCBlockCipher(createEngine()));
         }
     }
 
@@ -270,7 +286,7 @@ public PBEWithAESCBC()
     {
         public PBEWithSHA1AESCBC128()
         {
-            super(new CBCBlockCipher(new AESEngine()), PKCS12, SHA1, 128, 16);
+            super(new CBCBlockCipher(createEngine()), PKCS12, SHA1, 128, 16);
         }
     }
 
@@ -279,7 +295,7 @@ public PBEWithSHA1AESCBC128()
     {
         public PBEWithSHA1AESCBC192()
         {
-            super(new CBCBlockCipher(new AESEngine()), PKCS12, SHA1, 192, 16);
+            super(new CBCBlockCipher(createEngine()), PKCS12, SHA1, 192, 16);
         }
     }
 
@@ -288,7 +304,7 @@ public PBEWithSHA1AESCBC192()
     {
         public PBEWithSHA1AESCBC256()
         {
-            super(new CBCBlockCipher(new AESEngine()), PKCS12, SHA1, 256, 16);
+            super(new CBCBlockCipher(createEngine()), PKCS12, SHA1, 256, 16);
         }
     }
 
@@ -300,7 +316,7 @@ public PBEWithSHA1AESCBC256()
     {
         public PBEWithSHA256AESCBC128()
         {
-            super(new CBCBlockCipher(new AESEngine()), PKCS12, SHA256, 128, 16);
+            super(new CBCBlockCipher(createEngine()), PKCS12, SHA256, 128, 16);
         }
     }
 
@@ -309,7 +325,7 @@ public PBEWithSHA256AESCBC128()
     {
         public PBEWithSHA256AESCBC192()
         {
-            super(new CBCBlockCipher(new AESEngine()), PKCS12, SHA256, 192, 16);
+            super(new CBCBlockCipher(createEngine()), PKCS12, SHA256, 192, 16);
         }
     }
 
@@ -318,7 +334,7 @@ public PBEWithSHA256AESCBC192()
     {
         public PBEWithSHA256AESCBC256()
         {
-            super(new CBCBlockCipher(new AESEngine()), PKCS12, SHA256, 256, 16);
+            super(new CBCBlockCipher(createEngine()), PKCS12, SHA256, 256, 16);
         }
     }
 
@@ -32,6 +32,7 @@
 import org.spongycastle.crypto.InvalidCipherTextException;
 import org.spongycastle.crypto.OutputLengthException;
 import org.spongycastle.crypto.modes.AEADBlockCipher;
+import org.spongycastle.crypto.modes.ByteBufferAEADBlockCipher;
 import org.spongycastle.crypto.modes.CBCBlockCipher;
 import org.spongycastle.crypto.modes.CCMBlockCipher;
 import org.spongycastle.crypto.modes.CFBBlockCipher;
@@ -59,6 +60,7 @@
 import org.spongycastle.crypto.params.ParametersWithSBox;
 import org.spongycastle.crypto.params.RC2Parameters;
 import org.spongycastle.crypto.params.RC5Parameters;
+import org.spongycastle.crypto.util.ByteBuffers;
 import org.spongycastle.jcajce.PBKDF1Key;
 import org.spongycastle.jcajce.PBKDF1KeyWithParameters;
 import org.spongycastle.jcajce.PKCS12Key;
@@ -66,6 +68,7 @@
 import org.spongycastle.jcajce.spec.AEADParameterSpec;
 import org.spongycastle.jcajce.spec.GOST28147ParameterSpec;
 import org.spongycastle.jcajce.spec.RepeatedSecretKeySpec;
+import org.spongycastle.util.Arrays;
 import org.spongycastle.util.Strings;
 
 public class BaseBlockCipher
@@ -968,9 +971,7 @@ protected void engineUpdateAAD(byte[] input, int offset, int length)
 
     protected void engineUpdateAAD(ByteBuffer bytebuffer)
     {
-        int offset = bytebuffer.arrayOffset() + bytebuffer.position();
-        int length = bytebuffer.limit() - bytebuffer.position();
-        engineUpdateAAD(bytebuffer.array(), offset, length);
+        cipher.updateAAD(bytebuffer);
     }
 
     protected byte[] engineUpdate(
@@ -1031,6 +1032,32 @@ protected int engineUpdate(
         }
     }
 
+    protected int engineUpdate(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws ShortBufferException
+    {
+        if (!cipher.supportsByteBuffers())
+        {
+            return super.engineUpdate(input, output);
+        }
+
+        if (cipher.getUpdateOutputSize(input.remaining()) > output.remaining())
+        {
+            throw new ShortBufferException("output buffer too short for input.");
+        }
+
+        try
+        {
+            return cipher.processBytes(input, output);
+        }
+        catch (DataLengthException e)
+        {
+            // should never occur
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
     protected byte[] engineDoFinal(
         byte[]  input,
         int     inputOffset,
@@ -1100,6 +1127,53 @@ protected int engineDoFinal(
         }
     }
 
+    protected int engineDoFinal(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws IllegalBlockSizeException, BadPaddingException, ShortBufferException
+    {
+        if (!cipher.supportsByteBuffers())
+        {
+            return super.engineDoFinal(input, output);
+        }
+
+        if (engineGetOutputSize(input.remaining()) > output.remaining())
+        {
+            throw new ShortBufferException("output buffer too short for input.");
+        }
+
+        try
+        {
+            int len = cipher.processBytes(input, output);
+
+            if (output.hasArray())
+            {
+                int finalLen = cipher.doFinal(output.array(), output.arrayOffset() + output.position());
+
+                output.position(output.position() + finalLen);
+
+                return len + finalLen;
+            }
+
+            // only the last block and the tag are staged
+            byte[] tmp = new byte[cipher.getOutputSize(0)];
+            int finalLen = cipher.doFinal(tmp, 0);
+
+            output.put(tmp, 0, finalLen);
+            Arrays.fill(tmp, (byte)0);
+
+            return len + finalLen;
+        }
+        catch (OutputLengthException e)
+        {
+            throw new IllegalBlockSizeException(e.getMessage());
+        }
+        catch (DataLengthException e)
+        {
+            throw new IllegalBlockSizeException(e.getMessage());
+        }
+    }
+
     private boolean isAEADModeName(
         String modeName)
     {
@@ -1127,12 +1201,19 @@ public void init(boolean forEncryption, CipherParameters params)
 
         public void updateAAD(byte[] input, int offset, int length);
 
+        public void updateAAD(ByteBuffer input);
+
         public int processByte(byte in, byte[] out, int outOff)
             throws DataLengthException;
 
         public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff)
             throws DataLengthException;
 
+        public boolean supportsByteBuffers();
+
+        public int processBytes(ByteBuffer in, ByteBuffer out)
+            throws DataLengthException;
+
         public int doFinal(byte[] out, int outOff)
             throws IllegalStateException,
             BadPaddingException;
@@ -1194,6 +1275,11 @@ public void updateAAD(byte[] input, int offset, int length)
             throw new UnsupportedOperationException("AAD is not supported in the current mode.");
         }
 
+        public void updateAAD(ByteBuffer input)
+        {
+            throw new UnsupportedOperationException("AAD is not supported in the current mode.");
+        }
+
         public int processByte(byte in, byte[] out, int outOff) throws DataLengthException
         {
             return cipher.processByte(in, out, outOff);
@@ -1204,6 +1290,16 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) t
             return cipher.processBytes(in, inOff, len, out, outOff);
         }
 
+        public boolean supportsByteBuffers()
+        {
+            return false;
+        }
+
+        public int processBytes(ByteBuffer in, ByteBuffer out) throws DataLengthException
+        {
+            throw new UnsupportedOperationException("ByteBuffers are not supported in the current mode.");
+        }
+
         public int doFinal(byte[] out, int outOff) throws IllegalStateException, BadPaddingException
         {
             try
@@ -1289,6 +1385,11 @@ public void updateAAD(byte[] input, int offset, int length)
             cipher.processAADBytes(input, offset, length);
         }
 
+        public void updateAAD(ByteBuffer input)
+        {
+            ByteBuffers.processAADBytes(cipher, input);
+        }
+
         public int processByte(byte in, byte[] out, int outOff) throws DataLengthException
         {
             return cipher.processByte(in, out, outOff);
@@ -1299,6 +1400,16 @@ public int processBytes(byte[] in, int inOff, int len, byte[] out, int outOff) t
             return cipher.processBytes(in, inOff, len, out, outOff);
         }
 
+        public boolean supportsByteBuffers()
+        {
+            return cipher instanceof ByteBufferAEADBlockCipher;
+        }
+
+        public int processBytes(ByteBuffer in, ByteBuffer out) throws DataLengthException
+        {
+            return ByteBuffers.processBytes(cipher, in, out);
+        }
+
         public int doFinal(byte[] out, int outOff) throws IllegalStateException, BadPaddingException
         {
             try
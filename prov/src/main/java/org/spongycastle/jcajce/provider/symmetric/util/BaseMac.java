@@ -1,6 +1,7 @@
 package org.spongycastle.jcajce.provider.symmetric.util;
 
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -23,6 +24,7 @@
 import org.spongycastle.crypto.params.ParametersWithIV;
 import org.spongycastle.crypto.params.RC2Parameters;
 import org.spongycastle.crypto.params.SkeinParameters;
+import org.spongycastle.crypto.util.ByteBuffers;
 import org.spongycastle.jcajce.PKCS12Key;
 import org.spongycastle.jcajce.spec.AEADParameterSpec;
 import org.spongycastle.jcajce.spec.SkeinParameterSpec;
@@ -222,6 +224,12 @@ protected void engineUpdate(
         macEngine.update(input, offset, len);
     }
 
+    protected void engineUpdate(
+        ByteBuffer input)
+    {
+        ByteBuffers.update(macEngine, input);
+    }
+
     protected byte[] engineDoFinal() 
     {
         byte[]  out = new byte[engineGetMacLength()];
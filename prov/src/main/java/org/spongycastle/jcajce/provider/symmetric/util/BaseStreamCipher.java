@@ -1,5 +1,6 @@
 package org.spongycastle.jcajce.provider.symmetric.util;
 
+import java.nio.ByteBuffer;
 import java.security.AlgorithmParameters;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -22,6 +23,7 @@
 import org.spongycastle.crypto.StreamCipher;
 import org.spongycastle.crypto.params.KeyParameter;
 import org.spongycastle.crypto.params.ParametersWithIV;
+import org.spongycastle.crypto.util.ByteBuffers;
 import org.spongycastle.jcajce.PKCS12Key;
 import org.spongycastle.jcajce.PKCS12KeyWithParameters;
 
@@ -356,6 +358,27 @@ protected int engineUpdate(
         }
     }
 
+    protected int engineUpdate(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws ShortBufferException
+    {
+        if (output.remaining() < input.remaining())
+        {
+            throw new ShortBufferException("output buffer too short for input.");
+        }
+
+        try
+        {
+            return ByteBuffers.processBytes(cipher, input, output);
+        }
+        catch (DataLengthException e)
+        {
+            // should never happen
+            throw new IllegalStateException(e.getMessage());
+        }
+    }
+
     protected byte[] engineDoFinal(
         byte[]  input,
         int     inputOffset,
@@ -397,4 +420,16 @@ protected int engineDoFinal(
         
         return inputLen;
     }
+
+    protected int engineDoFinal(
+        ByteBuffer  input,
+        ByteBuffer  output)
+        throws ShortBufferException
+    {
+        int len = engineUpdate(input, output);
+
+        cipher.reset();
+
+        return len;
+    }
 }
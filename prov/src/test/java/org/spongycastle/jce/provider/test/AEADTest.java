@@ -1,6 +1,7 @@
 package org.spongycastle.jce.provider.test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.security.AlgorithmParameters;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
@@ -68,6 +69,7 @@ public void performTest() throws Exception
             testGCMGeneric(KGCM, NGCM, new byte[0], new byte[0], CGCM);
             testGCMParameterSpecWithMultipleUpdates(K2, N2, A2, P2, C2);
             testRepeatedGCMWithSpec(KGCM, NGCM, A2, P2, Hex.decode("f4732d84342623f65b7d63c3c335dd44b87d"));
+            testGCMByteBuffers(K2, N2, A2);
         }
         else
         {
@@ -313,6 +315,91 @@ private void testGCMParameterSpecWithMultipleUpdates(byte[] K,
         }
     }
 
+    private void testGCMByteBuffers(byte[] K,
+                                    byte[] N,
+                                    byte[] A)
+        throws Exception
+    {
+        Cipher gcm = Cipher.getInstance("AES/GCM/NoPadding", "SC");
+        SecretKeySpec key = new SecretKeySpec(K, "AES");
+        GCMParameterSpec spec = new GCMParameterSpec(128, N);
+
+        byte[] message = new byte[1000];
+        new SecureRandom().nextBytes(message);
+
+        gcm.init(Cipher.ENCRYPT_MODE, key, spec);
+        gcm.updateAAD(A);
+        byte[] expected = gcm.doFinal(message);
+
+        boolean[] direct = { true, false };
+        for (int i = 0; i != direct.length; i++)
+        {
+            ByteBuffer in = allocate(direct[i], message.length);
+            ByteBuffer out = allocate(direct[i], expected.length);
+            in.put(message).flip();
+
+            // a fresh cipher, as the nonce can't be reused for encryption
+            gcm = Cipher.getInstance("AES/GCM/NoPadding", "SC");
+            gcm.init(Cipher.ENCRYPT_MODE, key, spec);
+            gcm.updateAAD(A);
+            in.limit(333);
+            int len = gcm.update(in, out);
+            in.limit(message.length);
+            len += gcm.doFinal(in, out);
+
+            byte[] enc = new byte[len];
+            out.flip();
+            out.get(enc);
+            if (!Arrays.areEqual(expected, enc))
+            {
+                fail("ByteBuffer encryption mismatch, direct = " + direct[i]);
+            }
+
+            // decrypt in pieces, so the tag bytes held back are carried between updates
+            in = allocate(direct[i], enc.length);
+            out = allocate(direct[i], message.length);
+            in.put(enc).flip();
+
+            gcm.init(Cipher.DECRYPT_MODE, key, spec);
+            gcm.updateAAD(A);
+            in.limit(500);
+            len = gcm.update(in, out);
+            in.limit(700);
+            len += gcm.update(in, out);
+            in.limit(enc.length);
+            len += gcm.doFinal(in, out);
+
+            byte[] dec = new byte[len];
+            out.flip();
+            out.get(dec);
+            if (!Arrays.areEqual(message, dec))
+            {
+                fail("ByteBuffer decryption mismatch, direct = " + direct[i]);
+            }
+
+            enc[enc.length - 1] ^= 1;
+            in.clear();
+            in.put(enc).flip();
+            out.clear();
+
+            gcm.init(Cipher.DECRYPT_MODE, key, spec);
+            gcm.updateAAD(A);
+            try
+            {
+                gcm.doFinal(in, out);
+                fail("tampered tag accepted, direct = " + direct[i]);
+            }
+            catch (BadPaddingException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    private static ByteBuffer allocate(boolean direct, int size)
+    {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
 
     private void testGCMParameterSpecWithRepeatKey(byte[] K,
                                                    byte[] N,
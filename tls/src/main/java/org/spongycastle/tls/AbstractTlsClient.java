@@ -141,7 +141,7 @@ public Hashtable getClientExtensions()
              * TODO Could just add all the curves since we support them all, but users may not want
              * to use unnecessarily large fields. Need configuration options.
              */
-            this.namedCurves = new int[]{ NamedCurve.secp256r1, NamedCurve.secp384r1 };
+            this.namedCurves = new int[]{ NamedCurve.x25519, NamedCurve.secp256r1, NamedCurve.secp384r1 };
             this.clientECPointFormats = new short[]{ ECPointFormat.uncompressed,
                 ECPointFormat.ansiX962_compressed_prime, ECPointFormat.ansiX962_compressed_char2, };
 
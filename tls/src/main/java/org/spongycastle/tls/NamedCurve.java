@@ -19,7 +19,7 @@
         "sect193r2", "sect233k1", "sect233r1", "sect239k1", "sect283k1", "sect283r1", "sect409k1", "sect409r1",
         "sect571k1", "sect571r1", "secp160k1", "secp160r1", "secp160r2", "secp192k1", "secp192r1", "secp224k1",
         "secp224r1", "secp256k1", "secp256r1", "secp384r1", "secp521r1",
-        "brainpoolP256r1", "brainpoolP384r1", "brainpoolP512r1"};
+        "brainpoolP256r1", "brainpoolP384r1", "brainpoolP512r1", "x25519"};
 
     public static final int sect163k1 = 1;
     public static final int sect163r1 = 2;
@@ -54,6 +54,11 @@
     public static final int brainpoolP384r1 = 27;
     public static final int brainpoolP512r1 = 28;
 
+    /*
+     * RFC 8422
+     */
+    public static final int x25519 = 29;
+
     /*
      * reserved (0xFE00..0xFEFF)
      */
@@ -68,7 +73,7 @@
     {
         Set<Integer> curves = new HashSet<Integer>();
 
-        for (int i = 0; i <= 28; i++)
+        for (int i = 0; i <= x25519; i++)
         {
             curves.add(i);
         }
@@ -130,6 +135,7 @@ public static int getCurveBits(int namedCurve)
         case brainpoolP256r1:
         case secp256k1:
         case secp256r1:
+        case x25519:
             return 256;
 
         case sect283k1:
@@ -197,6 +203,15 @@ public static boolean isChar2(int namedCurve)
         return (namedCurve >= sect163k1 && namedCurve <= sect571r1);
     }
 
+    /**
+     * Return true for the curves of RFC 8422 whose public values are raw u-coordinates rather
+     * than ANSI X9.62 points, so point formats do not apply to them.
+     */
+    public static boolean isMontgomery(int namedCurve)
+    {
+        return namedCurve == x25519;
+    }
+
     public static boolean isPrime(int namedCurve)
     {
         return (namedCurve >= secp160k1 && namedCurve <= brainpoolP512r1);
@@ -204,7 +219,7 @@ public static boolean isPrime(int namedCurve)
 
     public static boolean isValid(int namedCurve)
     {
-        return (namedCurve >= sect163k1 && namedCurve <= brainpoolP512r1)
+        return (namedCurve >= sect163k1 && namedCurve <= x25519)
             || (namedCurve >= arbitrary_explicit_prime_curves && namedCurve <= arbitrary_explicit_char2_curves);
     }
 
@@ -217,6 +217,10 @@ public static short getCompressionFormat(int namedCurve) throws IOException
         {
             return ECPointFormat.ansiX962_compressed_char2;
         }
+        if (NamedCurve.isMontgomery(namedCurve))
+        {
+            return ECPointFormat.uncompressed;
+        }
         throw new TlsFatalAlert(AlertDescription.illegal_parameter);
     }
 
@@ -253,6 +257,19 @@ public static void checkPointEncoding(short[] localECPointFormats, int namedCurv
             throw new TlsFatalAlert(AlertDescription.illegal_parameter);
         }
 
+        if (NamedCurve.isMontgomery(namedCurve))
+        {
+            /*
+             * RFC 8422 5.4.1. For X25519 the public value is the 32 byte u-coordinate itself, with no
+             * format byte.
+             */
+            if (encoding.length != 32)
+            {
+                throw new TlsFatalAlert(AlertDescription.illegal_parameter);
+            }
+            return;
+        }
+
         short actualFormat = getActualFormat(namedCurve, encoding);
         checkActualFormat(localECPointFormats, actualFormat);
     }
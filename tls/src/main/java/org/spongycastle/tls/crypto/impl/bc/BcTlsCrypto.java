@@ -49,6 +49,7 @@
 import org.spongycastle.tls.EncryptionAlgorithm;
 import org.spongycastle.tls.HashAlgorithm;
 import org.spongycastle.tls.MACAlgorithm;
+import org.spongycastle.tls.NamedCurve;
 import org.spongycastle.tls.PRFAlgorithm;
 import org.spongycastle.tls.ProtocolVersion;
 import org.spongycastle.tls.SignatureAndHashAlgorithm;
@@ -205,6 +206,11 @@ public TlsDHDomain createDHDomain(TlsDHConfig dhConfig)
 
     public TlsECDomain createECDomain(TlsECConfig ecConfig)
     {
+        if (ecConfig.getNamedCurve() == NamedCurve.x25519)
+        {
+            return new BcX25519Domain(this);
+        }
+
         return new BcTlsECDomain(this, ecConfig);
     }
 
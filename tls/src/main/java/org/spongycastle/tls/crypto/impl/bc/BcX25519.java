@@ -0,0 +1,60 @@
+package org.spongycastle.tls.crypto.impl.bc;
+
+import java.io.IOException;
+
+import org.spongycastle.math.ec.rfc7748.X25519;
+import org.spongycastle.tls.AlertDescription;
+import org.spongycastle.tls.TlsFatalAlert;
+import org.spongycastle.tls.crypto.TlsAgreement;
+import org.spongycastle.tls.crypto.TlsSecret;
+import org.spongycastle.util.Arrays;
+
+/**
+ * Support class for ephemeral X25519 using the BC light-weight library.
+ */
+public class BcX25519 implements TlsAgreement
+{
+    protected final BcX25519Domain domain;
+    protected final byte[] privateKey = new byte[X25519.SCALAR_SIZE];
+    protected byte[] peerPublicKey;
+
+    public BcX25519(BcX25519Domain domain)
+    {
+        this.domain = domain;
+    }
+
+    public byte[] generateEphemeral() throws IOException
+    {
+        X25519.generatePrivateKey(domain.getCrypto().getSecureRandom(), privateKey);
+
+        byte[] publicKey = new byte[X25519.POINT_SIZE];
+        X25519.generatePublicKey(privateKey, 0, publicKey, 0);
+        return publicKey;
+    }
+
+    public void receivePeerValue(byte[] peerValue) throws IOException
+    {
+        if (peerValue == null || peerValue.length != X25519.POINT_SIZE)
+        {
+            throw new TlsFatalAlert(AlertDescription.illegal_parameter);
+        }
+
+        this.peerPublicKey = Arrays.clone(peerValue);
+    }
+
+    public TlsSecret calculateSecret() throws IOException
+    {
+        byte[] secret = new byte[X25519.POINT_SIZE];
+
+        /*
+         * RFC 8422 5.11. With X25519, an all-zeroes result means the peer sent a point of small
+         * order, and the handshake must be aborted.
+         */
+        if (!X25519.calculateAgreement(privateKey, 0, peerPublicKey, 0, secret, 0))
+        {
+            throw new TlsFatalAlert(AlertDescription.handshake_failure);
+        }
+
+        return domain.getCrypto().adoptLocalSecret(secret);
+    }
+}
@@ -0,0 +1,27 @@
+package org.spongycastle.tls.crypto.impl.bc;
+
+import org.spongycastle.tls.crypto.TlsAgreement;
+import org.spongycastle.tls.crypto.TlsECDomain;
+
+/**
+ * EC domain for the RFC 8422 x25519 named curve, using the RFC 7748 X25519 function.
+ */
+public class BcX25519Domain implements TlsECDomain
+{
+    protected final BcTlsCrypto crypto;
+
+    public BcX25519Domain(BcTlsCrypto crypto)
+    {
+        this.crypto = crypto;
+    }
+
+    public BcTlsCrypto getCrypto()
+    {
+        return crypto;
+    }
+
+    public TlsAgreement createECDH()
+    {
+        return new BcX25519(this);
+    }
+}
@@ -15,6 +15,7 @@
 import org.spongycastle.tls.EncryptionAlgorithm;
 import org.spongycastle.tls.HashAlgorithm;
 import org.spongycastle.tls.MACAlgorithm;
+import org.spongycastle.tls.NamedCurve;
 import org.spongycastle.tls.ProtocolVersion;
 import org.spongycastle.tls.SignatureAndHashAlgorithm;
 import org.spongycastle.tls.TlsFatalAlert;
@@ -369,6 +370,11 @@ public TlsDHDomain createDHDomain(TlsDHConfig dhConfig)
 
     public TlsECDomain createECDomain(TlsECConfig ecConfig)
     {
+        if (ecConfig.getNamedCurve() == NamedCurve.x25519)
+        {
+            return new JceX25519Domain(this);
+        }
+
         return new JceTlsECDomain(this, ecConfig);
     }
 
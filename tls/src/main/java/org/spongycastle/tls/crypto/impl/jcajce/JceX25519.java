@@ -0,0 +1,61 @@
+package org.spongycastle.tls.crypto.impl.jcajce;
+
+import java.io.IOException;
+
+import org.spongycastle.math.ec.rfc7748.X25519;
+import org.spongycastle.tls.AlertDescription;
+import org.spongycastle.tls.TlsFatalAlert;
+import org.spongycastle.tls.crypto.TlsAgreement;
+import org.spongycastle.tls.crypto.TlsSecret;
+import org.spongycastle.util.Arrays;
+
+/**
+ * Support class for ephemeral X25519 for the JCE crypto. Not every provider offers X25519, so the
+ * agreement itself uses the light-weight X25519 function.
+ */
+public class JceX25519 implements TlsAgreement
+{
+    protected final JceX25519Domain domain;
+    protected final byte[] privateKey = new byte[X25519.SCALAR_SIZE];
+    protected byte[] peerPublicKey;
+
+    public JceX25519(JceX25519Domain domain)
+    {
+        this.domain = domain;
+    }
+
+    public byte[] generateEphemeral() throws IOException
+    {
+        X25519.generatePrivateKey(domain.getCrypto().getSecureRandom(), privateKey);
+
+        byte[] publicKey = new byte[X25519.POINT_SIZE];
+        X25519.generatePublicKey(privateKey, 0, publicKey, 0);
+        return publicKey;
+    }
+
+    public void receivePeerValue(byte[] peerValue) throws IOException
+    {
+        if (peerValue == null || peerValue.length != X25519.POINT_SIZE)
+        {
+            throw new TlsFatalAlert(AlertDescription.illegal_parameter);
+        }
+
+        this.peerPublicKey = Arrays.clone(peerValue);
+    }
+
+    public TlsSecret calculateSecret() throws IOException
+    {
+        byte[] secret = new byte[X25519.POINT_SIZE];
+
+        /*
+         * RFC 8422 5.11. With X25519, an all-zeroes result means the peer sent a point of small
+         * order, and the handshake must be aborted.
+         */
+        if (!X25519.calculateAgreement(privateKey, 0, peerPublicKey, 0, secret, 0))
+        {
+            throw new TlsFatalAlert(AlertDescription.handshake_failure);
+        }
+
+        return domain.getCrypto().adoptLocalSecret(secret);
+    }
+}
@@ -0,0 +1,27 @@
+package org.spongycastle.tls.crypto.impl.jcajce;
+
+import org.spongycastle.tls.crypto.TlsAgreement;
+import org.spongycastle.tls.crypto.TlsECDomain;
+
+/**
+ * EC domain for the RFC 8422 x25519 named curve, using the RFC 7748 X25519 function.
+ */
+public class JceX25519Domain implements TlsECDomain
+{
+    protected final JcaTlsCrypto crypto;
+
+    public JceX25519Domain(JcaTlsCrypto crypto)
+    {
+        this.crypto = crypto;
+    }
+
+    public JcaTlsCrypto getCrypto()
+    {
+        return crypto;
+    }
+
+    public TlsAgreement createECDH()
+    {
+        return new JceX25519(this);
+    }
+}